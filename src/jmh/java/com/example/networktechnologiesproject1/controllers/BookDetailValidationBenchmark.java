@@ -0,0 +1,57 @@
+package com.example.networktechnologiesproject1.controllers;
+
+import com.example.networktechnologiesproject1.entities.BookDetail;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures BookDetailsController.validateBookDetail, including the HEAD request on the cover image URL,
+ * against a local HTTP server standing in for the image host.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BookDetailValidationBenchmark {
+
+    private HttpServer imageHost;
+    private BookDetailsController controller;
+    private BookDetail bookDetail;
+
+    @Setup
+    public void setUp() throws Exception {
+        imageHost = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        imageHost.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        imageHost.start();
+
+        controller = new BookDetailsController(null, null, null, null);
+        bookDetail = new BookDetail();
+        bookDetail.setBookId(1);
+        bookDetail.setGenre("Fantasy");
+        bookDetail.setSummary("An epic tale of adventure...");
+        bookDetail.setCoverImageUrl("http://127.0.0.1:" + imageHost.getAddress().getPort() + "/book-cover.jpg");
+    }
+
+    @TearDown
+    public void tearDown() {
+        imageHost.stop(0);
+    }
+
+    @Benchmark
+    public BookDetail validateBookDetail() {
+        controller.validateBookDetail(bookDetail);
+        return bookDetail;
+    }
+}
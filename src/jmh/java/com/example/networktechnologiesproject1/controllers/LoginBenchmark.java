@@ -0,0 +1,135 @@
+package com.example.networktechnologiesproject1.controllers;
+
+import com.example.networktechnologiesproject1.NetworkTechnologiesProject1Application;
+import com.example.networktechnologiesproject1.entities.User;
+import com.example.networktechnologiesproject1.repositories.UserRepository;
+import com.example.networktechnologiesproject1.security.JWTTokenFilterBenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures authentication end to end on the full application: POST /login goes through the security filter
+ * chain, looks the user up in the database, verifies the password with the configured encoder on the password
+ * hashing executor and mints the token; the second benchmark then presents that token to an authenticated
+ * endpoint. The schema comes from the Flyway migrations. Rate limiting is off, since the login budget would
+ * reject the benchmark's single client after its burst.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LoginBenchmark {
+
+    private static final String PASSWORD = "correct horse battery staple";
+
+    @Param({"1000"})
+    public int users;
+
+    /**
+     * BCrypt work factor of the stored hashes; 10 is the application default.
+     */
+    @Param({"10"})
+    public int bcryptStrength;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(NetworkTechnologiesProject1Application.class)
+                .initializers(applicationContext -> applicationContext.getBeanFactory()
+                        .registerSingleton("benchmarkExcludeFilter", new RequestThreadingBenchmark.BenchmarkExcludeFilter()))
+                .properties(
+                        "spring.config.name=none",
+                        "server.port=0",
+                        "jwt.secret=" + JWTTokenFilterBenchmark.SECRET,
+                        "security.password.bcrypt-strength=" + bcryptStrength,
+                        "spring.datasource.url=jdbc:h2:mem:login;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=YEAR,USER;DB_CLOSE_DELAY=-1",
+                        "spring.datasource.driver-class-name=org.h2.Driver",
+                        "spring.jpa.database-platform=org.hibernate.dialect.MySQLDialect",
+                        "spring.jpa.hibernate.ddl-auto=validate",
+                        "spring.cache.type=caffeine",
+                        "library.rate-limit.enabled=false",
+                        "library.loan-events.directory=build/loan-events",
+                        "logging.level.root=WARN")
+                .run();
+
+        // Verifying costs the same whatever the salt, so one hash serves every user and setup stays fast
+        String hash = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+        List<User> batch = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            User user = new User();
+            user.setUsername(username(i));
+            user.setPassword(hash);
+            user.setRole("ROLE_USER");
+            user.setEmail(username(i) + "@example.com");
+            user.setName("Reader " + i);
+            batch.add(user);
+        }
+        context.getBean(UserRepository.class).saveAll(batch);
+
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://127.0.0.1:" + port;
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String login() throws Exception {
+        return login(username(ThreadLocalRandom.current().nextInt(users)));
+    }
+
+    @Benchmark
+    public int loginAndCallAuthenticatedEndpoint() throws Exception {
+        String token = login(username(ThreadLocalRandom.current().nextInt(users)));
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/user/current"))
+                .header("Authorization", "Bearer " + token)
+                .build();
+        return send(request).length();
+    }
+
+    private String login(String username) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"username\":\"" + username + "\",\"password\":\"" + PASSWORD + "\"}"))
+                .build();
+        return send(request);
+    }
+
+    private String send(HttpRequest request) throws Exception {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Unexpected status " + response.statusCode() + " from " + request.uri());
+        }
+        return response.body();
+    }
+
+    private static String username(int i) {
+        return "reader" + i;
+    }
+}
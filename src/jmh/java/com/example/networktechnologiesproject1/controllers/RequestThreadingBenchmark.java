@@ -0,0 +1,191 @@
+package com.example.networktechnologiesproject1.controllers;
+
+import com.example.networktechnologiesproject1.NetworkTechnologiesProject1Application;
+import com.example.networktechnologiesproject1.entities.Book;
+import com.example.networktechnologiesproject1.repositories.BookRepository;
+import com.example.networktechnologiesproject1.security.JWTTokenFilterBenchmark;
+import com.example.networktechnologiesproject1.security.JwtTokenProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.TypeExcludeFilter;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test comparing Tomcat's platform-thread pool with virtual-thread mode (application-virtual.properties).
+ * Many concurrent clients page through GET /book/getAll on the full application; every request holds a
+ * database connection for a simulated round trip, since the embedded H2 database answers in microseconds
+ * where MySQL would not. Throughput gives requests per millisecond and SampleTime the latency percentiles.
+ * Rate limiting is off, since all clients share one address and the list budget would reject them.
+ * Both modes get 20 connections; the virtual mode lets 16 callers use them at once, leaving the spare
+ * connections the concurrency limit requires for nested transactions.
+ * The virtual mode needs JDK 21 (./gradlew jmh -PjavaVersion=21).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(400)
+public class RequestThreadingBenchmark {
+
+    @Param({"platform", "virtual"})
+    public String threading;
+
+    @Param({"5"})
+    public int databaseLatencyMillis;
+
+    @Param({"1000"})
+    public int books;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+    private String authorization;
+
+    @Setup
+    public void setUp() {
+        boolean virtual = "virtual".equals(threading);
+        if (virtual && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("Virtual-thread mode needs JDK 21, running on " + Runtime.version());
+        }
+
+        context = new SpringApplicationBuilder(NetworkTechnologiesProject1Application.class)
+                .initializers(applicationContext -> {
+                    applicationContext.getBeanFactory().registerSingleton("benchmarkExcludeFilter", new BenchmarkExcludeFilter());
+                    applicationContext.getBeanFactory().addBeanPostProcessor(new DatabaseLatencyPostProcessor(databaseLatencyMillis));
+                })
+                .properties(
+                        "spring.config.name=none",
+                        "server.port=0",
+                        "jwt.secret=" + JWTTokenFilterBenchmark.SECRET,
+                        "spring.datasource.url=jdbc:h2:mem:threading;MODE=MySQL;NON_KEYWORDS=YEAR,USER;DB_CLOSE_DELAY=-1",
+                        "spring.datasource.driver-class-name=org.h2.Driver",
+                        "spring.datasource.hikari.maximum-pool-size=20",
+                        "spring.flyway.enabled=false",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.cache.type=caffeine",
+                        "spring.threads.virtual.enabled=" + virtual,
+                        // Below the pool size, as in application-virtual.properties; a limit equal to it fails at startup
+                        "library.datasource.max-concurrency=" + (virtual ? 16 : 0),
+                        "library.rate-limit.enabled=false",
+                        "library.loan-events.directory=build/loan-events",
+                        "logging.level.root=WARN")
+                .run();
+
+        List<Book> batch = new ArrayList<>(books);
+        for (int i = 0; i < books; i++) {
+            Book book = new Book();
+            book.setIsbn(String.format("978%010d", i));
+            book.setTitle("Title " + i);
+            book.setAuthor("Author " + i);
+            book.setPublisher("Publisher " + i);
+            book.setYear(2000L);
+            book.setAvailableCopies(3L);
+            batch.add(book);
+        }
+        context.getBean(BookRepository.class).saveAll(batch);
+
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://127.0.0.1:" + port + "/book/getAll?size=20&after=";
+        authorization = "Bearer " + context.getBean(JwtTokenProvider.class).createToken(
+                new User("librarian", "unused", Collections.singletonList(new SimpleGrantedAuthority("ROLE_STAFF"))));
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int getBookPage() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + ThreadLocalRandom.current().nextInt(books)))
+                .header("Authorization", authorization)
+                .build();
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Unexpected status " + response.statusCode());
+        }
+        return response.body().length;
+    }
+
+    /**
+     * Keeps the other benchmarks' Spring configurations out of the application's component scan.
+     */
+    static final class BenchmarkExcludeFilter extends TypeExcludeFilter {
+
+        @Override
+        public boolean match(MetadataReader metadataReader, MetadataReaderFactory metadataReaderFactory) {
+            return metadataReader.getClassMetadata().getClassName().contains("Benchmark");
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof BenchmarkExcludeFilter;
+        }
+
+        @Override
+        public int hashCode() {
+            return BenchmarkExcludeFilter.class.hashCode();
+        }
+    }
+
+    /**
+     * Wraps the pooled DataSource (inside any concurrency limit) so each borrowed connection is held for a
+     * simulated database round trip.
+     */
+    static final class DatabaseLatencyPostProcessor implements BeanPostProcessor {
+
+        private final int latencyMillis;
+
+        DatabaseLatencyPostProcessor(int latencyMillis) {
+            this.latencyMillis = latencyMillis;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (latencyMillis <= 0 || !(bean instanceof DataSource dataSource)) {
+                return bean;
+            }
+            return new DelegatingDataSource(dataSource) {
+                @Override
+                public Connection getConnection() throws SQLException {
+                    Connection connection = super.getConnection();
+                    try {
+                        Thread.sleep(latencyMillis);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return connection;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.networktechnologiesproject1.dataTransferObjects;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares the encode cost of the /book/getAll and /loan/getAll payloads in each supported response format,
+ * with and without gzip. The payload size of every combination is printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResponseFormatBenchmark {
+
+    @Param({"json", "smile", "cbor"})
+    public String format;
+
+    @Param({"50", "500"})
+    public int size;
+
+    private ObjectWriter writer;
+    private List<BookDTO> books;
+    private List<LoanDTO> loans;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper mapper = switch (format) {
+            case "smile" -> new ObjectMapper(new SmileFactory());
+            case "cbor" -> new ObjectMapper(new CBORFactory());
+            default -> new ObjectMapper();
+        };
+        writer = mapper.writer();
+        books = new ArrayList<>(size);
+        loans = new ArrayList<>(size);
+        long now = System.currentTimeMillis();
+
+        for (int i = 1; i <= size; i++) {
+            books.add(new BookDTO(i, String.format("978%010d", i), "Title " + i, "Author " + i, "Publisher " + i,
+                    2000L + i % 24, (long) (i % 5)));
+            loans.add(new LoanDTO(i, i, i % 100, new Date(now - i * 60_000L), new Date(now + i * 60_000L),
+                    i % 3 == 0 ? new Date(now) : null));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void printPayloadSizes() throws IOException {
+        System.out.printf("%n%s, %d rows: books %d bytes (%d gzipped), loans %d bytes (%d gzipped)%n", format, size,
+                writer.writeValueAsBytes(books).length, encodeGzipped(books).length,
+                writer.writeValueAsBytes(loans).length, encodeGzipped(loans).length);
+    }
+
+    @Benchmark
+    public byte[] encodeBooks() throws IOException {
+        return writer.writeValueAsBytes(books);
+    }
+
+    @Benchmark
+    public byte[] encodeBooksGzipped() throws IOException {
+        return encodeGzipped(books);
+    }
+
+    @Benchmark
+    public byte[] encodeLoans() throws IOException {
+        return writer.writeValueAsBytes(loans);
+    }
+
+    @Benchmark
+    public byte[] encodeLoansGzipped() throws IOException {
+        return encodeGzipped(loans);
+    }
+
+    private byte[] encodeGzipped(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            writer.writeValue(gzip, value);
+        }
+        return bytes.toByteArray();
+    }
+}
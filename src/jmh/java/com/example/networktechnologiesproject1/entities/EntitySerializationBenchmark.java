@@ -0,0 +1,87 @@
+package com.example.networktechnologiesproject1.entities;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Jackson serialization of the entity lists returned by the getAll endpoints.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EntitySerializationBenchmark {
+
+    @Param({"50", "500"})
+    public int size;
+
+    private ObjectWriter writer;
+    private List<Book> books;
+    private List<Loan> loans;
+    private List<Review> reviews;
+
+    @Setup
+    public void setUp() {
+        writer = new ObjectMapper().writer();
+        books = new ArrayList<>(size);
+        loans = new ArrayList<>(size);
+        reviews = new ArrayList<>(size);
+        Date now = new Date();
+
+        for (int i = 1; i <= size; i++) {
+            Book book = new Book();
+            book.setBookId(i);
+            book.setIsbn(String.format("978%010d", i));
+            book.setTitle("Title " + i);
+            book.setAuthor("Author " + i);
+            book.setPublisher("Publisher " + i);
+            book.setYear(2000L + i % 24);
+            book.setAvailableCopies((long) (i % 5));
+            books.add(book);
+
+            Loan loan = new Loan();
+            loan.setLoanId(i);
+            loan.setBookId(i);
+            loan.setUserId(i % 100);
+            loan.setLoanDate(now);
+            loan.setDueDate(now);
+            loans.add(loan);
+
+            Review review = new Review();
+            review.setReviewId(i);
+            review.setBookId(i);
+            review.setUserId(i % 100);
+            review.setRating((double) (i % 5 + 1));
+            review.setComment("An enthralling journey from start to finish.");
+            review.setReviewDate(now);
+            reviews.add(review);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeBooks() throws Exception {
+        return writer.writeValueAsBytes(books);
+    }
+
+    @Benchmark
+    public byte[] serializeLoans() throws Exception {
+        return writer.writeValueAsBytes(loans);
+    }
+
+    @Benchmark
+    public byte[] serializeReviews() throws Exception {
+        return writer.writeValueAsBytes(reviews);
+    }
+}
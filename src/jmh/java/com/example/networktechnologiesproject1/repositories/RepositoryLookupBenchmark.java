@@ -0,0 +1,161 @@
+package com.example.networktechnologiesproject1.repositories;
+
+import com.example.networktechnologiesproject1.entities.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the derived-query lookups of the repositories against an embedded H2 database in MySQL mode.
+ * The schema comes from the Flyway migrations, so the lookups use the production indexes, and the loan table is
+ * seeded with a history per user of which a fraction is still open.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RepositoryLookupBenchmark {
+
+    @Param({"10000"})
+    public int books;
+
+    @Param({"2000"})
+    public int users;
+
+    @Param({"50"})
+    public int loansPerUser;
+
+    /**
+     * Share of the loans that are not returned yet.
+     */
+    @Param({"0.1"})
+    public double openShare;
+
+    private static final int LOAN_BATCH_SIZE = 5000;
+
+    private ConfigurableApplicationContext context;
+    private BookRepository bookRepository;
+    private LoanRepository loanRepository;
+    private int[] bookIds;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(RepositoryConfiguration.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.config.name=none",
+                        "spring.datasource.url=jdbc:h2:mem:bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=YEAR,USER;DB_CLOSE_DELAY=-1",
+                        "spring.datasource.driver-class-name=org.h2.Driver",
+                        "spring.jpa.database-platform=org.hibernate.dialect.MySQLDialect",
+                        "spring.jpa.hibernate.ddl-auto=validate",
+                        "spring.jpa.open-in-view=false",
+                        "logging.level.root=WARN")
+                .run();
+        bookRepository = context.getBean(BookRepository.class);
+        loanRepository = context.getBean(LoanRepository.class);
+
+        List<Book> batch = new ArrayList<>(books);
+        for (int i = 0; i < books; i++) {
+            Book book = new Book();
+            book.setIsbn(isbn(i));
+            book.setTitle("Title " + i);
+            book.setAuthor("Author " + i);
+            book.setPublisher("Publisher " + i);
+            book.setYear(2000L);
+            book.setAvailableCopies(3L);
+            batch.add(book);
+        }
+        bookIds = new int[books];
+        int i = 0;
+        for (Book book : bookRepository.saveAll(batch)) {
+            bookIds[i++] = book.getBookId();
+        }
+        seedLoans(context.getBean(JdbcTemplate.class));
+    }
+
+    /**
+     * Inserts loansPerUser loans for each user, spread over the last year, with plain JDBC batches since loan IDs
+     * are generated by identity and Hibernate would insert them one by one.
+     */
+    private void seedLoans(JdbcTemplate jdbcTemplate) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long now = System.currentTimeMillis();
+        long day = TimeUnit.DAYS.toMillis(1);
+        List<Object[]> batch = new ArrayList<>(LOAN_BATCH_SIZE);
+        for (int user = 1; user <= users; user++) {
+            for (int loan = 0; loan < loansPerUser; loan++) {
+                long loanDate = now - random.nextLong(365 * day);
+                boolean open = random.nextDouble() < openShare;
+                batch.add(new Object[]{
+                        bookIds[random.nextInt(books)],
+                        user,
+                        new Timestamp(loanDate),
+                        new Timestamp(loanDate + 14 * day),
+                        open ? null : new Timestamp(loanDate + random.nextLong(1, 21) * day)});
+                if (batch.size() == LOAN_BATCH_SIZE) {
+                    insertLoans(jdbcTemplate, batch);
+                }
+            }
+        }
+        insertLoans(jdbcTemplate, batch);
+    }
+
+    private static void insertLoans(JdbcTemplate jdbcTemplate, List<Object[]> batch) {
+        jdbcTemplate.batchUpdate("INSERT INTO loan (book_id, user_id, loan_date, due_date, return_date) VALUES (?, ?, ?, ?, ?)", batch);
+        batch.clear();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<Book> findByIsbn() {
+        return bookRepository.findByIsbn(isbn(ThreadLocalRandom.current().nextInt(books)));
+    }
+
+    @Benchmark
+    public boolean existsByBookIdAndReturnDateIsNull() {
+        return loanRepository.existsByBookIdAndReturnDateIsNull(bookIds[ThreadLocalRandom.current().nextInt(books)]);
+    }
+
+    @Benchmark
+    public long countByUserId() {
+        return loanRepository.countByUserId(ThreadLocalRandom.current().nextInt(users) + 1);
+    }
+
+    private static String isbn(int i) {
+        return String.format("978%010d", i);
+    }
+
+    /**
+     * Minimal context with only the JPA repositories and entities, without web or security configuration.
+     */
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @EntityScan(basePackageClasses = Book.class)
+    @EnableJpaRepositories(basePackageClasses = BookRepository.class)
+    static class RepositoryConfiguration {
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.networktechnologiesproject1.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of JWTTokenFilter per request with the verified-token cache disabled (cold)
+ * and with the token already cached (warm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JWTTokenFilterBenchmark {
+
+    public static final String SECRET = "gwc6DZs9Nq75n5psJCOmLQh/ZlU4OU27ul5WglzRtVQ=";
+
+    @Param({"cold", "warm"})
+    public String cache;
+
+    private JWTTokenFilter filter;
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setUp() throws Exception {
+        filter = new JWTTokenFilter(SECRET, "warm".equals(cache) ? JWTTokenFilter.DEFAULT_CACHE_SIZE : 0);
+
+        // Valid for JwtTokenProvider.TOKEN_VALIDITY_MILLIS, longer than a fork runs
+        String token = new JwtTokenProvider(SECRET).createToken(
+                new User("john_doe", "unused", List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+
+        request = new MockHttpServletRequest("GET", "/book/1");
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+    }
+
+    @Benchmark
+    public Object filterRequest() throws Exception {
+        // OncePerRequestFilter marks the request as filtered, so use a fresh attribute set each call
+        request.clearAttributes();
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        SecurityContextHolder.clearContext();
+        return principal;
+    }
+}
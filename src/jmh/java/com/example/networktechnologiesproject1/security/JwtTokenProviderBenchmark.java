@@ -0,0 +1,39 @@
+package com.example.networktechnologiesproject1.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures only the token minting step of LoginController.login; see LoginBenchmark for the whole login.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtTokenProviderBenchmark {
+
+    private JwtTokenProvider tokenProvider;
+    private UserDetails userDetails;
+
+    @Setup
+    public void setUp() {
+        tokenProvider = new JwtTokenProvider(JWTTokenFilterBenchmark.SECRET);
+        userDetails = new User("john_doe", "unused",
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")));
+    }
+
+    @Benchmark
+    public String createToken() {
+        return tokenProvider.createToken(userDetails);
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.networktechnologiesproject1.config;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resizes the primary HikariCP pool between library.datasource.pool.min-size and max-size, driven by the time
+ * callers waited for a connection (the hikaricp.connections.acquire timer) since the previous check.
+ * The pool grows by a quarter as soon as the mean wait exceeds target-acquire-time, and shrinks by one connection
+ * after quiet-checks checks in a row with short waits and at most half the connections in use; connections above
+ * spring.datasource.hikari.minimum-idle are then closed by the pool once idle-timeout passes.
+ * Resizes are counted in library.datasource.pool.resizes, the current size is hikaricp.connections.max.
+ * With a {@link ConcurrencyLimitingDataSource} in front of the pool the minimum is raised to one connection more
+ * than library.datasource.max-concurrency, the spare connection nested transactions rely on.
+ */
+@Component
+public class AdaptivePoolSizer {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptivePoolSizer.class);
+
+    static final String RESIZES_COUNTER = "library.datasource.pool.resizes";
+
+    private final HikariDataSource pool;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int minSize;
+    private final int maxSize;
+    private final long targetAcquireNanos;
+    private final int quietChecks;
+    private final Duration checkInterval;
+    private final Counter grown;
+    private final Counter shrunk;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "pool-sizer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private long lastAcquireCount;
+    private double lastAcquireNanos;
+    private int quietInARow;
+
+    @Autowired
+    public AdaptivePoolSizer(DataSource dataSource, MeterRegistry meterRegistry,
+                             @Value("${library.datasource.pool.adaptive:false}") boolean enabled,
+                             @Value("${library.datasource.pool.min-size:5}") int minSize,
+                             @Value("${library.datasource.pool.max-size:30}") int maxSize,
+                             @Value("${library.datasource.pool.target-acquire-time:5ms}") Duration targetAcquireTime,
+                             @Value("${library.datasource.pool.quiet-checks:6}") int quietChecks,
+                             @Value("${library.datasource.pool.check-interval:10s}") Duration checkInterval) {
+        this.pool = unwrap(dataSource);
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.minSize = Math.max(minSize, maxConcurrency(dataSource) + 1);
+        this.maxSize = Math.max(this.minSize, maxSize);
+        this.targetAcquireNanos = targetAcquireTime.toNanos();
+        this.quietChecks = quietChecks;
+        this.checkInterval = checkInterval;
+        this.grown = Counter.builder(RESIZES_COUNTER)
+                .description("Changes of the connection pool size made by the adaptive pool sizer")
+                .tag("direction", "grow")
+                .register(meterRegistry);
+        this.shrunk = Counter.builder(RESIZES_COUNTER)
+                .description("Changes of the connection pool size made by the adaptive pool sizer")
+                .tag("direction", "shrink")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled && pool != null) {
+            scheduler.scheduleWithFixedDelay(this::adjustQuietly, checkInterval.toMillis(), checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Compares the connection waits since the previous call with the target and applies the resulting pool size.
+     */
+    void adjust() {
+        HikariPoolMXBean poolBean = pool.getHikariPoolMXBean();
+        Timer acquire = meterRegistry.find("hikaricp.connections.acquire").tag("pool", pool.getPoolName()).timer();
+        if (poolBean == null || acquire == null) {
+            return;
+        }
+        long count = acquire.count();
+        double totalNanos = acquire.totalTime(TimeUnit.NANOSECONDS);
+        long acquired = count - lastAcquireCount;
+        double meanWaitNanos = acquired > 0 ? (totalNanos - lastAcquireNanos) / acquired : 0;
+        lastAcquireCount = count;
+        lastAcquireNanos = totalNanos;
+
+        HikariConfigMXBean config = pool.getHikariConfigMXBean();
+        int size = config.getMaximumPoolSize();
+        int next = nextSize(size, meanWaitNanos, acquired, poolBean.getThreadsAwaitingConnection(), poolBean.getActiveConnections());
+        if (next != size) {
+            config.setMaximumPoolSize(next);
+            (next > size ? grown : shrunk).increment();
+            logger.info("Resized connection pool {} from {} to {} connections (mean connection wait {} ms)",
+                    pool.getPoolName(), size, next, String.format("%.2f", meanWaitNanos / 1_000_000));
+        }
+    }
+
+    /**
+     * Decides the pool size for the next interval.
+     * @param size The current maximum pool size.
+     * @param meanWaitNanos The mean time callers waited for a connection during the last interval.
+     * @param acquired The number of connections handed out during the last interval.
+     * @param waiting The number of callers waiting for a connection right now.
+     * @param active The number of connections in use right now.
+     * @return The new maximum pool size, between the minimum and the configured maximum.
+     */
+    int nextSize(int size, double meanWaitNanos, long acquired, int waiting, int active) {
+        // A pool so starved that nobody got a connection during the interval reports no waits at all
+        boolean starved = acquired == 0 && waiting > 0;
+        if (meanWaitNanos > targetAcquireNanos || starved) {
+            quietInARow = 0;
+            return Math.max(minSize, Math.min(maxSize, size + Math.max(1, size / 4)));
+        }
+        if (meanWaitNanos <= targetAcquireNanos / 4.0 && waiting == 0 && active <= size / 2) {
+            quietInARow++;
+        } else {
+            quietInARow = 0;
+        }
+        if (quietInARow >= quietChecks) {
+            quietInARow = 0;
+            return Math.max(minSize, Math.min(maxSize, size - 1));
+        }
+        return Math.max(minSize, Math.min(maxSize, size));
+    }
+
+    private void adjustQuietly() {
+        try {
+            adjust();
+        } catch (Exception e) {
+            logger.warn("Failed to resize the connection pool, retrying in {}", checkInterval, e);
+        }
+    }
+
+    private static HikariDataSource unwrap(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class)
+                    ? dataSource.unwrap(HikariDataSource.class)
+                    : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the concurrency limit in front of the pool, or 0 if there is none.
+     */
+    private static int maxConcurrency(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(ConcurrencyLimitingDataSource.class)
+                    ? dataSource.unwrap(ConcurrencyLimitingDataSource.class).getMaxConcurrency()
+                    : 0;
+        } catch (SQLException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.networktechnologiesproject1.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Enables the in-process catalog cache. The caches themselves (Caffeine, size-bounded with a TTL)
+ * are configured through the spring.cache.* properties; hit, miss and eviction counts are published
+ * on the actuator metrics endpoint as cache.gets and cache.evictions.
+ * The cache manager is transaction-aware: puts, evictions and clears made inside a transaction are applied once it
+ * commits, and dropped if it rolls back, so a reader cannot re-cache a row before the change is visible.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfiguration {
+
+    /**
+     * Books by ID.
+     */
+    public static final String BOOKS = "books";
+
+    /**
+     * Book details by book ID.
+     */
+    public static final String BOOK_DETAILS = "bookDetails";
+
+    /**
+     * Loan counters by user ID.
+     */
+    public static final String USER_LOAN_STATS = "userLoanStats";
+
+    /**
+     * Defines the post processor wrapping the cache manager so its caches follow the current transaction.
+     */
+    @Bean
+    public static BeanPostProcessor transactionAwareCacheManagerPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof CacheManager cacheManager && !(bean instanceof TransactionAwareCacheManagerProxy)) {
+                    return new TransactionAwareCacheManagerProxy(cacheManager);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.networktechnologiesproject1.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DataSource limiting how many connections can be checked out at once.
+ * A caller takes a permit before borrowing a connection from the target pool and gives it back when the
+ * connection is closed, so an unbounded number of (virtual) request threads queue on a fair semaphore
+ * instead of all contending inside the connection pool.
+ * Permits are per thread: a thread already holding connections borrows more, e.g. for a nested REQUIRES_NEW
+ * transaction, without another permit, and gives its permit back when it closes the last of them. The pool must
+ * therefore have more connections than there are permits, so that such an extra connection is always available;
+ * a HikariCP target with maximumPoolSize &lt;= maxConcurrency is rejected.
+ */
+public class ConcurrencyLimitingDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    private final Semaphore permits;
+    /**
+     * Connections the current thread has open through this DataSource; the thread holds a permit while above zero.
+     */
+    private final ThreadLocal<AtomicInteger> openConnections = ThreadLocal.withInitial(AtomicInteger::new);
+    private final int maxConcurrency;
+    private final long acquireTimeoutMillis;
+
+    /**
+     * Constructor for ConcurrencyLimitingDataSource.
+     * @param target The pooled DataSource to guard.
+     * @param maxConcurrency The maximum number of connections checked out at once.
+     * @param acquireTimeout How long a caller waits for a permit before failing.
+     * @throws IllegalArgumentException If the target is a HikariCP pool with no more connections than permits.
+     */
+    public ConcurrencyLimitingDataSource(DataSource target, int maxConcurrency, Duration acquireTimeout) {
+        super(target);
+        int poolSize = maximumPoolSize(target);
+        if (poolSize > 0 && poolSize <= maxConcurrency) {
+            throw new IllegalArgumentException("The connection pool (" + poolSize + " connections) must be larger than "
+                    + DatabaseConcurrencyConfiguration.MAX_CONCURRENCY + " (" + maxConcurrency
+                    + "), or threads holding a permit can deadlock borrowing a nested connection");
+        }
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.maxConcurrency = maxConcurrency;
+        this.acquireTimeoutMillis = acquireTimeout.toMillis();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        AtomicInteger open = acquire();
+        try {
+            return releasingOnClose(super.getConnection(), open);
+        } catch (SQLException | RuntimeException e) {
+            release(open);
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        AtomicInteger open = acquire();
+        try {
+            return releasingOnClose(super.getConnection(username, password), open);
+        } catch (SQLException | RuntimeException e) {
+            release(open);
+            throw e;
+        }
+    }
+
+    /**
+     * Closes the target pool.
+     */
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    /**
+     * Returns the maximum number of connections checked out at once.
+     */
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Returns the number of permits currently free.
+     */
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    /**
+     * Returns an estimate of the number of callers waiting for a permit.
+     */
+    public int getWaitingCallers() {
+        return permits.getQueueLength();
+    }
+
+    /**
+     * Takes a permit unless the current thread already holds one.
+     * @return The current thread's count of open connections, already incremented.
+     */
+    private AtomicInteger acquire() throws SQLException {
+        AtomicInteger open = openConnections.get();
+        if (open.get() > 0) {
+            open.incrementAndGet();
+            return open;
+        }
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException("Timed out after " + acquireTimeoutMillis
+                        + "ms waiting for one of " + maxConcurrency + " database permits");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database permit", e);
+        }
+        open.incrementAndGet();
+        return open;
+    }
+
+    /**
+     * Counts a connection of a thread as closed, giving the permit back with the thread's last connection.
+     * @param open The count of open connections of the thread that borrowed the connection.
+     */
+    private void release(AtomicInteger open) {
+        if (open.decrementAndGet() == 0) {
+            permits.release();
+        }
+    }
+
+    private Connection releasingOnClose(Connection connection, AtomicInteger open) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new ReleasingConnectionHandler(connection, open));
+    }
+
+    private static int maximumPoolSize(DataSource target) {
+        try {
+            return target.isWrapperFor(HikariDataSource.class)
+                    ? target.unwrap(HikariDataSource.class).getMaximumPoolSize()
+                    : 0;
+        } catch (SQLException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Forwards every call to the pooled connection and counts it as closed on the first close().
+     */
+    private final class ReleasingConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+        private final AtomicInteger open;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        ReleasingConnectionHandler(Connection target, AtomicInteger open) {
+            this.target = target;
+            this.open = open;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            boolean close = "close".equals(method.getName()) && method.getParameterCount() == 0;
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            } finally {
+                if (close && released.compareAndSet(false, true)) {
+                    release(open);
+                }
+            }
+        }
+    }
+}
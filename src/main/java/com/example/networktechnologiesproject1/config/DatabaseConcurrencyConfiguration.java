@@ -0,0 +1,100 @@
+package com.example.networktechnologiesproject1.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * Puts a {@link ConcurrencyLimitingDataSource} in front of the connection pool when
+ * library.datasource.max-concurrency is set to a positive value (see application-virtual.properties); startup fails
+ * unless the limit is below the connection pool size.
+ * The number of callers waiting for a permit is published as library.datasource.permits.waiting.
+ */
+@Configuration
+public class DatabaseConcurrencyConfiguration {
+
+    static final String MAX_CONCURRENCY = "library.datasource.max-concurrency";
+    static final String ACQUIRE_TIMEOUT = "library.datasource.acquire-timeout";
+
+    /**
+     * Defines the post processor wrapping the DataSource bean when a limit is configured.
+     */
+    @Bean
+    public static BeanPostProcessor concurrencyLimitingDataSourcePostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                int maxConcurrency = environment.getProperty(MAX_CONCURRENCY, Integer.class, 0);
+                if (maxConcurrency <= 0 || !(bean instanceof DataSource dataSource) || bean instanceof ConcurrencyLimitingDataSource) {
+                    return bean;
+                }
+                Duration acquireTimeout = Binder.get(environment).bind(ACQUIRE_TIMEOUT, Duration.class).orElse(Duration.ofSeconds(30));
+                return new ConcurrencyLimitingDataSource(dataSource, maxConcurrency, acquireTimeout);
+            }
+        };
+    }
+
+    /**
+     * Defines the gauges for the database permits; no meters are registered when no limit is configured.
+     */
+    @Bean
+    public MeterBinder databasePermitMetrics(DataSource dataSource) {
+        return registry -> {
+            ConcurrencyLimitingDataSource limited = unwrap(dataSource);
+            if (limited == null) {
+                return;
+            }
+            Gauge.builder("library.datasource.permits.waiting", limited, ConcurrencyLimitingDataSource::getWaitingCallers)
+                    .description("Callers waiting for a database permit")
+                    .register(registry);
+            Gauge.builder("library.datasource.permits.available", limited, ConcurrencyLimitingDataSource::getAvailablePermits)
+                    .description("Database permits currently free")
+                    .register(registry);
+        };
+    }
+
+    /**
+     * Returns the number of callers currently waiting for a database connection: threads queued on the
+     * HikariCP pool plus, when a limit is configured, callers waiting for a permit. Used for load shedding.
+     * @param dataSource The application DataSource, possibly wrapped.
+     * @return The number of waiting callers; 0 before the pool has started.
+     */
+    public static int countWaitingCallers(DataSource dataSource) {
+        int waiting = 0;
+        ConcurrencyLimitingDataSource limited = unwrap(dataSource);
+        if (limited != null) {
+            waiting += limited.getWaitingCallers();
+        }
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                HikariPoolMXBean pool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+                if (pool != null) {
+                    waiting += pool.getThreadsAwaitingConnection();
+                }
+            }
+        } catch (SQLException e) {
+            // Not a HikariCP pool; only the permit queue counts
+        }
+        return waiting;
+    }
+
+    private static ConcurrencyLimitingDataSource unwrap(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(ConcurrencyLimitingDataSource.class)
+                    ? dataSource.unwrap(ConcurrencyLimitingDataSource.class)
+                    : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.networktechnologiesproject1.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Configuration class for the binary representations of the REST API.
+ * Clients sending Accept: application/cbor or application/x-jackson-smile receive the same DTOs encoded as CBOR
+ * or Smile, which are smaller and cheaper to encode than JSON text; JSON stays the default for other clients.
+ * Both mappers come from Spring Boot's Jackson2ObjectMapperBuilder, so they share the modules and spring.jackson.*
+ * settings of the JSON mapper, and they replace the converters Spring MVC would otherwise create with plain defaults.
+ */
+@Configuration
+public class MessageConverterConfiguration {
+
+    /**
+     * Defines the converter for application/cbor.
+     * @param builder A fresh Jackson2ObjectMapperBuilder (prototype bean) configured by Spring Boot.
+     * @return The CBOR converter.
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    /**
+     * Defines the converter for application/x-jackson-smile.
+     * @param builder A fresh Jackson2ObjectMapperBuilder (prototype bean) configured by Spring Boot.
+     * @return The Smile converter.
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.networktechnologiesproject1.config;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.http.server.observation.ServerRequestObservationConvention;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Metrics configuration. Request latency is recorded as http.server.requests and additionally tagged
+ * with the controller method that handled the request, so histograms can be broken down per endpoint
+ * handler (e.g. BookController.getAll). Repository timings (spring.data.repository.invocations),
+ * connection pool, cache and JVM metrics are provided by Spring Boot and scraped from /actuator/prometheus
+ * by the scrape user configured in SecurityConfig.
+ */
+@Configuration
+public class MetricsConfiguration {
+
+    static final String HANDLER_TAG = "handler";
+
+    /**
+     * Defines the observation convention adding the handler tag to http.server.requests.
+     */
+    @Bean
+    public ServerRequestObservationConvention handlerTaggingObservationConvention() {
+        return new DefaultServerRequestObservationConvention() {
+            @Override
+            public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+                return super.getLowCardinalityKeyValues(context).and(handler(context));
+            }
+        };
+    }
+
+    private static KeyValue handler(ServerRequestObservationContext context) {
+        Object handler = context.getCarrier().getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        if (handler instanceof HandlerMethod handlerMethod) {
+            return KeyValue.of(HANDLER_TAG, handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName());
+        }
+        return KeyValue.of(HANDLER_TAG, "none");
+    }
+}
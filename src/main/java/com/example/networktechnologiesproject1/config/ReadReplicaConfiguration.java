@@ -0,0 +1,88 @@
+package com.example.networktechnologiesproject1.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Puts a {@link ReplicaRoutingDataSource} in front of the connection pool when read replicas are configured under
+ * library.datasource.replicas[n] (url, username, password). Replica pools copy the primary's HikariCP settings and
+ * are read-only. Runs before the database concurrency limit, so the limit still covers every connection.
+ */
+@Configuration
+public class ReadReplicaConfiguration {
+
+    static final String REPLICAS = "library.datasource.replicas";
+    static final String MAX_LAG = "library.datasource.replica-max-lag";
+
+    /**
+     * Defines the post processor wrapping the DataSource bean when replicas are configured.
+     */
+    @Bean
+    public static BeanPostProcessor replicaRoutingDataSourcePostProcessor(Environment environment) {
+        return new ReplicaRoutingPostProcessor(environment);
+    }
+
+    static class ReplicaRoutingPostProcessor implements BeanPostProcessor, Ordered {
+
+        private final Environment environment;
+
+        ReplicaRoutingPostProcessor(Environment environment) {
+            this.environment = environment;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource primary) || bean instanceof ReplicaRoutingDataSource
+                    || bean instanceof ConcurrencyLimitingDataSource) {
+                return bean;
+            }
+            Binder binder = Binder.get(environment);
+            List<DataSourceProperties> replicaProperties = binder.bind(REPLICAS, Bindable.listOf(DataSourceProperties.class))
+                    .orElse(List.of());
+            if (replicaProperties.isEmpty()) {
+                return bean;
+            }
+            List<ReplicaRoutingDataSource.Replica> replicas = new ArrayList<>();
+            for (int i = 0; i < replicaProperties.size(); i++) {
+                String name = "replica-" + i;
+                replicas.add(new ReplicaRoutingDataSource.Replica(name, createReplicaPool(primary, replicaProperties.get(i), name)));
+            }
+            Duration maxLag = binder.bind(MAX_LAG, Duration.class).orElse(Duration.ofSeconds(5));
+            return new ReplicaRoutingDataSource(primary, replicas, maxLag);
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+
+    /**
+     * Creates a read-only pool for a replica with the primary pool's settings; it connects on first use.
+     */
+    private static HikariDataSource createReplicaPool(DataSource primary, DataSourceProperties properties, String name) {
+        HikariDataSource replica = new HikariDataSource();
+        if (primary instanceof HikariDataSource primaryPool) {
+            primaryPool.copyStateTo(replica);
+        }
+        replica.setJdbcUrl(properties.determineUrl());
+        replica.setUsername(properties.determineUsername());
+        replica.setPassword(properties.determinePassword());
+        replica.setDriverClassName(properties.determineDriverClassName());
+        replica.setPoolName(name);
+        replica.setReadOnly(true);
+        return replica;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.networktechnologiesproject1.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically measures the replication lag of the read replicas (see {@link ReplicaRoutingDataSource#checkReplicas()})
+ * and publishes it as library.datasource.replica.lag and library.datasource.replica.available, tagged by replica.
+ * Does nothing when no replicas are configured.
+ */
+@Component
+public class ReplicaLagMonitor implements MeterBinder {
+
+    private final ReplicaRoutingDataSource routingDataSource;
+    private final Duration checkInterval;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "replica-lag-monitor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public ReplicaLagMonitor(DataSource dataSource,
+                             @Value("${library.datasource.replica-check-interval:1s}") Duration checkInterval) {
+        this.routingDataSource = unwrap(dataSource);
+        this.checkInterval = checkInterval;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (routingDataSource != null) {
+            scheduler.scheduleWithFixedDelay(routingDataSource::checkReplicas, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (routingDataSource == null) {
+            return;
+        }
+        for (ReplicaRoutingDataSource.Replica replica : routingDataSource.getReplicas()) {
+            Gauge.builder("library.datasource.replica.lag", replica, ReplicaRoutingDataSource.Replica::getLagMillis)
+                    .description("Replication lag of the replica at the last check in milliseconds, -1 if unknown")
+                    .baseUnit("milliseconds")
+                    .tag("replica", replica.getName())
+                    .register(registry);
+            Gauge.builder("library.datasource.replica.available", replica, r -> r.isAvailable() ? 1 : 0)
+                    .description("Whether read-only transactions are sent to the replica")
+                    .tag("replica", replica.getName())
+                    .register(registry);
+        }
+        FunctionCounter.builder("library.datasource.replica.fallbacks", routingDataSource, ReplicaRoutingDataSource::getPrimaryFallbacks)
+                .description("Read-only connections taken from the primary because no replica was usable")
+                .register(registry);
+    }
+
+    private static ReplicaRoutingDataSource unwrap(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(ReplicaRoutingDataSource.class)
+                    ? dataSource.unwrap(ReplicaRoutingDataSource.class)
+                    : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+}
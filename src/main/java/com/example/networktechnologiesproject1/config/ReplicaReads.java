@@ -0,0 +1,41 @@
+package com.example.networktechnologiesproject1.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Marks the reads that may be served by a read replica (see {@link ReplicaRoutingDataSource}).
+ * Read-only transactions stay on the primary unless they run inside {@link #call}, so only callers that can show
+ * data a few seconds old opt in, such as the listing endpoints. The loan event outbox and reads that fill a cache
+ * never do: a stale row would be published again or cached until the next eviction.
+ */
+public final class ReplicaReads {
+
+    private static final ThreadLocal<Boolean> REPLICA_SAFE = ThreadLocal.withInitial(() -> false);
+
+    private ReplicaReads() {
+    }
+
+    /**
+     * Runs a read that may see a lagging replica.
+     * @param read The read; its read-only transactions may be routed to a replica.
+     * @return The result of the read.
+     */
+    public static <T> T call(Supplier<T> read) {
+        boolean outer = REPLICA_SAFE.get();
+        REPLICA_SAFE.set(true);
+        try {
+            return read.get();
+        } finally {
+            if (!outer) {
+                REPLICA_SAFE.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns whether the current thread is inside {@link #call}.
+     */
+    public static boolean isReplicaSafe() {
+        return REPLICA_SAFE.get();
+    }
+}
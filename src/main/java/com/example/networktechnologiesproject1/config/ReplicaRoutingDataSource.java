@@ -0,0 +1,185 @@
+package com.example.networktechnologiesproject1.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * DataSource sending replica-safe read-only transactions to read replicas and everything else to the primary.
+ * Connections are handed out lazily, so the physical connection is only chosen once the transaction manager has
+ * marked it read-only (as it does for @Transactional(readOnly = true), including Spring Data's findById/findAll).
+ * A read-only connection only comes from a replica inside {@link ReplicaReads#call}; other reads, such as outbox
+ * polling and cache fills, must see the latest commit and stay on the primary.
+ * Replicas are used round-robin while their replication lag, measured through the replication_heartbeat row the
+ * primary keeps updating, stays under the configured maximum; a lagging or unreachable replica is skipped, and
+ * with no usable replica reads fall back to the primary.
+ */
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private static final String READ_HEARTBEAT = "SELECT beat_at FROM replication_heartbeat WHERE id = 1";
+    private static final String WRITE_HEARTBEAT = "UPDATE replication_heartbeat SET beat_at = ? WHERE id = 1";
+
+    /**
+     * A read replica and its last measured state.
+     */
+    public static final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private volatile long lagMillis = -1;
+        private volatile boolean available;
+
+        public Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the replication lag seen at the last check, or -1 if it could not be measured.
+         */
+        public long getLagMillis() {
+            return lagMillis;
+        }
+
+        public boolean isAvailable() {
+            return available;
+        }
+    }
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final long maxLagMillis;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final AtomicLong primaryFallbacks = new AtomicLong();
+    private volatile long lastBeatMillis;
+
+    /**
+     * Constructor for ReplicaRoutingDataSource.
+     * @param primary The primary DataSource, used for writes and as the fallback for reads.
+     * @param replicas The read replicas; none is used before the first lag check.
+     * @param maxLag The replication lag above which a replica is skipped.
+     */
+    public ReplicaRoutingDataSource(DataSource primary, List<Replica> replicas, Duration maxLag) {
+        super(primary);
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.maxLagMillis = maxLag.toMillis();
+        setReadOnlyDataSource(new ReplicaSelector());
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * Returns how many read-only connections were taken from the primary because no replica was usable.
+     */
+    public long getPrimaryFallbacks() {
+        return primaryFallbacks.get();
+    }
+
+    /**
+     * Measures the lag of every replica, then writes a new heartbeat to the primary.
+     * A replica's lag is how far its heartbeat trails the one written at the previous check, so a replica that is
+     * fully caught up reports 0. Called periodically by ReplicaLagMonitor.
+     */
+    public void checkReplicas() {
+        long previousBeat = lastBeatMillis;
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection();
+                 PreparedStatement statement = connection.prepareStatement(READ_HEARTBEAT);
+                 ResultSet resultSet = statement.executeQuery()) {
+                Timestamp beat = resultSet.next() ? resultSet.getTimestamp(1) : null;
+                replica.lagMillis = beat == null || previousBeat == 0 ? -1 : Math.max(0, previousBeat - beat.getTime());
+            } catch (SQLException e) {
+                replica.lagMillis = -1;
+                logger.warn("Replication lag check of replica {} failed: {}", replica.name, e.getMessage());
+            }
+            boolean available = replica.lagMillis >= 0 && replica.lagMillis <= maxLagMillis;
+            if (available != replica.available) {
+                logger.info("Replica {} is now {} (lag {} ms)", replica.name, available ? "in use" : "skipped", replica.lagMillis);
+            }
+            replica.available = available;
+        }
+
+        long beat = System.currentTimeMillis();
+        try (Connection connection = primary.getConnection();
+             PreparedStatement statement = connection.prepareStatement(WRITE_HEARTBEAT)) {
+            statement.setTimestamp(1, new Timestamp(beat));
+            statement.executeUpdate();
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+            lastBeatMillis = beat;
+        } catch (SQLException e) {
+            logger.warn("Writing the replication heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Closes the replica pools and the primary pool.
+     */
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+        if (primary instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    /**
+     * Hands out connections of the usable replicas in turn, falling back to the primary.
+     */
+    private class ReplicaSelector extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (!ReplicaReads.isReplicaSafe()) {
+                return primary.getConnection();
+            }
+            int count = replicas.size();
+            int start = Math.floorMod(nextReplica.getAndIncrement(), count);
+            for (int i = 0; i < count; i++) {
+                Replica replica = replicas.get((start + i) % count);
+                if (!replica.available) {
+                    continue;
+                }
+                try {
+                    return replica.dataSource.getConnection();
+                } catch (SQLException e) {
+                    replica.available = false;
+                    ReplicaRoutingDataSource.logger.warn("Replica {} is unreachable, skipping it until the next lag check: {}", replica.name, e.getMessage());
+                }
+            }
+            primaryFallbacks.incrementAndGet();
+            return primary.getConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return getConnection();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.networktechnologiesproject1.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Configuration class for responses written after the request thread is released, such as the NDJSON stream of
+ * /book/getAll. Spring Boot would hand them its applicationTaskExecutor, but that bean is not created next to the
+ * password hashing executor, and Spring MVC would fall back to a new thread per response. How long a stream may
+ * run is set by spring.mvc.async.request-timeout.
+ */
+@Configuration
+public class StreamingConfiguration {
+
+    /**
+     * Defines the executor writing streamed responses.
+     * When virtual threads are enabled (spring.threads.virtual.enabled on JDK 21) the writing threads are virtual.
+     * @param threads Number of responses written at once; further streams wait in the queue.
+     * @param environment Environment used to detect virtual-thread mode.
+     * @return ThreadPoolTaskExecutor used by Spring MVC for asynchronous responses.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor streamingTaskExecutor(@Value("${library.streaming.threads:8}") int threads,
+                                                        Environment environment) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("streaming-");
+        if (Threading.VIRTUAL.isActive(environment)) {
+            executor.setThreadFactory(new VirtualThreadTaskExecutor("streaming-").getVirtualThreadFactory());
+        }
+        return executor;
+    }
+
+    @Bean
+    public WebMvcConfigurer streamingConfigurer(ThreadPoolTaskExecutor streamingTaskExecutor) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+                configurer.setTaskExecutor(streamingTaskExecutor);
+            }
+        };
+    }
+}
@@ -1,17 +1,36 @@
 package com.example.networktechnologiesproject1.controllers;
 
+import com.example.networktechnologiesproject1.config.ReplicaReads;
+import com.example.networktechnologiesproject1.dataTransferObjects.BookDTO;
+import com.example.networktechnologiesproject1.dataTransferObjects.BookRatingDTO;
+import com.example.networktechnologiesproject1.dataTransferObjects.BookSearchHitDTO;
+import com.example.networktechnologiesproject1.dataTransferObjects.ImportEventDTO;
+import com.example.networktechnologiesproject1.dataTransferObjects.ListVersionDTO;
+import com.example.networktechnologiesproject1.dataTransferObjects.PopularBookDTO;
 import com.example.networktechnologiesproject1.entities.Book;
 import com.example.networktechnologiesproject1.exceptions.BookNotFoundException;
 import com.example.networktechnologiesproject1.exceptions.BookValidationException;
-import com.example.networktechnologiesproject1.exceptions.DuplicateBookException;
 import com.example.networktechnologiesproject1.repositories.BookRepository;
+import com.example.networktechnologiesproject1.services.BookSearchService;
+import com.example.networktechnologiesproject1.services.BookService;
+import com.example.networktechnologiesproject1.services.CatalogImportService;
+import com.example.networktechnologiesproject1.services.PopularityService;
+import com.example.networktechnologiesproject1.services.ReviewService;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -19,6 +38,10 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
 
 /**
  * Controller class for handling book-related operations.
@@ -29,17 +52,43 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 @Tag(name = "Book Management", description = "APIs for managing books in the library. Includes functionalities for adding, retrieving, updating, and deleting book records, ensuring data integrity and compliance with library policies.")
 public class BookController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 500;
+
     private final BookRepository bookRepository;
+    private final BookService bookService;
+    private final CatalogImportService catalogImportService;
+    private final BookSearchService bookSearchService;
+    private final ReviewService reviewService;
+    private final PopularityService popularityService;
+    private final ObjectMapper objectMapper;
 
     private static final Logger logger = LoggerFactory.getLogger(UserController.class);
 
     /**
      * Constructor injecting BookRepository dependency.
      * @param bookRepository The BookRepository instance.
+     * @param bookService The BookService instance used for cached lookups, writes and streaming reads.
+     * @param catalogImportService The CatalogImportService instance used for bulk imports.
+     * @param bookSearchService The BookSearchService instance used for full-text search.
+     * @param reviewService The ReviewService instance used for rating aggregates.
+     * @param popularityService The PopularityService instance serving the most borrowed books.
+     * @param objectMapper The ObjectMapper used to write streamed books.
      */
     @Autowired
-    public BookController(BookRepository bookRepository) {
+    public BookController(BookRepository bookRepository, BookService bookService, CatalogImportService catalogImportService,
+                          BookSearchService bookSearchService, ReviewService reviewService, PopularityService popularityService,
+                          ObjectMapper objectMapper) {
         this.bookRepository = bookRepository;
+        this.bookService = bookService;
+        this.catalogImportService = catalogImportService;
+        this.bookSearchService = bookSearchService;
+        this.reviewService = reviewService;
+        this.popularityService = popularityService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -59,43 +108,213 @@ public class BookController {
 public Book addBook(@RequestBody @Parameter(description = "The book object containing detailed information about the book to be added. This includes the ISBN, title, author, publisher, year of publication, and the number of available copies.") Book book) {
     logger.info("Attempting to add book: {}", book.toString());
 
-    bookRepository.findByIsbn(book.getIsbn()).ifPresent(b -> {
-        logger.error("Duplicate ISBN: {}", book.getIsbn());
-        throw new DuplicateBookException(book.getIsbn());
-    });
-
-    validateBook(book);
+    validateBook(book, true);
 
-    Book savedBook = bookRepository.save(book);
+    Book savedBook = bookService.addBook(book);
     logger.info("Book with ISBN: {} added successfully", savedBook.getIsbn());
     return savedBook;
 }
 
     /**
-     * Retrieves all books from the repository.
-     * @return Iterable containing all books.
+     * Imports many books at once from a JSON array or a CSV file with a header line.
+     * Progress and per-row errors are streamed back as newline-delimited JSON while the import runs.
+     * @param request The servlet request carrying the upload.
+     * @param response The servlet response the import events are written to.
+     * @throws IOException If reading the upload or writing to the client fails.
+     */
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_JSON_VALUE, CatalogImportService.CSV_MEDIA_TYPE}, produces = NDJSON_MEDIA_TYPE)
+    @Operation(summary = "Import books in bulk", description = "Imports a JSON array or CSV file (isbn,title,author,publisher,year,availableCopies) of books. Rows are validated like single additions, ISBNs already in the catalog are skipped, and one JSON event per line reports errors, progress and a final summary.")
+    @ApiResponse(responseCode = "200", description = "Import processed; see the streamed events for per-row results", content = @Content(mediaType = NDJSON_MEDIA_TYPE, schema = @Schema(implementation = ImportEventDTO.class)))
+    public void importBooks(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON_MEDIA_TYPE);
+        OutputStream out = response.getOutputStream();
+        ObjectWriter writer = objectMapper.writerFor(ImportEventDTO.class);
+        try (MappingIterator<Book> rows = catalogImportService.openRows(Book.class, request.getContentType(), request.getInputStream())) {
+            catalogImportService.importBooks(rows, book -> validateBook(book, true), event -> {
+                try {
+                    out.write(writer.writeValueAsBytes(event));
+                    out.write('\n');
+                    if (!ImportEventDTO.ERROR.equals(event.getType())) {
+                        out.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Retrieves one page of books using keyset pagination on the book ID.
+     * The cursor for the following page is returned in the X-Next-Cursor header; it is absent on the last page.
+     * The ETag is computed from aggregates of the page, so a poll of an unchanged page is answered with 304 without
+     * reading its books.
+     * @param after The last book ID seen by the client; omit for the first page.
+     * @param size The number of books to return, capped at MAX_PAGE_SIZE.
+     * @return ResponseEntity containing the page of books.
      */
     @GetMapping("/getAll")
-    @Operation(summary = "Retrieve all books", description = "Fetches a comprehensive list of all books currently available in the library's collection. This includes detailed information about each book.")
-    @ApiResponse(responseCode = "200", description = "Successfully retrieved the list of books", content = @Content(schema = @Schema(implementation = Book.class)))
-    public Iterable<Book> getAll() {
-        return bookRepository.findAll();
+    @Operation(summary = "Retrieve all books", description = "Fetches a page of books ordered by ID. Pass the value of the X-Next-Cursor response header as 'after' to fetch the next page. Request 'application/x-ndjson' to stream the whole catalog instead.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the page of books", content = @Content(schema = @Schema(implementation = BookDTO.class))),
+            @ApiResponse(responseCode = "304", description = "The page has not changed since the ETag given in If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or page size supplied")
+    })
+    public ResponseEntity<List<BookDTO>> getAll(@RequestParam(required = false) @Parameter(description = "ID of the last book of the previous page") Integer after,
+                                             @RequestParam(required = false) @Parameter(description = "Number of books per page (default 50, max 500)") Integer size) {
+        int pageSize = resolvePageSize(size);
+        int cursor = after == null ? 0 : after;
+        if (cursor < 0) {
+            throw new BookValidationException("Cursor cannot be negative.");
+        }
+
+        // Read before the books: if they change in between, the page goes out under an older tag and is sent again
+        ListVersionDTO version = ReplicaReads.call(() -> bookRepository.findPageVersion(cursor, pageSize));
+        EntityTag tag = new EntityTag().weak()
+                .add(version.getCount(), version.getIdSum(), version.getMaxId(), version.getLastModified());
+        ResponseEntity.BodyBuilder response = tag.ok(null);
+        if (version.getCount() == pageSize) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(version.getMaxId()));
+        }
+        if (tag.isNotModified(null)) {
+            return response.build();
+        }
+        return response.body(ReplicaReads.call(() -> bookRepository.findBookDTOsAfter(cursor, Limit.of(pageSize))));
+    }
+
+    /**
+     * Streams every book as newline-delimited JSON while it is read from the database.
+     * The books are written by the streaming executor (see StreamingConfiguration), so the request thread is
+     * released while the catalog is read.
+     * @return ResponseEntity whose body writes the books.
+     */
+    @GetMapping(value = "/getAll", produces = NDJSON_MEDIA_TYPE)
+    @Operation(summary = "Stream all books", description = "Streams the whole catalog as newline-delimited JSON, one book per line, without loading it into memory.")
+    @ApiResponse(responseCode = "200", description = "Successfully streamed the books", content = @Content(mediaType = NDJSON_MEDIA_TYPE, schema = @Schema(implementation = BookDTO.class)))
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        ObjectWriter writer = objectMapper.writerFor(BookDTO.class);
+        StreamingResponseBody body = out -> {
+            try {
+                bookService.streamAllBooks(book -> {
+                    try {
+                        out.write(writer.writeValueAsBytes(book));
+                        out.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON_MEDIA_TYPE)).body(body);
+    }
+
+    /**
+     * Searches the catalog by title, author, publisher, genre and summary.
+     * The total number of hits is returned in the X-Total-Count header.
+     * @param q The search text; every word must match, whole or as a prefix.
+     * @param page The zero-based page number.
+     * @param size The number of hits per page, capped at MAX_PAGE_SIZE.
+     * @return ResponseEntity containing the ranked hits of the page.
+     */
+    @GetMapping("/search")
+    @Operation(summary = "Search books", description = "Full-text search over titles, authors, publishers, genres and summaries. Results are ranked by relevance, words may be typed partially, and the total hit count is returned in the X-Total-Count header.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the matching books", content = @Content(schema = @Schema(implementation = BookSearchHitDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid page or page size supplied, or the page lies beyond the first 10000 hits")
+    })
+    public ResponseEntity<List<BookSearchHitDTO>> search(@RequestParam @Parameter(description = "Search text, e.g. 'gats fitz'") String q,
+                                                         @RequestParam(defaultValue = "0") @Parameter(description = "Zero-based page number") int page,
+                                                         @RequestParam(required = false) @Parameter(description = "Number of hits per page (default 50, max 500)") Integer size) {
+        if (page < 0) {
+            throw new BookValidationException("Page cannot be negative.");
+        }
+        int pageSize = resolvePageSize(size);
+        if (!BookSearchService.isWithinResultWindow(page, pageSize)) {
+            throw new BookValidationException("Only the first " + BookSearchService.MAX_RESULT_WINDOW + " hits can be paged through.");
+        }
+        BookSearchService.SearchResult result = bookSearchService.search(q, page, pageSize);
+        return ResponseEntity.ok()
+                .header(TOTAL_COUNT_HEADER, String.valueOf(result.totalHits()))
+                .body(result.hits());
+    }
+
+    /**
+     * Lists the most borrowed books of the last day, week or month, overall or within a genre.
+     * The leaderboards are kept up to date as books are checked out, so no loans are read.
+     * @param period day, week or month.
+     * @param genre The genre to rank within; omit for all books.
+     * @param limit The number of books to return.
+     * @return ResponseEntity containing the books, most borrowed first.
+     */
+    @GetMapping("/popular")
+    @Operation(summary = "Most borrowed books", description = "Ranks books by their loans in the last day, week or month, overall or within a genre. Loans are counted with exponential decay, so a loan's weight fades over the period instead of dropping out at its end; 'loans' is the decayed count.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the leaderboard", content = @Content(schema = @Schema(implementation = PopularBookDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Unknown period or invalid limit supplied")
+    })
+    public ResponseEntity<List<PopularBookDTO>> getPopularBooks(@RequestParam(defaultValue = "week") @Parameter(description = "day, week or month") String period,
+                                                                @RequestParam(required = false) @Parameter(description = "Genre to rank within, e.g. 'Fantasy'") String genre,
+                                                                @RequestParam(defaultValue = "10") @Parameter(description = "Number of books (default 10, max 50)") int limit) {
+        if (limit < 1 || limit > popularityService.getTopSize()) {
+            throw new BookValidationException("Limit must be between 1 and " + popularityService.getTopSize() + ".");
+        }
+        return ResponseEntity.ok(popularityService.findPopular(PopularityService.Period.of(period), genre, limit));
     }
 
     /**
-     * Retrieves a book by its ID.
+     * Retrieves a book by its ID, with an ETag and Last-Modified header for conditional requests.
      * @param id The ID of the book to retrieve.
-     * @return ResponseEntity containing the book object if found, or 404 if not found.
+     * @return ResponseEntity containing the book object if found, 304 if it matches If-None-Match, or 404 if not found.
      */
     @GetMapping("/{id}")
     @Operation(summary = "Retrieve a book by ID", description = "Fetches detailed information about a specific book identified by its unique ID in the library's database.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully found and retrieved the book information", content = @Content(schema = @Schema(implementation = Book.class))),
+            @ApiResponse(responseCode = "304", description = "The book has not changed since the ETag given in If-None-Match or the date given in If-Modified-Since"),
             @ApiResponse(responseCode = "404", description = "The book with the specified ID was not found in the database.")
     })
     public ResponseEntity<Book> getBookById(@PathVariable @Parameter(description = "The unique identifier of the book to retrieve. This corresponds to the book's ID in the database.") Integer id) {
-        Book book = bookRepository.findById(id).orElseThrow(() -> new BookNotFoundException(id));
-        return ResponseEntity.ok(book);
+        Book book = bookService.findById(id).orElseThrow(() -> new BookNotFoundException(id));
+        return new EntityTag()
+                .add(book.getBookId(), book.getIsbn(), book.getTitle(), book.getAuthor(), book.getPublisher(),
+                        book.getYear(), book.getAvailableCopies(), book.getLastModified())
+                .ok(book.getLastModified())
+                .body(book);
+    }
+
+    /**
+     * Retrieves the rating aggregates of a book: review count, rating sum, average and star histogram.
+     * @param id The ID of the book.
+     * @return ResponseEntity containing the book's rating.
+     */
+    @GetMapping("/{id}/rating")
+    @Operation(summary = "Get a book's rating", description = "Returns the number of reviews, the sum and average of their ratings, and a histogram of ratings in whole stars (rounded down). The aggregates are maintained as reviews change, so no reviews are read.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the rating", content = @Content(schema = @Schema(implementation = BookRatingDTO.class))),
+            @ApiResponse(responseCode = "404", description = "The book with the specified ID was not found in the database.")
+    })
+    public ResponseEntity<BookRatingDTO> getBookRating(@PathVariable @Parameter(description = "The unique identifier of the book.") Integer id) {
+        BookRatingDTO rating = reviewService.findRating(id);
+        if (rating.getReviewCount() == 0 && bookService.findById(id).isEmpty()) {
+            throw new BookNotFoundException(id);
+        }
+        return ResponseEntity.ok(rating);
+    }
+
+    /**
+     * Recomputes the rating aggregates of all books from their reviews.
+     * @return ResponseEntity containing the number of books with reviews.
+     */
+    @PostMapping("/rating/rebuild")
+    @Operation(summary = "Rebuild book ratings", description = "Recomputes the rating aggregates of every book from the reviews, to backfill or repair them. Returns the number of books with reviews.")
+    @ApiResponse(responseCode = "200", description = "Ratings rebuilt", content = @Content(schema = @Schema(implementation = Integer.class)))
+    public ResponseEntity<Integer> rebuildRatings() {
+        return ResponseEntity.ok(reviewService.rebuildRatings());
     }
 
     /**
@@ -105,7 +324,7 @@ public Book addBook(@RequestBody @Parameter(description = "The book object conta
      * @return ResponseEntity containing the updated book object.
      */
     @PutMapping("/update/{id}")
-    @Operation(summary = "Update a book's details", description = "Updates the details of an existing book in the library's collection. This can include changes to the title, author, publisher, year of publication, and the number of available copies.")
+    @Operation(summary = "Update a book's details", description = "Updates the details of an existing book in the library's collection: its ISBN, title, author, publisher and year of publication. The number of available copies is ignored; change it with POST /book/{id}/copies.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Book details successfully updated.", content = @Content(schema = @Schema(implementation = Book.class))),
             @ApiResponse(responseCode = "400", description = "Invalid update details supplied. This can occur if the provided information does not meet the validation criteria."),
@@ -113,19 +332,26 @@ public Book addBook(@RequestBody @Parameter(description = "The book object conta
             @ApiResponse(responseCode = "409", description = "Conflict occurred due to duplicate ISBN with another book.")
     })
     public ResponseEntity<Book> updateBook(@PathVariable @Parameter(description = "The unique identifier of the book to update.") Integer id, @RequestBody @Parameter(description = "An object containing the updated book details.") Book bookDetails) {
-        return bookRepository.findById(id).map(existingBook -> {
-            bookRepository.findByIsbn(bookDetails.getIsbn()).ifPresent(b -> {
-                if (!b.getBookId().equals(existingBook.getBookId())) {
-                    throw new DuplicateBookException(bookDetails.getIsbn());
-                }
-            });
-
-            validateBook(bookDetails);
-
-            updateBookDetails(existingBook, bookDetails);
+        validateBook(bookDetails, false);
+        return new ResponseEntity<>(bookService.updateBook(id, bookDetails), HttpStatus.OK);
+    }
 
-            return new ResponseEntity<>(bookRepository.save(existingBook), HttpStatus.OK);
-        }).orElseThrow(() -> new BookNotFoundException(id));
+    /**
+     * Adds copies of a book to the shelf or removes them.
+     * @param id The ID of the book.
+     * @param delta The number of copies to add; negative to remove copies.
+     * @return ResponseEntity containing the book with its new count.
+     */
+    @PostMapping("/{id}/copies")
+    @Operation(summary = "Change a book's available copies", description = "Adds delta copies of a book to the shelf, or removes them if delta is negative. The change is relative, so it cannot lose a checkout or return made at the same time.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Available copies changed.", content = @Content(schema = @Schema(implementation = Book.class))),
+            @ApiResponse(responseCode = "400", description = "Fewer copies are available than would be removed."),
+            @ApiResponse(responseCode = "404", description = "The book was not found in the database.")
+    })
+    public ResponseEntity<Book> adjustAvailableCopies(@PathVariable @Parameter(description = "The unique identifier of the book.") Integer id,
+                                                      @RequestParam @Parameter(description = "The number of copies to add; negative to remove copies.") long delta) {
+        return ResponseEntity.ok(bookService.adjustAvailableCopies(id, delta));
     }
 
     /**
@@ -140,17 +366,33 @@ public Book addBook(@RequestBody @Parameter(description = "The book object conta
             @ApiResponse(responseCode = "404", description = "The book to delete was not found in the database.")
     })
     public ResponseEntity<Void> deleteBook(@PathVariable @Parameter(description = "The unique identifier of the book to delete.") Integer id) {
-        Book book = bookRepository.findById(id).orElseThrow(() -> new BookNotFoundException(id));
-        bookRepository.delete(book);
+        bookService.deleteBook(id);
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Resolves the requested page size, applying the default and the upper cap.
+     * @param size The requested page size, may be null.
+     * @return The page size to use.
+     * @throws BookValidationException If the requested size is not positive.
+     */
+    static int resolvePageSize(Integer size) {
+        if (size == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (size < 1) {
+            throw new BookValidationException("Page size must be at least 1.");
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+
     /**
      * Validates a book object for mandatory fields and format.
      * @param book The book object to validate.
+     * @param checkAvailableCopies Whether the book must carry its available copies; updates ignore them.
      * @throws BookValidationException If validation fails.
      */
-    private void validateBook(Book book) {
+    private void validateBook(Book book, boolean checkAvailableCopies) {
         // Check if the title is null or empty
         if (book.getTitle() == null || book.getTitle().trim().isEmpty()) {
             throw new BookValidationException("Book title cannot be empty.");
@@ -177,22 +419,8 @@ public Book addBook(@RequestBody @Parameter(description = "The book object conta
             throw new BookValidationException("Year must be between 1800 and the current year.");
         }
         // Validate available copies
-        if (book.getAvailableCopies() == null || book.getAvailableCopies() < 0) {
+        if (checkAvailableCopies && (book.getAvailableCopies() == null || book.getAvailableCopies() < 0)) {
             throw new BookValidationException("Available copies cannot be negative.");
         }
     }
-
-    /**
-     * Updates details of an existing book with new details.
-     * @param existingBook The existing book object.
-     * @param bookDetails The updated details of the book.
-     */
-    private void updateBookDetails(Book existingBook, Book bookDetails) {
-        existingBook.setIsbn(bookDetails.getIsbn());
-        existingBook.setTitle(bookDetails.getTitle());
-        existingBook.setAuthor(bookDetails.getAuthor());
-        existingBook.setPublisher(bookDetails.getPublisher());
-        existingBook.setYear(bookDetails.getYear());
-        existingBook.setAvailableCopies(bookDetails.getAvailableCopies());
-    }
 }
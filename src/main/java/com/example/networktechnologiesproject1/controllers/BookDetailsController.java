@@ -1,16 +1,27 @@
 package com.example.networktechnologiesproject1.controllers;
 
+import com.example.networktechnologiesproject1.config.ReplicaReads;
+import com.example.networktechnologiesproject1.dataTransferObjects.BookDetailDTO;
+import com.example.networktechnologiesproject1.dataTransferObjects.ImportEventDTO;
 import com.example.networktechnologiesproject1.entities.BookDetail;
 import com.example.networktechnologiesproject1.exceptions.*;
 import com.example.networktechnologiesproject1.repositories.BookDetailRepository;
-import com.example.networktechnologiesproject1.repositories.BookRepository;
+import com.example.networktechnologiesproject1.services.BookDetailService;
+import com.example.networktechnologiesproject1.services.CatalogImportService;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import com.example.networktechnologiesproject1.repositories.BookRepository;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
@@ -37,12 +48,17 @@ import io.swagger.v3.oas.annotations.Parameter;
 public class BookDetailsController {
 
     private final BookDetailRepository bookDetailRepository;
-    private final BookRepository bookRepository;
+    private final BookDetailService bookDetailService;
+    private final CatalogImportService catalogImportService;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public BookDetailsController(BookDetailRepository bookDetailRepository, BookRepository bookRepository) {
+    public BookDetailsController(BookDetailRepository bookDetailRepository, BookDetailService bookDetailService,
+                                 CatalogImportService catalogImportService, ObjectMapper objectMapper) {
         this.bookDetailRepository = bookDetailRepository;
-        this.bookRepository = bookRepository;
+        this.bookDetailService = bookDetailService;
+        this.catalogImportService = catalogImportService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping("/add")
@@ -55,33 +71,55 @@ public class BookDetailsController {
     })
     public BookDetail addBookDetail(@RequestBody(description = "BookDetail object to be added, containing genre, summary, and cover image URL") BookDetail bookDetail) {
         validateBookDetail(bookDetail);
-        if (!checkAssociatedBookExists(bookDetail.getBookId())) {
-            throw new AssociatedBookNotFoundException(bookDetail.getBookId());
-        }
-        if (bookDetailRepository.existsByBookIdAndGenre(bookDetail.getBookId(), bookDetail.getGenre())) {
-            throw new BookDetailDuplicateException("Book ID and Genre");
-        }
-        return bookDetailRepository.save(bookDetail);
+        return bookDetailService.addBookDetail(bookDetail);
     }
 
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_JSON_VALUE, CatalogImportService.CSV_MEDIA_TYPE}, produces = BookController.NDJSON_MEDIA_TYPE)
+    @Operation(summary = "Import book details in bulk", description = "Imports a JSON array or CSV file (bookId,genre,summary,coverImageUrl) of book details. Rows are validated like single additions except that cover image URLs are only checked for syntax, not fetched. One JSON event per line reports errors, progress and a final summary.")
+    @ApiResponse(responseCode = "200", description = "Import processed; see the streamed events for per-row results", content = @Content(mediaType = BookController.NDJSON_MEDIA_TYPE, schema = @Schema(implementation = ImportEventDTO.class)))
+    public void importBookDetails(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(BookController.NDJSON_MEDIA_TYPE);
+        OutputStream out = response.getOutputStream();
+        ObjectWriter writer = objectMapper.writerFor(ImportEventDTO.class);
+        try (MappingIterator<BookDetail> rows = catalogImportService.openRows(BookDetail.class, request.getContentType(), request.getInputStream())) {
+            catalogImportService.importBookDetails(rows, detail -> validateBookDetail(detail, false), event -> {
+                try {
+                    out.write(writer.writeValueAsBytes(event));
+                    out.write('\n');
+                    if (!ImportEventDTO.ERROR.equals(event.getType())) {
+                        out.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
 
     @GetMapping("/getAll")
     @Operation(summary = "Get all book details", description = "Retrieves all book detail records from the database, including genres, summaries, and cover image URLs.")
-    @ApiResponse(responseCode = "200", description = "Successfully retrieved all book details", content = @Content(schema = @Schema(implementation = BookDetail.class)))
-    public Iterable<BookDetail> getAllBookDetails() {
-        return bookDetailRepository.findAll();
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved all book details", content = @Content(schema = @Schema(implementation = BookDetailDTO.class)))
+    public List<BookDetailDTO> getAllBookDetails() {
+        return ReplicaReads.call(bookDetailRepository::findAllBookDetailDTOs);
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Get book detail by ID", description = "Retrieves a specific book detail record using its ID. The details include genre, summary, and cover image URL.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved book detail", content = @Content(schema = @Schema(implementation = BookDetail.class))),
+            @ApiResponse(responseCode = "304", description = "The book detail has not changed since the ETag given in If-None-Match or the date given in If-Modified-Since"),
             @ApiResponse(responseCode = "404", description = "Book detail not found with the provided ID")
     })
     public ResponseEntity<BookDetail> getBookDetailById(@PathVariable @Parameter(description = "Unique identifier of the book detail to retrieve") Integer id) {
-        BookDetail bookDetail = bookDetailRepository.findById(id)
+        BookDetail bookDetail = bookDetailService.findById(id)
                 .orElseThrow(() -> new BookDetailNotFoundException(id));
-        return ResponseEntity.ok(bookDetail);
+        return new EntityTag()
+                .add(bookDetail.getBookId(), bookDetail.getGenre(), bookDetail.getSummary(), bookDetail.getCoverImageUrl(),
+                        bookDetail.getLastModified())
+                .ok(bookDetail.getLastModified())
+                .body(bookDetail);
     }
 
     @PutMapping("/update/{id}")
@@ -94,15 +132,8 @@ public class BookDetailsController {
     })
     public ResponseEntity<BookDetail> updateBookDetail(@PathVariable @Parameter(description = "Unique identifier of the book detail to update") Integer id,
                                                        @RequestBody(description = "Updated BookDetail object") BookDetail bookDetail) {
-        return bookDetailRepository.findById(id).map(existingDetail -> {
-            validateBookDetail(bookDetail);
-            if (!existingDetail.getGenre().equals(bookDetail.getGenre()) &&
-                    bookDetailRepository.existsByBookIdAndGenre(bookDetail.getBookId(), bookDetail.getGenre())) {
-                throw new BookDetailDuplicateException("Book ID and Genre");
-            }
-            updateBookDetails(existingDetail, bookDetail);
-            return new ResponseEntity<>(bookDetailRepository.save(existingDetail), HttpStatus.OK);
-        }).orElseThrow(() -> new BookDetailNotFoundException(id));
+        validateBookDetail(bookDetail);
+        return new ResponseEntity<>(bookDetailService.updateBookDetail(id, bookDetail), HttpStatus.OK);
     }
 
 
@@ -114,16 +145,25 @@ public class BookDetailsController {
             @ApiResponse(responseCode = "404", description = "Book detail not found with the provided ID")
     })
     public ResponseEntity<Void> deleteBookDetail(@PathVariable @Parameter(description = "Unique identifier of the book detail to delete") Integer id) {
-        BookDetail bookDetail = bookDetailRepository.findById(id)
-                .orElseThrow(() -> new BookDetailNotFoundException(id));
-        if (!canDeleteBookDetail(bookDetail)) {
-        throw new UnauthorizedDetailChangeException();
-        }
-        bookDetailRepository.delete(bookDetail);
+        bookDetailService.deleteBookDetail(id);
         return ResponseEntity.noContent().build();
     }
 
-    private void validateBookDetail(BookDetail bookDetail) {
+    /**
+     * Validates the genre, cover image URL and summary of a book detail.
+     * @param bookDetail The book detail to validate.
+     * @throws BookDetailValidationException If a mandatory field is missing or too long.
+     */
+    void validateBookDetail(BookDetail bookDetail) {
+        validateBookDetail(bookDetail, true);
+    }
+
+    /**
+     * Validates a book detail.
+     * @param bookDetail The book detail to validate.
+     * @param checkCoverImageReachable Whether to send a HEAD request to the cover image URL; bulk imports skip it.
+     */
+    private void validateBookDetail(BookDetail bookDetail, boolean checkCoverImageReachable) {
         if (bookDetail.getGenre() == null || bookDetail.getGenre().trim().isEmpty()) {
             throw new BookDetailValidationException("Genre cannot be empty.");
         } else if (!isGenreSupported(bookDetail.getGenre())) {
@@ -131,7 +171,7 @@ public class BookDetailsController {
         }
         if (bookDetail.getCoverImageUrl() == null || bookDetail.getCoverImageUrl().trim().isEmpty()) {
             throw new BookDetailValidationException("Cover image URL cannot be empty.");
-        } else if (!isValidCoverImageUrl(bookDetail.getCoverImageUrl())) {
+        } else if (!isValidCoverImageUrl(bookDetail.getCoverImageUrl(), checkCoverImageReachable)) {
             throw new InvalidCoverImageUrlException(bookDetail.getCoverImageUrl());
         }
         if (bookDetail.getSummary() == null || bookDetail.getSummary().trim().isEmpty()) {
@@ -139,31 +179,21 @@ public class BookDetailsController {
         } else if (bookDetail.getSummary().length() > 1000) {
             throw new BookDetailValidationException("Summary exceeds maximum length of 1000 characters.");
         }
-        else {
-            throw new BookDetailValidationException("An unknown error regarding book details occurred.");
-        }
     }
 
 
-    private void updateBookDetails(BookDetail existingDetail, BookDetail bookDetail) {
-        existingDetail.setGenre(bookDetail.getGenre());
-        existingDetail.setSummary(bookDetail.getSummary());
-        existingDetail.setCoverImageUrl(bookDetail.getCoverImageUrl());
-    }
-
-    private boolean checkAssociatedBookExists(Integer bookId) {
-        return bookRepository.existsById(bookId);
-    }
-
     private boolean isGenreSupported(String genre) {
         List<String> supportedGenres = Arrays.asList("Fiction", "Non-Fiction", "Science Fiction", "Biography", "History", "Children", "Fantasy", "Other");
         return supportedGenres.contains(genre);
     }
 
-    private boolean isValidCoverImageUrl(String url) {
+    private boolean isValidCoverImageUrl(String url, boolean checkReachable) {
         try {
             URL verifiedUrl = new URL(url);
             verifiedUrl.toURI(); // Checks if the URL is a valid
+            if (!checkReachable) {
+                return true;
+            }
 
             // HEAD request to check if the resource is reachable
             HttpURLConnection httpURLConnection = (HttpURLConnection) verifiedUrl.openConnection();
@@ -179,14 +209,4 @@ public class BookDetailsController {
             return false;
         }
     }
-
-    // Placeholders for additional methods
-    private boolean canDeleteBookDetail(BookDetail bookDetail) {
-        boolean hasDependencies = checkForDependencies(bookDetail.getBookId());
-        return !hasDependencies;
-    }
-
-    private boolean checkForDependencies(Integer bookId) {
-        return false;
-    }
 }
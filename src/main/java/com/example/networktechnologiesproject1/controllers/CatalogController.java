@@ -0,0 +1,64 @@
+package com.example.networktechnologiesproject1.controllers;
+
+import com.example.networktechnologiesproject1.config.ReplicaReads;
+import com.example.networktechnologiesproject1.dataTransferObjects.CatalogEntryDTO;
+import com.example.networktechnologiesproject1.exceptions.BookValidationException;
+import com.example.networktechnologiesproject1.services.CatalogService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/catalog")
+@Tag(name = "Catalog", description = "Read model for catalog pages: each book together with its details, availability and rating summary.")
+public class CatalogController {
+
+    private final CatalogService catalogService;
+
+    @Autowired
+    public CatalogController(CatalogService catalogService) {
+        this.catalogService = catalogService;
+    }
+
+    /**
+     * Retrieves one page of the catalog using keyset pagination on the book ID.
+     * The cursor for the following page is returned in the X-Next-Cursor header; it is absent on the last page.
+     * @param after The last book ID seen by the client; omit for the first page.
+     * @param size The number of entries to return, capped at BookController.MAX_PAGE_SIZE.
+     * @return ResponseEntity containing the page of catalog entries.
+     */
+    @GetMapping
+    @Operation(summary = "Retrieve a catalog page", description = "Fetches a page of books ordered by ID, each with its details, number of open loans and rating summary, so a catalog page needs a single request. Pass the value of the X-Next-Cursor response header as 'after' to fetch the next page.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the catalog page", content = @Content(schema = @Schema(implementation = CatalogEntryDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or page size supplied")
+    })
+    public ResponseEntity<List<CatalogEntryDTO>> getCatalog(@RequestParam(required = false) @Parameter(description = "ID of the last book of the previous page") Integer after,
+                                                            @RequestParam(required = false) @Parameter(description = "Number of books per page (default 50, max 500)") Integer size) {
+        int pageSize = BookController.resolvePageSize(size);
+        int cursor = after == null ? 0 : after;
+        if (cursor < 0) {
+            throw new BookValidationException("Cursor cannot be negative.");
+        }
+
+        List<CatalogEntryDTO> entries = ReplicaReads.call(() -> catalogService.findPage(cursor, pageSize));
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (entries.size() == pageSize) {
+            response.header(BookController.NEXT_CURSOR_HEADER, String.valueOf(entries.get(entries.size() - 1).getBook().getBookId()));
+        }
+        return response.body(entries);
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.networktechnologiesproject1.controllers;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.Collections;
+import java.util.Date;
+
+/**
+ * Builder for strong entity tags computed from the content of a response.
+ * The field values are folded into a 64-bit FNV-1a hash, so a tag is derived without serializing the body,
+ * and any change to a field yields a different tag. Responses carrying a tag are answered by Spring MVC
+ * with 304 Not Modified, without writing the body, when the request's If-None-Match matches.
+ * The same content is served as JSON, CBOR or Smile depending on the Accept header, so the tag also covers the
+ * Accept header the format is negotiated from, and responses declare Vary: Accept.
+ * Large responses should use weak tags: Tomcat does not gzip a response with a strong tag, since the compressed
+ * bytes differ from the tagged ones. If-None-Match uses weak comparison, so weak tags still yield 304.
+ */
+final class EntityTag {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * Clients must revalidate before reusing a response; private because responses depend on the caller's access.
+     */
+    static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private long hash = FNV_OFFSET_BASIS;
+    private boolean weak;
+
+    /**
+     * Marks the tag as weak (W/ prefix), allowing the response to be compressed.
+     * @return This builder.
+     */
+    EntityTag weak() {
+        weak = true;
+        return this;
+    }
+
+    /**
+     * Adds field values to the tag, in order. Null and empty values are distinguished.
+     * @param values The values; dates contribute their timestamp, everything else its string form.
+     * @return This builder.
+     */
+    EntityTag add(Object... values) {
+        for (Object value : values) {
+            if (value == null) {
+                mix('\0');
+            } else {
+                mix('\1');
+                String text = value instanceof Date date ? Long.toString(date.getTime()) : value.toString();
+                for (int i = 0; i < text.length(); i++) {
+                    mix(text.charAt(i));
+                }
+            }
+            mix('\2');
+        }
+        return this;
+    }
+
+    private void mix(char c) {
+        hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+        hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+    }
+
+    /**
+     * Starts a 200 response carrying this tag, completed with the current request's Accept header, the given
+     * modification time and a revalidation policy.
+     * @param lastModified When the content last changed, or null if unknown.
+     * @return The response builder.
+     */
+    ResponseEntity.BodyBuilder ok(Date lastModified) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(tagFor(currentAccept()))
+                .varyBy(HttpHeaders.ACCEPT)
+                .cacheControl(REVALIDATE);
+        if (lastModified != null) {
+            response.lastModified(lastModified.getTime());
+        }
+        return response;
+    }
+
+    /**
+     * Checks the current request's If-None-Match, or else If-Modified-Since, against this tag and lastModified, as
+     * Spring MVC does before answering the response of {@link #ok} with 304. Lets a handler whose tag is computed
+     * from aggregates skip loading a body that will not be sent.
+     * @param lastModified When the content last changed, or null if unknown.
+     * @return Whether the response of ok() will be answered with 304 (or 412 for a failed If-Match).
+     */
+    boolean isNotModified(Date lastModified) {
+        HttpServletRequest request = currentRequest();
+        return request != null && new ServletWebRequest(request)
+                .checkNotModified(tagFor(currentAccept()), lastModified == null ? -1 : lastModified.getTime());
+    }
+
+    /**
+     * Returns the tag completed with the given Accept header, leaving this builder unchanged.
+     */
+    private String tagFor(String accept) {
+        long base = hash;
+        add(accept);
+        String tag = toString();
+        hash = base;
+        return tag;
+    }
+
+    private static String currentAccept() {
+        HttpServletRequest request = currentRequest();
+        return request != null ? String.join(",", Collections.list(request.getHeaders(HttpHeaders.ACCEPT))) : null;
+    }
+
+    private static HttpServletRequest currentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes servlet ? servlet.getRequest() : null;
+    }
+
+    /**
+     * Returns the quoted tag, as sent in the ETag header.
+     */
+    @Override
+    public String toString() {
+        return (weak ? "W/\"" : "\"") + Long.toHexString(hash) + '"';
+    }
+}
@@ -1,13 +1,19 @@
 package com.example.networktechnologiesproject1.controllers;
 
+import com.example.networktechnologiesproject1.config.ReplicaReads;
 import com.example.networktechnologiesproject1.dataTransferObjects.LoanDTO;
+import com.example.networktechnologiesproject1.dataTransferObjects.LoanEventDTO;
 import com.example.networktechnologiesproject1.entities.Book;
 import com.example.networktechnologiesproject1.entities.Loan;
 import com.example.networktechnologiesproject1.exceptions.BookNotAvailableException;
 import com.example.networktechnologiesproject1.exceptions.ErrorResponse;
 import com.example.networktechnologiesproject1.exceptions.LoanDateException;
 import com.example.networktechnologiesproject1.exceptions.LoanNotFoundException;
+import com.example.networktechnologiesproject1.exceptions.LoanValidationException;
 import com.example.networktechnologiesproject1.repositories.LoanRepository;
+import com.example.networktechnologiesproject1.services.LoanEventLog;
+import com.example.networktechnologiesproject1.services.LoanService;
+import com.example.networktechnologiesproject1.services.OverdueLoanTracker;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -23,6 +29,7 @@ import io.swagger.v3.oas.annotations.Parameter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.util.Date;
 import java.util.List;
 
@@ -35,32 +42,43 @@ import java.util.List;
 public class LoanController {
 
     private final LoanRepository loanRepository;
+    private final LoanService loanService;
+    private final LoanEventLog loanEventLog;
+    private final OverdueLoanTracker overdueLoanTracker;
 
+    static final int DEFAULT_EVENT_LIMIT = 100;
+    static final int MAX_EVENT_LIMIT = 1000;
+    static final int DEFAULT_OVERDUE_PAGE_SIZE = 50;
+    static final int MAX_OVERDUE_PAGE_SIZE = 500;
+    static final String TOTAL_COUNT_HEADER = "X-Total-Count";
 
     @Autowired
-    public LoanController(LoanRepository loanRepository) {
+    public LoanController(LoanRepository loanRepository, LoanService loanService, LoanEventLog loanEventLog,
+                          OverdueLoanTracker overdueLoanTracker) {
         this.loanRepository = loanRepository;
+        this.loanService = loanService;
+        this.loanEventLog = loanEventLog;
+        this.overdueLoanTracker = overdueLoanTracker;
     }
 
 @PostMapping("/add")
-@Operation(summary = "Create a loan", description = "Registers a new loan of a book to a user. Ensures the book is available for loan and that the loan dates are valid.")
+@Operation(summary = "Create a loan", description = "Registers a new loan of a book to a user. Takes one of the book's available copies atomically and ensures the loan dates are valid.")
 @ApiResponses(value = {
         @ApiResponse(responseCode = "201", description = "Loan successfully created", content = @Content(schema = @Schema(implementation = Loan.class))),
-        @ApiResponse(responseCode = "400", description = "Invalid loan details or book not available for loan")
+        @ApiResponse(responseCode = "400", description = "Invalid loan details"),
+        @ApiResponse(responseCode = "404", description = "The book to lend was not found"),
+        @ApiResponse(responseCode = "409", description = "No copies of the book are available for loan")
 })
 public ResponseEntity<?> addLoan(@RequestBody(description = "Loan object containing book ID, user ID, loan date, and due date") Loan loan) {
     validateLoan(loan);
-    if (!isBookAvailableForLoan(loan.getBookId())) {
-        throw new BookNotAvailableException(loan.getBookId());
-    }
-    Loan savedLoan = loanRepository.save(loan);
+    Loan savedLoan = loanService.checkout(loan);
     return new ResponseEntity<>(savedLoan, HttpStatus.CREATED);
 }
     @GetMapping("/getAll")
     @Operation(summary = "Get all loans", description = "Retrieves a list of all loan records, including information about the book, the user, loan date, due date, and return date.")
-    @ApiResponse(responseCode = "200", description = "Successfully retrieved all loans", content = @Content(schema = @Schema(implementation = Loan.class)))
-    public Iterable<Loan> getAllLoans() {
-        return loanRepository.findAll();
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved all loans", content = @Content(schema = @Schema(implementation = LoanDTO.class)))
+    public List<LoanDTO> getAllLoans() {
+        return ReplicaReads.call(loanRepository::findAllLoanDTOs);
     }
 
     @GetMapping("/{id}")
@@ -80,15 +98,15 @@ public ResponseEntity<?> addLoan(@RequestBody(description = "Loan object contain
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully updated the loan details", content = @Content(schema = @Schema(implementation = Loan.class))),
             @ApiResponse(responseCode = "400", description = "Invalid loan details supplied for update"),
-            @ApiResponse(responseCode = "404", description = "Loan not found with the provided ID")
+            @ApiResponse(responseCode = "404", description = "Loan not found with the provided ID"),
+            @ApiResponse(responseCode = "409", description = "No copies of the book are available for the reopened loan")
     })
     public ResponseEntity<Loan> updateLoan(@PathVariable @Parameter(description = "Unique identifier of the loan to update") Integer id,
                                            @RequestBody(description = "Updated Loan object with potentially new book ID, user ID, loan date, due date, and return date") Loan loanDetails) {
         validateLoan(loanDetails);
-        return loanRepository.findById(id).map(existingLoan -> {
-            updateLoanDetails(existingLoan, loanDetails);
-            return new ResponseEntity<>(loanRepository.save(existingLoan), HttpStatus.OK);
-        }).orElseThrow(() -> new LoanNotFoundException(id));
+        validateReturnDate(loanDetails);
+        Loan updatedLoan = loanService.updateLoan(id, loanDetails);
+        return new ResponseEntity<>(updatedLoan, HttpStatus.OK);
     }
 
     @DeleteMapping("/delete/{id}")
@@ -98,55 +116,99 @@ public ResponseEntity<?> addLoan(@RequestBody(description = "Loan object contain
             @ApiResponse(responseCode = "404", description = "Loan not found with the provided ID")
     })
     public ResponseEntity<Void> deleteLoan(@PathVariable @Parameter(description = "Unique identifier of the loan to delete") Integer id) {
-        Loan loan = loanRepository.findById(id)
-                .orElseThrow(() -> new LoanNotFoundException(id));
-        loanRepository.delete(loan);
+        loanService.deleteLoan(id);
         return ResponseEntity.noContent().build();
     }
     private void validateLoan(Loan loan) {
+        if (loan.getBookId() == null) {
+            throw new LoanValidationException("Book ID cannot be empty.");
+        }
         if (loan.getDueDate() != null && loan.getLoanDate() != null && loan.getDueDate().before(loan.getLoanDate())) {
             throw new LoanDateException("Due date cannot be before loan date.");
         }
     }
 
-    private boolean isBookAvailableForLoan(Integer bookId) {
-        return !loanRepository.existsByBookIdAndReturnDateIsNull(bookId);
-    }
-
-    private void updateLoanDetails(Loan existingLoan, Loan loanDetails) {
+    private void validateReturnDate(Loan loanDetails) {
         if (loanDetails.getReturnDate() != null && loanDetails.getLoanDate() != null
                 && loanDetails.getReturnDate().before(loanDetails.getLoanDate())) {
             throw new LoanDateException("Return date must be after loan date.");
         }
-        existingLoan.setBookId(loanDetails.getBookId());
-        existingLoan.setUserId(loanDetails.getUserId());
-        existingLoan.setLoanDate(loanDetails.getLoanDate());
-        existingLoan.setDueDate(loanDetails.getDueDate());
-        existingLoan.setReturnDate(loanDetails.getReturnDate());
     }
     @GetMapping("/user/{userId}")
 @Operation(summary = "Get all loans for a specific user", description = "Retrieves a list of all loans for a specific user by their unique identifier.")
 @ApiResponses(value = {
-        @ApiResponse(responseCode = "200", description = "Successfully retrieved all loans for the user", content = @Content(schema = @Schema(implementation = Loan.class))),
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved all loans for the user", content = @Content(schema = @Schema(implementation = LoanDTO.class))),
         @ApiResponse(responseCode = "404", description = "No loans found for the user with the provided ID")
 })
-public ResponseEntity<List<Loan>> getLoansByUserId(@PathVariable @Parameter(description = "Unique identifier of the user to retrieve loans for") Integer userId) {
-    List<Loan> loans = loanRepository.findByUserId(userId);
+public ResponseEntity<List<LoanDTO>> getLoansByUserId(@PathVariable @Parameter(description = "Unique identifier of the user to retrieve loans for") Integer userId) {
+    List<LoanDTO> loans = ReplicaReads.call(() -> loanRepository.findLoanDTOsByUserId(userId));
     if (loans.isEmpty()) {
         return ResponseEntity.notFound().build();
     }
     return ResponseEntity.ok(loans);
 }
 @PutMapping("/return/{id}")
-@Operation(summary = "Return a book", description = "Sets the return date of a loan to the current date, indicating that the book has been returned.")
+@Operation(summary = "Return a book", description = "Sets the return date of a loan to the current date, indicating that the book has been returned, and puts the copy back on the shelf.")
 @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Successfully updated the loan's return date", content = @Content(schema = @Schema(implementation = Loan.class))),
+        @ApiResponse(responseCode = "400", description = "The loan has already been returned"),
         @ApiResponse(responseCode = "404", description = "Loan not found with the provided ID")
 })
 public ResponseEntity<Loan> returnBook(@PathVariable @Parameter(description = "Unique identifier of the loan to update") Integer id) {
-    return loanRepository.findById(id).map(existingLoan -> {
-        existingLoan.setReturnDate(new Date());
-        return new ResponseEntity<>(loanRepository.save(existingLoan), HttpStatus.OK);
-    }).orElseThrow(() -> new LoanNotFoundException(id));
+    Loan returnedLoan = loanService.returnLoan(id);
+    return new ResponseEntity<>(returnedLoan, HttpStatus.OK);
+}
+
+    /**
+     * Reads the loan event log: checkouts, returns, updates and deletions in the order they were written.
+     * Events reach the log shortly after their transaction commits.
+     * @param after The sequence number of the last event seen by the client; omit to start at the beginning.
+     * @param limit The maximum number of events to return.
+     * @return The events following the given sequence number.
+     * @throws IOException If the log cannot be read.
+     */
+    @GetMapping("/events")
+    @Operation(summary = "Read the loan event log", description = "Returns loan events in log order. Pass the sequence of the last event received as 'after' to continue; an event may be repeated after a crash, so consumers should skip event IDs they have already seen.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully read the loan events", content = @Content(schema = @Schema(implementation = LoanEventDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid sequence number or limit supplied")
+    })
+    public List<LoanEventDTO> getEvents(@RequestParam(required = false) @Parameter(description = "Sequence number of the last event already read") Long after,
+                                        @RequestParam(required = false) @Parameter(description = "Maximum number of events (default 100, max 1000)") Integer limit) throws IOException {
+        long cursor = after == null ? 0 : after;
+        if (cursor < 0) {
+            throw new LoanValidationException("Sequence number cannot be negative.");
+        }
+        if (limit != null && limit < 1) {
+            throw new LoanValidationException("Limit must be at least 1.");
+        }
+        return loanEventLog.read(cursor + 1, limit == null ? DEFAULT_EVENT_LIMIT : Math.min(limit, MAX_EVENT_LIMIT));
+    }
+
+    /**
+     * Retrieves the open loans that are past their due date, the longest overdue first.
+     * Served from the overdue detector's in-memory state; the total number of overdue loans is returned in the X-Total-Count header.
+     * @param page The zero-based page number.
+     * @param size The number of loans per page.
+     * @return ResponseEntity containing the overdue loans of the page.
+     */
+    @GetMapping("/overdue")
+    @Operation(summary = "Get overdue loans", description = "Lists open loans past their due date, longest overdue first. The total number of overdue loans is returned in the X-Total-Count header.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the overdue loans", content = @Content(schema = @Schema(implementation = LoanDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid page or page size supplied")
+    })
+    public ResponseEntity<List<LoanDTO>> getOverdueLoans(@RequestParam(defaultValue = "0") @Parameter(description = "Zero-based page number") int page,
+                                                         @RequestParam(required = false) @Parameter(description = "Number of loans per page (default 50, max 500)") Integer size) {
+        if (page < 0) {
+            throw new LoanValidationException("Page number cannot be negative.");
+        }
+        if (size != null && size < 1) {
+            throw new LoanValidationException("Page size must be at least 1.");
+        }
+        int pageSize = size == null ? DEFAULT_OVERDUE_PAGE_SIZE : Math.min(size, MAX_OVERDUE_PAGE_SIZE);
+        return ResponseEntity.ok()
+                .header(TOTAL_COUNT_HEADER, String.valueOf(overdueLoanTracker.countOverdue()))
+                .body(overdueLoanTracker.findOverdue(page, pageSize));
+    }
 }
-}
\ No newline at end of file
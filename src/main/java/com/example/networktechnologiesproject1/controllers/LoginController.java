@@ -3,26 +3,22 @@
  */
 package com.example.networktechnologiesproject1.controllers;
 
+import com.example.networktechnologiesproject1.dataTransferObjects.UserDTO;
 import com.example.networktechnologiesproject1.entities.User;
 import com.example.networktechnologiesproject1.exceptions.IncorrectPasswordException;
+import com.example.networktechnologiesproject1.exceptions.LoginThrottledException;
 import com.example.networktechnologiesproject1.exceptions.UserAlreadyExistsException;
 import com.example.networktechnologiesproject1.exceptions.UserNotFoundException;
 import com.example.networktechnologiesproject1.services.UserService;
 import com.example.networktechnologiesproject1.services.LoginForm;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
+import com.example.networktechnologiesproject1.services.LoginService;
 import io.swagger.v3.oas.annotations.security.SecurityRequirements;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -35,19 +31,14 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.Parameter;
 
-import java.nio.charset.StandardCharsets;
-import java.util.Date;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @Tag(name = "Authentication", description = "Endpoints for user authentication and registration in the library system.")
 public class LoginController {
 
-    @Value("${jwt.secret}")
-    private String jwtSecret;
-
     @Autowired
-    private AuthenticationManager authenticationManager;
+    private LoginService loginService;
 
     @Autowired
     private UserService userService;
@@ -61,6 +52,7 @@ public class LoginController {
      * @return ResponseEntity containing JWT token upon successful login.
      * @throws UserNotFoundException If the user is not found.
      * @throws IncorrectPasswordException If the password is incorrect.
+     * @throws LoginThrottledException If the password hashing pool is saturated.
      */
     @SecurityRequirements
     @PostMapping("/login")
@@ -68,39 +60,10 @@ public class LoginController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Login successful", content = @Content(schema = @Schema(implementation = String.class))),
             @ApiResponse(responseCode = "401", description = "Unauthorized, user not found or incorrect password"),
+            @ApiResponse(responseCode = "503", description = "Too many logins in progress, retry after the Retry-After delay"),
     })
-    public ResponseEntity<String> login(@RequestBody @Parameter(description = "Login form with username and password") LoginForm loginForm) {
-        userService.findByUsername(loginForm.getUsername())
-                .orElseThrow(() -> new UserNotFoundException(loginForm.getUsername()));
-
-        try {
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(
-                            loginForm.getUsername(),
-                            loginForm.getPassword()
-                    )
-            );
-
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-
-            long now = System.currentTimeMillis();
-            String roles = userDetails.getAuthorities().stream()
-                    .map(Object::toString)
-                    .collect(Collectors.joining(","));
-
-            String token = Jwts.builder()
-                    .setSubject(userDetails.getUsername())
-                    .claim("role", roles)
-                    .setIssuedAt(new Date(now))
-                    .setExpiration(new Date(now + 20 * 60 * 1000)) // 20 minutes
-                    .signWith(SignatureAlgorithm.HS256, jwtSecret.getBytes(StandardCharsets.UTF_8))
-                    .compact();
-
-            return ResponseEntity.ok(token);
-
-        } catch (BadCredentialsException e) {
-            throw new IncorrectPasswordException(loginForm.getUsername());
-        }
+    public CompletableFuture<ResponseEntity<String>> login(@RequestBody @Parameter(description = "Login form with username and password") LoginForm loginForm) {
+        return loginService.login(loginForm).thenApply(ResponseEntity::ok);
     }
 
     /**
@@ -113,7 +76,7 @@ public class LoginController {
     @PostMapping("/register")
     @Operation(summary = "User registration", description = "Registers a new user to the library system and encrypts the password before saving.")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "201", description = "User registration successful", content = @Content(schema = @Schema(implementation = User.class))),
+            @ApiResponse(responseCode = "201", description = "User registration successful", content = @Content(schema = @Schema(implementation = UserDTO.class))),
             @ApiResponse(responseCode = "400", description = "Bad request, user details not valid or user already exists")
     })
     public ResponseEntity<?> register(@RequestBody @Parameter(description = "New user object with registration details") User newUser) {
@@ -125,7 +88,7 @@ public class LoginController {
         newUser.setPassword(passwordEncoder.encode(newUser.getPassword()));
         User user = userService.saveUser(newUser);
 
-        return new ResponseEntity<>(user, HttpStatus.CREATED);
+        return new ResponseEntity<>(UserDTO.fromUser(user), HttpStatus.CREATED);
     }
 
 
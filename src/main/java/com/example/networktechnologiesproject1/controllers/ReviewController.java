@@ -1,13 +1,24 @@
 package com.example.networktechnologiesproject1.controllers;
 
+import com.example.networktechnologiesproject1.config.ReplicaReads;
+import com.example.networktechnologiesproject1.dataTransferObjects.ImportEventDTO;
+import com.example.networktechnologiesproject1.dataTransferObjects.ListVersionDTO;
+import com.example.networktechnologiesproject1.dataTransferObjects.ReviewDTO;
 import com.example.networktechnologiesproject1.entities.Review;
 import com.example.networktechnologiesproject1.exceptions.*;
 import com.example.networktechnologiesproject1.repositories.ReviewRepository;
-import com.example.networktechnologiesproject1.repositories.BookRepository; // Assume this exists
-import com.example.networktechnologiesproject1.repositories.UserRepository; // Assume this exists
+import com.example.networktechnologiesproject1.services.CatalogImportService;
+import com.example.networktechnologiesproject1.services.ReviewService;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -18,20 +29,28 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.Parameter;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
 @RestController
 @RequestMapping("/review")
 @Tag(name = "Review Management", description = "Endpoints for managing user reviews of books. Allows for the creation, retrieval, update, and deletion of book reviews.")
 public class ReviewController {
 
     private final ReviewRepository reviewRepository;
-    private final UserRepository userRepository;
-    private final BookRepository bookRepository;
+    private final ReviewService reviewService;
+    private final CatalogImportService catalogImportService;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public ReviewController(ReviewRepository reviewRepository, UserRepository userRepository, BookRepository bookRepository) {
+    public ReviewController(ReviewRepository reviewRepository, ReviewService reviewService,
+                            CatalogImportService catalogImportService, ObjectMapper objectMapper) {
         this.reviewRepository = reviewRepository;
-        this.userRepository = userRepository;
-        this.bookRepository = bookRepository;
+        this.reviewService = reviewService;
+        this.catalogImportService = catalogImportService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping("/add")
@@ -42,26 +61,56 @@ public class ReviewController {
             @ApiResponse(responseCode = "404", description = "User or book to be reviewed not found")
     })
     public Review addReview(@RequestBody(description = "Review object with details including user ID, book ID, rating, comment, and review date") Review review) {
-        if (!userRepository.existsById(review.getUserId())) {
-            throw new UserNotFoundException("User with ID " + review.getUserId() + " not found.");
-        }
-        if (!bookRepository.existsById(review.getBookId())) {
-            throw new BookNotFoundException(review.getBookId());
-        }
-        if (reviewRepository.existsByUserIdAndBookId(review.getUserId(), review.getBookId())) {
-            throw new DuplicateReviewException("Duplicate review for book and user not allowed.");
-        }
-        if (review.getRating() < 1 || review.getRating() > 5) {
-            throw new InvalidRatingException("Rating must be between 1 and 5.");
+        return reviewService.addReview(review);
+    }
+
+    /**
+     * Submits many reviews at once, e.g. from another system or an offline kiosk, as a JSON array or a CSV file
+     * with a header line. Progress and per-row errors are streamed back as newline-delimited JSON.
+     * @param request The servlet request carrying the upload.
+     * @param response The servlet response the import events are written to.
+     * @throws IOException If reading the upload or writing to the client fails.
+     */
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_JSON_VALUE, CatalogImportService.CSV_MEDIA_TYPE}, produces = BookController.NDJSON_MEDIA_TYPE)
+    @PreAuthorize("hasAuthority('ROLE_STAFF')")
+    @Operation(summary = "Import reviews in bulk", description = "Imports a JSON array or CSV file (userId,bookId,rating,comment,reviewDate) of reviews. Rows are validated like single additions; unknown users or books and users who already reviewed the book are skipped, and one JSON event per line reports errors, progress and a final summary.")
+    @ApiResponse(responseCode = "200", description = "Import processed; see the streamed events for per-row results", content = @Content(mediaType = BookController.NDJSON_MEDIA_TYPE, schema = @Schema(implementation = ImportEventDTO.class)))
+    public void importReviews(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(BookController.NDJSON_MEDIA_TYPE);
+        OutputStream out = response.getOutputStream();
+        ObjectWriter writer = objectMapper.writerFor(ImportEventDTO.class);
+        try (MappingIterator<Review> rows = catalogImportService.openRows(Review.class, request.getContentType(), request.getInputStream())) {
+            catalogImportService.importReviews(rows, reviewService::validateRating, event -> {
+                try {
+                    out.write(writer.writeValueAsBytes(event));
+                    out.write('\n');
+                    if (!ImportEventDTO.ERROR.equals(event.getType())) {
+                        out.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
-        return reviewRepository.save(review);
     }
 
     @GetMapping("/getAll")
     @Operation(summary = "Get all reviews", description = "Retrieves a list of all reviews made by users on books, including ratings and comments.")
-    @ApiResponse(responseCode = "200", description = "Successfully retrieved all reviews", content = @Content(schema = @Schema(implementation = Review.class)))
-    public Iterable<Review> getAllReviews() {
-        return reviewRepository.findAll();
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved all reviews", content = @Content(schema = @Schema(implementation = ReviewDTO.class))),
+            @ApiResponse(responseCode = "304", description = "No review has changed since the ETag given in If-None-Match")
+    })
+    public ResponseEntity<List<ReviewDTO>> getAllReviews() {
+        // Read before the reviews: if they change in between, the list goes out under an older tag and is sent again
+        ListVersionDTO version = ReplicaReads.call(reviewRepository::findVersion);
+        EntityTag tag = new EntityTag().weak()
+                .add(version.getCount(), version.getIdSum(), version.getMaxId(), version.getLastModified());
+        if (tag.isNotModified(null)) {
+            return tag.ok(null).build();
+        }
+        return tag.ok(null).body(ReplicaReads.call(reviewRepository::findAllReviewDTOs));
     }
 
     @GetMapping("/{id}")
@@ -80,24 +129,16 @@ public class ReviewController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Review successfully updated", content = @Content(schema = @Schema(implementation = Review.class))),
             @ApiResponse(responseCode = "400", description = "Invalid review details supplied for update"),
-            @ApiResponse(responseCode = "404", description = "Review not found with the specified ID")
+            @ApiResponse(responseCode = "404", description = "Review not found with the specified ID"),
+            @ApiResponse(responseCode = "409", description = "The user already reviewed the book the review is moved to")
     })
     public ResponseEntity<Review> updateReview(@PathVariable @Parameter(description = "Unique identifier of the review to update") Integer id,
                                                @RequestBody(description = "Review object with updated details") Review reviewDetails) {
-        return reviewRepository.findById(id)
-                .map(existingReview -> {
-                    if (reviewDetails.getRating() < 1 || reviewDetails.getRating() > 5) {
-                        throw new InvalidRatingException("Rating must be between 1 and 5.");
-                    }
-                    existingReview.setBookId(reviewDetails.getBookId());
-                    existingReview.setUserId(reviewDetails.getUserId());
-                    existingReview.setRating(reviewDetails.getRating());
-                    existingReview.setComment(reviewDetails.getComment());
-                    existingReview.setReviewDate(reviewDetails.getReviewDate());
-                    Review updatedReview = reviewRepository.save(existingReview);
-                    return new ResponseEntity<>(updatedReview, HttpStatus.OK);
-                })
-                .orElseThrow(() -> new ReviewNotFoundException("Review with ID " + id + " not found."));
+        if (reviewDetails.getRating() < 1 || reviewDetails.getRating() > 5) {
+            throw new InvalidRatingException("Rating must be between 1 and 5.");
+        }
+        Review updatedReview = reviewService.updateReview(id, reviewDetails);
+        return new ResponseEntity<>(updatedReview, HttpStatus.OK);
     }
 
     @DeleteMapping("/delete/{id}")
@@ -107,8 +148,7 @@ public class ReviewController {
             @ApiResponse(responseCode = "404", description = "Review not found with the specified ID")
     })
     public ResponseEntity<Void> deleteReview(@PathVariable @Parameter(description = "Unique identifier of the review to delete") Integer id) {
-        Review review = reviewRepository.findById(id).orElseThrow(() -> new ReviewNotFoundException("Review with ID " + id + " not found."));
-        reviewRepository.delete(review);
+        reviewService.deleteReview(id);
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 }
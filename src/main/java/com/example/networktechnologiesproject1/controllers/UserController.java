@@ -1,17 +1,23 @@
 package com.example.networktechnologiesproject1.controllers;
 
+import com.example.networktechnologiesproject1.config.ReplicaReads;
+import com.example.networktechnologiesproject1.dataTransferObjects.UserDTO;
+import com.example.networktechnologiesproject1.dataTransferObjects.UserLoanSummaryDTO;
 import com.example.networktechnologiesproject1.entities.Book;
 import com.example.networktechnologiesproject1.entities.User;
+import com.example.networktechnologiesproject1.entities.UserLoanStats;
 import com.example.networktechnologiesproject1.exceptions.*;
 import com.example.networktechnologiesproject1.repositories.BookRepository;
 import com.example.networktechnologiesproject1.repositories.LoanRepository;
 import com.example.networktechnologiesproject1.repositories.UserRepository;
+import com.example.networktechnologiesproject1.services.UserLoanStatsService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -28,6 +34,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 
 @RestController
@@ -39,11 +46,16 @@ public class UserController {
     private static final Logger logger = LoggerFactory.getLogger(UserController.class);
 
     private final PasswordEncoder passwordEncoder;
+    private final UserLoanStatsService userLoanStatsService;
+
+    static final int DEFAULT_LOAN_PAGE_SIZE = 20;
+    static final int MAX_LOAN_PAGE_SIZE = 200;
 
     @Autowired
-    public UserController(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserController(UserRepository userRepository, PasswordEncoder passwordEncoder, UserLoanStatsService userLoanStatsService) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.userLoanStatsService = userLoanStatsService;
     }
 
 //    @PostMapping("/add")
@@ -75,11 +87,11 @@ public ResponseEntity<Integer> getCurrentUserId() {
 @GetMapping("/{id}/current")
 @Operation(summary = "Get current user object", description = "Retrieves the current user object based on the user ID.")
 @ApiResponses(value = {
-        @ApiResponse(responseCode = "200", description = "Successfully retrieved the user object", content = @Content(schema = @Schema(implementation = User.class))),
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved the user object", content = @Content(schema = @Schema(implementation = UserDTO.class))),
         @ApiResponse(responseCode = "404", description = "User not found")
 })
-public ResponseEntity<User> getCurrentUser(@PathVariable @Parameter(description = "Unique identifier of the user") Integer id) {
-    User currentUser = userRepository.findById(id)
+public ResponseEntity<UserDTO> getCurrentUser(@PathVariable @Parameter(description = "Unique identifier of the user") Integer id) {
+    UserDTO currentUser = userRepository.findUserDTOById(id)
             .orElseThrow(() -> new UserNotFoundException(id.toString()));
 
     return ResponseEntity.ok(currentUser);
@@ -114,11 +126,11 @@ public ResponseEntity<User> getCurrentUser(@PathVariable @Parameter(description
 @ResponseStatus(HttpStatus.CREATED)
 @Operation(summary = "Add a new user", description = "Registers a new user to the library system. Encrypts the password before saving and ensures the username is unique.")
 @ApiResponses(value = {
-        @ApiResponse(responseCode = "201", description = "User successfully added", content = @Content(schema = @Schema(implementation = User.class))),
+        @ApiResponse(responseCode = "201", description = "User successfully added", content = @Content(schema = @Schema(implementation = UserDTO.class))),
         @ApiResponse(responseCode = "400", description = "Invalid user details supplied"),
         @ApiResponse(responseCode = "409", description = "Duplicate username provided")
 })
-public User addUser(@RequestBody User user, HttpServletRequest request) throws IOException {
+public UserDTO addUser(@RequestBody User user, HttpServletRequest request) throws IOException {
     String body = new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
     logger.info("Raw JSON body: {}", body);
     logger.debug("Received user details: " + user.toString());
@@ -136,7 +148,7 @@ public User addUser(@RequestBody User user, HttpServletRequest request) throws I
     user.setPassword(passwordEncoder.encode(user.getPassword())); // Encrypt password before saving
     User savedUser = userRepository.save(user);
     logger.info("User with username: {} added successfully", savedUser.getUsername());
-    return savedUser;
+    return UserDTO.fromUser(savedUser);
 }
 
     @PostMapping("/testAdd")
@@ -162,21 +174,21 @@ public User addUser(@RequestBody User user, HttpServletRequest request) throws I
 
     @GetMapping("/getAll")
     @Operation(summary = "Get all users", description = "Retrieves a list of all users registered in the library system, including their details such as username, email, and role.")
-    @ApiResponse(responseCode = "200", description = "Successfully retrieved all users", content = @Content(schema = @Schema(implementation = User.class)))
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved all users", content = @Content(schema = @Schema(implementation = UserDTO.class)))
     @PreAuthorize("hasAuthority('ROLE_STAFF')")
-    public Iterable<User> getAllUsers() {
-        return userRepository.findAll();
+    public List<UserDTO> getAllUsers() {
+        return ReplicaReads.call(userRepository::findAllUserDTOs);
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Get a user by ID", description = "Retrieves detailed information of a specific user by their unique identifier.")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Successfully retrieved the user details", content = @Content(schema = @Schema(implementation = User.class))),
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the user details", content = @Content(schema = @Schema(implementation = UserDTO.class))),
             @ApiResponse(responseCode = "404", description = "User not found with the specified ID")
     })
     @PreAuthorize("hasAuthority('ROLE_STAFF')")
-    public ResponseEntity<User> getUserById(@PathVariable @Parameter(description = "Unique identifier of the user to retrieve") Integer id) {
-        User user = userRepository.findById(id)
+    public ResponseEntity<UserDTO> getUserById(@PathVariable @Parameter(description = "Unique identifier of the user to retrieve") Integer id) {
+        UserDTO user = userRepository.findUserDTOById(id)
                 .orElseThrow(() -> new UserIdNotFoundException(id));
         return ResponseEntity.ok(user);
     }
@@ -234,13 +246,65 @@ public User addUser(@RequestBody User user, HttpServletRequest request) throws I
     private LoanRepository loanRepository;
 
     @GetMapping("/{id}/loanCount")
-    @Operation(summary = "Get loan count for a specific user", description = "Retrieves the count of all loans for a specific user by their unique identifier.")
+    @Operation(summary = "Get loan count for a specific user", description = "Retrieves the count of all loans, past and present, for a specific user by their unique identifier. Served from the user's loan counters.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved the loan count for the user"),
             @ApiResponse(responseCode = "404", description = "User not found with the provided ID")
     })
     public ResponseEntity<Long> getLoanCountByUserId(@PathVariable @Parameter(description = "Unique identifier of the user to retrieve loan count for") Integer id) {
-        long count = loanRepository.countByUserId(id);
-        return ResponseEntity.ok(count);
+        return ResponseEntity.ok(userLoanStatsService.findStats(id).getLifetimeLoans());
+    }
+
+    /**
+     * Retrieves a user's loan summary: active, overdue and lifetime loan counts, plus one page of the current loans.
+     * The counts come from the cached loan counters; only the page of current loans is read from the loan table.
+     * @param id The ID of the user.
+     * @param page The zero-based page of current loans.
+     * @param size The number of current loans per page.
+     * @return ResponseEntity containing the loan summary.
+     * @throws UserIdNotFoundException If the user has no loans and does not exist.
+     */
+    @GetMapping("/{id}/loanSummary")
+    @Operation(summary = "Get a user's loan summary", description = "Returns the numbers of active, overdue and lifetime loans of a user, with a page of the loans not yet returned, earliest due first.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the loan summary", content = @Content(schema = @Schema(implementation = UserLoanSummaryDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid page or page size supplied"),
+            @ApiResponse(responseCode = "404", description = "User not found with the provided ID")
+    })
+    @PreAuthorize("hasAuthority('ROLE_STAFF')")
+    public ResponseEntity<UserLoanSummaryDTO> getLoanSummary(@PathVariable @Parameter(description = "Unique identifier of the user") Integer id,
+                                                             @RequestParam(defaultValue = "0") @Parameter(description = "Zero-based page of current loans") int page,
+                                                             @RequestParam(required = false) @Parameter(description = "Number of current loans per page (default 20, max 200)") Integer size) {
+        if (page < 0) {
+            throw new LoanValidationException("Page number cannot be negative.");
+        }
+        if (size != null && size < 1) {
+            throw new LoanValidationException("Page size must be at least 1.");
+        }
+        UserLoanStats stats = userLoanStatsService.findStats(id);
+        if (stats.getLifetimeLoans() == 0 && !userRepository.existsById(id)) {
+            throw new UserIdNotFoundException(id);
+        }
+
+        UserLoanSummaryDTO summary = new UserLoanSummaryDTO();
+        summary.setUserId(id);
+        summary.setActiveLoans(stats.getActiveLoans());
+        summary.setOverdueLoans(stats.getOverdueLoans());
+        summary.setLifetimeLoans(stats.getLifetimeLoans());
+        summary.setCurrentLoans(stats.getActiveLoans() == 0 ? List.of()
+                : loanRepository.findCurrentLoanDTOsByUserId(id, PageRequest.of(page, size == null ? DEFAULT_LOAN_PAGE_SIZE : Math.min(size, MAX_LOAN_PAGE_SIZE))));
+        return ResponseEntity.ok(summary);
+    }
+
+    /**
+     * Recomputes the loan counters of all users from the loan table.
+     * @return ResponseEntity containing the number of users with loans.
+     */
+    @PostMapping("/loanStats/rebuild")
+    @Operation(summary = "Rebuild loan counters", description = "Recomputes every user's active, overdue and lifetime loan counts from the loan table, e.g. after a manual data fix.")
+    @ApiResponse(responseCode = "200", description = "Counters rebuilt; returns the number of users with loans")
+    @PreAuthorize("hasAuthority('ROLE_STAFF')")
+    public ResponseEntity<Integer> rebuildLoanStats() {
+        return ResponseEntity.ok(userLoanStatsService.rebuild());
     }
 }
@@ -4,6 +4,7 @@ package com.example.networktechnologiesproject1.dataTransferObjects;
  * Data Transfer Object (DTO) for representing book entity details.
  */
 public class BookDTO {
+    private Integer bookId;
     private String isbn;
     private String title;
     private String author;
@@ -11,6 +12,27 @@ public class BookDTO {
     private Long year;
     private Long availableCopies;
 
+    public BookDTO() {
+    }
+
+    public BookDTO(Integer bookId, String isbn, String title, String author, String publisher, Long year, Long availableCopies) {
+        this.bookId = bookId;
+        this.isbn = isbn;
+        this.title = title;
+        this.author = author;
+        this.publisher = publisher;
+        this.year = year;
+        this.availableCopies = availableCopies;
+    }
+
+    public Integer getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(Integer bookId) {
+        this.bookId = bookId;
+    }
+
     public String getIsbn() {
         return isbn;
     }
@@ -6,6 +6,16 @@ public class BookDetailDTO {
     private String summary;
     private String coverImageUrl;
 
+    public BookDetailDTO() {
+    }
+
+    public BookDetailDTO(Integer bookId, String genre, String summary, String coverImageUrl) {
+        this.bookId = bookId;
+        this.genre = genre;
+        this.summary = summary;
+        this.coverImageUrl = coverImageUrl;
+    }
+
     public Integer getBookId() {
         return bookId;
     }
@@ -0,0 +1,30 @@
+package com.example.networktechnologiesproject1.dataTransferObjects;
+
+public class BookLoanCountDTO {
+    private Integer bookId;
+    private Long openLoans;
+
+    public BookLoanCountDTO() {
+    }
+
+    public BookLoanCountDTO(Integer bookId, Long openLoans) {
+        this.bookId = bookId;
+        this.openLoans = openLoans;
+    }
+
+    public Integer getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(Integer bookId) {
+        this.bookId = bookId;
+    }
+
+    public Long getOpenLoans() {
+        return openLoans;
+    }
+
+    public void setOpenLoans(Long openLoans) {
+        this.openLoans = openLoans;
+    }
+}
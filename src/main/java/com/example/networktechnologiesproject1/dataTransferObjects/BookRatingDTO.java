@@ -0,0 +1,51 @@
+package com.example.networktechnologiesproject1.dataTransferObjects;
+
+import java.util.Map;
+
+public class BookRatingDTO {
+    private Integer bookId;
+    private Long reviewCount;
+    private Double ratingSum;
+    private Double averageRating;
+    private Map<Integer, Long> histogram;
+
+    public Integer getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(Integer bookId) {
+        this.bookId = bookId;
+    }
+
+    public Long getReviewCount() {
+        return reviewCount;
+    }
+
+    public void setReviewCount(Long reviewCount) {
+        this.reviewCount = reviewCount;
+    }
+
+    public Double getRatingSum() {
+        return ratingSum;
+    }
+
+    public void setRatingSum(Double ratingSum) {
+        this.ratingSum = ratingSum;
+    }
+
+    public Double getAverageRating() {
+        return averageRating;
+    }
+
+    public void setAverageRating(Double averageRating) {
+        this.averageRating = averageRating;
+    }
+
+    public Map<Integer, Long> getHistogram() {
+        return histogram;
+    }
+
+    public void setHistogram(Map<Integer, Long> histogram) {
+        this.histogram = histogram;
+    }
+}
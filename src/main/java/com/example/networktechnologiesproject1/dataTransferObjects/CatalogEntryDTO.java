@@ -0,0 +1,50 @@
+package com.example.networktechnologiesproject1.dataTransferObjects;
+
+public class CatalogEntryDTO {
+    private BookDTO book;
+    private BookDetailDTO detail;
+    private Long openLoans;
+    private BookRatingDTO rating;
+
+    public CatalogEntryDTO() {
+    }
+
+    public CatalogEntryDTO(BookDTO book, BookDetailDTO detail, Long openLoans, BookRatingDTO rating) {
+        this.book = book;
+        this.detail = detail;
+        this.openLoans = openLoans;
+        this.rating = rating;
+    }
+
+    public BookDTO getBook() {
+        return book;
+    }
+
+    public void setBook(BookDTO book) {
+        this.book = book;
+    }
+
+    public BookDetailDTO getDetail() {
+        return detail;
+    }
+
+    public void setDetail(BookDetailDTO detail) {
+        this.detail = detail;
+    }
+
+    public Long getOpenLoans() {
+        return openLoans;
+    }
+
+    public void setOpenLoans(Long openLoans) {
+        this.openLoans = openLoans;
+    }
+
+    public BookRatingDTO getRating() {
+        return rating;
+    }
+
+    public void setRating(BookRatingDTO rating) {
+        this.rating = rating;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.networktechnologiesproject1.dataTransferObjects;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One line of the newline-delimited JSON stream returned by the bulk import endpoints.
+ * An "error" event describes a rejected row, a "progress" event is sent after every chunk
+ * and a single "summary" event closes the stream.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportEventDTO {
+    public static final String ERROR = "error";
+    public static final String PROGRESS = "progress";
+    public static final String SUMMARY = "summary";
+
+    private String type;
+    private Long row;
+    private String key;
+    private String message;
+    private Long processed;
+    private Long imported;
+    private Long failed;
+
+    public static ImportEventDTO error(long row, String key, String message) {
+        ImportEventDTO event = new ImportEventDTO();
+        event.setType(ERROR);
+        event.setRow(row);
+        event.setKey(key);
+        event.setMessage(message);
+        return event;
+    }
+
+    public static ImportEventDTO counts(String type, long processed, long imported, long failed) {
+        ImportEventDTO event = new ImportEventDTO();
+        event.setType(type);
+        event.setProcessed(processed);
+        event.setImported(imported);
+        event.setFailed(failed);
+        return event;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Long getRow() {
+        return row;
+    }
+
+    public void setRow(Long row) {
+        this.row = row;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public Long getProcessed() {
+        return processed;
+    }
+
+    public void setProcessed(Long processed) {
+        this.processed = processed;
+    }
+
+    public Long getImported() {
+        return imported;
+    }
+
+    public void setImported(Long imported) {
+        this.imported = imported;
+    }
+
+    public Long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(Long failed) {
+        this.failed = failed;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.networktechnologiesproject1.dataTransferObjects;
+
+import java.util.Date;
+
+/**
+ * Aggregates identifying the state of a list without reading its rows: any insert, update or delete changes at
+ * least one of them, as inserts get higher IDs and every write sets lastModified.
+ */
+public class ListVersionDTO {
+    private Long count;
+    private Long idSum;
+    private Integer maxId;
+    private Date lastModified;
+
+    public ListVersionDTO() {
+    }
+
+    public ListVersionDTO(Long count, Long idSum, Integer maxId, Date lastModified) {
+        this.count = count;
+        this.idSum = idSum;
+        this.maxId = maxId;
+        this.lastModified = lastModified;
+    }
+
+    public Long getCount() {
+        return count;
+    }
+
+    public void setCount(Long count) {
+        this.count = count;
+    }
+
+    public Long getIdSum() {
+        return idSum;
+    }
+
+    public void setIdSum(Long idSum) {
+        this.idSum = idSum;
+    }
+
+    public Integer getMaxId() {
+        return maxId;
+    }
+
+    public void setMaxId(Integer maxId) {
+        this.maxId = maxId;
+    }
+
+    public Date getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(Date lastModified) {
+        this.lastModified = lastModified;
+    }
+}
@@ -10,6 +10,18 @@ public class LoanDTO {
     private Date dueDate;
     private Date returnDate;
 
+    public LoanDTO() {
+    }
+
+    public LoanDTO(Integer loanId, Integer bookId, Integer userId, Date loanDate, Date dueDate, Date returnDate) {
+        this.loanId = loanId;
+        this.bookId = bookId;
+        this.userId = userId;
+        this.loanDate = loanDate;
+        this.dueDate = dueDate;
+        this.returnDate = returnDate;
+    }
+
     public Integer getLoanId() {
         return loanId;
     }
@@ -0,0 +1,84 @@
+package com.example.networktechnologiesproject1.dataTransferObjects;
+
+import com.example.networktechnologiesproject1.entities.LoanEventType;
+
+import java.util.Date;
+
+public class LoanEventDTO {
+    private Long sequence;
+    private Long eventId;
+    private LoanEventType eventType;
+    private Integer loanId;
+    private Integer bookId;
+    private Integer userId;
+    private Date occurredAt;
+
+    public LoanEventDTO() {
+    }
+
+    public LoanEventDTO(Long sequence, Long eventId, LoanEventType eventType, Integer loanId, Integer bookId, Integer userId, Date occurredAt) {
+        this.sequence = sequence;
+        this.eventId = eventId;
+        this.eventType = eventType;
+        this.loanId = loanId;
+        this.bookId = bookId;
+        this.userId = userId;
+        this.occurredAt = occurredAt;
+    }
+
+    public Long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(Long sequence) {
+        this.sequence = sequence;
+    }
+
+    public Long getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(Long eventId) {
+        this.eventId = eventId;
+    }
+
+    public LoanEventType getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(LoanEventType eventType) {
+        this.eventType = eventType;
+    }
+
+    public Integer getLoanId() {
+        return loanId;
+    }
+
+    public void setLoanId(Integer loanId) {
+        this.loanId = loanId;
+    }
+
+    public Integer getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(Integer bookId) {
+        this.bookId = bookId;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Integer userId) {
+        this.userId = userId;
+    }
+
+    public Date getOccurredAt() {
+        return occurredAt;
+    }
+
+    public void setOccurredAt(Date occurredAt) {
+        this.occurredAt = occurredAt;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.networktechnologiesproject1.dataTransferObjects;
+
+public class PopularBookDTO {
+    private Integer rank;
+    private Integer bookId;
+    private Double loans;
+
+    public PopularBookDTO() {
+    }
+
+    public PopularBookDTO(Integer rank, Integer bookId, Double loans) {
+        this.rank = rank;
+        this.bookId = bookId;
+        this.loans = loans;
+    }
+
+    public Integer getRank() {
+        return rank;
+    }
+
+    public void setRank(Integer rank) {
+        this.rank = rank;
+    }
+
+    public Integer getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(Integer bookId) {
+        this.bookId = bookId;
+    }
+
+    public Double getLoans() {
+        return loans;
+    }
+
+    public void setLoans(Double loans) {
+        this.loans = loans;
+    }
+}
@@ -10,6 +10,18 @@ public class ReviewDTO {
     private String comment;
     private Date reviewDate;
 
+    public ReviewDTO() {
+    }
+
+    public ReviewDTO(Integer reviewId, Integer bookId, Integer userId, Double rating, String comment, Date reviewDate) {
+        this.reviewId = reviewId;
+        this.bookId = bookId;
+        this.userId = userId;
+        this.rating = rating;
+        this.comment = comment;
+        this.reviewDate = reviewDate;
+    }
+
     public Integer getReviewId() {
         return reviewId;
     }
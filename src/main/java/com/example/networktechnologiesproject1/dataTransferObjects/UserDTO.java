@@ -1,5 +1,7 @@
 package com.example.networktechnologiesproject1.dataTransferObjects;
 
+import com.example.networktechnologiesproject1.entities.User;
+
 public class UserDTO {
     private Integer userId;
     private String email;
@@ -7,6 +9,24 @@ public class UserDTO {
     private String role;
     private String username;
 
+    public UserDTO() {
+    }
+
+    public UserDTO(Integer userId, String email, String name, String role, String username) {
+        this.userId = userId;
+        this.email = email;
+        this.name = name;
+        this.role = role;
+        this.username = username;
+    }
+
+    /**
+     * Copies the public fields of a user, leaving out the password hash.
+     */
+    public static UserDTO fromUser(User user) {
+        return new UserDTO(user.getUserId(), user.getEmail(), user.getName(), user.getRole(), user.getUsername());
+    }
+
     public Integer getUserId() {
         return userId;
     }
@@ -0,0 +1,51 @@
+package com.example.networktechnologiesproject1.dataTransferObjects;
+
+import java.util.List;
+
+public class UserLoanSummaryDTO {
+    private Integer userId;
+    private Long activeLoans;
+    private Long overdueLoans;
+    private Long lifetimeLoans;
+    private List<LoanDTO> currentLoans;
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Integer userId) {
+        this.userId = userId;
+    }
+
+    public Long getActiveLoans() {
+        return activeLoans;
+    }
+
+    public void setActiveLoans(Long activeLoans) {
+        this.activeLoans = activeLoans;
+    }
+
+    public Long getOverdueLoans() {
+        return overdueLoans;
+    }
+
+    public void setOverdueLoans(Long overdueLoans) {
+        this.overdueLoans = overdueLoans;
+    }
+
+    public Long getLifetimeLoans() {
+        return lifetimeLoans;
+    }
+
+    public void setLifetimeLoans(Long lifetimeLoans) {
+        this.lifetimeLoans = lifetimeLoans;
+    }
+
+    public List<LoanDTO> getCurrentLoans() {
+        return currentLoans;
+    }
+
+    public void setCurrentLoans(List<LoanDTO> currentLoans) {
+        this.currentLoans = currentLoans;
+    }
+}
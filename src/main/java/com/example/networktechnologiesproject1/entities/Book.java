@@ -1,16 +1,23 @@
 package com.example.networktechnologiesproject1.entities;
 
 
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.UpdateTimestamp;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import java.util.Date;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.v3.oas.annotations.media.Schema;
 
 /**
  * Entity class representing a book.
+ * Updates only write the columns that changed, so saving a book never writes back an available copies count
+ * that checkouts and returns have changed since it was read.
  */
 @Entity
+@DynamicUpdate
 @Schema(description = "Entity representing a book in the library")
 public class Book {
 
@@ -34,9 +41,14 @@ public class Book {
     @Schema(description = "Year when the book was published", example = "2000")
     private Long year;
 
-    @Schema(description = "Number of available copies of the book", example = "3")
+    @Schema(description = "Number of available copies of the book; set when the book is added, then changed by loans and POST /book/{id}/copies", example = "3")
     private Long availableCopies;
 
+    @UpdateTimestamp
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Schema(description = "When the book was last changed, including its available copies; sent as Last-Modified", example = "2023-02-16T09:00:00Z")
+    private Date lastModified;
+
     public Integer getBookId() {
         return bookId;
     }
@@ -92,4 +104,12 @@ public class Book {
     public void setAvailableCopies(Long availableCopies) {
         this.availableCopies = availableCopies;
     }
+
+    public Date getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(Date lastModified) {
+        this.lastModified = lastModified;
+    }
 }
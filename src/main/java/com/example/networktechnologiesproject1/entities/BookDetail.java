@@ -3,6 +3,9 @@ package com.example.networktechnologiesproject1.entities;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.Column;
+import java.util.Date;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.hibernate.annotations.UpdateTimestamp;
 import io.swagger.v3.oas.annotations.media.Schema;
 
 @Entity
@@ -25,6 +28,11 @@ public class BookDetail {
     @Schema(description = "URL to the book's cover image", example = "https://example.com/book-cover.jpg")
     private String coverImageUrl;
 
+    @UpdateTimestamp
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Schema(description = "When the book detail was last changed; sent as Last-Modified", example = "2023-02-16T09:00:00Z")
+    private Date lastModified;
+
     public Integer getBookId() {
         return bookId;
     }
@@ -56,4 +64,12 @@ public class BookDetail {
     public void setCoverImageUrl(String coverImageUrl) {
         this.coverImageUrl = coverImageUrl;
     }
+
+    public Date getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(Date lastModified) {
+        this.lastModified = lastModified;
+    }
 }
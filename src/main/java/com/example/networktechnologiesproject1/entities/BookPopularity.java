@@ -0,0 +1,84 @@
+package com.example.networktechnologiesproject1.entities;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+import java.util.Date;
+
+/**
+ * Entity holding the stored popularity of a book: its loans in the last day, week and month, counted with
+ * exponential decay, as of computedAt. The snapshots of every instance add to it; the live values are kept
+ * in memory by PopularityService.
+ */
+@Entity
+@Schema(description = "Snapshot of a book's decayed loan counts")
+public class BookPopularity {
+
+    @Id
+    @Schema(description = "Identifier of the book, references the Book entity", example = "1", required = true)
+    private Integer bookId;
+
+    @Schema(description = "Genre of the book when the snapshot was taken", example = "Fantasy")
+    private String genre;
+
+    @Schema(description = "Decayed number of loans in the last day", example = "2.4")
+    private Double dayScore;
+
+    @Schema(description = "Decayed number of loans in the last week", example = "9.1")
+    private Double weekScore;
+
+    @Schema(description = "Decayed number of loans in the last month", example = "31.7")
+    private Double monthScore;
+
+    @Schema(description = "When the scores were computed")
+    private Date computedAt;
+
+    public Integer getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(Integer bookId) {
+        this.bookId = bookId;
+    }
+
+    public String getGenre() {
+        return genre;
+    }
+
+    public void setGenre(String genre) {
+        this.genre = genre;
+    }
+
+    public Double getDayScore() {
+        return dayScore;
+    }
+
+    public void setDayScore(Double dayScore) {
+        this.dayScore = dayScore;
+    }
+
+    public Double getWeekScore() {
+        return weekScore;
+    }
+
+    public void setWeekScore(Double weekScore) {
+        this.weekScore = weekScore;
+    }
+
+    public Double getMonthScore() {
+        return monthScore;
+    }
+
+    public void setMonthScore(Double monthScore) {
+        this.monthScore = monthScore;
+    }
+
+    public Date getComputedAt() {
+        return computedAt;
+    }
+
+    public void setComputedAt(Date computedAt) {
+        this.computedAt = computedAt;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.networktechnologiesproject1.entities;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+/**
+ * Entity holding the rating aggregates of one book, maintained incrementally as reviews are written.
+ * The histogram counts ratings in whole stars, rounded down.
+ */
+@Entity
+@Schema(description = "Aggregated ratings of a book")
+public class BookRatingStats {
+
+    @Id
+    @Schema(description = "Identifier of the book, references the Book entity", example = "1", required = true)
+    private Integer bookId;
+
+    @Schema(description = "Number of reviews of the book", example = "12")
+    private Long reviewCount;
+
+    @Schema(description = "Sum of all ratings of the book", example = "51.5")
+    private Double ratingSum;
+
+    private Long oneStar;
+    private Long twoStars;
+    private Long threeStars;
+    private Long fourStars;
+    private Long fiveStars;
+
+    public Integer getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(Integer bookId) {
+        this.bookId = bookId;
+    }
+
+    public Long getReviewCount() {
+        return reviewCount;
+    }
+
+    public void setReviewCount(Long reviewCount) {
+        this.reviewCount = reviewCount;
+    }
+
+    public Double getRatingSum() {
+        return ratingSum;
+    }
+
+    public void setRatingSum(Double ratingSum) {
+        this.ratingSum = ratingSum;
+    }
+
+    public Long getOneStar() {
+        return oneStar;
+    }
+
+    public void setOneStar(Long oneStar) {
+        this.oneStar = oneStar;
+    }
+
+    public Long getTwoStars() {
+        return twoStars;
+    }
+
+    public void setTwoStars(Long twoStars) {
+        this.twoStars = twoStars;
+    }
+
+    public Long getThreeStars() {
+        return threeStars;
+    }
+
+    public void setThreeStars(Long threeStars) {
+        this.threeStars = threeStars;
+    }
+
+    public Long getFourStars() {
+        return fourStars;
+    }
+
+    public void setFourStars(Long fourStars) {
+        this.fourStars = fourStars;
+    }
+
+    public Long getFiveStars() {
+        return fiveStars;
+    }
+
+    public void setFiveStars(Long fiveStars) {
+        this.fiveStars = fiveStars;
+    }
+}
@@ -5,6 +5,7 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import java.util.Date;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.v3.oas.annotations.media.Schema;
 
 @Entity
@@ -12,7 +13,7 @@ import io.swagger.v3.oas.annotations.media.Schema;
 public class Loan {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Schema(description = "Unique identifier for each loan", example = "101", required = true)
     private Integer loanId;
 
@@ -31,6 +32,10 @@ public class Loan {
     @Schema(description = "The actual date the book was returned", example = "2023-02-10T09:00:00Z", nullable = true)
     private Date returnDate;
 
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Schema(description = "When the loan was reported overdue; set by the overdue detector", example = "2023-02-16T09:00:00Z", nullable = true)
+    private Date overdueNotifiedAt;
+
 
     public Integer getLoanId() {
         return loanId;
@@ -90,4 +95,12 @@ public String toString() {
             ", returnDate=" + returnDate +
             '}';
 }
+
+    public Date getOverdueNotifiedAt() {
+        return overdueNotifiedAt;
+    }
+
+    public void setOverdueNotifiedAt(Date overdueNotifiedAt) {
+        this.overdueNotifiedAt = overdueNotifiedAt;
+    }
 }
@@ -0,0 +1,109 @@
+package com.example.networktechnologiesproject1.entities;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.util.Date;
+
+/**
+ * Entity for a loan event waiting in the outbox. It is written in the same transaction as the loan change
+ * it describes and deleted once it has been appended to the loan event log.
+ */
+@Entity
+@Schema(description = "Loan event waiting to be written to the loan event log")
+public class LoanEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Schema(description = "Unique identifier of the event", example = "1001", required = true)
+    private Long eventId;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR) // Stored as VARCHAR rather than a MySQL ENUM, so new event types need no migration
+    @Column(length = 16)
+    @Schema(description = "What happened to the loan", example = "CHECKOUT")
+    private LoanEventType eventType;
+
+    @Schema(description = "Identifier of the loan", example = "101")
+    private Integer loanId;
+
+    @Schema(description = "Identifier of the loaned book", example = "1")
+    private Integer bookId;
+
+    @Schema(description = "Identifier of the borrowing user", example = "42")
+    private Integer userId;
+
+    @Schema(description = "When the event happened", example = "2023-01-15T09:00:00Z")
+    private Date occurredAt;
+
+    public LoanEvent() {
+    }
+
+    public LoanEvent(LoanEventType eventType, Loan loan) {
+        this(eventType, loan.getLoanId(), loan.getBookId(), loan.getUserId());
+    }
+
+    public LoanEvent(LoanEventType eventType, Integer loanId, Integer bookId, Integer userId) {
+        this.eventType = eventType;
+        this.loanId = loanId;
+        this.bookId = bookId;
+        this.userId = userId;
+        this.occurredAt = new Date();
+    }
+
+    public Long getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(Long eventId) {
+        this.eventId = eventId;
+    }
+
+    public LoanEventType getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(LoanEventType eventType) {
+        this.eventType = eventType;
+    }
+
+    public Integer getLoanId() {
+        return loanId;
+    }
+
+    public void setLoanId(Integer loanId) {
+        this.loanId = loanId;
+    }
+
+    public Integer getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(Integer bookId) {
+        this.bookId = bookId;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Integer userId) {
+        this.userId = userId;
+    }
+
+    public Date getOccurredAt() {
+        return occurredAt;
+    }
+
+    public void setOccurredAt(Date occurredAt) {
+        this.occurredAt = occurredAt;
+    }
+}
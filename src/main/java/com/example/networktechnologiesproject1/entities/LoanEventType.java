@@ -0,0 +1,12 @@
+package com.example.networktechnologiesproject1.entities;
+
+/**
+ * Kinds of loan events. The loan event log stores the ordinal, so new kinds must only be added at the end.
+ */
+public enum LoanEventType {
+    CHECKOUT,
+    RETURN,
+    OVERDUE,
+    DELETE,
+    UPDATE
+}
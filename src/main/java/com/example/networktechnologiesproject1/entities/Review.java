@@ -1,10 +1,13 @@
 package com.example.networktechnologiesproject1.entities;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import org.hibernate.annotations.UpdateTimestamp;
+
 import java.util.Date;
 
 @Entity
@@ -30,6 +33,12 @@ public class Review {
 
     @Schema(description = "The date the review was posted", example = "2024-04-07T00:00:00Z")
     private Date reviewDate;
+
+    @UpdateTimestamp
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Schema(description = "When the review was last changed", example = "2024-04-07T09:00:00Z")
+    private Date lastModified;
+
     public Integer getReviewId() {
         return reviewId;
     }
@@ -77,4 +86,12 @@ public class Review {
     public void setReviewDate(Date reviewDate) {
         this.reviewDate = reviewDate;
     }
+
+    public Date getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(Date lastModified) {
+        this.lastModified = lastModified;
+    }
 }
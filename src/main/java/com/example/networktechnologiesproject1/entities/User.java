@@ -48,7 +48,7 @@ public class User {
         this.username = username;
     }
 
-    @JsonProperty("password") // Ensure this matches the JSON property for serialization/deserialization
+    @JsonProperty(value = "password", access = JsonProperty.Access.WRITE_ONLY) // Accepted on input, never serialized
     public String getPassword() {
         return password;
     }
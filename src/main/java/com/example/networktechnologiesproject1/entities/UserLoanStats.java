@@ -0,0 +1,58 @@
+package com.example.networktechnologiesproject1.entities;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+/**
+ * Entity holding the loan counters of one user, maintained incrementally as loans are written.
+ */
+@Entity
+@Schema(description = "Loan counters of a user")
+public class UserLoanStats {
+
+    @Id
+    @Schema(description = "Identifier of the user, references the User entity", example = "42", required = true)
+    private Integer userId;
+
+    @Schema(description = "Number of loans not yet returned", example = "2")
+    private Long activeLoans;
+
+    @Schema(description = "Number of loans not yet returned and reported overdue", example = "1")
+    private Long overdueLoans;
+
+    @Schema(description = "Number of loans ever made", example = "37")
+    private Long lifetimeLoans;
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Integer userId) {
+        this.userId = userId;
+    }
+
+    public Long getActiveLoans() {
+        return activeLoans;
+    }
+
+    public void setActiveLoans(Long activeLoans) {
+        this.activeLoans = activeLoans;
+    }
+
+    public Long getOverdueLoans() {
+        return overdueLoans;
+    }
+
+    public void setOverdueLoans(Long overdueLoans) {
+        this.overdueLoans = overdueLoans;
+    }
+
+    public Long getLifetimeLoans() {
+        return lifetimeLoans;
+    }
+
+    public void setLifetimeLoans(Long lifetimeLoans) {
+        this.lifetimeLoans = lifetimeLoans;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.networktechnologiesproject1.exceptions;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -28,6 +29,11 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(ex.getMessage());
     }
 
+    @ExceptionHandler(LoginThrottledException.class)
+    public ResponseEntity<?> handleLoginThrottledException(LoginThrottledException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(ex.getMessage());
+    }
+
     // Book exceptions
     @ExceptionHandler(BookNotFoundException.class)
     public ResponseEntity<?> handleBookNotFoundException(BookNotFoundException ex) {
@@ -78,6 +84,11 @@ public class GlobalExceptionHandler {
     public ResponseEntity<?> handleGenreNotSupportedException(GenreNotSupportedException ex) {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
     }
+
+    @ExceptionHandler(PopularityPeriodNotSupportedException.class)
+    public ResponseEntity<?> handlePopularityPeriodNotSupportedException(PopularityPeriodNotSupportedException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+    }
     // Loan exceptions
     @ExceptionHandler(LoanNotFoundException.class)
     public ResponseEntity<?> handleLoanNotFoundException(LoanNotFoundException ex) {
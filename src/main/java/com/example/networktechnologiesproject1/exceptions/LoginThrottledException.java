@@ -0,0 +1,11 @@
+package com.example.networktechnologiesproject1.exceptions;
+
+/**
+ * Exception indicating that a login could not be processed because the password hashing pool is saturated.
+ * This exception may be used to shed load during login storms instead of queueing without bound.
+ */
+public class LoginThrottledException extends RuntimeException {
+    public LoginThrottledException() {
+        super("Too many logins in progress, please retry shortly.");
+    }
+}
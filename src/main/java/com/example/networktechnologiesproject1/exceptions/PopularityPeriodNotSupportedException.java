@@ -0,0 +1,10 @@
+package com.example.networktechnologiesproject1.exceptions;
+
+/**
+ * Exception indicating that a popularity period other than day, week or month was requested.
+ */
+public class PopularityPeriodNotSupportedException extends RuntimeException {
+    public PopularityPeriodNotSupportedException(String period) {
+        super("Popularity period '" + period + "' is not supported; use day, week or month");
+    }
+}
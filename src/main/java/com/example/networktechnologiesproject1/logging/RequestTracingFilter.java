@@ -0,0 +1,61 @@
+package com.example.networktechnologiesproject1.logging;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filter class marking the requests selected by TraceSettings as traced.
+ * A traced request has "trace" set in the MDC, which makes TraceTurboFilter let its SQL statements and this
+ * filter's request/response lines through regardless of the configured log levels. Runs after JWTTokenFilter,
+ * so rules can select requests by user.
+ */
+public class RequestTracingFilter extends OncePerRequestFilter {
+
+    public static final String TRACE_KEY = "trace";
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestTracingFilter.class);
+
+    private final TraceSettings traceSettings;
+
+    /**
+     * Constructor for RequestTracingFilter.
+     * @param traceSettings The rule deciding which requests are traced.
+     */
+    public RequestTracingFilter(TraceSettings traceSettings) {
+        this.traceSettings = traceSettings;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String user = authentication != null && authentication.isAuthenticated() ? authentication.getName() : null;
+        if (!traceSettings.shouldTrace(user, request.getRequestURI())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        MDC.put(TRACE_KEY, "true");
+        long start = System.nanoTime();
+        try {
+            logger.debug("Request {} {}{} from user {}", request.getMethod(), request.getRequestURI(),
+                    request.getQueryString() == null ? "" : "?" + request.getQueryString(), user);
+            filterChain.doFilter(request, response);
+        } finally {
+            logger.debug("Response {} after {} ms", response.getStatus(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            MDC.remove(TRACE_KEY);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.networktechnologiesproject1.logging;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds which requests are traced: SQL statements and the request/response line are logged for requests by the
+ * selected users or to the selected endpoints, for a sample of them, until the rule expires.
+ * The rule is changed at runtime through the tracing actuator endpoint; no restart and no global DEBUG level is needed.
+ */
+@Component
+public class TraceSettings {
+
+    /**
+     * A tracing rule.
+     * @param users Subjects (user IDs) of the users whose requests are traced.
+     * @param pathPrefixes Request paths, matched by prefix, whose requests are traced.
+     * @param sampleRate Fraction of the matching requests that is traced, between 0 and 1.
+     * @param expiresAt When the rule stops applying.
+     */
+    public record Rule(Set<String> users, List<String> pathPrefixes, double sampleRate, Instant expiresAt) {
+
+        public Rule {
+            users = Set.copyOf(users);
+            pathPrefixes = List.copyOf(pathPrefixes);
+            if (sampleRate < 0 || sampleRate > 1) {
+                throw new IllegalArgumentException("The sample rate must be between 0 and 1.");
+            }
+        }
+
+        boolean matches(String user, String path) {
+            if (user != null && users.contains(user)) {
+                return true;
+            }
+            for (String prefix : pathPrefixes) {
+                if (path.startsWith(prefix)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private final AtomicReference<Rule> rule = new AtomicReference<>();
+
+    /**
+     * Replaces the tracing rule.
+     * @param users Subjects of the users to trace.
+     * @param pathPrefixes Path prefixes of the endpoints to trace.
+     * @param sampleRate Fraction of the matching requests to trace.
+     * @param duration How long the rule applies.
+     * @return The new rule.
+     */
+    public Rule enable(Set<String> users, List<String> pathPrefixes, double sampleRate, Duration duration) {
+        Rule enabled = new Rule(users, pathPrefixes, sampleRate, Instant.now().plus(duration));
+        rule.set(enabled);
+        return enabled;
+    }
+
+    /**
+     * Stops tracing.
+     */
+    public void disable() {
+        rule.set(null);
+    }
+
+    /**
+     * Returns the rule in force, or null when nothing is traced.
+     */
+    public Rule getRule() {
+        Rule current = rule.get();
+        if (current != null && Instant.now().isAfter(current.expiresAt())) {
+            rule.compareAndSet(current, null);
+            return null;
+        }
+        return current;
+    }
+
+    /**
+     * Decides whether a request is traced.
+     * @param user The subject of the authenticated user, or null.
+     * @param path The request path.
+     * @return True if the request matches the rule and falls into the sample.
+     */
+    public boolean shouldTrace(String user, String path) {
+        Rule current = rule.get();
+        if (current == null) {
+            return false;
+        }
+        current = getRule();
+        return current != null && current.matches(user, path)
+                && ThreadLocalRandom.current().nextDouble() < current.sampleRate();
+    }
+}
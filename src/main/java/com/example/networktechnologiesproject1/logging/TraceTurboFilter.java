@@ -0,0 +1,34 @@
+package com.example.networktechnologiesproject1.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+/**
+ * Logback turbo filter enabling SQL and HTTP tracing for the requests marked by RequestTracingFilter.
+ * For a traced request, events of the Hibernate SQL logger and of RequestTracingFilter are accepted whatever their
+ * level; everything else, and every untraced request, is left to the configured levels. Turbo filters also answer
+ * isDebugEnabled(), so Hibernate formats and logs statements only for traced requests.
+ * Registered in logback-spring.xml.
+ */
+public class TraceTurboFilter extends TurboFilter {
+
+    private static final String[] TRACED_LOGGERS = {"org.hibernate.SQL", RequestTracingFilter.class.getName()};
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (MDC.get(RequestTracingFilter.TRACE_KEY) == null) {
+            return FilterReply.NEUTRAL;
+        }
+        String name = logger.getName();
+        for (String traced : TRACED_LOGGERS) {
+            if (name.equals(traced)) {
+                return FilterReply.ACCEPT;
+            }
+        }
+        return FilterReply.NEUTRAL;
+    }
+}
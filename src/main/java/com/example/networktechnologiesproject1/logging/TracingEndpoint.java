@@ -0,0 +1,58 @@
+package com.example.networktechnologiesproject1.logging;
+
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Actuator endpoint (/actuator/tracing, staff only) switching request tracing on and off at runtime.
+ * POST a JSON body such as {"users": "42", "paths": "/book/search", "sampleRate": 0.1, "duration": "15m"};
+ * users and paths are comma-separated, sampleRate defaults to 1 and duration to 10 minutes. DELETE stops tracing.
+ */
+@Component
+@Endpoint(id = "tracing")
+public class TracingEndpoint {
+
+    private static final Duration DEFAULT_DURATION = Duration.ofMinutes(10);
+
+    private final TraceSettings traceSettings;
+
+    public TracingEndpoint(TraceSettings traceSettings) {
+        this.traceSettings = traceSettings;
+    }
+
+    @ReadOperation
+    public TraceSettings.Rule rule() {
+        return traceSettings.getRule();
+    }
+
+    @WriteOperation
+    public TraceSettings.Rule enable(@Nullable String users, @Nullable String paths, @Nullable Double sampleRate,
+                                     @Nullable Duration duration) {
+        if (sampleRate != null && (sampleRate < 0 || sampleRate > 1)) {
+            throw new InvalidEndpointRequestException("The sample rate must be between 0 and 1.", "Invalid sampleRate");
+        }
+        return traceSettings.enable(split(users).collect(Collectors.toSet()), split(paths).toList(),
+                sampleRate == null ? 1.0 : sampleRate, duration == null ? DEFAULT_DURATION : duration);
+    }
+
+    @DeleteOperation
+    public void disable() {
+        traceSettings.disable();
+    }
+
+    private static Stream<String> split(String values) {
+        return values == null ? Stream.empty()
+                : Arrays.stream(values.split(",")).map(String::trim).filter(StringUtils::hasText);
+    }
+}
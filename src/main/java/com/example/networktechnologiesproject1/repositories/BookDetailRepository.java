@@ -1,10 +1,44 @@
 package com.example.networktechnologiesproject1.repositories;
 
+import com.example.networktechnologiesproject1.dataTransferObjects.BookDetailDTO;
 import com.example.networktechnologiesproject1.entities.BookDetail;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
 
 @Repository
 public interface BookDetailRepository extends CrudRepository<BookDetail, Integer> {
     boolean existsByBookIdAndGenre(Integer bookId, String genre);
+
+    /**
+     * Returns every book detail, selecting only the DTO columns.
+     *
+     * @return the book details as unmanaged DTOs
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.example.networktechnologiesproject1.dataTransferObjects.BookDetailDTO(d.bookId, d.genre, d.summary, d.coverImageUrl) FROM BookDetail d")
+    List<BookDetailDTO> findAllBookDetailDTOs();
+
+    /**
+     * Returns the details of the given books in a single query, selecting only the DTO columns.
+     *
+     * @param bookIds the IDs of the books
+     * @return the details that exist for these books, as unmanaged DTOs
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.example.networktechnologiesproject1.dataTransferObjects.BookDetailDTO(d.bookId, d.genre, d.summary, d.coverImageUrl) FROM BookDetail d WHERE d.bookId IN ?1")
+    List<BookDetailDTO> findBookDetailDTOsByBookIds(Collection<Integer> bookIds);
+
+    /**
+     * Returns which of the given book IDs already have a detail record, in a single query.
+     *
+     * @param bookIds the book IDs to check
+     * @return the subset of book IDs that already have details
+     */
+    @Query("SELECT d.bookId FROM BookDetail d WHERE d.bookId IN ?1")
+    List<Integer> findExistingBookIds(Collection<Integer> bookIds);
 }
@@ -0,0 +1,42 @@
+package com.example.networktechnologiesproject1.repositories;
+
+import com.example.networktechnologiesproject1.entities.BookPopularity;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+
+@Repository
+public interface BookPopularityRepository extends CrudRepository<BookPopularity, Integer> {
+
+    /**
+     * Adds the decayed loans one instance counted since its previous snapshot to a book's stored scores, decaying
+     * the stored scores to the new computedAt first, so snapshots of several instances add up instead of
+     * overwriting each other.
+     *
+     * @return the number of affected rows
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = "INSERT INTO book_popularity "
+            + "(book_id, genre, day_score, week_score, month_score, computed_at) "
+            + "VALUES (:bookId, :genre, :dayScore, :weekScore, :monthScore, :computedAt) "
+            + "ON DUPLICATE KEY UPDATE "
+            + "day_score = day_score * EXP(-TIMESTAMPDIFF(SECOND, computed_at, VALUES(computed_at)) / 86400.0) + VALUES(day_score), "
+            + "week_score = week_score * EXP(-TIMESTAMPDIFF(SECOND, computed_at, VALUES(computed_at)) / 604800.0) + VALUES(week_score), "
+            + "month_score = month_score * EXP(-TIMESTAMPDIFF(SECOND, computed_at, VALUES(computed_at)) / 2592000.0) + VALUES(month_score), "
+            + "genre = COALESCE(VALUES(genre), genre), "
+            + "computed_at = VALUES(computed_at)")
+    int addScores(Integer bookId, String genre, double dayScore, double weekScore, double monthScore, Date computedAt);
+
+    /**
+     * Removes the books whose month score, decayed to now, fell below minCount; their day and week scores are lower.
+     *
+     * @return the number of removed rows
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = "DELETE FROM book_popularity "
+            + "WHERE month_score * EXP(-TIMESTAMPDIFF(SECOND, computed_at, :now) / 2592000.0) < :minCount")
+    int deleteFaded(Date now, double minCount);
+}
@@ -0,0 +1,85 @@
+package com.example.networktechnologiesproject1.repositories;
+
+import com.example.networktechnologiesproject1.entities.BookRatingStats;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface BookRatingStatsRepository extends CrudRepository<BookRatingStats, Integer> {
+
+    /**
+     * Adds one review's contribution to (or, with negative deltas, removes it from) a book's aggregates
+     * in a single statement, creating the row for the book's first review. Concurrent reviews of the same
+     * book are serialized on its row instead of overwriting each other.
+     *
+     * @param bookId     the ID of the book
+     * @param count      the change in the number of reviews
+     * @param sum        the change in the sum of ratings
+     * @param oneStar    the change in the number of one-star ratings
+     * @param twoStars   the change in the number of two-star ratings
+     * @param threeStars the change in the number of three-star ratings
+     * @param fourStars  the change in the number of four-star ratings
+     * @param fiveStars  the change in the number of five-star ratings
+     * @return the number of affected rows
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = "INSERT INTO book_rating_stats "
+            + "(book_id, review_count, rating_sum, one_star, two_stars, three_stars, four_stars, five_stars) "
+            + "VALUES (?1, ?2, ?3, ?4, ?5, ?6, ?7, ?8) "
+            + "ON DUPLICATE KEY UPDATE review_count = review_count + VALUES(review_count), "
+            + "rating_sum = rating_sum + VALUES(rating_sum), "
+            + "one_star = one_star + VALUES(one_star), "
+            + "two_stars = two_stars + VALUES(two_stars), "
+            + "three_stars = three_stars + VALUES(three_stars), "
+            + "four_stars = four_stars + VALUES(four_stars), "
+            + "five_stars = five_stars + VALUES(five_stars)")
+    int applyDelta(Integer bookId, long count, double sum, long oneStar, long twoStars, long threeStars, long fourStars, long fiveStars);
+
+    /**
+     * Locks every aggregate row (and, on MySQL, the gaps between them) until the end of the transaction, so the
+     * deltas of concurrent review writes wait for a rebuild instead of racing it.
+     *
+     * @return the IDs of the books with aggregates
+     */
+    @Query(nativeQuery = true, value = "SELECT book_id FROM book_rating_stats FOR UPDATE")
+    List<Integer> lockAllStats();
+
+    /**
+     * Recomputes the aggregates of every reviewed book from the review table, overwriting the stored ones
+     * in place rather than deleting and re-inserting them.
+     *
+     * @return the number of affected rows
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = "INSERT INTO book_rating_stats "
+            + "(book_id, review_count, rating_sum, one_star, two_stars, three_stars, four_stars, five_stars) "
+            + "SELECT book_id, COUNT(*), SUM(rating), "
+            + "SUM(CASE WHEN FLOOR(rating) <= 1 THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN FLOOR(rating) = 2 THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN FLOOR(rating) = 3 THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN FLOOR(rating) = 4 THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN FLOOR(rating) >= 5 THEN 1 ELSE 0 END) "
+            + "FROM review WHERE book_id IS NOT NULL AND rating IS NOT NULL GROUP BY book_id "
+            + "ON DUPLICATE KEY UPDATE review_count = VALUES(review_count), "
+            + "rating_sum = VALUES(rating_sum), "
+            + "one_star = VALUES(one_star), "
+            + "two_stars = VALUES(two_stars), "
+            + "three_stars = VALUES(three_stars), "
+            + "four_stars = VALUES(four_stars), "
+            + "five_stars = VALUES(five_stars)")
+    int rebuild();
+
+    /**
+     * Removes the aggregates of books that no longer have rated reviews, after a rebuild.
+     *
+     * @return the number of removed rows
+     */
+    @Modifying
+    @Query("DELETE FROM BookRatingStats s WHERE s.bookId NOT IN "
+            + "(SELECT r.bookId FROM Review r WHERE r.bookId IS NOT NULL AND r.rating IS NOT NULL)")
+    int deleteStatsWithoutReviews();
+}
@@ -1,10 +1,22 @@
 package com.example.networktechnologiesproject1.repositories;
 
+import com.example.networktechnologiesproject1.dataTransferObjects.BookDTO;
+import com.example.networktechnologiesproject1.dataTransferObjects.ListVersionDTO;
 import com.example.networktechnologiesproject1.entities.Book;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for performing CRUD operations on Book entities.
@@ -13,4 +25,100 @@ import java.util.Optional;
 public interface BookRepository extends CrudRepository<Book, Integer> {
     Optional<Book> findByIsbn(String isbn);
 
+    /**
+     * Returns which of the given ISBNs are already in the catalog, in a single query.
+     *
+     * @param isbns the ISBNs to check
+     * @return the subset of ISBNs that already exist
+     */
+    @Query("SELECT b.isbn FROM Book b WHERE b.isbn IN ?1")
+    List<String> findExistingIsbns(Collection<String> isbns);
+
+    /**
+     * Returns which of the given book IDs exist, in a single query.
+     *
+     * @param bookIds the IDs to check
+     * @return the subset of IDs that exist
+     */
+    @Query("SELECT b.bookId FROM Book b WHERE b.bookId IN ?1")
+    List<Integer> findExistingBookIds(Collection<Integer> bookIds);
+
+    /**
+     * Returns the next page of books after the given cursor, ordered by ID (keyset pagination).
+     *
+     * @param bookId the last book ID seen by the client, or 0 for the first page
+     * @param limit  the maximum number of books to return
+     * @return books with an ID greater than the cursor, as unmanaged DTOs
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.example.networktechnologiesproject1.dataTransferObjects.BookDTO(b.bookId, b.isbn, b.title, b.author, b.publisher, b.year, b.availableCopies) FROM Book b WHERE b.bookId > ?1 ORDER BY b.bookId")
+    List<BookDTO> findBookDTOsAfter(Integer bookId, Limit limit);
+
+    /**
+     * Returns the version of the page findBookDTOsAfter would return, without reading the books' columns.
+     *
+     * @param bookId the last book ID seen by the client, or 0 for the first page
+     * @param size   the page size
+     * @return the number, ID sum, highest ID and latest modification of the books on the page
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.example.networktechnologiesproject1.dataTransferObjects.ListVersionDTO(COUNT(*), SUM(p.bookId), MAX(p.bookId), MAX(p.lastModified)) "
+            + "FROM (SELECT b.bookId AS bookId, b.lastModified AS lastModified FROM Book b WHERE b.bookId > ?1 ORDER BY b.bookId LIMIT ?2) p")
+    ListVersionDTO findPageVersion(Integer bookId, int size);
+
+    /**
+     * Streams every book ordered by ID. Must be consumed inside a transaction and closed afterwards.
+     *
+     * @return a stream of book DTOs fetched from the database in chunks; nothing is added to the persistence context
+     */
+    @Query("SELECT new com.example.networktechnologiesproject1.dataTransferObjects.BookDTO(b.bookId, b.isbn, b.title, b.author, b.publisher, b.year, b.availableCopies) FROM Book b ORDER BY b.bookId")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<BookDTO> streamAllOrderedByBookId();
+
+    /**
+     * Streams every book together with its detail (null when it has none), ordered by book ID.
+     * Must be consumed inside a transaction and closed afterwards.
+     *
+     * @return a stream of [Book, BookDetail] pairs
+     */
+    @Query("SELECT b, d FROM Book b LEFT JOIN BookDetail d ON d.bookId = b.bookId ORDER BY b.bookId")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Object[]> streamAllWithDetails();
+
+    /**
+     * Takes one copy of a book if any is left. The guard in the WHERE clause makes the check and the
+     * decrement a single atomic statement, so concurrent checkouts can never oversell a title.
+     *
+     * @param bookId the ID of the book to take a copy of
+     * @return 1 if a copy was taken, 0 if the book does not exist or has no copies left
+     */
+    @Modifying
+    @Query("UPDATE Book b SET b.availableCopies = b.availableCopies - 1, b.lastModified = CURRENT_TIMESTAMP WHERE b.bookId = ?1 AND b.availableCopies > 0")
+    int decrementAvailableCopies(Integer bookId);
+
+    /**
+     * Puts one copy of a book back on the shelf.
+     *
+     * @param bookId the ID of the book to return a copy of
+     * @return 1 if the book exists, 0 otherwise
+     */
+    @Modifying
+    @Query("UPDATE Book b SET b.availableCopies = b.availableCopies + 1, b.lastModified = CURRENT_TIMESTAMP WHERE b.bookId = ?1")
+    int incrementAvailableCopies(Integer bookId);
+
+    /**
+     * Adds copies of a book to the shelf, or removes them if delta is negative. Like the checkout decrement, the
+     * change is relative and guarded in one statement, so it never overwrites concurrent checkouts and returns
+     * and never takes the count below zero.
+     *
+     * @param bookId the ID of the book
+     * @param delta the number of copies to add; negative to remove copies
+     * @return 1 if the count was changed, 0 if the book does not exist or has fewer than -delta copies available
+     */
+    @Modifying
+    @Query("UPDATE Book b SET b.availableCopies = b.availableCopies + ?2, b.lastModified = CURRENT_TIMESTAMP WHERE b.bookId = ?1 AND b.availableCopies + ?2 >= 0")
+    int adjustAvailableCopies(Integer bookId, long delta);
 }
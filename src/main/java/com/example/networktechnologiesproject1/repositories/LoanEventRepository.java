@@ -0,0 +1,40 @@
+package com.example.networktechnologiesproject1.repositories;
+
+import com.example.networktechnologiesproject1.entities.LoanEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface LoanEventRepository extends CrudRepository<LoanEvent, Long> {
+
+    /**
+     * Returns the oldest events waiting in the outbox.
+     * Not read-only, so it always reads the primary: a replica could still list events that were already relayed.
+     *
+     * @param limit the maximum number of events to return
+     * @return the events, in ID order
+     */
+    @Transactional
+    @Query("SELECT e FROM LoanEvent e ORDER BY e.eventId")
+    List<LoanEvent> findOldest(Limit limit);
+
+    /**
+     * Removes events from the outbox once they have been written to the loan event log.
+     * Events are deleted by ID rather than up to the highest ID, since a transaction that took a lower ID
+     * may commit after a batch has been read.
+     *
+     * @param eventIds the IDs of the written events
+     * @return the number of deleted rows
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM LoanEvent e WHERE e.eventId IN ?1")
+    int deleteByEventIds(Collection<Long> eventIds);
+}
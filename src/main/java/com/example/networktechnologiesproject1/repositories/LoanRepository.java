@@ -1,11 +1,19 @@
 package com.example.networktechnologiesproject1.repositories;
 
+import com.example.networktechnologiesproject1.dataTransferObjects.BookLoanCountDTO;
+import com.example.networktechnologiesproject1.dataTransferObjects.LoanDTO;
 import com.example.networktechnologiesproject1.entities.Loan;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface LoanRepository extends CrudRepository<Loan, Integer> {
@@ -15,4 +23,90 @@ public interface LoanRepository extends CrudRepository<Loan, Integer> {
     long countByUserId(Integer userId);
 
     List<Loan> findByUserId(Integer userId);
+
+    /**
+     * Returns every loan, selecting only the DTO columns.
+     *
+     * @return the loans as unmanaged DTOs
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.example.networktechnologiesproject1.dataTransferObjects.LoanDTO(l.loanId, l.bookId, l.userId, l.loanDate, l.dueDate, l.returnDate) FROM Loan l")
+    List<LoanDTO> findAllLoanDTOs();
+
+    /**
+     * Returns the loans of a user, selecting only the DTO columns.
+     *
+     * @param userId the ID of the user
+     * @return the user's loans as unmanaged DTOs
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.example.networktechnologiesproject1.dataTransferObjects.LoanDTO(l.loanId, l.bookId, l.userId, l.loanDate, l.dueDate, l.returnDate) FROM Loan l WHERE l.userId = ?1")
+    List<LoanDTO> findLoanDTOsByUserId(Integer userId);
+
+    /**
+     * Counts the open (not yet returned) loans of the given books in a single grouped query.
+     * Books without open loans are left out of the result.
+     *
+     * @param bookIds the IDs of the books
+     * @return the number of open loans per book
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.example.networktechnologiesproject1.dataTransferObjects.BookLoanCountDTO(l.bookId, COUNT(l)) FROM Loan l WHERE l.bookId IN ?1 AND l.returnDate IS NULL GROUP BY l.bookId")
+    List<BookLoanCountDTO> countOpenLoansByBookIds(Collection<Integer> bookIds);
+
+    /**
+     * Returns the open loans with a due date that have not been reported overdue, selecting only the DTO columns.
+     * Used once, to seed the overdue detector.
+     *
+     * @return the loans as unmanaged DTOs, in due date order
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.example.networktechnologiesproject1.dataTransferObjects.LoanDTO(l.loanId, l.bookId, l.userId, l.loanDate, l.dueDate, l.returnDate) "
+            + "FROM Loan l WHERE l.returnDate IS NULL AND l.dueDate IS NOT NULL AND l.overdueNotifiedAt IS NULL ORDER BY l.dueDate")
+    List<LoanDTO> findUnreportedOpenLoans();
+
+    /**
+     * Returns the open loans already reported overdue, selecting only the DTO columns.
+     * Used once, to seed the overdue detector.
+     *
+     * @return the loans as unmanaged DTOs, in due date order
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.example.networktechnologiesproject1.dataTransferObjects.LoanDTO(l.loanId, l.bookId, l.userId, l.loanDate, l.dueDate, l.returnDate) "
+            + "FROM Loan l WHERE l.returnDate IS NULL AND l.dueDate IS NOT NULL AND l.overdueNotifiedAt IS NOT NULL ORDER BY l.dueDate")
+    List<LoanDTO> findReportedOverdueLoans();
+
+    /**
+     * Loads the given loans that are still open and not yet reported overdue, locking their rows until the end
+     * of the transaction so a concurrent return waits for the report (or the report skips the returned loan).
+     *
+     * @param loanIds the IDs of the loans
+     * @return the locked loans, in ID order
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM Loan l WHERE l.loanId IN ?1 AND l.returnDate IS NULL AND l.overdueNotifiedAt IS NULL ORDER BY l.loanId")
+    List<Loan> findUnreportedForUpdate(Collection<Integer> loanIds);
+
+    /**
+     * Returns one page of a user's open loans, selecting only the DTO columns.
+     *
+     * @param userId the ID of the user
+     * @param pageable the page to return
+     * @return the open loans of the page, the earliest due first
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.example.networktechnologiesproject1.dataTransferObjects.LoanDTO(l.loanId, l.bookId, l.userId, l.loanDate, l.dueDate, l.returnDate) "
+            + "FROM Loan l WHERE l.userId = ?1 AND l.returnDate IS NULL ORDER BY l.dueDate, l.loanId")
+    List<LoanDTO> findCurrentLoanDTOsByUserId(Integer userId, Pageable pageable);
+
+    /**
+     * Loads a loan and locks its row until the end of the transaction, so a loan cannot be
+     * returned, updated or deleted twice at the same time.
+     *
+     * @param loanId the ID of the loan
+     * @return the locked loan, if found
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM Loan l WHERE l.loanId = ?1")
+    Optional<Loan> findByIdForUpdate(Integer loanId);
 }
\ No newline at end of file
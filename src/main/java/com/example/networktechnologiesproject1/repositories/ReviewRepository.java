@@ -1,9 +1,18 @@
 package com.example.networktechnologiesproject1.repositories;
 
+import com.example.networktechnologiesproject1.dataTransferObjects.ListVersionDTO;
+import com.example.networktechnologiesproject1.dataTransferObjects.ReviewDTO;
 import com.example.networktechnologiesproject1.entities.Review;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ReviewRepository extends CrudRepository<Review, Integer> {
@@ -16,4 +25,63 @@ public interface ReviewRepository extends CrudRepository<Review, Integer> {
      * @return true if a review exists, false otherwise
      */
     boolean existsByUserIdAndBookId(Integer userId, Integer bookId);
+
+    /**
+     * Checks that both the user and the book of a review exist, in a single query.
+     *
+     * @param userId the ID of the user
+     * @param bookId the ID of the book
+     * @return true if both exist, false if either is missing
+     */
+    @Query("SELECT CASE WHEN EXISTS (SELECT u.userId FROM User u WHERE u.userId = ?1) "
+            + "AND EXISTS (SELECT b.bookId FROM Book b WHERE b.bookId = ?2) THEN true ELSE false END")
+    boolean existsUserAndBook(Integer userId, Integer bookId);
+
+    /**
+     * Returns the reviews written by any of the given users about any of the given books, in a single query.
+     * The result may include pairs that were not asked for together; callers match (user, book) pairs themselves.
+     *
+     * @param userIds the IDs of the users
+     * @param bookIds the IDs of the books
+     * @return the matching reviews
+     */
+    List<Review> findByUserIdInAndBookIdIn(Collection<Integer> userIds, Collection<Integer> bookIds);
+
+    /**
+     * Saves a review and flushes at once, so constraint violations surface as DataIntegrityViolationException
+     * from this call rather than at commit.
+     *
+     * @param review the review to save
+     * @return the saved review
+     */
+    <S extends Review> S saveAndFlush(S review);
+
+    /**
+     * Returns every review, selecting only the DTO columns.
+     *
+     * @return the reviews as unmanaged DTOs
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.example.networktechnologiesproject1.dataTransferObjects.ReviewDTO(r.reviewId, r.bookId, r.userId, r.rating, r.comment, r.reviewDate) FROM Review r")
+    List<ReviewDTO> findAllReviewDTOs();
+
+    /**
+     * Returns the version of the list findAllReviewDTOs would return, reading indexes only.
+     *
+     * @return the number, ID sum, highest ID and latest modification of the reviews
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.example.networktechnologiesproject1.dataTransferObjects.ListVersionDTO(COUNT(r), SUM(r.reviewId), MAX(r.reviewId), MAX(r.lastModified)) FROM Review r")
+    ListVersionDTO findVersion();
+
+    /**
+     * Loads a review and locks its row until the end of the transaction, so the rating aggregates
+     * are not adjusted twice for the same change.
+     *
+     * @param reviewId the ID of the review
+     * @return the locked review, if found
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Review r WHERE r.reviewId = ?1")
+    Optional<Review> findByIdForUpdate(Integer reviewId);
 }
@@ -0,0 +1,67 @@
+package com.example.networktechnologiesproject1.repositories;
+
+import com.example.networktechnologiesproject1.entities.UserLoanStats;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface UserLoanStatsRepository extends CrudRepository<UserLoanStats, Integer> {
+
+    /**
+     * Adds one loan's contribution to (or, with negative deltas, removes it from) a user's counters
+     * in a single statement, creating the row for the user's first loan.
+     *
+     * @param userId   the ID of the user
+     * @param active   the change in the number of open loans
+     * @param overdue  the change in the number of open loans reported overdue
+     * @param lifetime the change in the number of loans
+     * @return the number of affected rows
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = "INSERT INTO user_loan_stats (user_id, active_loans, overdue_loans, lifetime_loans) "
+            + "VALUES (?1, ?2, ?3, ?4) "
+            + "ON DUPLICATE KEY UPDATE active_loans = active_loans + VALUES(active_loans), "
+            + "overdue_loans = overdue_loans + VALUES(overdue_loans), "
+            + "lifetime_loans = lifetime_loans + VALUES(lifetime_loans)")
+    int applyDelta(Integer userId, long active, long overdue, long lifetime);
+
+    /**
+     * Locks every counter row (and, on MySQL, the gaps between them) until the end of the transaction, so the
+     * deltas of concurrent loan writes wait for a rebuild instead of racing it.
+     *
+     * @return the IDs of the users with counters
+     */
+    @Query(nativeQuery = true, value = "SELECT user_id FROM user_loan_stats FOR UPDATE")
+    List<Integer> lockAllStats();
+
+    /**
+     * Recomputes the counters of every user with loans from the loan table, overwriting the stored ones
+     * in place rather than deleting and re-inserting them.
+     *
+     * @return the number of affected rows
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = "INSERT INTO user_loan_stats (user_id, active_loans, overdue_loans, lifetime_loans) "
+            + "SELECT user_id, "
+            + "SUM(CASE WHEN return_date IS NULL THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN return_date IS NULL AND overdue_notified_at IS NOT NULL THEN 1 ELSE 0 END), "
+            + "COUNT(*) "
+            + "FROM loan WHERE user_id IS NOT NULL GROUP BY user_id "
+            + "ON DUPLICATE KEY UPDATE active_loans = VALUES(active_loans), "
+            + "overdue_loans = VALUES(overdue_loans), "
+            + "lifetime_loans = VALUES(lifetime_loans)")
+    int rebuild();
+
+    /**
+     * Removes the counters of users who no longer have loans, after a rebuild.
+     *
+     * @return the number of removed rows
+     */
+    @Modifying
+    @Query("DELETE FROM UserLoanStats s WHERE s.userId NOT IN (SELECT l.userId FROM Loan l WHERE l.userId IS NOT NULL)")
+    int deleteStatsWithoutLoans();
+}
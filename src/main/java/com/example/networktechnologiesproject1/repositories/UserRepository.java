@@ -1,11 +1,57 @@
 package com.example.networktechnologiesproject1.repositories;
 
+import com.example.networktechnologiesproject1.dataTransferObjects.UserDTO;
 import com.example.networktechnologiesproject1.entities.User;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends CrudRepository<User, Integer> {
     Optional<User> findByUsername(String username);
+
+    /**
+     * Returns which of the given user IDs exist, in a single query.
+     *
+     * @param userIds the IDs to check
+     * @return the subset of IDs that exist
+     */
+    @Query("SELECT u.userId FROM User u WHERE u.userId IN ?1")
+    List<Integer> findExistingUserIds(Collection<Integer> userIds);
+
+    /**
+     * Returns every user without the password hash, selecting only the DTO columns.
+     *
+     * @return the users as unmanaged DTOs
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.example.networktechnologiesproject1.dataTransferObjects.UserDTO(u.userId, u.email, u.name, u.role, u.username) FROM User u")
+    List<UserDTO> findAllUserDTOs();
+
+    /**
+     * Returns a user without the password hash, selecting only the DTO columns.
+     *
+     * @param userId the ID of the user
+     * @return the user as an unmanaged DTO, if found
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.example.networktechnologiesproject1.dataTransferObjects.UserDTO(u.userId, u.email, u.name, u.role, u.username) FROM User u WHERE u.userId = ?1")
+    Optional<UserDTO> findUserDTOById(Integer userId);
+
+    /**
+     * Replaces a user's password hash without touching the other columns.
+     *
+     * @param userId   the ID of the user
+     * @param password the new password hash
+     * @return the number of updated rows
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = ?2 WHERE u.userId = ?1")
+    int updatePassword(Integer userId, String password);
 }
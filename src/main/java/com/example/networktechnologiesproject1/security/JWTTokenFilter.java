@@ -1,7 +1,16 @@
 package com.example.networktechnologiesproject1.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -18,22 +27,83 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Collections;
-import java.util.stream.Collectors;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Filter class for processing JWT token authentication.
+ * Verified tokens are cached until their expiry, so repeated requests with the same bearer token
+ * skip parsing and the HMAC signature check.
+ * Token checks are timed as library.jwt.verify, tagged with whether the token came from the cache,
+ * was verified, or was rejected.
  */
 public class JWTTokenFilter extends OncePerRequestFilter {
 
     private static final Logger logger = LoggerFactory.getLogger(JWTTokenFilter.class);
 
-    private final String key;
+    static final int DEFAULT_CACHE_SIZE = 10_000;
+
+    static final String VERIFY_TIMER = "library.jwt.verify";
+
+    private final JwtParser parser;
+
+    private final Cache<String, VerifiedToken> verifiedTokens;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Timer cachedTimer;
+
+    private final Timer verifiedTimer;
+
+    private final Timer rejectedTimer;
 
     /**
      * Constructor for JWTTokenFilter.
      */
     public JWTTokenFilter(String key) {
-        this.key = key;
+        this(key, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Constructor for JWTTokenFilter.
+     * @param key The HMAC secret the tokens are signed with.
+     * @param cacheSize The maximum number of verified tokens to cache; 0 disables the cache.
+     */
+    public JWTTokenFilter(String key, int cacheSize) {
+        this(key, cacheSize, Metrics.globalRegistry);
+    }
+
+    /**
+     * Constructor for JWTTokenFilter.
+     * @param key The HMAC secret the tokens are signed with.
+     * @param cacheSize The maximum number of verified tokens to cache; 0 disables the cache.
+     * @param meterRegistry The registry token check timings and cache statistics are published to.
+     */
+    public JWTTokenFilter(String key, int cacheSize, MeterRegistry meterRegistry) {
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(key.getBytes(StandardCharsets.UTF_8)))
+                .build();
+        this.verifiedTokens = cacheSize > 0
+                ? Caffeine.newBuilder()
+                        .maximumSize(cacheSize)
+                        .expireAfter(new UntilTokenExpiry())
+                        .recordStats()
+                        .build()
+                : null;
+        this.meterRegistry = meterRegistry;
+        this.cachedTimer = verifyTimer(meterRegistry, "cached");
+        this.verifiedTimer = verifyTimer(meterRegistry, "verified");
+        this.rejectedTimer = verifyTimer(meterRegistry, "rejected");
+        if (verifiedTokens != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwtTokens");
+        }
+    }
+
+    private static Timer verifyTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder(VERIFY_TIMER)
+                .description("Time to authenticate a bearer token")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
 
     @Override
@@ -50,26 +120,22 @@ public class JWTTokenFilter extends OncePerRequestFilter {
         String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
 
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            String token = authHeader.split(" ")[1];
+            String token = authHeader.substring("Bearer ".length()).trim();
+            Timer.Sample sample = Timer.start(meterRegistry);
 
             try {
-                Claims claims = Jwts.parserBuilder()
-                        .setSigningKey(key.getBytes(StandardCharsets.UTF_8))
-                        .build()
-                        .parseClaimsJws(token)
-                        .getBody();
-
-                String id = claims.getSubject();
-                String role = (String) claims.get("role");
+                VerifiedToken verified = verify(token, sample);
 
                 Authentication authentication = new UsernamePasswordAuthenticationToken(
-                        id, null, Collections.singletonList(new SimpleGrantedAuthority(role))
+                        verified.subject(), null, Collections.singletonList(new SimpleGrantedAuthority(verified.role()))
                 );
 
                 SecurityContextHolder.getContext().setAuthentication(authentication);
-                logger.debug("Authentication successful for id: {}", id);
+                logger.debug("Authentication successful for id: {}", verified.subject());
             } catch (Exception e) {
-                logger.error("Authentication error: {} - {}", e.getClass().getSimpleName(), e.getMessage());
+                sample.stop(rejectedTimer);
+                // Rejections are counted by the verify timer; logging each one would let bad clients flood the log
+                logger.debug("Authentication error: {} - {}", e.getClass().getSimpleName(), e.getMessage());
                 SecurityContextHolder.clearContext();
             }
         } else {
@@ -79,4 +145,70 @@ public class JWTTokenFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Returns the cache of verified tokens, or null when caching is disabled.
+     */
+    public Cache<String, VerifiedToken> getVerifiedTokens() {
+        return verifiedTokens;
+    }
+
+    /**
+     * Returns the verified subject and role of a token, from the cache when possible.
+     * Tokens without an expiry are verified on every request and never cached.
+     */
+    private VerifiedToken verify(String token, Timer.Sample sample) {
+        if (verifiedTokens != null) {
+            VerifiedToken cached = verifiedTokens.getIfPresent(token);
+            if (cached != null && cached.expiresAtMillis() > System.currentTimeMillis()) {
+                sample.stop(cachedTimer);
+                return cached;
+            }
+        }
+
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        Date expiration = claims.getExpiration();
+        VerifiedToken verified = new VerifiedToken(
+                claims.getSubject(),
+                (String) claims.get("role"),
+                expiration != null ? expiration.getTime() : Long.MIN_VALUE
+        );
+
+        if (verifiedTokens != null && expiration != null) {
+            verifiedTokens.put(token, verified);
+        }
+        sample.stop(verifiedTimer);
+        return verified;
+    }
+
+    /**
+     * Subject and role of a token whose signature has already been checked.
+     * @param subject The token subject (username).
+     * @param role The role claim.
+     * @param expiresAtMillis The token's exp claim in epoch milliseconds.
+     */
+    public record VerifiedToken(String subject, String role, long expiresAtMillis) {
+    }
+
+    /**
+     * Expires each cache entry at the exp claim of its token.
+     */
+    private static final class UntilTokenExpiry implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String token, VerifiedToken verified, long currentTime) {
+            long remainingMillis = verified.expiresAtMillis() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+        }
+
+        @Override
+        public long expireAfterUpdate(String token, VerifiedToken verified, long currentTime, long currentDuration) {
+            return expireAfterCreate(token, verified, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String token, VerifiedToken verified, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
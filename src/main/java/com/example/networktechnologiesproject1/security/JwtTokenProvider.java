@@ -0,0 +1,56 @@
+package com.example.networktechnologiesproject1.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.stream.Collectors;
+
+/**
+ * Component responsible for minting the JWTs handed out on login.
+ * The signing key is derived once from the configured secret.
+ */
+@Component
+public class JwtTokenProvider {
+
+    /**
+     * How long an issued token stays valid: 20 minutes.
+     */
+    public static final long TOKEN_VALIDITY_MILLIS = 20 * 60 * 1000;
+
+    private final SecretKey signingKey;
+
+    /**
+     * Constructor for JwtTokenProvider.
+     * @param secret The HMAC secret shared with JWTTokenFilter.
+     */
+    public JwtTokenProvider(@Value("${jwt.secret}") String secret) {
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Creates a signed token carrying the user's name as subject and their authorities as the role claim.
+     * @param userDetails The authenticated user.
+     * @return The compact, signed JWT.
+     */
+    public String createToken(UserDetails userDetails) {
+        long now = System.currentTimeMillis();
+        String roles = userDetails.getAuthorities().stream()
+                .map(Object::toString)
+                .collect(Collectors.joining(","));
+
+        return Jwts.builder()
+                .setSubject(userDetails.getUsername())
+                .claim("role", roles)
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + TOKEN_VALIDITY_MILLIS))
+                .signWith(signingKey, SignatureAlgorithm.HS256)
+                .compact();
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.networktechnologiesproject1.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+/**
+ * Filter class limiting the request rate of each client and shedding load when the database is saturated.
+ * It runs after JWTTokenFilter: authenticated clients are keyed by token subject, anonymous ones by remote address.
+ * Every client has a token bucket per budget; expensive endpoints (login, full listings, search) draw from their own,
+ * smaller budgets, everything else from the default one. A request over budget gets 429 with Retry-After.
+ * When more than the configured number of callers wait for a database connection, requests are answered with 503
+ * straight away instead of queueing behind them. Actuator and Swagger endpoints are never limited.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    static final String REJECTED_COUNTER = "library.ratelimit.rejected";
+    static final String SHED_COUNTER = "library.loadshed.rejected";
+
+    static final String DEFAULT_BUDGET = "default";
+
+    private static final RequestMatcher EXEMPT = new OrRequestMatcher(
+            new AntPathRequestMatcher("/actuator/**"),
+            new AntPathRequestMatcher("/swagger-ui/**"),
+            new AntPathRequestMatcher("/swagger-ui.html"),
+            new AntPathRequestMatcher("/v3/api-docs/**"));
+
+    private final List<Budget> budgets;
+    private final Budget defaultBudget;
+    private final IntSupplier waitingForDatabase;
+    private final int maxWaitingForDatabase;
+    private final Cache<String, TokenBucket> buckets;
+    private final Map<String, Counter> rejectedCounters = new HashMap<>();
+    private final Counter shedCounter;
+
+    /**
+     * Constructor for RateLimitFilter.
+     * @param budgets The budgets for specific endpoints, checked in order.
+     * @param defaultBudget The budget for all other endpoints.
+     * @param waitingForDatabase Reports the number of callers currently waiting for a database connection.
+     * @param maxWaitingForDatabase The number of waiting callers above which requests are shed; 0 disables shedding.
+     * @param meterRegistry The registry rejection counts are published to.
+     */
+    public RateLimitFilter(List<Budget> budgets, Budget defaultBudget, IntSupplier waitingForDatabase,
+                           int maxWaitingForDatabase, MeterRegistry meterRegistry) {
+        this.budgets = budgets;
+        this.defaultBudget = defaultBudget;
+        this.waitingForDatabase = waitingForDatabase;
+        this.maxWaitingForDatabase = maxWaitingForDatabase;
+        long longestRefill = defaultBudget.refillNanos();
+        for (Budget budget : budgets) {
+            longestRefill = Math.max(longestRefill, budget.refillNanos());
+        }
+        // An idle bucket refills completely within longestRefill; dropping it after that loses nothing
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterAccess(Duration.ofNanos(Math.max(longestRefill, TimeUnit.MINUTES.toNanos(1))))
+                .build();
+        for (Budget budget : budgets) {
+            rejectedCounters.put(budget.name(), rejectedCounter(meterRegistry, budget.name()));
+        }
+        rejectedCounters.put(defaultBudget.name(), rejectedCounter(meterRegistry, defaultBudget.name()));
+        this.shedCounter = Counter.builder(SHED_COUNTER)
+                .description("Requests rejected because too many callers were waiting for a database connection")
+                .register(meterRegistry);
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String budget) {
+        return Counter.builder(REJECTED_COUNTER)
+                .description("Requests rejected for exceeding the client's rate limit")
+                .tag("budget", budget)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return EXEMPT.matches(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (maxWaitingForDatabase > 0 && waitingForDatabase.getAsInt() > maxWaitingForDatabase) {
+            shedCounter.increment();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, 1, "The service is overloaded, please retry shortly.");
+            return;
+        }
+
+        Budget budget = budgetFor(request);
+        String client = clientOf(request);
+        TokenBucket bucket = buckets.get(budget.name() + '|' + client, key -> new TokenBucket(budget));
+        long waitNanos = bucket.tryAcquire(System.nanoTime());
+        if (waitNanos > 0) {
+            rejectedCounters.get(budget.name()).increment();
+            logger.debug("Rate limit '{}' exceeded by {}", budget.name(), client);
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, retryAfterSeconds, "Too many requests, please retry later.");
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private Budget budgetFor(HttpServletRequest request) {
+        for (Budget budget : budgets) {
+            if (budget.matcher().matches(request)) {
+                return budget;
+            }
+        }
+        return defaultBudget;
+    }
+
+    private static String clientOf(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated() && authentication.getName() != null) {
+            return "user:" + authentication.getName();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, long retryAfterSeconds, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write(message);
+    }
+
+    /**
+     * A rate limit for a group of endpoints.
+     * @param name The name of the budget, used in metrics.
+     * @param matcher Selects the requests drawing from this budget.
+     * @param permitsPerSecond The sustained number of requests per second and client.
+     * @param burst The number of requests a client may make at once after being idle.
+     */
+    public record Budget(String name, RequestMatcher matcher, double permitsPerSecond, int burst) {
+
+        public Budget {
+            if (permitsPerSecond <= 0 || burst < 1) {
+                throw new IllegalArgumentException("Rate limit '" + name + "' needs a positive rate and a burst of at least 1.");
+            }
+        }
+
+        /**
+         * Creates a budget for the given endpoints.
+         * @param method The HTTP method of the endpoints, or null for any.
+         * @param patterns Ant-style path patterns of the endpoints.
+         */
+        public static Budget of(String name, HttpMethod method, double permitsPerSecond, int burst, String... patterns) {
+            RequestMatcher[] matchers = new RequestMatcher[patterns.length];
+            for (int i = 0; i < patterns.length; i++) {
+                matchers[i] = new AntPathRequestMatcher(patterns[i], method == null ? null : method.name());
+            }
+            return new Budget(name, new OrRequestMatcher(matchers), permitsPerSecond, burst);
+        }
+
+        long intervalNanos() {
+            return Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        }
+
+        long refillNanos() {
+            return intervalNanos() * burst;
+        }
+    }
+
+    /**
+     * Lock-free token bucket in its GCRA form: a single timestamp, the theoretical arrival time of the next request,
+     * replaces the token count and the refill time, so admitting a request is one compare-and-set.
+     */
+    static final class TokenBucket {
+
+        private final long intervalNanos;
+        private final long toleranceNanos;
+        private final AtomicLong theoreticalArrival;
+
+        TokenBucket(Budget budget) {
+            this.intervalNanos = budget.intervalNanos();
+            this.toleranceNanos = intervalNanos * (budget.burst() - 1L);
+            this.theoreticalArrival = new AtomicLong(System.nanoTime() - toleranceNanos - intervalNanos);
+        }
+
+        /**
+         * Takes a token if one is available.
+         * @param now The current System.nanoTime().
+         * @return 0 if the request is admitted, otherwise the nanoseconds until a token becomes available.
+         */
+        long tryAcquire(long now) {
+            while (true) {
+                long arrival = theoreticalArrival.get();
+                long start = arrival - now > 0 ? arrival : now;
+                long wait = start - toleranceNanos - now;
+                if (wait > 0) {
+                    return wait;
+                }
+                if (theoreticalArrival.compareAndSet(arrival, start + intervalNanos)) {
+                    return 0;
+                }
+            }
+        }
+    }
+}
@@ -1,20 +1,50 @@
 package com.example.networktechnologiesproject1.security;
 
+import com.example.networktechnologiesproject1.config.DatabaseConcurrencyConfiguration;
+import com.example.networktechnologiesproject1.logging.RequestTracingFilter;
+import com.example.networktechnologiesproject1.logging.TraceSettings;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
 /**
  * Configuration class for security settings.
  */
@@ -25,13 +55,68 @@ public class SecurityConfig {
     @Value("${jwt.secret}")
     private String key;
 
+    @Value("${jwt.cache.size:10000}")
+    private int tokenCacheSize;
+
+    @Value("${security.password.encoder:bcrypt}")
+    private String passwordEncoderId;
+
+    @Value("${security.password.bcrypt-strength:10}")
+    private int bcryptStrength;
+
+    @Value("${library.metrics.scrape-username:prometheus}")
+    private String scrapeUsername;
+
+    @Value("${library.metrics.scrape-password:}")
+    private String scrapePassword;
+
     /**
      * Defines a PasswordEncoder bean for encoding passwords.
-     * @return BCryptPasswordEncoder object for password encoding.
+     * New hashes use the configured algorithm and work factor; hashes stored without an {id} prefix are
+     * matched as BCrypt, and any hash that is outdated is flagged for upgrade on the next successful login.
+     * @return DelegatingPasswordEncoder object for password encoding.
      */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", bcrypt);
+        encoders.put("pbkdf2", Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(passwordEncoderId, encoders);
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
+    }
+
+    /**
+     * Defines the bounded executor that runs password hashing for logins.
+     * Once all threads are busy and the queue is full, further logins are rejected instead of piling up.
+     * When virtual threads are enabled (spring.threads.virtual.enabled on JDK 21) the hashing threads are virtual.
+     * @param threads Number of hashing threads, defaults to the number of available processors.
+     * @param queueCapacity Number of logins allowed to wait for a hashing thread.
+     * @param meterRegistry Registry the executor metrics are bound to.
+     * @param environment Environment used to detect virtual-thread mode.
+     * @return ThreadPoolExecutor used by the login pipeline.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor passwordHashingExecutor(@Value("${security.login.threads:0}") int threads,
+                                                      @Value("${security.login.queue-capacity:100}") int queueCapacity,
+                                                      MeterRegistry meterRegistry, Environment environment) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ThreadFactory threadFactory;
+        if (Threading.VIRTUAL.isActive(environment)) {
+            threadFactory = new VirtualThreadTaskExecutor("password-hashing-").getVirtualThreadFactory();
+        } else {
+            AtomicInteger threadCount = new AtomicInteger();
+            threadFactory = runnable -> {
+                Thread thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        new ExecutorServiceMetrics(executor, "passwordHashing", Collections.emptyList()).bindTo(meterRegistry);
+        return executor;
     }
 
     /**
@@ -42,21 +127,52 @@ public class SecurityConfig {
         return http.getSharedObject(AuthenticationManagerBuilder.class).build();
     }
 
+    /**
+     * Defines the filter chain of the Prometheus endpoint, checked before the main chain.
+     * Scrapers cannot renew the short-lived JWTs, so they authenticate with HTTP Basic as the configured scrape
+     * user, who only has ROLE_METRICS. Without a configured password every scrape is rejected.
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain prometheusFilterChain(HttpSecurity http, PasswordEncoder passwordEncoder) throws Exception {
+        InMemoryUserDetailsManager scrapeUsers = new InMemoryUserDetailsManager();
+        if (!scrapePassword.isBlank()) {
+            scrapeUsers.createUser(User.withUsername(scrapeUsername).password(scrapePassword).roles("METRICS").build());
+        }
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(passwordEncoder);
+        provider.setUserDetailsService(scrapeUsers);
+
+        http
+                .securityMatcher("/actuator/prometheus")
+                .csrf(csrf -> csrf.disable())
+                .authorizeHttpRequests(authz -> authz.anyRequest().hasRole("METRICS"))
+                .httpBasic(Customizer.withDefaults())
+                .authenticationManager(new ProviderManager(provider))
+                .sessionManagement(session -> session
+                        .sessionCreationPolicy(SessionCreationPolicy.STATELESS));
+        return http.build();
+    }
+
     /**
      * Defines a SecurityFilterChain bean for setting up security filters.
      */
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, MeterRegistry meterRegistry, Environment environment,
+                                           ObjectProvider<DataSource> dataSource, TraceSettings traceSettings) throws Exception {
         http
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(authz -> authz
 //                        .anyRequest().permitAll())
+                        // Streamed responses finish in an async dispatch; the request was authorized on its way in
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers(HttpMethod.GET, "/isLoggedIn").permitAll()
                         .requestMatchers("/register", "/login", "/user/testAdd").permitAll() // Permit all for login and register
                         // Swagger permissions
                         .requestMatchers("/swagger-ui.html", "/swagger-ui/**", "/swagger-resources/**", "/swagger-resources", "/v3/api-docs/**", "/proxy/**", "/error").permitAll()
                         // Reader permissions (ROLE_USER and ROLE_STAFF)
                         .requestMatchers(HttpMethod.DELETE, "/loan/delete/*").hasAnyRole("USER", "STAFF") // Return a book
+                        .requestMatchers(HttpMethod.GET, "/loan/events").hasRole("STAFF") // Loan event log
+                        .requestMatchers(HttpMethod.GET, "/loan/overdue").hasRole("STAFF") // Overdue loans
                         .requestMatchers(HttpMethod.GET, "/loan/getAll", "/loan/*").hasAnyRole("USER", "STAFF") // View Loan History
                         .requestMatchers(HttpMethod.GET, "/loan/user/*").authenticated()
                         .requestMatchers(HttpMethod.GET, "/user/{id}/current").authenticated()
@@ -71,17 +187,53 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.PUT, "/user/update/*").hasRole("STAFF") // Update user
                         .requestMatchers(HttpMethod.DELETE, "/user/delete/*").hasRole("STAFF") // Delete user
                         .requestMatchers(HttpMethod.GET, "/user/{id}/current").authenticated() // Get current user's ID
-                        .requestMatchers(HttpMethod.GET, "/user/{id}/loanCount").hasRole("STAFF")
+                        .requestMatchers(HttpMethod.GET, "/user/{id}/loanCount", "/user/{id}/loanSummary").hasRole("STAFF")
+                        .requestMatchers(HttpMethod.POST, "/user/loanStats/rebuild").hasRole("STAFF") // Rebuild loan counters
                         .requestMatchers(HttpMethod.PUT, "/loan/return/{id}").hasRole("STAFF")
+                        .requestMatchers("/actuator/**").hasRole("STAFF") // Operational metrics
+                        .requestMatchers(HttpMethod.POST, "/book/import", "/bookDetail/import").hasRole("STAFF") // Bulk catalog import
+                        .requestMatchers(HttpMethod.POST, "/book/rating/rebuild").hasRole("STAFF") // Rebuild rating aggregates
+                        .requestMatchers(HttpMethod.POST, "/book/{id}/copies").hasRole("STAFF") // Change available copies
 
 
                         // .requestMatchers(HttpMethod.GET, "/reports/**").hasRole("STAFF") // Generate reports (BONUS)
                         .anyRequest().authenticated())
                 .sessionManagement(session -> session
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-                .addFilterBefore(new JWTTokenFilter(key), UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(new JWTTokenFilter(key, tokenCacheSize, meterRegistry), UsernamePasswordAuthenticationFilter.class)
+                .addFilterAfter(new RequestTracingFilter(traceSettings), JWTTokenFilter.class);
+        if (environment.getProperty("library.rate-limit.enabled", Boolean.class, true)) {
+            http.addFilterAfter(rateLimitFilter(meterRegistry, environment, dataSource), JWTTokenFilter.class);
+        }
 
         return http.build();
     }
 
+    /**
+     * Creates the per-client rate limiter from the library.rate-limit.* and library.load-shedding.* properties.
+     * It is not a bean, so Spring Boot does not also register it as a servlet filter outside the security chain.
+     */
+    private static RateLimitFilter rateLimitFilter(MeterRegistry meterRegistry, Environment environment,
+                                                   ObjectProvider<DataSource> dataSource) {
+        List<RateLimitFilter.Budget> budgets = List.of(
+                budget(environment, "login", HttpMethod.POST, 1, 5, "/login", "/register"),
+                budget(environment, "list", HttpMethod.GET, 2, 10,
+                        "/book/getAll", "/bookDetail/getAll", "/catalog", "/loan/getAll", "/review/getAll", "/user/getAll"),
+                budget(environment, "search", HttpMethod.GET, 5, 20, "/book/search"));
+        RateLimitFilter.Budget defaultBudget = budget(environment, RateLimitFilter.DEFAULT_BUDGET, null, 50, 100, "/**");
+        int maxWaiting = environment.getProperty("library.load-shedding.max-waiting-connections", Integer.class, 0);
+        DataSource pool = dataSource.getIfAvailable();
+        IntSupplier waiting = pool == null ? () -> 0 : () -> DatabaseConcurrencyConfiguration.countWaitingCallers(pool);
+        return new RateLimitFilter(budgets, defaultBudget, waiting, maxWaiting, meterRegistry);
+    }
+
+    private static RateLimitFilter.Budget budget(Environment environment, String name, HttpMethod method,
+                                                 double permitsPerSecond, int burst, String... patterns) {
+        String prefix = "library.rate-limit." + name + ".";
+        return RateLimitFilter.Budget.of(name, method,
+                environment.getProperty(prefix + "permits-per-second", Double.class, permitsPerSecond),
+                environment.getProperty(prefix + "burst", Integer.class, burst),
+                patterns);
+    }
+
 }
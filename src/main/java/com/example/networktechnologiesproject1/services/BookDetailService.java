@@ -1,25 +1,85 @@
 package com.example.networktechnologiesproject1.services;
 
+import com.example.networktechnologiesproject1.config.CacheConfiguration;
 import com.example.networktechnologiesproject1.entities.BookDetail;
+import com.example.networktechnologiesproject1.exceptions.AssociatedBookNotFoundException;
+import com.example.networktechnologiesproject1.exceptions.BookDetailDuplicateException;
+import com.example.networktechnologiesproject1.exceptions.BookDetailNotFoundException;
+import com.example.networktechnologiesproject1.exceptions.UnauthorizedDetailChangeException;
 import com.example.networktechnologiesproject1.repositories.BookDetailRepository;
+import com.example.networktechnologiesproject1.repositories.BookRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.Optional;
 
 @Service
 public class BookDetailService {
 
     private final BookDetailRepository bookDetailRepository;
+    private final BookRepository bookRepository;
+    private final BookSearchService bookSearchService;
 
     @Autowired
-    public BookDetailService(BookDetailRepository bookDetailRepository) {
+    public BookDetailService(BookDetailRepository bookDetailRepository, BookRepository bookRepository,
+                             BookSearchService bookSearchService) {
         this.bookDetailRepository = bookDetailRepository;
+        this.bookRepository = bookRepository;
+        this.bookSearchService = bookSearchService;
     }
 
-    public BookDetail saveBookDetail(BookDetail bookDetail) {
-        return bookDetailRepository.save(bookDetail);
+    /**
+     * Adds a book detail after checking its book exists and has no detail with the same genre yet.
+     * The checks, the insert and the search index read run in one transaction on one connection.
+     * @param bookDetail The book detail to add.
+     * @return The saved book detail.
+     * @throws AssociatedBookNotFoundException If the book does not exist.
+     * @throws BookDetailDuplicateException If the book already has a detail with this genre.
+     */
+    @Transactional
+    @CachePut(cacheNames = CacheConfiguration.BOOK_DETAILS, key = "#result.bookId")
+    public BookDetail addBookDetail(BookDetail bookDetail) {
+        if (!bookRepository.existsById(bookDetail.getBookId())) {
+            throw new AssociatedBookNotFoundException(bookDetail.getBookId());
+        }
+        if (bookDetailRepository.existsByBookIdAndGenre(bookDetail.getBookId(), bookDetail.getGenre())) {
+            throw new BookDetailDuplicateException("Book ID and Genre");
+        }
+        BookDetail savedDetail = bookDetailRepository.save(bookDetail);
+        bookSearchService.reindex(savedDetail.getBookId());
+        return savedDetail;
     }
 
+    /**
+     * Replaces the genre, summary and cover image URL of a book detail, after checking the book has no other
+     * detail with the new genre. The lookup, the check and the update run in one transaction on one connection.
+     * @param bookId The ID of the book whose detail is updated.
+     * @param changes The new values; its book ID is the one checked for duplicates.
+     * @return The updated book detail.
+     * @throws BookDetailNotFoundException If the book has no detail.
+     * @throws BookDetailDuplicateException If the book already has a detail with the new genre.
+     */
+    @Transactional
+    @CachePut(cacheNames = CacheConfiguration.BOOK_DETAILS, key = "#result.bookId")
+    public BookDetail updateBookDetail(Integer bookId, BookDetail changes) {
+        BookDetail bookDetail = bookDetailRepository.findById(bookId)
+                .orElseThrow(() -> new BookDetailNotFoundException(bookId));
+        if (!bookDetail.getGenre().equals(changes.getGenre()) &&
+                bookDetailRepository.existsByBookIdAndGenre(changes.getBookId(), changes.getGenre())) {
+            throw new BookDetailDuplicateException("Book ID and Genre");
+        }
+        bookDetail.setGenre(changes.getGenre());
+        bookDetail.setSummary(changes.getSummary());
+        bookDetail.setCoverImageUrl(changes.getCoverImageUrl());
+        BookDetail savedDetail = bookDetailRepository.save(bookDetail);
+        bookSearchService.reindex(savedDetail.getBookId());
+        return savedDetail;
+    }
+
+    @Cacheable(cacheNames = CacheConfiguration.BOOK_DETAILS, key = "#bookId")
     public Optional<BookDetail> findById(Integer bookId) {
         return bookDetailRepository.findById(bookId);
     }
@@ -28,7 +88,27 @@ public class BookDetailService {
         return bookDetailRepository.findAll();
     }
 
+    /**
+     * Deletes a book detail unless other records depend on it. The lookup, the dependency check and the delete run
+     * in one transaction on one connection.
+     * @param bookId The ID of the book whose detail is deleted.
+     * @throws BookDetailNotFoundException If the book has no detail.
+     * @throws UnauthorizedDetailChangeException If other records depend on the detail.
+     */
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfiguration.BOOK_DETAILS, key = "#bookId")
     public void deleteBookDetail(Integer bookId) {
-        bookDetailRepository.deleteById(bookId);
+        BookDetail bookDetail = bookDetailRepository.findById(bookId)
+                .orElseThrow(() -> new BookDetailNotFoundException(bookId));
+        if (hasDependencies(bookDetail)) {
+            throw new UnauthorizedDetailChangeException();
+        }
+        bookDetailRepository.delete(bookDetail);
+        bookSearchService.reindex(bookId);
+    }
+
+    // Placeholder: nothing references book details yet
+    private boolean hasDependencies(BookDetail bookDetail) {
+        return false;
     }
 }
@@ -0,0 +1,307 @@
+package com.example.networktechnologiesproject1.services;
+
+import com.example.networktechnologiesproject1.dataTransferObjects.BookSearchHitDTO;
+import com.example.networktechnologiesproject1.entities.Book;
+import com.example.networktechnologiesproject1.entities.BookDetail;
+import com.example.networktechnologiesproject1.repositories.BookDetailRepository;
+import com.example.networktechnologiesproject1.repositories.BookRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Service class maintaining an in-process Lucene index over the catalog.
+ * Books are indexed by title, author and publisher, together with the genre and summary of their detail.
+ * The index is rebuilt from the database on startup and kept up to date as books and details are written.
+ */
+@Service
+public class BookSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookSearchService.class);
+
+    static final String ID = "id";
+    static final String ISBN = "isbn";
+    static final String TITLE = "title";
+    static final String AUTHOR = "author";
+    static final String PUBLISHER = "publisher";
+    static final String GENRE = "genre";
+    static final String SUMMARY = "summary";
+
+    /**
+     * Searchable fields and their boosts: a match in the title counts most.
+     */
+    private static final Map<String, Float> FIELD_BOOSTS = Map.of(
+            TITLE, 3.0f,
+            AUTHOR, 2.0f,
+            PUBLISHER, 1.0f,
+            GENRE, 1.5f,
+            SUMMARY, 0.5f);
+
+    /**
+     * Prefix matches score lower than whole-word matches.
+     */
+    private static final float PREFIX_BOOST = 0.5f;
+
+    private static final int REBUILD_CLEAR_INTERVAL = 1000;
+
+    /**
+     * Number of top hits that can be paged through. Lucene collects every hit up to the requested page, so deeper
+     * pages are refused rather than allocating a queue of that many hits.
+     */
+    public static final int MAX_RESULT_WINDOW = 10_000;
+
+    private final BookRepository bookRepository;
+    private final BookDetailRepository bookDetailRepository;
+    private final EntityManager entityManager;
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final IndexWriter indexWriter;
+    private final SearcherManager searcherManager;
+
+    @Autowired
+    public BookSearchService(BookRepository bookRepository, BookDetailRepository bookDetailRepository, EntityManager entityManager) throws IOException {
+        this.bookRepository = bookRepository;
+        this.bookDetailRepository = bookDetailRepository;
+        this.entityManager = entityManager;
+        this.indexWriter = new IndexWriter(new ByteBuffersDirectory(), new IndexWriterConfig(analyzer));
+        this.searcherManager = new SearcherManager(indexWriter, null);
+    }
+
+    /**
+     * Rebuilds the whole index from the database once the application is up.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuildIndex() throws IOException {
+        long started = System.currentTimeMillis();
+        long count = 0;
+        indexWriter.deleteAll();
+        try (Stream<Object[]> rows = bookRepository.streamAllWithDetails()) {
+            for (Object[] row : (Iterable<Object[]>) rows::iterator) {
+                indexWriter.addDocument(toDocument((Book) row[0], (BookDetail) row[1]));
+                if (++count % REBUILD_CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        indexWriter.commit();
+        searcherManager.maybeRefresh();
+        logger.info("Search index rebuilt with {} books in {} ms", count, System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Re-indexes a book after it or its detail was added, updated or deleted.
+     * @param bookId The ID of the book.
+     */
+    public void reindex(Integer bookId) {
+        reindex(List.of(bookId));
+    }
+
+    /**
+     * Re-indexes several books at once, loading them and their details with one query each.
+     * Books that no longer exist are removed from the index.
+     * @param bookIds The IDs of the books.
+     */
+    public void reindex(Collection<Integer> bookIds) {
+        Map<Integer, Book> books = new HashMap<>();
+        bookRepository.findAllById(bookIds).forEach(book -> books.put(book.getBookId(), book));
+        Map<Integer, BookDetail> details = new HashMap<>();
+        bookDetailRepository.findAllById(bookIds).forEach(detail -> details.put(detail.getBookId(), detail));
+
+        try {
+            for (Integer bookId : bookIds) {
+                Book book = books.get(bookId);
+                if (book == null) {
+                    indexWriter.deleteDocuments(idTerm(bookId));
+                } else {
+                    indexWriter.updateDocument(idTerm(bookId), toDocument(book, details.get(bookId)));
+                }
+            }
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Indexes newly inserted books that have no detail yet, without reading them back from the database.
+     * @param books The books to index.
+     */
+    public void indexNewBooks(Collection<Book> books) {
+        try {
+            for (Book book : books) {
+                indexWriter.updateDocument(idTerm(book.getBookId()), toDocument(book, null));
+            }
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Runs a ranked search. Every word of the query must match some field, either as a whole word or as a prefix.
+     * @param text The query text.
+     * @param page The zero-based page number.
+     * @param size The page size.
+     * @return The hits of the requested page together with the total number of hits.
+     * @throws IllegalArgumentException If the page is negative, the size not positive, or the page ends beyond
+     *                                  {@link #MAX_RESULT_WINDOW}.
+     */
+    public SearchResult search(String text, int page, int size) {
+        if (!isWithinResultWindow(page, size)) {
+            throw new IllegalArgumentException("Page " + page + " of size " + size + " is outside the first " + MAX_RESULT_WINDOW + " hits");
+        }
+        Query query = buildQuery(text);
+        if (query == null) {
+            return new SearchResult(List.of(), 0);
+        }
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopDocs topDocs = searcher.search(query, (page + 1) * size);
+                List<BookSearchHitDTO> hits = new ArrayList<>(size);
+                ScoreDoc[] scoreDocs = topDocs.scoreDocs;
+                for (int i = page * size; i < scoreDocs.length; i++) {
+                    hits.add(toHit(searcher.storedFields().document(scoreDocs[i].doc), scoreDocs[i].score));
+                }
+                return new SearchResult(hits, topDocs.totalHits.value);
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Tells whether a page ends within the hits that can be paged through.
+     * @param page The zero-based page number.
+     * @param size The page size.
+     * @return true if the page can be searched.
+     */
+    public static boolean isWithinResultWindow(int page, int size) {
+        // In long arithmetic: (page + 1) * size overflows an int for large pages
+        return page >= 0 && size > 0 && (page + 1L) * size <= MAX_RESULT_WINDOW;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        searcherManager.close();
+        indexWriter.close();
+    }
+
+    private Query buildQuery(String text) {
+        List<String> words = analyze(text);
+        if (words.isEmpty()) {
+            return null;
+        }
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        for (String word : words) {
+            BooleanQuery.Builder anyField = new BooleanQuery.Builder();
+            FIELD_BOOSTS.forEach((field, boost) -> {
+                anyField.add(new BoostQuery(new TermQuery(new Term(field, word)), boost), BooleanClause.Occur.SHOULD);
+                anyField.add(new BoostQuery(new PrefixQuery(new Term(field, word)), boost * PREFIX_BOOST), BooleanClause.Occur.SHOULD);
+            });
+            query.add(anyField.build(), BooleanClause.Occur.MUST);
+        }
+        return query.build();
+    }
+
+    private List<String> analyze(String text) {
+        List<String> words = new ArrayList<>();
+        try (TokenStream tokens = analyzer.tokenStream(TITLE, text)) {
+            CharTermAttribute term = tokens.addAttribute(CharTermAttribute.class);
+            tokens.reset();
+            while (tokens.incrementToken()) {
+                words.add(term.toString());
+            }
+            tokens.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return words;
+    }
+
+    private static Document toDocument(Book book, BookDetail detail) {
+        Document document = new Document();
+        document.add(new StringField(ID, String.valueOf(book.getBookId()), Field.Store.YES));
+        addText(document, TITLE, book.getTitle(), Field.Store.YES);
+        addText(document, AUTHOR, book.getAuthor(), Field.Store.YES);
+        addText(document, PUBLISHER, book.getPublisher(), Field.Store.YES);
+        if (book.getIsbn() != null) {
+            document.add(new StoredField(ISBN, book.getIsbn()));
+        }
+        if (detail != null) {
+            addText(document, GENRE, detail.getGenre(), Field.Store.YES);
+            addText(document, SUMMARY, detail.getSummary(), Field.Store.NO);
+        }
+        return document;
+    }
+
+    private static void addText(Document document, String field, String value, Field.Store store) {
+        if (value != null) {
+            document.add(new TextField(field, value, store));
+        }
+    }
+
+    private static BookSearchHitDTO toHit(Document document, float score) {
+        BookSearchHitDTO hit = new BookSearchHitDTO();
+        hit.setBookId(Integer.valueOf(document.get(ID)));
+        hit.setIsbn(document.get(ISBN));
+        hit.setTitle(document.get(TITLE));
+        hit.setAuthor(document.get(AUTHOR));
+        hit.setPublisher(document.get(PUBLISHER));
+        hit.setGenre(document.get(GENRE));
+        hit.setScore(score);
+        return hit;
+    }
+
+    private static Term idTerm(Integer bookId) {
+        return new Term(ID, String.valueOf(bookId));
+    }
+
+    /**
+     * One page of search hits.
+     * @param hits The hits of the page, best first.
+     * @param totalHits The number of matching books; counted exactly up to 1000, a lower bound beyond that.
+     */
+    public record SearchResult(List<BookSearchHitDTO> hits, long totalHits) {
+    }
+}
@@ -1,28 +1,109 @@
 package com.example.networktechnologiesproject1.services;
 
+import com.example.networktechnologiesproject1.config.CacheConfiguration;
+import com.example.networktechnologiesproject1.dataTransferObjects.BookDTO;
 import com.example.networktechnologiesproject1.entities.Book;
+import com.example.networktechnologiesproject1.exceptions.BookNotFoundException;
+import com.example.networktechnologiesproject1.exceptions.BookValidationException;
+import com.example.networktechnologiesproject1.exceptions.DuplicateBookException;
 import com.example.networktechnologiesproject1.repositories.BookRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Service class for handling Book-related operations.
+ * Lookups by ID are served from the catalog cache; writes refresh or evict the affected entries. ISBN checks
+ * read the database in the writing transaction.
  */
 @Service
 public class BookService {
 
     private final BookRepository bookRepository;
+    private final BookSearchService bookSearchService;
 
     @Autowired
-    public BookService(BookRepository bookRepository) {
+    public BookService(BookRepository bookRepository, BookSearchService bookSearchService) {
         this.bookRepository = bookRepository;
+        this.bookSearchService = bookSearchService;
     }
 
-    public Book saveBook(Book book) {
-        return bookRepository.save(book);
+    /**
+     * Adds a new book after checking its ISBN is not taken yet.
+     * The check, the insert and the search index read run in one transaction on one connection.
+     * @param book The book to add.
+     * @return The saved book.
+     * @throws DuplicateBookException If a book with the same ISBN already exists.
+     */
+    @Transactional
+    @CachePut(cacheNames = CacheConfiguration.BOOKS, key = "#result.bookId")
+    public Book addBook(Book book) {
+        if (bookRepository.findByIsbn(book.getIsbn()).isPresent()) {
+            throw new DuplicateBookException(book.getIsbn());
+        }
+        Book savedBook = bookRepository.save(book);
+        bookSearchService.reindex(savedBook.getBookId());
+        return savedBook;
     }
 
+    /**
+     * Replaces the ISBN, title, author, publisher and year of a book, after checking the ISBN is not taken by
+     * another book. The available copies are left alone: the book is read and written in one transaction and only
+     * the changed columns are updated, so concurrent checkouts and returns are never overwritten. The cached book
+     * is evicted rather than replaced, since the copies count read here may already be outdated.
+     * @param bookId The ID of the book to update.
+     * @param changes The new values.
+     * @return The updated book.
+     * @throws BookNotFoundException If the book does not exist.
+     * @throws DuplicateBookException If another book has the new ISBN.
+     */
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfiguration.BOOKS, key = "#bookId")
+    public Book updateBook(Integer bookId, Book changes) {
+        Book book = bookRepository.findById(bookId).orElseThrow(() -> new BookNotFoundException(bookId));
+        bookRepository.findByIsbn(changes.getIsbn()).ifPresent(other -> {
+            if (!other.getBookId().equals(bookId)) {
+                throw new DuplicateBookException(changes.getIsbn());
+            }
+        });
+        book.setIsbn(changes.getIsbn());
+        book.setTitle(changes.getTitle());
+        book.setAuthor(changes.getAuthor());
+        book.setPublisher(changes.getPublisher());
+        book.setYear(changes.getYear());
+        Book savedBook = bookRepository.save(book);
+        bookSearchService.reindex(savedBook.getBookId());
+        return savedBook;
+    }
+
+    /**
+     * Adds or removes available copies of a book with one relative update, so the change cannot lose a checkout
+     * or return that happens at the same time.
+     * @param bookId The ID of the book.
+     * @param delta The number of copies to add; negative to remove copies.
+     * @return The book with its new count.
+     * @throws BookNotFoundException If the book does not exist.
+     * @throws BookValidationException If fewer than -delta copies are available.
+     */
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfiguration.BOOKS, key = "#bookId")
+    public Book adjustAvailableCopies(Integer bookId, long delta) {
+        if (bookRepository.adjustAvailableCopies(bookId, delta) == 0) {
+            if (!bookRepository.existsById(bookId)) {
+                throw new BookNotFoundException(bookId);
+            }
+            throw new BookValidationException("Cannot remove " + -delta + " copies, fewer are available.");
+        }
+        return bookRepository.findById(bookId).orElseThrow(() -> new BookNotFoundException(bookId));
+    }
+
+    @Cacheable(cacheNames = CacheConfiguration.BOOKS, key = "#bookId")
     public Optional<Book> findById(Integer bookId) {
         return bookRepository.findById(bookId);
     }
@@ -31,7 +112,36 @@ public class BookService {
         return bookRepository.findAll();
     }
 
+    /**
+     * Hands every book to the consumer one at a time, in ID order.
+     * Books are read as DTOs, so the persistence context stays empty regardless of the catalog size.
+     * @param consumer Callback receiving each book.
+     */
+    @Transactional(readOnly = true)
+    public void streamAllBooks(Consumer<BookDTO> consumer) {
+        try (Stream<BookDTO> books = bookRepository.streamAllOrderedByBookId()) {
+            books.forEach(consumer);
+        }
+    }
+
+    /**
+     * Deletes a book. The lookup, the delete and the search index read run in one transaction on one connection.
+     * @param bookId The ID of the book to delete.
+     * @throws BookNotFoundException If the book does not exist.
+     */
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfiguration.BOOKS, key = "#bookId")
     public void deleteBook(Integer bookId) {
-        bookRepository.deleteById(bookId);
+        Book book = bookRepository.findById(bookId).orElseThrow(() -> new BookNotFoundException(bookId));
+        bookRepository.delete(book);
+        bookSearchService.reindex(bookId);
+    }
+
+    /**
+     * Drops a cached book, e.g. after its available copies changed.
+     * @param bookId The ID of the book to evict.
+     */
+    @CacheEvict(cacheNames = CacheConfiguration.BOOKS, key = "#bookId")
+    public void evictBook(Integer bookId) {
     }
 }
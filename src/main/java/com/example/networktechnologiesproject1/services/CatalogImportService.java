@@ -0,0 +1,365 @@
+package com.example.networktechnologiesproject1.services;
+
+import com.example.networktechnologiesproject1.config.CacheConfiguration;
+import com.example.networktechnologiesproject1.dataTransferObjects.ImportEventDTO;
+import com.example.networktechnologiesproject1.entities.Book;
+import com.example.networktechnologiesproject1.entities.BookDetail;
+import com.example.networktechnologiesproject1.entities.Review;
+import com.example.networktechnologiesproject1.exceptions.AssociatedBookNotFoundException;
+import com.example.networktechnologiesproject1.exceptions.BookDetailDuplicateException;
+import com.example.networktechnologiesproject1.exceptions.BookNotFoundException;
+import com.example.networktechnologiesproject1.exceptions.DuplicateBookException;
+import com.example.networktechnologiesproject1.exceptions.DuplicateReviewException;
+import com.example.networktechnologiesproject1.exceptions.UserNotFoundException;
+import com.example.networktechnologiesproject1.repositories.BookDetailRepository;
+import com.example.networktechnologiesproject1.repositories.BookRepository;
+import com.example.networktechnologiesproject1.repositories.ReviewRepository;
+import com.example.networktechnologiesproject1.repositories.UserRepository;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Service class for importing books, book details and reviews in bulk.
+ * Rows are read as a stream and written in chunks: each chunk is checked for duplicates with one
+ * set-based queries and inserted in one transaction through Hibernate JDBC batching.
+ */
+@Service
+public class CatalogImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogImportService.class);
+
+    public static final String CSV_MEDIA_TYPE = "text/csv";
+
+    /**
+     * Rows per transaction; matches hibernate.jdbc.batch_size.
+     */
+    static final int CHUNK_SIZE = 500;
+
+    private final BookRepository bookRepository;
+    private final BookDetailRepository bookDetailRepository;
+    private final UserRepository userRepository;
+    private final ReviewRepository reviewRepository;
+    private final ReviewService reviewService;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager cacheManager;
+    private final BookSearchService bookSearchService;
+    private final ObjectMapper objectMapper;
+    private final CsvMapper csvMapper;
+
+    @Autowired
+    public CatalogImportService(BookRepository bookRepository, BookDetailRepository bookDetailRepository,
+                                UserRepository userRepository, ReviewRepository reviewRepository, ReviewService reviewService,
+                                EntityManager entityManager, TransactionTemplate transactionTemplate,
+                                CacheManager cacheManager, BookSearchService bookSearchService, ObjectMapper objectMapper) {
+        this.bookRepository = bookRepository;
+        this.bookDetailRepository = bookDetailRepository;
+        this.userRepository = userRepository;
+        this.reviewRepository = reviewRepository;
+        this.reviewService = reviewService;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.cacheManager = cacheManager;
+        this.bookSearchService = bookSearchService;
+        this.objectMapper = objectMapper;
+        this.csvMapper = CsvMapper.builder()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build();
+    }
+
+    /**
+     * Opens a lazy iterator over the rows of an upload: a JSON array, or CSV with a header line.
+     * @param type The row type.
+     * @param contentType The Content-Type of the upload.
+     * @param in The upload body.
+     * @return An iterator reading one row at a time.
+     * @throws IOException If the body cannot be read.
+     */
+    public <T> MappingIterator<T> openRows(Class<T> type, String contentType, InputStream in) throws IOException {
+        if (contentType != null && contentType.startsWith(CSV_MEDIA_TYPE)) {
+            return csvMapper.readerFor(type)
+                    .with(CsvSchema.emptySchema().withHeader())
+                    .readValues(in);
+        }
+        return objectMapper.readerFor(type).readValues(in);
+    }
+
+    /**
+     * Imports books, skipping invalid rows and ISBNs that already exist.
+     * @param rows The books to import.
+     * @param validator Row validation; throws to reject a row.
+     * @param events Receives error events for rejected rows and a progress event after every chunk.
+     * @return The summary event.
+     */
+    public ImportEventDTO importBooks(Iterator<Book> rows, Consumer<Book> validator, Consumer<ImportEventDTO> events) {
+        return runImport(rows, events, (chunk, errors) -> {
+            Map<String, Row<Book>> byIsbn = new LinkedHashMap<>();
+            for (Row<Book> row : chunk) {
+                Book book = row.value();
+                try {
+                    validator.accept(book);
+                } catch (RuntimeException e) {
+                    errors.add(ImportEventDTO.error(row.number(), book.getIsbn(), e.getMessage()));
+                    continue;
+                }
+                if (byIsbn.putIfAbsent(book.getIsbn(), row) != null) {
+                    errors.add(ImportEventDTO.error(row.number(), book.getIsbn(), new DuplicateBookException(book.getIsbn()).getMessage()));
+                }
+            }
+            if (byIsbn.isEmpty()) {
+                return List.of();
+            }
+
+            Set<String> existing = new HashSet<>(bookRepository.findExistingIsbns(byIsbn.keySet()));
+            List<Book> inserted = new ArrayList<>(byIsbn.size());
+            for (Row<Book> row : byIsbn.values()) {
+                Book book = row.value();
+                if (existing.contains(book.getIsbn())) {
+                    errors.add(ImportEventDTO.error(row.number(), book.getIsbn(), new DuplicateBookException(book.getIsbn()).getMessage()));
+                    continue;
+                }
+                book.setBookId(null);
+                entityManager.persist(book);
+                inserted.add(book);
+            }
+            entityManager.flush();
+            entityManager.clear();
+            return inserted;
+        }, bookSearchService::indexNewBooks);
+    }
+
+    /**
+     * Imports book details, skipping invalid rows, unknown books and books that already have details.
+     * @param rows The book details to import.
+     * @param validator Row validation; throws to reject a row.
+     * @param events Receives error events for rejected rows and a progress event after every chunk.
+     * @return The summary event.
+     */
+    public ImportEventDTO importBookDetails(Iterator<BookDetail> rows, Consumer<BookDetail> validator, Consumer<ImportEventDTO> events) {
+        Cache detailCache = cacheManager.getCache(CacheConfiguration.BOOK_DETAILS);
+        return runImport(rows, events, (chunk, errors) -> {
+            Map<Integer, Row<BookDetail>> byBookId = new LinkedHashMap<>();
+            for (Row<BookDetail> row : chunk) {
+                BookDetail detail = row.value();
+                String key = String.valueOf(detail.getBookId());
+                try {
+                    validator.accept(detail);
+                } catch (RuntimeException e) {
+                    errors.add(ImportEventDTO.error(row.number(), key, e.getMessage()));
+                    continue;
+                }
+                if (detail.getBookId() == null) {
+                    errors.add(ImportEventDTO.error(row.number(), key, "Book ID cannot be empty."));
+                } else if (byBookId.putIfAbsent(detail.getBookId(), row) != null) {
+                    errors.add(ImportEventDTO.error(row.number(), key, new BookDetailDuplicateException("Book ID").getMessage()));
+                }
+            }
+            if (byBookId.isEmpty()) {
+                return List.of();
+            }
+
+            Set<Integer> knownBooks = new HashSet<>(bookRepository.findExistingBookIds(byBookId.keySet()));
+            Set<Integer> existingDetails = new HashSet<>(bookDetailRepository.findExistingBookIds(byBookId.keySet()));
+            List<BookDetail> inserted = new ArrayList<>(byBookId.size());
+            for (Row<BookDetail> row : byBookId.values()) {
+                BookDetail detail = row.value();
+                String key = String.valueOf(detail.getBookId());
+                if (!knownBooks.contains(detail.getBookId())) {
+                    errors.add(ImportEventDTO.error(row.number(), key, new AssociatedBookNotFoundException(detail.getBookId()).getMessage()));
+                } else if (existingDetails.contains(detail.getBookId())) {
+                    errors.add(ImportEventDTO.error(row.number(), key, new BookDetailDuplicateException("Book ID").getMessage()));
+                } else {
+                    // persist rather than save: the ID is assigned, so save would merge and SELECT every row first
+                    entityManager.persist(detail);
+                    inserted.add(detail);
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+
+            if (detailCache != null) {
+                byBookId.keySet().forEach(detailCache::evict);
+            }
+            return inserted;
+        }, details -> bookSearchService.reindex(details.stream().map(BookDetail::getBookId).toList()));
+    }
+
+    /**
+     * Imports reviews, skipping invalid rows, unknown users or books and users who already reviewed the book.
+     * Each chunk checks its user IDs, book IDs and (user, book) pairs with three queries, then inserts the reviews
+     * and adds their ratings to the books' aggregates in the same transaction.
+     * @param rows The reviews to import.
+     * @param validator Row validation; throws to reject a row.
+     * @param events Receives error events for rejected rows and a progress event after every chunk.
+     * @return The summary event.
+     */
+    public ImportEventDTO importReviews(Iterator<Review> rows, Consumer<Review> validator, Consumer<ImportEventDTO> events) {
+        return runImport(rows, events, (chunk, errors) -> {
+            Map<String, Row<Review>> byPair = new LinkedHashMap<>();
+            for (Row<Review> row : chunk) {
+                Review review = row.value();
+                String key = reviewKey(review.getUserId(), review.getBookId());
+                try {
+                    validator.accept(review);
+                } catch (RuntimeException e) {
+                    errors.add(ImportEventDTO.error(row.number(), key, e.getMessage()));
+                    continue;
+                }
+                if (review.getUserId() == null || review.getBookId() == null) {
+                    errors.add(ImportEventDTO.error(row.number(), key, "User ID and book ID cannot be empty."));
+                } else if (byPair.putIfAbsent(key, row) != null) {
+                    errors.add(ImportEventDTO.error(row.number(), key, new DuplicateReviewException("Duplicate review for book and user not allowed.").getMessage()));
+                }
+            }
+            if (byPair.isEmpty()) {
+                return List.of();
+            }
+
+            Set<Integer> userIds = new HashSet<>();
+            Set<Integer> bookIds = new HashSet<>();
+            for (Row<Review> row : byPair.values()) {
+                userIds.add(row.value().getUserId());
+                bookIds.add(row.value().getBookId());
+            }
+            Set<Integer> knownUsers = new HashSet<>(userRepository.findExistingUserIds(userIds));
+            Set<Integer> knownBooks = new HashSet<>(bookRepository.findExistingBookIds(bookIds));
+            Set<String> reviewed = new HashSet<>();
+            for (Review existing : reviewRepository.findByUserIdInAndBookIdIn(userIds, bookIds)) {
+                reviewed.add(reviewKey(existing.getUserId(), existing.getBookId()));
+            }
+            entityManager.clear();
+
+            List<Review> inserted = new ArrayList<>(byPair.size());
+            for (Map.Entry<String, Row<Review>> entry : byPair.entrySet()) {
+                Review review = entry.getValue().value();
+                long rowNumber = entry.getValue().number();
+                if (!knownUsers.contains(review.getUserId())) {
+                    errors.add(ImportEventDTO.error(rowNumber, entry.getKey(), new UserNotFoundException(String.valueOf(review.getUserId())).getMessage()));
+                } else if (!knownBooks.contains(review.getBookId())) {
+                    errors.add(ImportEventDTO.error(rowNumber, entry.getKey(), new BookNotFoundException(review.getBookId()).getMessage()));
+                } else if (reviewed.contains(entry.getKey())) {
+                    errors.add(ImportEventDTO.error(rowNumber, entry.getKey(), new DuplicateReviewException("Duplicate review for book and user not allowed.").getMessage()));
+                } else {
+                    review.setReviewId(null);
+                    entityManager.persist(review);
+                    inserted.add(review);
+                }
+            }
+            entityManager.flush();
+            reviewService.applyRatings(inserted);
+            entityManager.clear();
+            return inserted;
+        }, reviews -> {
+        });
+    }
+
+    private static String reviewKey(Integer userId, Integer bookId) {
+        return userId + ":" + bookId;
+    }
+
+    private <T> ImportEventDTO runImport(Iterator<T> rows, Consumer<ImportEventDTO> events, ChunkWriter<T> writer, Consumer<List<T>> afterCommit) {
+        long processed = 0;
+        long imported = 0;
+        long failed = 0;
+        long rowNumber = 0;
+        List<Row<T>> chunk = new ArrayList<>(CHUNK_SIZE);
+
+        while (true) {
+            try {
+                if (!rows.hasNext()) {
+                    break;
+                }
+            } catch (RuntimeException e) {
+                // The upload itself is malformed past this point; nothing more can be read
+                events.accept(ImportEventDTO.error(rowNumber + 1, null, "Could not read row: " + e.getMessage()));
+                failed++;
+                processed++;
+                break;
+            }
+            rowNumber++;
+            try {
+                chunk.add(new Row<>(rowNumber, rows.next()));
+            } catch (RuntimeException e) {
+                events.accept(ImportEventDTO.error(rowNumber, null, "Could not parse row: " + e.getMessage()));
+                failed++;
+                processed++;
+                continue;
+            }
+
+            if (chunk.size() == CHUNK_SIZE) {
+                int inserted = writeChunk(chunk, writer, afterCommit, events);
+                processed += chunk.size();
+                imported += inserted;
+                failed += chunk.size() - inserted;
+                chunk.clear();
+                events.accept(ImportEventDTO.counts(ImportEventDTO.PROGRESS, processed, imported, failed));
+            }
+        }
+        if (!chunk.isEmpty()) {
+            int inserted = writeChunk(chunk, writer, afterCommit, events);
+            processed += chunk.size();
+            imported += inserted;
+            failed += chunk.size() - inserted;
+        }
+
+        logger.info("Import finished: {} rows processed, {} imported, {} failed", processed, imported, failed);
+        ImportEventDTO summary = ImportEventDTO.counts(ImportEventDTO.SUMMARY, processed, imported, failed);
+        events.accept(summary);
+        return summary;
+    }
+
+    /**
+     * Writes one chunk in its own transaction and hands the inserted rows to afterCommit.
+     * If the transaction fails, every row of the chunk is reported as failed.
+     * @return The number of rows inserted.
+     */
+    private <T> int writeChunk(List<Row<T>> chunk, ChunkWriter<T> writer, Consumer<List<T>> afterCommit, Consumer<ImportEventDTO> events) {
+        List<ImportEventDTO> errors = new ArrayList<>();
+        List<T> inserted;
+        try {
+            inserted = transactionTemplate.execute(status -> writer.write(chunk, errors));
+        } catch (RuntimeException e) {
+            logger.error("Import chunk starting at row {} failed: {}", chunk.get(0).number(), e.getMessage());
+            for (Row<T> row : chunk) {
+                events.accept(ImportEventDTO.error(row.number(), null, "Chunk rolled back: " + e.getMessage()));
+            }
+            return 0;
+        }
+        errors.forEach(events);
+        if (inserted == null || inserted.isEmpty()) {
+            return 0;
+        }
+        afterCommit.accept(inserted);
+        return inserted.size();
+    }
+
+    private record Row<T>(long number, T value) {
+    }
+
+    @FunctionalInterface
+    private interface ChunkWriter<T> {
+        List<T> write(List<Row<T>> chunk, List<ImportEventDTO> errors);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.networktechnologiesproject1.services;
+
+import com.example.networktechnologiesproject1.dataTransferObjects.BookDTO;
+import com.example.networktechnologiesproject1.dataTransferObjects.BookDetailDTO;
+import com.example.networktechnologiesproject1.dataTransferObjects.BookLoanCountDTO;
+import com.example.networktechnologiesproject1.dataTransferObjects.BookRatingDTO;
+import com.example.networktechnologiesproject1.dataTransferObjects.CatalogEntryDTO;
+import com.example.networktechnologiesproject1.repositories.BookDetailRepository;
+import com.example.networktechnologiesproject1.repositories.BookRepository;
+import com.example.networktechnologiesproject1.repositories.LoanRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service class for the catalog read model.
+ * A page of the catalog combines each book with its details, its number of open loans and its rating summary.
+ * It is assembled from four set-based queries (books, details, loan counts, ratings), however many books the page holds.
+ */
+@Service
+public class CatalogService {
+
+    private final BookRepository bookRepository;
+    private final BookDetailRepository bookDetailRepository;
+    private final LoanRepository loanRepository;
+    private final ReviewService reviewService;
+
+    @Autowired
+    public CatalogService(BookRepository bookRepository, BookDetailRepository bookDetailRepository,
+                          LoanRepository loanRepository, ReviewService reviewService) {
+        this.bookRepository = bookRepository;
+        this.bookDetailRepository = bookDetailRepository;
+        this.loanRepository = loanRepository;
+        this.reviewService = reviewService;
+    }
+
+    /**
+     * Retrieves one page of the catalog, ordered by book ID.
+     * @param afterBookId The last book ID of the previous page, or 0 for the first page.
+     * @param size The maximum number of entries to return.
+     * @return The catalog entries, in book ID order.
+     */
+    @Transactional(readOnly = true)
+    public List<CatalogEntryDTO> findPage(int afterBookId, int size) {
+        List<BookDTO> books = bookRepository.findBookDTOsAfter(afterBookId, Limit.of(size));
+        if (books.isEmpty()) {
+            return List.of();
+        }
+        List<Integer> bookIds = books.stream().map(BookDTO::getBookId).toList();
+
+        Map<Integer, BookDetailDTO> details = new HashMap<>();
+        for (BookDetailDTO detail : bookDetailRepository.findBookDetailDTOsByBookIds(bookIds)) {
+            details.put(detail.getBookId(), detail);
+        }
+        Map<Integer, Long> openLoans = new HashMap<>();
+        for (BookLoanCountDTO count : loanRepository.countOpenLoansByBookIds(bookIds)) {
+            openLoans.put(count.getBookId(), count.getOpenLoans());
+        }
+        Map<Integer, BookRatingDTO> ratings = reviewService.findRatings(bookIds);
+
+        List<CatalogEntryDTO> entries = new ArrayList<>(books.size());
+        for (BookDTO book : books) {
+            Integer bookId = book.getBookId();
+            entries.add(new CatalogEntryDTO(book, details.get(bookId), openLoans.getOrDefault(bookId, 0L), ratings.get(bookId)));
+        }
+        return entries;
+    }
+}
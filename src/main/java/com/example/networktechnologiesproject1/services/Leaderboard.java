@@ -0,0 +1,128 @@
+package com.example.networktechnologiesproject1.services;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Exponentially decayed loan counts of books, with the highest ones kept in a bounded min-heap.
+ * Scores use forward decay: a loan at time t adds e^((t - landmark) / lifetime), so all scores decay at the same
+ * rate and two books only change places when one of them is borrowed. The heap therefore stays correct without
+ * revisiting the books that were not borrowed, and a loan costs O(capacity) at most.
+ * After every change of the top the ranking is published as an immutable list, so reads take no lock.
+ */
+final class Leaderboard {
+
+    /**
+     * Best first; ties go to the lower book ID.
+     */
+    private static final Comparator<Entry> ORDER = Comparator.<Entry>comparingDouble(entry -> entry.score)
+            .thenComparing(entry -> entry.bookId, Comparator.reverseOrder());
+
+    private final double lifetimeMillis;
+    private final int capacity;
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private final PriorityQueue<Entry> top;
+    private long landmark;
+    private volatile Ranking ranking;
+
+    /**
+     * @param lifetime The mean lifetime of a loan's weight, i.e. the period the board approximates.
+     * @param capacity The number of books kept in the ranking.
+     * @param now The current time in milliseconds, used as the first landmark.
+     */
+    Leaderboard(Duration lifetime, int capacity, long now) {
+        this.lifetimeMillis = lifetime.toMillis();
+        this.capacity = capacity;
+        this.top = new PriorityQueue<>(capacity + 1, ORDER);
+        this.landmark = now;
+        this.ranking = new Ranking(now, List.of());
+    }
+
+    /**
+     * Adds loans of a book.
+     * @param bookId The ID of the book.
+     * @param count The number of loans, or a decayed count restored from a snapshot.
+     * @param at When the loans happened (or the snapshot was taken), in milliseconds.
+     */
+    synchronized void add(Integer bookId, double count, long at) {
+        Entry entry = entries.computeIfAbsent(bookId, Entry::new);
+        if (entry.ranked) {
+            top.remove(entry);
+            entry.score += count * Math.exp((at - landmark) / lifetimeMillis);
+            top.add(entry);
+        } else {
+            entry.score += count * Math.exp((at - landmark) / lifetimeMillis);
+            if (top.size() < capacity) {
+                entry.ranked = true;
+                top.add(entry);
+            } else if (ORDER.compare(entry, top.peek()) > 0) {
+                top.poll().ranked = false;
+                entry.ranked = true;
+                top.add(entry);
+            } else {
+                return;
+            }
+        }
+        publish();
+    }
+
+    /**
+     * Moves the landmark to now so the scores stay small, and forgets unranked books below minCount loans.
+     * Scaling every score by the same factor keeps the heap ordered.
+     * @param now The current time in milliseconds.
+     * @param minCount The decayed loan count below which unranked books are dropped.
+     */
+    synchronized void rebase(long now, double minCount) {
+        double factor = Math.exp((landmark - now) / lifetimeMillis);
+        entries.values().removeIf(entry -> {
+            entry.score *= factor;
+            return !entry.ranked && entry.score < minCount;
+        });
+        landmark = now;
+        publish();
+    }
+
+    /**
+     * Returns the most borrowed books from the last published ranking, without locking.
+     * @param limit The maximum number of books.
+     * @param now The current time in milliseconds.
+     * @return Up to limit books, best first, with their decayed loan counts as of now.
+     */
+    List<Ranked> top(int limit, long now) {
+        Ranking current = ranking;
+        double factor = Math.exp((current.landmark() - now) / lifetimeMillis);
+        List<Ranked> books = current.books().subList(0, Math.min(limit, current.books().size()));
+        List<Ranked> result = new ArrayList<>(books.size());
+        for (Ranked book : books) {
+            result.add(new Ranked(book.bookId(), book.count() * factor));
+        }
+        return result;
+    }
+
+    private void publish() {
+        List<Ranked> books = new ArrayList<>(top.size());
+        top.stream().sorted(ORDER.reversed()).forEach(entry -> books.add(new Ranked(entry.bookId, entry.score)));
+        ranking = new Ranking(landmark, List.copyOf(books));
+    }
+
+    record Ranked(Integer bookId, double count) {
+    }
+
+    private record Ranking(long landmark, List<Ranked> books) {
+    }
+
+    private static final class Entry {
+        private final Integer bookId;
+        private double score;
+        private boolean ranked;
+
+        private Entry(Integer bookId) {
+            this.bookId = bookId;
+        }
+    }
+}
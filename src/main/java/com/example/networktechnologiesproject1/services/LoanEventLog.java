@@ -0,0 +1,253 @@
+package com.example.networktechnologiesproject1.services;
+
+import com.example.networktechnologiesproject1.dataTransferObjects.LoanEventDTO;
+import com.example.networktechnologiesproject1.entities.LoanEvent;
+import com.example.networktechnologiesproject1.entities.LoanEventType;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only local log of loan events, written by LoanEventRelay from the outbox.
+ * The log is split into fixed-size, memory-mapped segment files named after the sequence number of their first
+ * record. Records have a fixed size, so any sequence number can be located without scanning; each carries a CRC
+ * so a record torn by a crash is detected and overwritten when the log is reopened.
+ * Delivery from the outbox is at least once: after a crash the last batch may be appended again, and readers can
+ * skip repeated event IDs.
+ */
+@Service
+public class LoanEventLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoanEventLog.class);
+
+    /**
+     * Record layout: CRC (int), sequence (long), event ID (long), occurred at (epoch millis, long),
+     * event type ordinal (byte), loan ID, book ID and user ID (int each).
+     */
+    static final int RECORD_SIZE = 4 + 8 + 8 + 8 + 1 + 4 + 4 + 4;
+
+    private static final int NULL_ID = Integer.MIN_VALUE;
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final LoanEventType[] EVENT_TYPES = LoanEventType.values();
+
+    private final Path directory;
+    private final int recordsPerSegment;
+
+    private FileChannel activeChannel;
+    private MappedByteBuffer activeSegment;
+    private long activeFirstSequence;
+    private volatile long nextSequence;
+
+    @Autowired
+    public LoanEventLog(@Value("${library.loan-events.directory:data/loan-events}") String directory,
+                        @Value("${library.loan-events.segment-size:16MB}") DataSize segmentSize) throws IOException {
+        this(Paths.get(directory), segmentSize.toBytes());
+    }
+
+    LoanEventLog(Path directory, long segmentBytes) throws IOException {
+        this.directory = directory;
+        this.recordsPerSegment = (int) Math.min(segmentBytes / RECORD_SIZE, Integer.MAX_VALUE / RECORD_SIZE);
+        if (recordsPerSegment < 1) {
+            throw new IllegalArgumentException("Segment size must hold at least one record of " + RECORD_SIZE + " bytes.");
+        }
+        Files.createDirectories(directory);
+        List<Long> segments = segmentStarts();
+        if (segments.isEmpty()) {
+            openSegment(1);
+            nextSequence = 1;
+        } else {
+            openSegment(segments.get(segments.size() - 1));
+            recover();
+        }
+        logger.info("Loan event log opened in {}, next sequence {}", directory.toAbsolutePath(), nextSequence);
+    }
+
+    /**
+     * Appends events to the log and forces them to disk before returning.
+     * @param events The events to append, in order.
+     * @return The sequence number of the last appended record, or of the last record in the log if events is empty.
+     * @throws IOException If a segment cannot be created or written.
+     */
+    public synchronized long append(List<LoanEvent> events) throws IOException {
+        long sequence = nextSequence;
+        for (LoanEvent event : events) {
+            if (sequence - activeFirstSequence == recordsPerSegment) {
+                activeSegment.force();
+                activeChannel.close();
+                openSegment(sequence);
+            }
+            write(activeSegment, offsetOf(sequence), sequence, event);
+            sequence++;
+        }
+        activeSegment.force();
+        nextSequence = sequence;
+        return sequence - 1;
+    }
+
+    /**
+     * Returns the sequence number the next appended record will get.
+     */
+    public long getNextSequence() {
+        return nextSequence;
+    }
+
+    /**
+     * Replays the log from a sequence number to its current end.
+     * @param fromSequence The first sequence number to replay.
+     * @param consumer Receives the records in sequence order.
+     * @throws IOException If a segment cannot be read.
+     */
+    public void replay(long fromSequence, Consumer<LoanEventDTO> consumer) throws IOException {
+        scan(fromSequence, event -> {
+            consumer.accept(event);
+            return true;
+        });
+    }
+
+    /**
+     * Reads a bounded run of records from the log.
+     * @param fromSequence The first sequence number to read.
+     * @param limit The maximum number of records to return.
+     * @return The records, in sequence order.
+     * @throws IOException If a segment cannot be read.
+     */
+    public List<LoanEventDTO> read(long fromSequence, int limit) throws IOException {
+        List<LoanEventDTO> events = new ArrayList<>(Math.min(limit, 1024));
+        if (limit > 0) {
+            scan(fromSequence, event -> {
+                events.add(event);
+                return events.size() < limit;
+            });
+        }
+        return events;
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        activeSegment.force();
+        activeChannel.close();
+    }
+
+    private void scan(long fromSequence, Predicate<LoanEventDTO> action) throws IOException {
+        long end = nextSequence;
+        long sequence = Math.max(fromSequence, 1);
+        List<Long> segments = segmentStarts();
+        for (int i = 0; i < segments.size() && sequence < end; i++) {
+            long first = segments.get(i);
+            long segmentEnd = i + 1 < segments.size() ? Math.min(segments.get(i + 1), end) : end;
+            if (sequence >= segmentEnd) {
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(segmentPath(first), StandardOpenOption.READ)) {
+                MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, (segmentEnd - first) * RECORD_SIZE);
+                for (; sequence < segmentEnd; sequence++) {
+                    if (!action.test(read(segment, (int) ((sequence - first) * RECORD_SIZE)))) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the end of the active segment: the first record that is empty, torn or out of sequence.
+     * Everything after it is cleared, so stale bytes cannot later pass for records.
+     */
+    private void recover() {
+        long sequence = activeFirstSequence;
+        while (sequence - activeFirstSequence < recordsPerSegment && isValid(activeSegment, offsetOf(sequence), sequence)) {
+            sequence++;
+        }
+        for (int offset = offsetOf(sequence); offset < recordsPerSegment * RECORD_SIZE; offset++) {
+            activeSegment.put(offset, (byte) 0);
+        }
+        activeSegment.force();
+        nextSequence = sequence;
+    }
+
+    private void openSegment(long firstSequence) throws IOException {
+        activeChannel = FileChannel.open(segmentPath(firstSequence),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        activeSegment = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0, (long) recordsPerSegment * RECORD_SIZE);
+        activeFirstSequence = firstSequence;
+    }
+
+    private int offsetOf(long sequence) {
+        return (int) (sequence - activeFirstSequence) * RECORD_SIZE;
+    }
+
+    private List<Long> segmentStarts() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(long firstSequence) {
+        return directory.resolve(String.format("%020d%s", firstSequence, SEGMENT_SUFFIX));
+    }
+
+    private static void write(MappedByteBuffer segment, int offset, long sequence, LoanEvent event) {
+        segment.putLong(offset + 4, sequence);
+        segment.putLong(offset + 12, event.getEventId());
+        segment.putLong(offset + 20, event.getOccurredAt().getTime());
+        segment.put(offset + 28, (byte) event.getEventType().ordinal());
+        segment.putInt(offset + 29, orNull(event.getLoanId()));
+        segment.putInt(offset + 33, orNull(event.getBookId()));
+        segment.putInt(offset + 37, orNull(event.getUserId()));
+        segment.putInt(offset, checksum(segment, offset));
+    }
+
+    private static LoanEventDTO read(MappedByteBuffer segment, int offset) {
+        return new LoanEventDTO(
+                segment.getLong(offset + 4),
+                segment.getLong(offset + 12),
+                EVENT_TYPES[segment.get(offset + 28)],
+                toId(segment.getInt(offset + 29)),
+                toId(segment.getInt(offset + 33)),
+                toId(segment.getInt(offset + 37)),
+                new Date(segment.getLong(offset + 20)));
+    }
+
+    private static boolean isValid(MappedByteBuffer segment, int offset, long sequence) {
+        return segment.getLong(offset + 4) == sequence
+                && segment.getInt(offset) == checksum(segment, offset)
+                && segment.get(offset + 28) >= 0 && segment.get(offset + 28) < EVENT_TYPES.length;
+    }
+
+    private static int checksum(MappedByteBuffer segment, int offset) {
+        CRC32 crc = new CRC32();
+        crc.update(segment.slice(offset + 4, RECORD_SIZE - 4));
+        return (int) crc.getValue();
+    }
+
+    private static int orNull(Integer id) {
+        return id == null ? NULL_ID : id;
+    }
+
+    private static Integer toId(int value) {
+        return value == NULL_ID ? null : value;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.networktechnologiesproject1.services;
+
+import com.example.networktechnologiesproject1.entities.LoanEvent;
+import com.example.networktechnologiesproject1.repositories.LoanEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background writer moving loan events from the outbox table to the loan event log.
+ * Events are drained in batches on a single thread: each batch is appended and forced to disk, then deleted
+ * from the outbox, so request threads never wait for the log.
+ */
+@Service
+public class LoanEventRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoanEventRelay.class);
+
+    static final String WRITTEN_COUNTER = "library.loan.events.written";
+
+    private final LoanEventRepository loanEventRepository;
+    private final LoanEventLog loanEventLog;
+    private final int batchSize;
+    private final Duration drainInterval;
+    private final Counter writtenCounter;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "loan-event-relay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public LoanEventRelay(LoanEventRepository loanEventRepository, LoanEventLog loanEventLog,
+                          @Value("${library.loan-events.batch-size:500}") int batchSize,
+                          @Value("${library.loan-events.drain-interval:1s}") Duration drainInterval,
+                          MeterRegistry meterRegistry) {
+        this.loanEventRepository = loanEventRepository;
+        this.loanEventLog = loanEventLog;
+        this.batchSize = batchSize;
+        this.drainInterval = drainInterval;
+        this.writtenCounter = Counter.builder(WRITTEN_COUNTER)
+                .description("Loan events moved from the outbox to the loan event log")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::drainQuietly, 0, drainInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Moves every event currently in the outbox to the log, one batch at a time.
+     * @return The number of events written.
+     * @throws IOException If the log cannot be written; the batch stays in the outbox and is retried.
+     */
+    public synchronized int drain() throws IOException {
+        int written = 0;
+        List<LoanEvent> batch;
+        do {
+            batch = loanEventRepository.findOldest(Limit.of(batchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            loanEventLog.append(batch);
+            loanEventRepository.deleteByEventIds(batch.stream().map(LoanEvent::getEventId).toList());
+            writtenCounter.increment(batch.size());
+            written += batch.size();
+        } while (batch.size() == batchSize);
+        return written;
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        drainQuietly();
+    }
+
+    private void drainQuietly() {
+        try {
+            drain();
+        } catch (Exception e) {
+            logger.warn("Failed to move loan events to the log, retrying in {}", drainInterval, e);
+        }
+    }
+}
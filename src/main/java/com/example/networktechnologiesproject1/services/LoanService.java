@@ -1,22 +1,132 @@
 package com.example.networktechnologiesproject1.services;
 
+import com.example.networktechnologiesproject1.dataTransferObjects.LoanDTO;
 import com.example.networktechnologiesproject1.entities.Loan;
+import com.example.networktechnologiesproject1.entities.LoanEvent;
+import com.example.networktechnologiesproject1.entities.LoanEventType;
+import com.example.networktechnologiesproject1.exceptions.BookNotAvailableException;
+import com.example.networktechnologiesproject1.exceptions.BookNotFoundException;
+import com.example.networktechnologiesproject1.exceptions.LoanNotFoundException;
+import com.example.networktechnologiesproject1.exceptions.LoanValidationException;
+import com.example.networktechnologiesproject1.repositories.BookRepository;
+import com.example.networktechnologiesproject1.repositories.LoanEventRepository;
 import com.example.networktechnologiesproject1.repositories.LoanRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
+/**
+ * Service class for handling Loan-related operations.
+ * Checkouts and returns keep Book.availableCopies in step with the open loans of each book.
+ * Every change also records a loan event in the outbox, in the same transaction, for LoanEventRelay to pick up,
+ * and adjusts the borrower's loan counters (UserLoanStatsService). Committed checkouts feed the popularity
+ * leaderboards (PopularityService), and committed changes keep the overdue detector (OverdueLoanTracker) current.
+ */
 @Service
 public class LoanService {
 
     private final LoanRepository loanRepository;
+    private final BookRepository bookRepository;
+    private final BookService bookService;
+    private final LoanEventRepository loanEventRepository;
+    private final UserLoanStatsService userLoanStatsService;
+    private final PopularityService popularityService;
+    private final OverdueLoanTracker overdueLoanTracker;
 
     @Autowired
-    public LoanService(LoanRepository loanRepository) {
+    public LoanService(LoanRepository loanRepository, BookRepository bookRepository, BookService bookService,
+                       LoanEventRepository loanEventRepository, UserLoanStatsService userLoanStatsService,
+                       PopularityService popularityService, OverdueLoanTracker overdueLoanTracker) {
         this.loanRepository = loanRepository;
+        this.bookRepository = bookRepository;
+        this.bookService = bookService;
+        this.loanEventRepository = loanEventRepository;
+        this.userLoanStatsService = userLoanStatsService;
+        this.popularityService = popularityService;
+        this.overdueLoanTracker = overdueLoanTracker;
     }
 
-    public Loan saveLoan(Loan loan) {
+    /**
+     * Lends a book. An open loan (no return date) takes one available copy of the book;
+     * the copy is taken with a single guarded UPDATE so concurrent checkouts cannot oversell.
+     * @param loan The loan to create.
+     * @return The saved loan.
+     * @throws BookNotFoundException If the book does not exist.
+     * @throws BookNotAvailableException If no copies of the book are left.
+     */
+    @Transactional
+    public Loan checkout(Loan loan) {
+        Loan saved = loanRepository.save(loan);
+        if (loan.getReturnDate() == null) {
+            reserveCopy(loan.getBookId());
+        }
+        recordEvent(LoanEventType.CHECKOUT, saved);
+        applyStats(saved, 1);
+        popularityService.recordCheckout(saved.getBookId());
+        afterCommit(() -> overdueLoanTracker.track(saved));
+        return saved;
+    }
+
+    /**
+     * Marks a loan as returned and puts the copy back on the shelf.
+     * @param loanId The ID of the loan to return.
+     * @return The updated loan.
+     * @throws LoanNotFoundException If the loan does not exist.
+     * @throws LoanValidationException If the loan has already been returned.
+     */
+    @Transactional
+    public Loan returnLoan(Integer loanId) {
+        Loan loan = loanRepository.findByIdForUpdate(loanId)
+                .orElseThrow(() -> new LoanNotFoundException(loanId));
+        if (loan.getReturnDate() != null) {
+            throw new LoanValidationException("Loan with id " + loanId + " has already been returned.");
+        }
+        applyStats(loan, -1);
+        loan.setReturnDate(new Date());
+        releaseCopy(loan.getBookId());
+        recordEvent(LoanEventType.RETURN, loan);
+        applyStats(loan, 1);
+        afterCommit(() -> overdueLoanTracker.untrack(loanId));
+        return loanRepository.save(loan);
+    }
+
+    /**
+     * Replaces the details of a loan, moving the reserved copy if the book or the open state changes.
+     * @param loanId The ID of the loan to update.
+     * @param loanDetails The new loan details.
+     * @return The updated loan.
+     * @throws LoanNotFoundException If the loan does not exist.
+     * @throws BookNotAvailableException If the loan is reopened or moved to a book with no copies left.
+     */
+    @Transactional
+    public Loan updateLoan(Integer loanId, Loan loanDetails) {
+        Loan loan = loanRepository.findByIdForUpdate(loanId)
+                .orElseThrow(() -> new LoanNotFoundException(loanId));
+        applyStats(loan, -1);
+        if (loan.getReturnDate() == null) {
+            releaseCopy(loan.getBookId());
+        }
+        if (loanDetails.getReturnDate() == null) {
+            reserveCopy(loanDetails.getBookId());
+        }
+        if (!Objects.equals(timeOf(loan.getDueDate()), timeOf(loanDetails.getDueDate()))) {
+            loan.setOverdueNotifiedAt(null);
+        }
+        loan.setBookId(loanDetails.getBookId());
+        loan.setUserId(loanDetails.getUserId());
+        loan.setLoanDate(loanDetails.getLoanDate());
+        loan.setDueDate(loanDetails.getDueDate());
+        loan.setReturnDate(loanDetails.getReturnDate());
+        recordEvent(LoanEventType.UPDATE, loan);
+        applyStats(loan, 1);
+        afterCommit(() -> overdueLoanTracker.track(loan));
         return loanRepository.save(loan);
     }
 
@@ -28,7 +138,99 @@ public class LoanService {
         return loanRepository.findAll();
     }
 
+    /**
+     * Deletes a loan, releasing its copy if the loan was still open.
+     * @param loanId The ID of the loan to delete.
+     * @throws LoanNotFoundException If the loan does not exist.
+     */
+    @Transactional
     public void deleteLoan(Integer loanId) {
-        loanRepository.deleteById(loanId);
+        Loan loan = loanRepository.findByIdForUpdate(loanId)
+                .orElseThrow(() -> new LoanNotFoundException(loanId));
+        if (loan.getReturnDate() == null) {
+            releaseCopy(loan.getBookId());
+        }
+        recordEvent(LoanEventType.DELETE, loan);
+        applyStats(loan, -1);
+        afterCommit(() -> overdueLoanTracker.untrack(loanId));
+        loanRepository.delete(loan);
+    }
+
+    /**
+     * Reports loans as overdue: flags them, adds an OVERDUE event per loan to the outbox and counts them against
+     * their borrowers, in one transaction. Loans returned or already reported in the meantime are skipped.
+     * @param loans The loans that have passed their due date.
+     * @return The number of loans reported.
+     */
+    @Transactional
+    public int markOverdue(Collection<LoanDTO> loans) {
+        Date now = new Date();
+        List<Loan> unreported = loanRepository.findUnreportedForUpdate(loans.stream().map(LoanDTO::getLoanId).toList());
+        for (Loan loan : unreported) {
+            applyStats(loan, -1);
+            loan.setOverdueNotifiedAt(now);
+            recordEvent(LoanEventType.OVERDUE, loan);
+            applyStats(loan, 1);
+        }
+        return unreported.size();
+    }
+
+    /**
+     * Adds a loan event to the outbox; it is only published if the surrounding transaction commits.
+     * @param type What happened to the loan.
+     * @param loan The loan, as it is after the change.
+     */
+    public void recordEvent(LoanEventType type, Loan loan) {
+        loanEventRepository.save(new LoanEvent(type, loan));
+    }
+
+    /**
+     * Runs an action once the current transaction commits, or at once outside a transaction.
+     */
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void reserveCopy(Integer bookId) {
+        if (bookRepository.decrementAvailableCopies(bookId) == 0) {
+            if (!bookRepository.existsById(bookId)) {
+                throw new BookNotFoundException(bookId);
+            }
+            throw new BookNotAvailableException(bookId);
+        }
+        bookService.evictBook(bookId);
+    }
+
+    /**
+     * Adds a loan's contribution to its borrower's counters (sign 1) or removes it (sign -1).
+     * Changes are applied by removing the loan's contribution before and adding it back after.
+     */
+    private void applyStats(Loan loan, int sign) {
+        boolean open = loan.getReturnDate() == null;
+        userLoanStatsService.apply(loan.getUserId(),
+                open ? sign : 0,
+                open && loan.getOverdueNotifiedAt() != null ? sign : 0,
+                sign);
+    }
+
+    /**
+     * Compares dates by instant: dates loaded by Hibernate are Timestamps, which never equal a plain Date.
+     */
+    private static Long timeOf(Date date) {
+        return date == null ? null : date.getTime();
+    }
+
+    private void releaseCopy(Integer bookId) {
+        bookRepository.incrementAvailableCopies(bookId);
+        bookService.evictBook(bookId);
     }
 }
@@ -0,0 +1,114 @@
+package com.example.networktechnologiesproject1.services;
+
+import com.example.networktechnologiesproject1.entities.User;
+import com.example.networktechnologiesproject1.exceptions.IncorrectPasswordException;
+import com.example.networktechnologiesproject1.exceptions.LoginThrottledException;
+import com.example.networktechnologiesproject1.exceptions.UserNotFoundException;
+import com.example.networktechnologiesproject1.repositories.UserRepository;
+import com.example.networktechnologiesproject1.security.JwtTokenProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Service class handling the login pipeline: one user lookup, password verification on the bounded
+ * password hashing executor, transparent rehashing of outdated hashes and token minting.
+ * Each login is timed as library.login, tagged with its outcome.
+ */
+@Service
+public class LoginService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginService.class);
+
+    static final String LOGIN_TIMER = "library.login";
+    static final String HASH_TIMER = "library.login.password.verify";
+
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final JwtTokenProvider jwtTokenProvider;
+    private final Executor passwordHashingExecutor;
+    private final MeterRegistry meterRegistry;
+    private final Timer verifyTimer;
+
+    @Autowired
+    public LoginService(UserRepository userRepository, PasswordEncoder passwordEncoder, JwtTokenProvider jwtTokenProvider,
+                        @Qualifier("passwordHashingExecutor") Executor passwordHashingExecutor, MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.jwtTokenProvider = jwtTokenProvider;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.meterRegistry = meterRegistry;
+        this.verifyTimer = Timer.builder(HASH_TIMER)
+                .description("Time spent verifying (and upgrading) password hashes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Authenticates a user and issues a token. The user is loaded once on the calling thread;
+     * the password check runs on the password hashing executor so the caller's thread is not held.
+     * @param loginForm The username and password.
+     * @return A future completing with the JWT.
+     * @throws UserNotFoundException If no user has this username.
+     * @throws LoginThrottledException If the password hashing executor is saturated.
+     */
+    public CompletableFuture<String> login(LoginForm loginForm) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        User user = userRepository.findByUsername(loginForm.getUsername()).orElse(null);
+        if (user == null) {
+            stop(sample, "unknown_user");
+            throw new UserNotFoundException(loginForm.getUsername());
+        }
+
+        CompletableFuture<String> token;
+        try {
+            token = CompletableFuture.supplyAsync(() -> verifyTimer.record(() -> authenticate(user, loginForm.getPassword())), passwordHashingExecutor);
+        } catch (RejectedExecutionException e) {
+            stop(sample, "throttled");
+            throw new LoginThrottledException();
+        }
+        return token.whenComplete((value, error) -> stop(sample, outcome(error)));
+    }
+
+    private String authenticate(User user, String rawPassword) {
+        String hash = user.getPassword();
+        if (rawPassword == null || hash == null || !passwordEncoder.matches(rawPassword, hash)) {
+            throw new IncorrectPasswordException(user.getUsername());
+        }
+        if (passwordEncoder.upgradeEncoding(hash)) {
+            userRepository.updatePassword(user.getUserId(), passwordEncoder.encode(rawPassword));
+            logger.info("Upgraded password hash for user {}", user.getUsername());
+        }
+        return jwtTokenProvider.createToken(new org.springframework.security.core.userdetails.User(
+                user.getUsername(),
+                hash,
+                Collections.singletonList(new SimpleGrantedAuthority(user.getRole()))
+        ));
+    }
+
+    private void stop(Timer.Sample sample, String outcome) {
+        sample.stop(Timer.builder(LOGIN_TIMER)
+                .description("Time to process a login request")
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+
+    private static String outcome(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause == null) {
+            return "success";
+        }
+        return cause instanceof IncorrectPasswordException ? "bad_password" : "error";
+    }
+}
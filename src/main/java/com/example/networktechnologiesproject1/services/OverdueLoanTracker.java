@@ -0,0 +1,205 @@
+package com.example.networktechnologiesproject1.services;
+
+import com.example.networktechnologiesproject1.dataTransferObjects.LoanDTO;
+import com.example.networktechnologiesproject1.entities.Loan;
+import com.example.networktechnologiesproject1.repositories.LoanRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service class detecting overdue loans without scanning the loan table.
+ * Open loans are held in a min-heap on their due date, seeded once at startup and kept current by LoanService
+ * as loans are created, updated, returned and deleted, once each change commits. A scheduled pass pops every loan whose due date has passed,
+ * reports it through LoanService.markOverdue (which publishes an OVERDUE loan event) and moves it to the overdue set.
+ * Heap entries of loans that changed or closed are not removed eagerly; they are skipped when they reach the top.
+ */
+@Service
+public class OverdueLoanTracker implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(OverdueLoanTracker.class);
+
+    private static final Comparator<LoanDTO> BY_DUE_DATE = Comparator
+            .comparing((LoanDTO loan) -> loan.getDueDate().getTime())
+            .thenComparing(LoanDTO::getLoanId);
+
+    private final LoanRepository loanRepository;
+    private final LoanService loanService;
+    private final Duration scanInterval;
+
+    private final PriorityQueue<LoanDTO> pending = new PriorityQueue<>(BY_DUE_DATE);
+    private final Map<Integer, LoanDTO> tracked = new HashMap<>();
+    private final ConcurrentSkipListSet<LoanDTO> overdue = new ConcurrentSkipListSet<>(BY_DUE_DATE);
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "overdue-loan-tracker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public OverdueLoanTracker(LoanRepository loanRepository, @Lazy LoanService loanService,
+                              @Value("${library.overdue.scan-interval:1m}") Duration scanInterval) {
+        this.loanRepository = loanRepository;
+        this.loanService = loanService;
+        this.scanInterval = scanInterval;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        seed();
+        scheduler.scheduleWithFixedDelay(this::detectQuietly, 0, scanInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Loads the open loans with a due date, replacing whatever is tracked.
+     */
+    public synchronized void seed() {
+        pending.clear();
+        tracked.clear();
+        overdue.clear();
+        for (LoanDTO loan : loanRepository.findUnreportedOpenLoans()) {
+            tracked.put(loan.getLoanId(), loan);
+            pending.add(loan);
+        }
+        for (LoanDTO loan : loanRepository.findReportedOverdueLoans()) {
+            tracked.put(loan.getLoanId(), loan);
+            overdue.add(loan);
+        }
+        logger.info("Tracking {} open loans, {} of them overdue", tracked.size(), overdue.size());
+    }
+
+    /**
+     * Starts tracking a loan, or refreshes it after an update. Returned loans and loans without a due date are dropped.
+     * @param loan The loan as saved.
+     */
+    public synchronized void track(Loan loan) {
+        untrack(loan.getLoanId());
+        if (loan.getReturnDate() != null || loan.getDueDate() == null) {
+            return;
+        }
+        LoanDTO entry = new LoanDTO(loan.getLoanId(), loan.getBookId(), loan.getUserId(), loan.getLoanDate(), loan.getDueDate(), null);
+        tracked.put(entry.getLoanId(), entry);
+        if (loan.getOverdueNotifiedAt() != null) {
+            overdue.add(entry);
+        } else {
+            pending.add(entry);
+        }
+    }
+
+    /**
+     * Stops tracking a loan, e.g. because it was returned or deleted.
+     * @param loanId The ID of the loan.
+     */
+    public synchronized void untrack(Integer loanId) {
+        LoanDTO entry = tracked.remove(loanId);
+        if (entry != null) {
+            overdue.remove(entry);
+        }
+    }
+
+    /**
+     * Reports every tracked loan whose due date has passed. If reporting fails the loans are put back and retried
+     * on the next pass.
+     * @return The number of loans reported overdue; loans returned in the meantime are not reported.
+     */
+    public int detect() {
+        List<LoanDTO> due = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            while (!pending.isEmpty() && pending.peek().getDueDate().getTime() <= now) {
+                LoanDTO loan = pending.poll();
+                if (tracked.get(loan.getLoanId()) == loan) {
+                    due.add(loan);
+                }
+            }
+        }
+        if (due.isEmpty()) {
+            return 0;
+        }
+        int reported;
+        try {
+            reported = loanService.markOverdue(due);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                pending.addAll(due);
+            }
+            throw e;
+        }
+        synchronized (this) {
+            for (LoanDTO loan : due) {
+                if (tracked.get(loan.getLoanId()) == loan) {
+                    overdue.add(loan);
+                }
+            }
+        }
+        return reported;
+    }
+
+    /**
+     * Returns one page of the overdue loans, the longest overdue first.
+     * @param page The zero-based page number.
+     * @param size The number of loans per page.
+     * @return The overdue loans of the page.
+     */
+    public List<LoanDTO> findOverdue(int page, int size) {
+        return overdue.stream().skip((long) page * size).limit(size).toList();
+    }
+
+    /**
+     * Returns the number of open loans currently overdue.
+     */
+    public int countOverdue() {
+        return overdue.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("library.loans.overdue", overdue, ConcurrentSkipListSet::size)
+                .description("Open loans past their due date")
+                .register(registry);
+        Gauge.builder("library.loans.tracked", this, tracker -> tracker.trackedCount())
+                .description("Open loans with a due date held by the overdue detector")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    private synchronized int trackedCount() {
+        return tracked.size();
+    }
+
+    private void detectQuietly() {
+        try {
+            int reported = detect();
+            if (reported > 0) {
+                logger.info("Reported {} loans overdue", reported);
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to report overdue loans, retrying in {}", scanInterval, e);
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.example.networktechnologiesproject1.services;
+
+import com.example.networktechnologiesproject1.dataTransferObjects.PopularBookDTO;
+import com.example.networktechnologiesproject1.entities.BookDetail;
+import com.example.networktechnologiesproject1.entities.BookPopularity;
+import com.example.networktechnologiesproject1.exceptions.PopularityPeriodNotSupportedException;
+import com.example.networktechnologiesproject1.repositories.BookPopularityRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service class for the "most borrowed books" leaderboards: overall and per genre, for the last day, week and month.
+ * Every committed checkout adds to the book's decayed loan counts in memory (see {@link Leaderboard}); a loan's
+ * weight decays exponentially with the period as mean lifetime, approximating a sliding window without ever
+ * scanning loans. Reads return the precomputed top of a board.
+ * Every snapshot-interval and on shutdown, the decayed counts of the checkouts served since the previous snapshot
+ * are added to book_popularity, so the snapshots of instances sharing the database add up rather than overwrite
+ * each other. At startup the boards are restored from there; until the next restart an instance's boards only
+ * add the checkouts it served itself.
+ */
+@Service
+public class PopularityService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PopularityService.class);
+
+    /**
+     * Decayed loan count below which a book that is not in the top is forgotten.
+     */
+    static final double MIN_COUNT = 0.01;
+
+    public enum Period {
+        DAY(Duration.ofDays(1)),
+        WEEK(Duration.ofDays(7)),
+        MONTH(Duration.ofDays(30));
+
+        private final Duration lifetime;
+
+        Period(Duration lifetime) {
+            this.lifetime = lifetime;
+        }
+
+        /**
+         * Parses a period name, ignoring case.
+         * @param name day, week or month.
+         * @return The period.
+         * @throws PopularityPeriodNotSupportedException If the name is not a period.
+         */
+        public static Period of(String name) {
+            try {
+                return valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new PopularityPeriodNotSupportedException(name);
+            }
+        }
+    }
+
+    private final BookDetailService bookDetailService;
+    private final BookPopularityRepository bookPopularityRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int topSize;
+    private final Duration snapshotInterval;
+    private final Map<Period, Leaderboard> overall = new EnumMap<>(Period.class);
+    private final Map<Period, Map<String, Leaderboard>> byGenre = new EnumMap<>(Period.class);
+    private final Map<Integer, String> genres = new ConcurrentHashMap<>();
+    /**
+     * Loans counted since the previous snapshot, per book and period, forward decayed from pendingSince.
+     */
+    private final Map<Integer, double[]> pending = new HashMap<>();
+    private long pendingSince = System.currentTimeMillis();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "popularity-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public PopularityService(BookDetailService bookDetailService, BookPopularityRepository bookPopularityRepository,
+                             TransactionTemplate transactionTemplate,
+                             @Value("${library.popular.top-size:50}") int topSize,
+                             @Value("${library.popular.snapshot-interval:5m}") Duration snapshotInterval) {
+        this.bookDetailService = bookDetailService;
+        this.bookPopularityRepository = bookPopularityRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.topSize = topSize;
+        this.snapshotInterval = snapshotInterval;
+        long now = System.currentTimeMillis();
+        for (Period period : Period.values()) {
+            overall.put(period, new Leaderboard(period.lifetime, topSize, now));
+            byGenre.put(period, new ConcurrentHashMap<>());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        int restored = restore();
+        logger.info("Restored the popularity of {} books", restored);
+        scheduler.scheduleWithFixedDelay(this::snapshotQuietly, snapshotInterval.toMillis(), snapshotInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        snapshotQuietly();
+    }
+
+    /**
+     * Counts a checkout once the current transaction commits, or at once outside a transaction.
+     * @param bookId The ID of the borrowed book.
+     */
+    public void recordCheckout(Integer bookId) {
+        if (bookId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recordQuietly(bookId);
+                }
+            });
+        } else {
+            recordQuietly(bookId);
+        }
+    }
+
+    /**
+     * Returns the most borrowed books of a period from the precomputed ranking.
+     * @param period The period.
+     * @param genre The genre, or null for all books.
+     * @param limit The maximum number of books, at most the top size.
+     * @return The books, best first, with their decayed loan counts.
+     */
+    public List<PopularBookDTO> findPopular(Period period, String genre, int limit) {
+        Leaderboard board = genre == null ? overall.get(period) : byGenre.get(period).get(genre);
+        if (board == null) {
+            return List.of();
+        }
+        List<PopularBookDTO> books = new ArrayList<>();
+        for (Leaderboard.Ranked ranked : board.top(Math.min(limit, topSize), System.currentTimeMillis())) {
+            books.add(new PopularBookDTO(books.size() + 1, ranked.bookId(), ranked.count()));
+        }
+        return books;
+    }
+
+    public int getTopSize() {
+        return topSize;
+    }
+
+    /**
+     * Adds the decayed loan counts of the checkouts served since the previous snapshot to book_popularity, and
+     * removes the books whose counts faded away. If writing fails, the counts are kept for the next snapshot.
+     * @return The number of books written.
+     */
+    public int snapshot() {
+        long now = System.currentTimeMillis();
+        for (Period period : Period.values()) {
+            overall.get(period).rebase(now, MIN_COUNT);
+            byGenre.get(period).values().forEach(board -> board.rebase(now, MIN_COUNT));
+        }
+        Map<Integer, double[]> counts = takePending(now);
+        Date computedAt = new Date(now);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                counts.forEach((bookId, scores) -> bookPopularityRepository.addScores(bookId, genres.get(bookId),
+                        scores[Period.DAY.ordinal()], scores[Period.WEEK.ordinal()], scores[Period.MONTH.ordinal()], computedAt));
+                bookPopularityRepository.deleteFaded(computedAt, MIN_COUNT);
+            });
+        } catch (RuntimeException e) {
+            counts.forEach((bookId, scores) -> addPending(bookId, scores, now));
+            throw e;
+        }
+        return counts.size();
+    }
+
+    /**
+     * Adds the counts of the last snapshot to the leaderboards, decayed to the current time.
+     * @return The number of books restored.
+     */
+    public int restore() {
+        int restored = 0;
+        for (BookPopularity row : bookPopularityRepository.findAll()) {
+            long at = row.getComputedAt().getTime();
+            if (row.getGenre() != null) {
+                genres.put(row.getBookId(), row.getGenre());
+            }
+            add(Period.DAY, row.getBookId(), row.getGenre(), row.getDayScore(), at);
+            add(Period.WEEK, row.getBookId(), row.getGenre(), row.getWeekScore(), at);
+            add(Period.MONTH, row.getBookId(), row.getGenre(), row.getMonthScore(), at);
+            restored++;
+        }
+        return restored;
+    }
+
+    private void recordQuietly(Integer bookId) {
+        // Runs after the checkout committed, so a failure here must not reach the caller
+        try {
+            record(bookId, System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            logger.warn("Failed to count the checkout of book {} in the popular books", bookId, e);
+        }
+    }
+
+    private void record(Integer bookId, long at) {
+        // The genre comes from the bookDetails cache; a book without details only enters the overall boards
+        String genre = bookDetailService.findById(bookId).map(BookDetail::getGenre).orElse(null);
+        if (genre != null) {
+            genres.put(bookId, genre);
+        }
+        double[] scores = new double[Period.values().length];
+        for (Period period : Period.values()) {
+            add(period, bookId, genre, 1, at);
+            scores[period.ordinal()] = 1;
+        }
+        addPending(bookId, scores, at);
+    }
+
+    private void addPending(Integer bookId, double[] counts, long at) {
+        synchronized (pending) {
+            double[] scores = pending.computeIfAbsent(bookId, id -> new double[counts.length]);
+            for (Period period : Period.values()) {
+                scores[period.ordinal()] += counts[period.ordinal()] * Math.exp((at - pendingSince) / (double) period.lifetime.toMillis());
+            }
+        }
+    }
+
+    /**
+     * Removes the loans counted since the previous snapshot.
+     * @param now The current time in milliseconds.
+     * @return The counts per book and period, decayed to now.
+     */
+    private Map<Integer, double[]> takePending(long now) {
+        synchronized (pending) {
+            Map<Integer, double[]> counts = new HashMap<>(pending);
+            counts.values().forEach(scores -> {
+                for (Period period : Period.values()) {
+                    scores[period.ordinal()] *= Math.exp((pendingSince - now) / (double) period.lifetime.toMillis());
+                }
+            });
+            pending.clear();
+            pendingSince = now;
+            return counts;
+        }
+    }
+
+    private void add(Period period, Integer bookId, String genre, double count, long at) {
+        overall.get(period).add(bookId, count, at);
+        if (genre != null) {
+            byGenre.get(period)
+                    .computeIfAbsent(genre, g -> new Leaderboard(period.lifetime, topSize, System.currentTimeMillis()))
+                    .add(bookId, count, at);
+        }
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (Exception e) {
+            logger.warn("Failed to write the popularity snapshot, retrying in {}", snapshotInterval, e);
+        }
+    }
+}
@@ -1,23 +1,156 @@
 package com.example.networktechnologiesproject1.services;
 
+import com.example.networktechnologiesproject1.dataTransferObjects.BookRatingDTO;
+import com.example.networktechnologiesproject1.entities.BookRatingStats;
 import com.example.networktechnologiesproject1.entities.Review;
+import com.example.networktechnologiesproject1.exceptions.BookNotFoundException;
+import com.example.networktechnologiesproject1.exceptions.DuplicateReviewException;
+import com.example.networktechnologiesproject1.exceptions.InvalidRatingException;
+import com.example.networktechnologiesproject1.exceptions.ReviewNotFoundException;
+import com.example.networktechnologiesproject1.exceptions.UserNotFoundException;
+import com.example.networktechnologiesproject1.repositories.BookRatingStatsRepository;
+import com.example.networktechnologiesproject1.repositories.BookRepository;
 import com.example.networktechnologiesproject1.repositories.ReviewRepository;
+import com.example.networktechnologiesproject1.repositories.UserRepository;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 
+/**
+ * Service class for handling Review-related operations.
+ * Every review write adjusts the book's rating aggregates (BookRatingStats) in the same transaction,
+ * so a book's rating can be read without scanning its reviews.
+ */
 @Service
 public class ReviewService {
 
+    private static final String REVIEW_USER_BOOK_INDEX = "uk_review_user_book";
+
     private final ReviewRepository reviewRepository;
+    private final BookRatingStatsRepository bookRatingStatsRepository;
+    private final UserRepository userRepository;
+    private final BookRepository bookRepository;
 
     @Autowired
-    public ReviewService(ReviewRepository reviewRepository) {
+    public ReviewService(ReviewRepository reviewRepository, BookRatingStatsRepository bookRatingStatsRepository,
+                         UserRepository userRepository, BookRepository bookRepository) {
         this.reviewRepository = reviewRepository;
+        this.bookRatingStatsRepository = bookRatingStatsRepository;
+        this.userRepository = userRepository;
+        this.bookRepository = bookRepository;
+    }
+
+    /**
+     * Adds a review after checking its rating and that the user and book exist, with one query for both. The row
+     * is written with a plain persist and flushed at once, so the uk_review_user_book unique index rejects a second
+     * review of the same book by the same user here rather than at commit.
+     * @param review The review to add.
+     * @return The saved review.
+     * @throws InvalidRatingException If the rating is not between 1 and 5.
+     * @throws UserNotFoundException If the user does not exist.
+     * @throws BookNotFoundException If the book does not exist.
+     * @throws DuplicateReviewException If the user already reviewed the book.
+     */
+    @Transactional
+    public Review addReview(Review review) {
+        validateRating(review);
+        if (!reviewRepository.existsUserAndBook(review.getUserId(), review.getBookId())) {
+            // Only a rejected review pays for finding out which one is missing
+            if (!userRepository.existsById(review.getUserId())) {
+                throw new UserNotFoundException(String.valueOf(review.getUserId()));
+            }
+            throw new BookNotFoundException(review.getBookId());
+        }
+        review.setReviewId(null);
+        Review saved;
+        try {
+            saved = reviewRepository.saveAndFlush(review);
+        } catch (DataIntegrityViolationException e) {
+            throw duplicateReviewOr(e);
+        }
+        applyRating(saved.getBookId(), saved.getRating(), 1);
+        return saved;
     }
 
+    /**
+     * Checks that a review's rating is between 1 and 5.
+     * @param review The review to check.
+     * @throws InvalidRatingException If the rating is missing or out of range.
+     */
+    public void validateRating(Review review) {
+        if (review.getRating() == null || review.getRating() < 1 || review.getRating() > 5) {
+            throw new InvalidRatingException("Rating must be between 1 and 5.");
+        }
+    }
+
+    /**
+     * Adds the ratings of newly inserted reviews to their books' aggregates, with one statement per book.
+     * Must be called in the transaction that inserted the reviews.
+     * @param reviews The inserted reviews.
+     */
+    public void applyRatings(Collection<Review> reviews) {
+        Map<Integer, long[]> buckets = new HashMap<>();
+        Map<Integer, Double> sums = new HashMap<>();
+        for (Review review : reviews) {
+            if (review.getBookId() == null || review.getRating() == null) {
+                continue;
+            }
+            buckets.computeIfAbsent(review.getBookId(), id -> new long[5])[starsOf(review.getRating()) - 1]++;
+            sums.merge(review.getBookId(), review.getRating(), Double::sum);
+        }
+        buckets.forEach((bookId, counts) -> bookRatingStatsRepository.applyDelta(bookId,
+                counts[0] + counts[1] + counts[2] + counts[3] + counts[4], sums.get(bookId),
+                counts[0], counts[1], counts[2], counts[3], counts[4]));
+    }
+
+    /**
+     * Saves a new review and adds its rating to the book's aggregates.
+     * @param review The review to save.
+     * @return The saved review.
+     */
+    @Transactional
     public Review saveReview(Review review) {
-        return reviewRepository.save(review);
+        Review saved = reviewRepository.save(review);
+        applyRating(saved.getBookId(), saved.getRating(), 1);
+        return saved;
+    }
+
+    /**
+     * Replaces the details of a review, moving its rating between books or histogram buckets as needed.
+     * @param reviewId The ID of the review to update.
+     * @param reviewDetails The new review details.
+     * @return The updated review.
+     * @throws ReviewNotFoundException If the review does not exist.
+     * @throws DuplicateReviewException If the review is moved to a book the user already reviewed.
+     */
+    @Transactional
+    public Review updateReview(Integer reviewId, Review reviewDetails) {
+        Review review = reviewRepository.findByIdForUpdate(reviewId)
+                .orElseThrow(() -> new ReviewNotFoundException("Review with ID " + reviewId + " not found."));
+        applyRating(review.getBookId(), review.getRating(), -1);
+        review.setBookId(reviewDetails.getBookId());
+        review.setUserId(reviewDetails.getUserId());
+        review.setRating(reviewDetails.getRating());
+        review.setComment(reviewDetails.getComment());
+        review.setReviewDate(reviewDetails.getReviewDate());
+        Review saved;
+        try {
+            // Flushed before the rating delta, whose native statement would otherwise flush it outside this catch
+            saved = reviewRepository.saveAndFlush(review);
+        } catch (DataIntegrityViolationException e) {
+            throw duplicateReviewOr(e);
+        }
+        applyRating(saved.getBookId(), saved.getRating(), 1);
+        return saved;
     }
 
     public Optional<Review> findById(Integer reviewId) {
@@ -28,7 +161,122 @@ public class ReviewService {
         return reviewRepository.findAll();
     }
 
+    /**
+     * Deletes a review and removes its rating from the book's aggregates.
+     * @param reviewId The ID of the review to delete.
+     * @throws ReviewNotFoundException If the review does not exist.
+     */
+    @Transactional
     public void deleteReview(Integer reviewId) {
-        reviewRepository.deleteById(reviewId);
+        Review review = reviewRepository.findByIdForUpdate(reviewId)
+                .orElseThrow(() -> new ReviewNotFoundException("Review with ID " + reviewId + " not found."));
+        applyRating(review.getBookId(), review.getRating(), -1);
+        reviewRepository.delete(review);
+    }
+
+    /**
+     * Returns the rating aggregates of a book with a single primary key lookup.
+     * A book without reviews (or an unknown book ID) gets a zero count and no average.
+     * @param bookId The ID of the book.
+     * @return The count, sum, average and histogram of the book's ratings.
+     */
+    public BookRatingDTO findRating(Integer bookId) {
+        return bookRatingStatsRepository.findById(bookId)
+                .map(ReviewService::toRating)
+                .orElseGet(() -> toRating(emptyStats(bookId)));
+    }
+
+    /**
+     * Returns the rating aggregates of several books with a single query.
+     * Books without reviews get a zero count and no average.
+     * @param bookIds The IDs of the books.
+     * @return The ratings keyed by book ID, with an entry for every requested book.
+     */
+    public Map<Integer, BookRatingDTO> findRatings(Collection<Integer> bookIds) {
+        Map<Integer, BookRatingDTO> ratings = new HashMap<>();
+        for (BookRatingStats stats : bookRatingStatsRepository.findAllById(bookIds)) {
+            ratings.put(stats.getBookId(), toRating(stats));
+        }
+        for (Integer bookId : bookIds) {
+            ratings.computeIfAbsent(bookId, id -> toRating(emptyStats(id)));
+        }
+        return ratings;
+    }
+
+    /**
+     * Recomputes the rating aggregates of all books from their reviews, e.g. to backfill or repair them.
+     * The aggregate rows are locked first and overwritten in place, so a review written meanwhile is neither
+     * lost nor counted twice.
+     * @return The number of books with reviews.
+     */
+    @Transactional
+    public int rebuildRatings() {
+        // Deltas of concurrent review writes wait on these locks until the rebuilt values are committed
+        bookRatingStatsRepository.lockAllStats();
+        bookRatingStatsRepository.rebuild();
+        bookRatingStatsRepository.deleteStatsWithoutReviews();
+        return (int) bookRatingStatsRepository.count();
+    }
+
+    /**
+     * Maps a violation of the uk_review_user_book unique index to DuplicateReviewException. Any other violation,
+     * such as a comment longer than its column, is returned as it is.
+     * The index is found by the constraint name Hibernate extracted or, where the dialect cannot extract it, in the
+     * driver's message (MySQL: "Duplicate entry ... for key 'review.uk_review_user_book'").
+     */
+    private static RuntimeException duplicateReviewOr(DataIntegrityViolationException e) {
+        String constraint = e.getCause() instanceof ConstraintViolationException violation && violation.getConstraintName() != null
+                ? violation.getConstraintName()
+                : String.valueOf(e.getMostSpecificCause().getMessage());
+        if (constraint.toLowerCase(Locale.ROOT).contains(REVIEW_USER_BOOK_INDEX)) {
+            return new DuplicateReviewException("Duplicate review for book and user not allowed.");
+        }
+        return e;
+    }
+
+    private void applyRating(Integer bookId, Double rating, int sign) {
+        if (bookId == null || rating == null) {
+            return;
+        }
+        long[] buckets = new long[5];
+        buckets[starsOf(rating) - 1] = sign;
+        bookRatingStatsRepository.applyDelta(bookId, sign, sign * rating,
+                buckets[0], buckets[1], buckets[2], buckets[3], buckets[4]);
+    }
+
+    /**
+     * Returns the histogram bucket of a rating: whole stars, rounded down, between 1 and 5.
+     */
+    static int starsOf(double rating) {
+        return (int) Math.max(1, Math.min(5, Math.floor(rating)));
+    }
+
+    private static BookRatingStats emptyStats(Integer bookId) {
+        BookRatingStats stats = new BookRatingStats();
+        stats.setBookId(bookId);
+        stats.setReviewCount(0L);
+        stats.setRatingSum(0.0);
+        stats.setOneStar(0L);
+        stats.setTwoStars(0L);
+        stats.setThreeStars(0L);
+        stats.setFourStars(0L);
+        stats.setFiveStars(0L);
+        return stats;
+    }
+
+    private static BookRatingDTO toRating(BookRatingStats stats) {
+        BookRatingDTO rating = new BookRatingDTO();
+        rating.setBookId(stats.getBookId());
+        rating.setReviewCount(stats.getReviewCount());
+        rating.setRatingSum(stats.getRatingSum());
+        rating.setAverageRating(stats.getReviewCount() > 0 ? stats.getRatingSum() / stats.getReviewCount() : null);
+        Map<Integer, Long> histogram = new LinkedHashMap<>();
+        histogram.put(1, stats.getOneStar());
+        histogram.put(2, stats.getTwoStars());
+        histogram.put(3, stats.getThreeStars());
+        histogram.put(4, stats.getFourStars());
+        histogram.put(5, stats.getFiveStars());
+        rating.setHistogram(histogram);
+        return rating;
     }
 }
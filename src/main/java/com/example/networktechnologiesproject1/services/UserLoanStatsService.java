@@ -0,0 +1,94 @@
+package com.example.networktechnologiesproject1.services;
+
+import com.example.networktechnologiesproject1.config.CacheConfiguration;
+import com.example.networktechnologiesproject1.entities.UserLoanStats;
+import com.example.networktechnologiesproject1.repositories.UserLoanStatsRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service class for the per-user loan counters (UserLoanStats).
+ * LoanService adjusts the counters in the same transaction as each loan write. Reads are served from the
+ * userLoanStats cache, and a user's entry is evicted once a transaction that changed the counters commits.
+ * Cache misses load synchronously: an eviction waits for a load of the same user in progress and then drops its
+ * result, so a read that started before the commit cannot leave the old counters cached.
+ */
+@Service
+public class UserLoanStatsService {
+
+    private final UserLoanStatsRepository userLoanStatsRepository;
+    private final CacheManager cacheManager;
+
+    @Autowired
+    public UserLoanStatsService(UserLoanStatsRepository userLoanStatsRepository, CacheManager cacheManager) {
+        this.userLoanStatsRepository = userLoanStatsRepository;
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Returns the loan counters of a user with a single primary key lookup, or from the cache.
+     * A user without loans (or an unknown user ID) gets zero counters.
+     * @param userId The ID of the user.
+     * @return The user's active, overdue and lifetime loan counts.
+     */
+    @Cacheable(cacheNames = CacheConfiguration.USER_LOAN_STATS, key = "#userId", sync = true)
+    public UserLoanStats findStats(Integer userId) {
+        return userLoanStatsRepository.findById(userId).orElseGet(() -> emptyStats(userId));
+    }
+
+    /**
+     * Adjusts a user's loan counters; the cached counters are dropped once the current transaction commits.
+     * @param userId The ID of the user.
+     * @param active The change in the number of open loans.
+     * @param overdue The change in the number of open loans reported overdue.
+     * @param lifetime The change in the number of loans.
+     */
+    public void apply(Integer userId, long active, long overdue, long lifetime) {
+        if (userId == null || (active == 0 && overdue == 0 && lifetime == 0)) {
+            return;
+        }
+        userLoanStatsRepository.applyDelta(userId, active, overdue, lifetime);
+        // The cache manager is transaction-aware, so the entry is only dropped once the change commits
+        evict(userId);
+    }
+
+    /**
+     * Recomputes the loan counters of all users from their loans, e.g. to backfill or repair them.
+     * The counter rows are locked first and overwritten in place, so a loan written meanwhile is neither
+     * lost nor counted twice.
+     * @return The number of users with loans.
+     */
+    @Transactional
+    public int rebuild() {
+        // Deltas of concurrent loan writes wait on these locks until the rebuilt values are committed
+        userLoanStatsRepository.lockAllStats();
+        userLoanStatsRepository.rebuild();
+        userLoanStatsRepository.deleteStatsWithoutLoans();
+        int users = (int) userLoanStatsRepository.count();
+        Cache cache = cacheManager.getCache(CacheConfiguration.USER_LOAN_STATS);
+        if (cache != null) {
+            cache.clear();
+        }
+        return users;
+    }
+
+    private void evict(Integer userId) {
+        Cache cache = cacheManager.getCache(CacheConfiguration.USER_LOAN_STATS);
+        if (cache != null) {
+            cache.evict(userId);
+        }
+    }
+
+    private static UserLoanStats emptyStats(Integer userId) {
+        UserLoanStats stats = new UserLoanStats();
+        stats.setUserId(userId);
+        stats.setActiveLoans(0L);
+        stats.setOverdueLoans(0L);
+        stats.setLifetimeLoans(0L);
+        return stats;
+    }
+}
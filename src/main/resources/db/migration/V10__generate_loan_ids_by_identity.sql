@@ -0,0 +1,8 @@
+-- Loan IDs come from AUTO_INCREMENT instead of the loan_seq table (see Loan.loanId).
+-- Refilling an ID block from loan_seq took a second, isolated connection while the checkout held its own, so
+-- enough concurrent checkouts could hold every pooled connection and wait for one more forever.
+-- MySQL continues the counter after the highest existing loan_id.
+
+ALTER TABLE loan MODIFY loan_id INT NOT NULL AUTO_INCREMENT;
+
+DROP TABLE IF EXISTS loan_seq;
@@ -0,0 +1,9 @@
+-- Until checkouts took copies (see LoanService), available_copies held the number of copies owned, or NULL when
+-- never set, and a book could have one open loan at a time. Turn it into the copies left on the shelf: the copies
+-- owned (one if unset) minus the open loans, never below zero.
+
+UPDATE book b
+SET available_copies = GREATEST(COALESCE(b.available_copies, 1)
+        - (SELECT COUNT(*) FROM loan l WHERE l.book_id = b.book_id AND l.return_date IS NULL), 0);
+
+ALTER TABLE book MODIFY available_copies BIGINT NOT NULL;
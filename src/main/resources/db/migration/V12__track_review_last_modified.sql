@@ -0,0 +1,9 @@
+-- HTTP caching of /review/getAll: the ETag is derived from the review count, IDs and latest last_modified, so a
+-- poll reads one index instead of every review. Set by Hibernate on every insert and update.
+
+ALTER TABLE review ADD COLUMN last_modified DATETIME(6);
+
+UPDATE review SET last_modified = CURRENT_TIMESTAMP(6);
+
+-- ReviewRepository.findVersion: MAX(last_modified) is read from the end of the index
+CREATE INDEX idx_review_last_modified ON review (last_modified);
@@ -0,0 +1,62 @@
+-- Baseline: the schema previously created by spring.jpa.hibernate.ddl-auto=update.
+-- IF NOT EXISTS keeps this a no-op on databases that already have it (see spring.flyway.baseline-version).
+
+CREATE TABLE IF NOT EXISTS book (
+    book_id          INT          NOT NULL,
+    isbn             VARCHAR(255),
+    title            VARCHAR(255),
+    author           VARCHAR(255),
+    publisher        VARCHAR(255),
+    year             BIGINT,
+    available_copies BIGINT,
+    PRIMARY KEY (book_id)
+);
+
+CREATE TABLE IF NOT EXISTS book_detail (
+    book_id         INT           NOT NULL,
+    genre           VARCHAR(255),
+    summary         VARCHAR(1000),
+    cover_image_url VARCHAR(255),
+    PRIMARY KEY (book_id)
+);
+
+CREATE TABLE IF NOT EXISTS loan (
+    loan_id     INT         NOT NULL,
+    book_id     INT,
+    user_id     INT,
+    loan_date   DATETIME(6),
+    due_date    DATETIME(6),
+    return_date DATETIME(6),
+    PRIMARY KEY (loan_id)
+);
+
+CREATE TABLE IF NOT EXISTS review (
+    review_id   INT           NOT NULL,
+    book_id     INT,
+    user_id     INT,
+    rating      DOUBLE,
+    comment     VARCHAR(255),
+    review_date DATETIME(6),
+    PRIMARY KEY (review_id)
+);
+
+CREATE TABLE IF NOT EXISTS user (
+    user_id  INT          NOT NULL,
+    username VARCHAR(255),
+    password VARCHAR(255),
+    role     VARCHAR(255),
+    email    VARCHAR(255),
+    name     VARCHAR(255),
+    PRIMARY KEY (user_id)
+);
+
+-- Hibernate's table-backed ID sequences (GenerationType.AUTO on MySQL)
+CREATE TABLE IF NOT EXISTS book_seq (next_val BIGINT);
+CREATE TABLE IF NOT EXISTS loan_seq (next_val BIGINT);
+CREATE TABLE IF NOT EXISTS review_seq (next_val BIGINT);
+CREATE TABLE IF NOT EXISTS user_seq (next_val BIGINT);
+
+INSERT INTO book_seq (next_val) SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT * FROM book_seq);
+INSERT INTO loan_seq (next_val) SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT * FROM loan_seq);
+INSERT INTO review_seq (next_val) SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT * FROM review_seq);
+INSERT INTO user_seq (next_val) SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT * FROM user_seq);
@@ -0,0 +1,51 @@
+-- Indexes for the derived-query hot paths. QueryPlanTest checks that each of these queries uses its index.
+-- BookDetailRepository.existsByBookIdAndGenre needs none: book_id is the primary key of book_detail.
+-- Databases created by ddl-auto=update had no unique constraints, so duplicates are resolved first
+-- (DuplicateCleanupMigrationTest); otherwise creating the unique indexes would fail the migration.
+
+-- Books sharing an ISBN are merged into the one with the lowest ID: its loans, reviews and copies move over.
+-- The merged books' details are dropped, the kept book keeps its own.
+CREATE TABLE book_merge AS
+SELECT b.book_id AS old_id, k.keep_id, COALESCE(b.available_copies, 0) AS copies
+FROM book b
+JOIN (SELECT isbn, MIN(book_id) AS keep_id FROM book WHERE isbn IS NOT NULL GROUP BY isbn HAVING COUNT(*) > 1) k
+  ON b.isbn = k.isbn
+WHERE b.book_id <> k.keep_id;
+
+UPDATE loan SET book_id = (SELECT m.keep_id FROM book_merge m WHERE m.old_id = loan.book_id)
+WHERE book_id IN (SELECT old_id FROM book_merge);
+UPDATE review SET book_id = (SELECT m.keep_id FROM book_merge m WHERE m.old_id = review.book_id)
+WHERE book_id IN (SELECT old_id FROM book_merge);
+UPDATE book SET available_copies = COALESCE(available_copies, 0)
+    + (SELECT SUM(m.copies) FROM book_merge m WHERE m.keep_id = book.book_id)
+WHERE book_id IN (SELECT keep_id FROM book_merge);
+DELETE FROM book_detail WHERE book_id IN (SELECT old_id FROM book_merge);
+DELETE FROM book WHERE book_id IN (SELECT old_id FROM book_merge);
+DROP TABLE book_merge;
+
+-- Users sharing a username: the one with the lowest ID keeps it, the others become username#user_id
+-- (the derived table is materialized, so MySQL allows it to read the table being updated)
+UPDATE user SET username = CONCAT(username, '#', user_id)
+WHERE username IS NOT NULL
+  AND user_id NOT IN (SELECT keep_id FROM (SELECT MIN(user_id) AS keep_id FROM user WHERE username IS NOT NULL GROUP BY username) keepers);
+
+-- Several reviews of a book by the same user (including those created by merging books above): the latest stays
+DELETE FROM review
+WHERE user_id IS NOT NULL AND book_id IS NOT NULL
+  AND review_id NOT IN (SELECT keep_id FROM (SELECT MAX(review_id) AS keep_id FROM review WHERE user_id IS NOT NULL AND book_id IS NOT NULL GROUP BY user_id, book_id) keepers);
+
+-- BookRepository.findByIsbn and the duplicate ISBN checks
+CREATE UNIQUE INDEX uk_book_isbn ON book (isbn);
+
+-- UserRepository.findByUsername (every login)
+CREATE UNIQUE INDEX uk_user_username ON user (username);
+
+-- ReviewRepository.existsByUserIdAndBookId: one review per user and book
+CREATE UNIQUE INDEX uk_review_user_book ON review (user_id, book_id);
+
+-- LoanRepository.findByUserId and countByUserId (the count is answered from the index alone)
+CREATE INDEX idx_loan_user ON loan (user_id);
+
+-- LoanRepository.existsByBookIdAndReturnDateIsNull: MySQL has no partial indexes, so open loans are
+-- the (book_id, NULL) prefix of this covering index
+CREATE INDEX idx_loan_book_return ON loan (book_id, return_date);
@@ -0,0 +1,27 @@
+-- Per-book rating aggregates, kept in step with review writes (see ReviewService).
+-- Histogram buckets are whole stars, rounded down; the backfill below matches BookRatingStatsRepository.rebuild.
+
+CREATE TABLE book_rating_stats (
+    book_id      INT    NOT NULL,
+    review_count BIGINT NOT NULL,
+    rating_sum   DOUBLE NOT NULL,
+    one_star     BIGINT NOT NULL,
+    two_stars    BIGINT NOT NULL,
+    three_stars  BIGINT NOT NULL,
+    four_stars   BIGINT NOT NULL,
+    five_stars   BIGINT NOT NULL,
+    PRIMARY KEY (book_id)
+);
+
+INSERT INTO book_rating_stats (book_id, review_count, rating_sum, one_star, two_stars, three_stars, four_stars, five_stars)
+SELECT book_id,
+       COUNT(*),
+       SUM(rating),
+       SUM(CASE WHEN FLOOR(rating) <= 1 THEN 1 ELSE 0 END),
+       SUM(CASE WHEN FLOOR(rating) = 2 THEN 1 ELSE 0 END),
+       SUM(CASE WHEN FLOOR(rating) = 3 THEN 1 ELSE 0 END),
+       SUM(CASE WHEN FLOOR(rating) = 4 THEN 1 ELSE 0 END),
+       SUM(CASE WHEN FLOOR(rating) >= 5 THEN 1 ELSE 0 END)
+FROM review
+WHERE book_id IS NOT NULL AND rating IS NOT NULL
+GROUP BY book_id;
@@ -0,0 +1,12 @@
+-- Transactional outbox for loan events: rows are inserted in the same transaction as the loan change
+-- and removed once LoanEventRelay has appended them to the loan event log.
+
+CREATE TABLE loan_event (
+    event_id    BIGINT      NOT NULL AUTO_INCREMENT,
+    event_type  VARCHAR(16) NOT NULL,
+    loan_id     INT,
+    book_id     INT,
+    user_id     INT,
+    occurred_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (event_id)
+);
@@ -0,0 +1,7 @@
+-- Overdue loan detection (see OverdueLoanTracker).
+-- overdue_notified_at records when the OVERDUE event of a loan was published, so a restart does not announce it again.
+
+ALTER TABLE loan ADD COLUMN overdue_notified_at DATETIME(6);
+
+-- LoanRepository.findUnreportedOpenLoans and findReportedOverdueLoans: open loans are the (NULL, ...) prefix, in due date order
+CREATE INDEX idx_loan_return_due ON loan (return_date, due_date);
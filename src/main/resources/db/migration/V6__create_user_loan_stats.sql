@@ -0,0 +1,22 @@
+-- Per-user loan counters, kept in step with loan writes (see LoanService).
+-- The backfill below matches UserLoanStatsRepository.rebuild.
+
+CREATE TABLE user_loan_stats (
+    user_id        INT    NOT NULL,
+    active_loans   BIGINT NOT NULL,
+    overdue_loans  BIGINT NOT NULL,
+    lifetime_loans BIGINT NOT NULL,
+    PRIMARY KEY (user_id)
+);
+
+INSERT INTO user_loan_stats (user_id, active_loans, overdue_loans, lifetime_loans)
+SELECT user_id,
+       SUM(CASE WHEN return_date IS NULL THEN 1 ELSE 0 END),
+       SUM(CASE WHEN return_date IS NULL AND overdue_notified_at IS NOT NULL THEN 1 ELSE 0 END),
+       COUNT(*)
+FROM loan
+WHERE user_id IS NOT NULL
+GROUP BY user_id;
+
+-- LoanRepository.findCurrentLoanDTOsByUserId: a user's open loans are the (user_id, NULL, ...) prefix, in due date order
+CREATE INDEX idx_loan_user_return_due ON loan (user_id, return_date, due_date);
@@ -0,0 +1,8 @@
+-- HTTP caching of /book/{id} and /bookDetail/{id}: last_modified is sent as the Last-Modified header.
+-- Set by Hibernate on every insert and update, and by the bulk statements that change available copies.
+
+ALTER TABLE book ADD COLUMN last_modified DATETIME(6);
+ALTER TABLE book_detail ADD COLUMN last_modified DATETIME(6);
+
+UPDATE book SET last_modified = CURRENT_TIMESTAMP(6);
+UPDATE book_detail SET last_modified = CURRENT_TIMESTAMP(6);
@@ -0,0 +1,10 @@
+-- Replication lag measurement (see ReplicaRoutingDataSource): the application rewrites this row on the primary every
+-- library.datasource.replica-check-interval, and a replica's lag is how far its copy of the row trails behind.
+
+CREATE TABLE replication_heartbeat (
+    id      INT         NOT NULL,
+    beat_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+INSERT INTO replication_heartbeat (id, beat_at) VALUES (1, CURRENT_TIMESTAMP(6));
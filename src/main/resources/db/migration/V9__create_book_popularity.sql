@@ -0,0 +1,27 @@
+-- Snapshot of the in-memory popularity leaderboards (see PopularityService): per book, the number of loans in the
+-- last day, week and month, counted with exponential decay (each loan's weight halves every 0.69 of the period),
+-- as of computed_at. Seeded from the loans of the last 90 days; older loans add almost nothing to the month.
+
+CREATE TABLE book_popularity (
+    book_id     INT          NOT NULL,
+    genre       VARCHAR(255),
+    day_score   DOUBLE       NOT NULL,
+    week_score  DOUBLE       NOT NULL,
+    month_score DOUBLE       NOT NULL,
+    computed_at DATETIME(6)  NOT NULL,
+    PRIMARY KEY (book_id)
+);
+
+INSERT INTO book_popularity (book_id, genre, day_score, week_score, month_score, computed_at)
+SELECT l.book_id,
+       MAX(d.genre),
+       SUM(EXP(-TIMESTAMPDIFF(SECOND, l.loan_date, CURRENT_TIMESTAMP) / 86400.0)),
+       SUM(EXP(-TIMESTAMPDIFF(SECOND, l.loan_date, CURRENT_TIMESTAMP) / 604800.0)),
+       SUM(EXP(-TIMESTAMPDIFF(SECOND, l.loan_date, CURRENT_TIMESTAMP) / 2592000.0)),
+       CURRENT_TIMESTAMP
+FROM loan l
+LEFT JOIN book_detail d ON d.book_id = l.book_id
+WHERE l.book_id IS NOT NULL
+  AND l.loan_date >= TIMESTAMPADD(DAY, -90, CURRENT_TIMESTAMP)
+  AND l.loan_date <= CURRENT_TIMESTAMP
+GROUP BY l.book_id;
@@ -0,0 +1,58 @@
+package com.example.networktechnologiesproject1.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that the pool grows as soon as callers wait too long, only shrinks after a run of quiet intervals, and
+ * never shrinks to the concurrency limit in front of it.
+ */
+class AdaptivePoolSizerTest {
+
+    private static final double SLOW = Duration.ofMillis(20).toNanos();
+    private static final double FAST = Duration.ofMillis(1).toNanos();
+
+    private final AdaptivePoolSizer sizer = new AdaptivePoolSizer(new HikariDataSource(), new SimpleMeterRegistry(),
+            true, 5, 12, Duration.ofMillis(5), 3, Duration.ofSeconds(10));
+
+    @Test
+    void growsWhileCallersWaitUpToTheMaximum() {
+        assertEquals(10, sizer.nextSize(8, SLOW, 100, 0, 8));
+        assertEquals(12, sizer.nextSize(10, SLOW, 100, 4, 10));
+        assertEquals(12, sizer.nextSize(12, SLOW, 100, 4, 12));
+        // Nobody got a connection although callers are queued
+        assertEquals(7, sizer.nextSize(6, 0, 0, 3, 6));
+    }
+
+    @Test
+    void shrinksOnlyAfterConsecutiveQuietIntervals() {
+        assertEquals(8, sizer.nextSize(8, FAST, 100, 0, 2));
+        assertEquals(8, sizer.nextSize(8, FAST, 100, 0, 2));
+        // Busy interval resets the streak
+        assertEquals(8, sizer.nextSize(8, FAST, 100, 0, 6));
+        assertEquals(8, sizer.nextSize(8, FAST, 100, 0, 2));
+        assertEquals(8, sizer.nextSize(8, FAST, 100, 0, 2));
+        assertEquals(7, sizer.nextSize(8, FAST, 100, 0, 2));
+
+        for (int i = 0; i < 10; i++) {
+            sizer.nextSize(5, 0, 0, 0, 0);
+        }
+        assertEquals(5, sizer.nextSize(5, 0, 0, 0, 0));
+    }
+
+    @Test
+    void keepsASpareConnectionAboveTheConcurrencyLimit() {
+        AdaptivePoolSizer limited = new AdaptivePoolSizer(
+                new ConcurrencyLimitingDataSource(new HikariDataSource(), 8, Duration.ofSeconds(1)), new SimpleMeterRegistry(),
+                true, 5, 6, Duration.ofMillis(5), 1, Duration.ofSeconds(10));
+
+        assertEquals(9, limited.nextSize(10, 0, 0, 0, 0));
+        assertEquals(9, limited.nextSize(9, 0, 0, 0, 0));
+        assertEquals(9, limited.nextSize(9, SLOW, 100, 4, 9));
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.networktechnologiesproject1.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that a thread holding a permit can borrow nested connections without another one, that other threads
+ * wait for it, that a pool without spare connections is rejected and that closing closes the pool.
+ */
+class ConcurrencyLimitingDataSourceTest {
+
+    private final HikariDataSource pool = pool(3);
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void nestedConnectionsShareTheThreadsPermit() throws Exception {
+        ConcurrencyLimitingDataSource limited = new ConcurrencyLimitingDataSource(pool, 1, Duration.ofMillis(100));
+
+        try (Connection outer = limited.getConnection()) {
+            try (Connection nested = limited.getConnection()) {
+                assertEquals(0, limited.getAvailablePermits());
+            }
+            // The outer connection still holds the permit, so other threads time out
+            ExecutionException failure = assertThrows(ExecutionException.class,
+                    () -> CompletableFuture.supplyAsync(() -> borrowAndClose(limited)).get());
+            assertInstanceOf(SQLTransientConnectionException.class, failure.getCause().getCause());
+            assertEquals(0, limited.getAvailablePermits());
+        }
+        assertEquals(1, limited.getAvailablePermits());
+        CompletableFuture.supplyAsync(() -> borrowAndClose(limited)).get();
+        assertEquals(1, limited.getAvailablePermits());
+    }
+
+    @Test
+    void rejectsAPoolWithoutSpareConnectionsAndClosesThePool() throws Exception {
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrencyLimitingDataSource(pool, 3, Duration.ofSeconds(1)));
+
+        new ConcurrencyLimitingDataSource(pool, 2, Duration.ofSeconds(1)).close();
+        assertTrue(pool.isClosed());
+    }
+
+    private static Void borrowAndClose(ConcurrencyLimitingDataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            return null;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static HikariDataSource pool(int size) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setJdbcUrl("jdbc:h2:mem:library_permits;DB_CLOSE_DELAY=-1");
+        pool.setUsername("sa");
+        pool.setMaximumPoolSize(size);
+        return pool;
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.networktechnologiesproject1.config;
+
+import com.example.networktechnologiesproject1.entities.Book;
+import com.example.networktechnologiesproject1.repositories.BookRepository;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks read-only routing with a second embedded database standing in for a replica: replica-safe reads go to the
+ * replica only while its heartbeat is current, while other read-only and writing transactions always read the primary.
+ */
+@DataJpaTest(properties = "library.datasource.replicas[0].url=" + ReplicaRoutingDataSourceTest.REPLICA_URL)
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ReadReplicaConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReplicaRoutingDataSourceTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:library_replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=YEAR,USER;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private ReplicaRoutingDataSource routingDataSource;
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        DataSource replicaDataSource = new DriverManagerDataSource(REPLICA_URL, "sa", "");
+        Flyway.configure().dataSource(replicaDataSource).load().migrate();
+        routingDataSource = dataSource.unwrap(ReplicaRoutingDataSource.class);
+        primary = new JdbcTemplate(dataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        bookRepository.deleteAll();
+        replica.update("DELETE FROM book");
+    }
+
+    @Test
+    void readOnlyTransactionsUseTheReplicaOnceItIsCaughtUp() {
+        Integer bookId = bookRepository.save(book("Primary title")).getBookId();
+        replica.update("INSERT INTO book (book_id, isbn, title, available_copies) VALUES (?, '9780000000001', 'Replica title', 1)", bookId);
+
+        // No heartbeat has reached the replica yet, so reads stay on the primary
+        routingDataSource.checkReplicas();
+        assertFalse(routingDataSource.getReplicas().get(0).isAvailable());
+        assertEquals("Primary title", replicaSafeTitle(bookId));
+
+        replicateHeartbeat();
+        routingDataSource.checkReplicas();
+        assertTrue(routingDataSource.getReplicas().get(0).isAvailable());
+        assertEquals(0, routingDataSource.getReplicas().get(0).getLagMillis());
+        assertEquals("Replica title", replicaSafeTitle(bookId));
+
+        // Unmarked read-only reads, such as cache fills, keep reading the primary
+        long fallbacks = routingDataSource.getPrimaryFallbacks();
+        assertEquals("Primary title", bookRepository.findById(bookId).orElseThrow().getTitle());
+        assertEquals(fallbacks, routingDataSource.getPrimaryFallbacks());
+
+        TransactionTemplate writeTransaction = new TransactionTemplate(transactionManager);
+        assertEquals("Primary title", ReplicaReads.call(() ->
+                writeTransaction.execute(status -> bookRepository.findById(bookId).orElseThrow().getTitle())));
+    }
+
+    @Test
+    void laggingReplicaIsSkipped() {
+        Integer bookId = bookRepository.save(book("Primary title")).getBookId();
+        replica.update("INSERT INTO book (book_id, isbn, title, available_copies) VALUES (?, '9780000000001', 'Replica title', 1)", bookId);
+        routingDataSource.checkReplicas();
+        replicateHeartbeat();
+        routingDataSource.checkReplicas();
+        assertTrue(routingDataSource.getReplicas().get(0).isAvailable());
+
+        replica.update("UPDATE replication_heartbeat SET beat_at = ? WHERE id = 1", new Timestamp(System.currentTimeMillis() - 60_000));
+        routingDataSource.checkReplicas();
+        assertFalse(routingDataSource.getReplicas().get(0).isAvailable());
+
+        long fallbacks = routingDataSource.getPrimaryFallbacks();
+        assertEquals("Primary title", replicaSafeTitle(bookId));
+        assertEquals(fallbacks + 1, routingDataSource.getPrimaryFallbacks());
+    }
+
+    private String replicaSafeTitle(Integer bookId) {
+        return ReplicaReads.call(() -> bookRepository.findById(bookId).orElseThrow().getTitle());
+    }
+
+    private void replicateHeartbeat() {
+        Timestamp beat = primary.queryForObject("SELECT beat_at FROM replication_heartbeat WHERE id = 1", Timestamp.class);
+        replica.update("UPDATE replication_heartbeat SET beat_at = ? WHERE id = 1", beat);
+    }
+
+    private static Book book(String title) {
+        Book book = new Book();
+        book.setIsbn("9780000000001");
+        book.setTitle(title);
+        book.setAvailableCopies(1L);
+        return book;
+    }
+}
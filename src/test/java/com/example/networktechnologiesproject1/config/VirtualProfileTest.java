@@ -0,0 +1,54 @@
+package com.example.networktechnologiesproject1.config;
+
+import com.example.networktechnologiesproject1.security.JwtTokenProvider;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that the application starts with application-virtual.properties, puts the concurrency limit in front of
+ * a larger connection pool and serves requests through it. On a JDK older than 21 the request threads stay
+ * platform threads, but the database limit is applied all the same.
+ */
+@SpringBootTest(properties = "library.rate-limit.enabled=false")
+@AutoConfigureMockMvc
+@ActiveProfiles({"test", "virtual"})
+class VirtualProfileTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Test
+    void startsWithTheConcurrencyLimitBelowThePoolSize() throws Exception {
+        assertTrue(dataSource.isWrapperFor(ConcurrencyLimitingDataSource.class));
+        ConcurrencyLimitingDataSource limited = dataSource.unwrap(ConcurrencyLimitingDataSource.class);
+        assertEquals(8, limited.getMaxConcurrency());
+        assertEquals(10, dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize());
+
+        String token = jwtTokenProvider.createToken(new User("librarian", "unused", List.of(new SimpleGrantedAuthority("ROLE_STAFF"))));
+        mockMvc.perform(get("/book/getAll").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk());
+        assertEquals(8, limited.getAvailablePermits());
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.networktechnologiesproject1.controllers;
+
+import com.example.networktechnologiesproject1.dataTransferObjects.BookDTO;
+import com.example.networktechnologiesproject1.dataTransferObjects.ListVersionDTO;
+import com.example.networktechnologiesproject1.entities.Book;
+import com.example.networktechnologiesproject1.exceptions.GlobalExceptionHandler;
+import com.example.networktechnologiesproject1.repositories.BookRepository;
+import com.example.networktechnologiesproject1.services.BookSearchService;
+import com.example.networktechnologiesproject1.services.BookService;
+import com.example.networktechnologiesproject1.services.CatalogImportService;
+import com.example.networktechnologiesproject1.services.PopularityService;
+import com.example.networktechnologiesproject1.services.ReviewService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks the validators of /book/{id} and /book/getAll: each response format has its own ETag, responses vary by
+ * Accept, a matching If-None-Match or If-Modified-Since is answered with 304, and an unchanged page is not read.
+ */
+class BookControllerConditionalTest {
+
+    private static final MediaType CBOR = MediaType.parseMediaType("application/cbor");
+    private static final long LAST_MODIFIED = 1_700_000_000_000L;
+
+    private final BookService bookService = mock(BookService.class);
+    private final BookRepository bookRepository = mock(BookRepository.class);
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        Book book = new Book();
+        book.setBookId(1);
+        book.setIsbn("9780000000001");
+        book.setTitle("Title");
+        book.setAvailableCopies(2L);
+        book.setLastModified(new Date(LAST_MODIFIED));
+        when(bookService.findById(1)).thenReturn(Optional.of(book));
+
+        BookController controller = new BookController(bookRepository, bookService,
+                mock(CatalogImportService.class), mock(BookSearchService.class), mock(ReviewService.class),
+                mock(PopularityService.class), new ObjectMapper());
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .setMessageConverters(new MappingJackson2HttpMessageConverter(),
+                        new MappingJackson2CborHttpMessageConverter(new ObjectMapper(new CBORFactory())))
+                .build();
+    }
+
+    @Test
+    void eachFormatHasItsOwnEntityTag() throws Exception {
+        String json = eTag(MediaType.APPLICATION_JSON);
+        String cbor = eTag(CBOR);
+        assertNotEquals(json, cbor);
+
+        mockMvc.perform(get("/book/1").accept(CBOR).header(HttpHeaders.IF_NONE_MATCH, cbor))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/book/1").accept(CBOR).header(HttpHeaders.IF_NONE_MATCH, json))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(CBOR));
+        mockMvc.perform(get("/book/1").accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, json))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void ifModifiedSinceIsCheckedAgainstTheLastChange() throws Exception {
+        mockMvc.perform(get("/book/1").header(HttpHeaders.IF_MODIFIED_SINCE, LAST_MODIFIED))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/book/1").header(HttpHeaders.IF_MODIFIED_SINCE, LAST_MODIFIED - 1000))
+                .andExpect(status().isOk())
+                .andExpect(header().dateValue(HttpHeaders.LAST_MODIFIED, LAST_MODIFIED));
+    }
+
+    @Test
+    void unchangedPageIsAnsweredWithoutReadingTheBooks() throws Exception {
+        when(bookRepository.findPageVersion(0, 2)).thenReturn(new ListVersionDTO(2L, 3L, 2, new Date(LAST_MODIFIED)));
+        when(bookRepository.findBookDTOsAfter(eq(0), any())).thenReturn(List.of(
+                new BookDTO(1, "9780000000001", "First", null, null, null, 1L),
+                new BookDTO(2, "9780000000002", "Second", null, null, null, 1L)));
+
+        String tag = mockMvc.perform(get("/book/getAll").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(BookController.NEXT_CURSOR_HEADER, "2"))
+                .andExpect(jsonPath("$[1].title").value("Second"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        verify(bookRepository, times(1)).findBookDTOsAfter(eq(0), any());
+
+        mockMvc.perform(get("/book/getAll").param("size", "2").header(HttpHeaders.IF_NONE_MATCH, tag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(BookController.NEXT_CURSOR_HEADER, "2"));
+        verify(bookRepository, times(1)).findBookDTOsAfter(eq(0), any());
+
+        // The second book changed
+        when(bookRepository.findPageVersion(0, 2)).thenReturn(new ListVersionDTO(2L, 3L, 2, new Date(LAST_MODIFIED + 1)));
+        mockMvc.perform(get("/book/getAll").param("size", "2").header(HttpHeaders.IF_NONE_MATCH, tag))
+                .andExpect(status().isOk());
+        verify(bookRepository, times(2)).findBookDTOsAfter(eq(0), any());
+    }
+
+    private String eTag(MediaType accept) throws Exception {
+        return mockMvc.perform(get("/book/1").accept(accept))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(accept))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+}
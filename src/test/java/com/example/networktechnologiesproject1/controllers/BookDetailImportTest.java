@@ -0,0 +1,197 @@
+package com.example.networktechnologiesproject1.controllers;
+
+import com.example.networktechnologiesproject1.config.CacheConfiguration;
+import com.example.networktechnologiesproject1.dataTransferObjects.BookSearchHitDTO;
+import com.example.networktechnologiesproject1.dataTransferObjects.ImportEventDTO;
+import com.example.networktechnologiesproject1.entities.Book;
+import com.example.networktechnologiesproject1.entities.BookDetail;
+import com.example.networktechnologiesproject1.exceptions.GlobalExceptionHandler;
+import com.example.networktechnologiesproject1.repositories.BookDetailRepository;
+import com.example.networktechnologiesproject1.repositories.BookRepository;
+import com.example.networktechnologiesproject1.services.BookDetailService;
+import com.example.networktechnologiesproject1.services.BookSearchService;
+import com.example.networktechnologiesproject1.services.CatalogImportService;
+import com.example.networktechnologiesproject1.services.ReviewService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that /bookDetail/import streams one event per line, reports invalid rows, unknown books and duplicates
+ * within the upload and against stored details without stopping, stores the remaining rows from JSON and CSV
+ * alike, and makes them searchable.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({CatalogImportService.class, BookDetailService.class, BookSearchService.class, ReviewService.class,
+        CacheConfiguration.class, JacksonAutoConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BookDetailImportTest {
+
+    // Never fetched: bulk imports only check the syntax of cover image URLs
+    private static final String COVER = "https://covers.invalid/cover.jpg";
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookDetailRepository bookDetailRepository;
+
+    @Autowired
+    private BookDetailService bookDetailService;
+
+    @Autowired
+    private CatalogImportService catalogImportService;
+
+    @Autowired
+    private BookSearchService bookSearchService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        bookDetailRepository.deleteAll();
+        bookRepository.deleteAll();
+        BookDetailsController controller = new BookDetailsController(bookDetailRepository, bookDetailService,
+                catalogImportService, objectMapper);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void jsonImportReportsRejectedRowsAndStoresTheRest() throws Exception {
+        Integer fresh = book("9780000000201").getBookId();
+        Integer described = book("9780000000202").getBookId();
+        Integer badGenre = book("9780000000203").getBookId();
+        Integer badCover = book("9780000000204").getBookId();
+        BookDetail stored = new BookDetail();
+        stored.setBookId(described);
+        stored.setGenre("History");
+        stored.setSummary("Already described");
+        stored.setCoverImageUrl(COVER);
+        bookDetailRepository.save(stored);
+
+        String body = "["
+                + row(fresh, "Fantasy", "Dragons over the marsh", COVER) + ","
+                + row(fresh, "Fiction", "Second detail for the same book", COVER) + ","
+                + row(described, "Fiction", "Clashes with the stored detail", COVER) + ","
+                + row(999_999, "Fiction", "No such book", COVER) + ","
+                + row(badGenre, "Cookbook", "Unsupported genre", COVER) + ","
+                + row(badCover, "Fiction", "Broken cover", "not a url")
+                + "]";
+        List<ImportEventDTO> events = importDetails(MediaType.APPLICATION_JSON_VALUE, body);
+
+        List<ImportEventDTO> errors = events.subList(0, events.size() - 1);
+        assertEquals(List.of(2L, 3L, 4L, 5L, 6L), errors.stream().map(ImportEventDTO::getRow).sorted().toList());
+        errors.forEach(error -> assertEquals(ImportEventDTO.ERROR, error.getType()));
+        assertEquals("Duplicate book detail found for Book ID", error(errors, 2).getMessage());
+        assertEquals("Duplicate book detail found for Book ID", error(errors, 3).getMessage());
+        assertEquals("No book found for book detail with id 999999", error(errors, 4).getMessage());
+        assertEquals("Genre 'Cookbook' is not supported", error(errors, 5).getMessage());
+        assertEquals("Invalid cover image URL: not a url", error(errors, 6).getMessage());
+        assertEquals(String.valueOf(badGenre), error(errors, 5).getKey());
+        assertSummary(events.get(events.size() - 1), 6, 1, 5);
+
+        assertEquals(2, bookDetailRepository.count());
+        assertEquals("Fantasy", bookDetailRepository.findById(fresh).orElseThrow().getGenre());
+        assertEquals("History", bookDetailRepository.findById(described).orElseThrow().getGenre());
+    }
+
+    @Test
+    void csvImportStoresDetailsAndMakesThemSearchable() throws Exception {
+        Integer first = book("9780000000301").getBookId();
+        Integer second = book("9780000000302").getBookId();
+        bookSearchService.rebuildIndex();
+
+        String body = "bookId,genre,summary,coverImageUrl\n"
+                + first + ",Biography,\"A life, told plainly\"," + COVER + "\n"
+                + second + ",Children,Bedtime stories," + COVER + "\n";
+        List<ImportEventDTO> events = importDetails(CatalogImportService.CSV_MEDIA_TYPE, body);
+
+        assertEquals(1, events.size());
+        assertSummary(events.get(0), 2, 2, 0);
+        assertEquals("A life, told plainly", bookDetailRepository.findById(first).orElseThrow().getSummary());
+        assertEquals(COVER, bookDetailRepository.findById(second).orElseThrow().getCoverImageUrl());
+        assertEquals(List.of(first), bookSearchService.search("biography", 0, 10).hits().stream()
+                .map(BookSearchHitDTO::getBookId).toList());
+    }
+
+    @Test
+    void malformedRowsAreReportedWithoutStoppingTheImport() throws Exception {
+        Integer bookId = book("9780000000401").getBookId();
+
+        String body = "[{\"bookId\":\"not a number\"}," + row(bookId, "Other", "Still imported", COVER) + "]";
+        List<ImportEventDTO> events = importDetails(MediaType.APPLICATION_JSON_VALUE, body);
+
+        assertEquals(2, events.size());
+        assertEquals(ImportEventDTO.ERROR, events.get(0).getType());
+        assertEquals(1L, events.get(0).getRow());
+        assertTrue(events.get(0).getMessage().startsWith("Could not parse row: "));
+        assertSummary(events.get(1), 2, 1, 1);
+        assertTrue(bookDetailRepository.existsById(bookId));
+    }
+
+    private List<ImportEventDTO> importDetails(String contentType, String body) throws Exception {
+        MvcResult result = mockMvc.perform(post("/bookDetail/import").contentType(contentType).content(body))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(BookController.NDJSON_MEDIA_TYPE))
+                .andReturn();
+        List<ImportEventDTO> events = new ArrayList<>();
+        for (String line : result.getResponse().getContentAsString().split("\n")) {
+            events.add(objectMapper.readValue(line, ImportEventDTO.class));
+        }
+        return events;
+    }
+
+    private static ImportEventDTO error(List<ImportEventDTO> errors, long row) {
+        return errors.stream().filter(error -> error.getRow() == row).findFirst().orElseThrow();
+    }
+
+    private static void assertSummary(ImportEventDTO summary, long processed, long imported, long failed) {
+        assertEquals(ImportEventDTO.SUMMARY, summary.getType());
+        assertEquals(processed, summary.getProcessed());
+        assertEquals(imported, summary.getImported());
+        assertEquals(failed, summary.getFailed());
+    }
+
+    private static String row(Integer bookId, String genre, String summary, String coverImageUrl) {
+        return "{\"bookId\":" + bookId + ",\"genre\":\"" + genre + "\",\"summary\":\"" + summary
+                + "\",\"coverImageUrl\":\"" + coverImageUrl + "\"}";
+    }
+
+    private Book book(String isbn) {
+        Book book = new Book();
+        book.setIsbn(isbn);
+        book.setTitle("Title " + isbn);
+        book.setAuthor("Author");
+        book.setPublisher("Publisher");
+        book.setAvailableCopies(1L);
+        return bookRepository.save(book);
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.networktechnologiesproject1.controllers;
+
+import com.example.networktechnologiesproject1.dataTransferObjects.BookDTO;
+import com.example.networktechnologiesproject1.entities.Book;
+import com.example.networktechnologiesproject1.repositories.BookRepository;
+import com.example.networktechnologiesproject1.security.JwtTokenProvider;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that /book/getAll streams the whole catalog as one JSON line per book in ID order when asked for
+ * application/x-ndjson, writes it after the request thread is released, and still returns keyset pages otherwise.
+ */
+@SpringBootTest(properties = "library.rate-limit.enabled=false")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BookStreamingTest {
+
+    private static final int BOOKS = 7;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final List<Integer> bookIds = new ArrayList<>();
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository.deleteAll();
+        bookIds.clear();
+        // Saved in reverse ISBN order, so an ISBN ordering would not pass for an ID ordering
+        for (int i = BOOKS; i > 0; i--) {
+            Book book = new Book();
+            book.setIsbn("978000000010" + i);
+            book.setTitle("Title " + i);
+            book.setAuthor("Author");
+            book.setPublisher("Publisher");
+            book.setAvailableCopies(1L);
+            bookIds.add(bookRepository.save(book).getBookId());
+        }
+        bookIds.sort(null);
+        token = jwtTokenProvider.createToken(new User("librarian", "unused", List.of(new SimpleGrantedAuthority("ROLE_STAFF"))));
+    }
+
+    @Test
+    void ndjsonStreamsOneLinePerBookInIdOrder() throws Exception {
+        MvcResult started = mockMvc.perform(get("/book/getAll")
+                        .accept(BookController.NDJSON_MEDIA_TYPE)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(BookController.NDJSON_MEDIA_TYPE))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(BOOKS, lines.length);
+        List<Integer> streamedIds = new ArrayList<>();
+        for (String line : lines) {
+            streamedIds.add(objectMapper.readValue(line, BookDTO.class).getBookId());
+        }
+        assertEquals(bookIds, streamedIds);
+    }
+
+    @Test
+    void jsonStillReturnsKeysetPages() throws Exception {
+        String cursor = String.valueOf(bookIds.get(2));
+        mockMvc.perform(get("/book/getAll")
+                        .param("size", "3")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(header().string(BookController.NEXT_CURSOR_HEADER, cursor))
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].bookId").value(bookIds.get(0)));
+
+        mockMvc.perform(get("/book/getAll")
+                        .param("after", cursor)
+                        .param("size", "3")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].bookId").value(bookIds.get(3)))
+                .andExpect(jsonPath("$[2].bookId").value(bookIds.get(5)));
+    }
+}
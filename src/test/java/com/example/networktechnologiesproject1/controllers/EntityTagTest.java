@@ -0,0 +1,89 @@
+package com.example.networktechnologiesproject1.controllers;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that entity tags follow every field value and the Accept header, and that isNotModified agrees with the
+ * request's If-None-Match and If-Modified-Since.
+ */
+class EntityTagTest {
+
+    private static final Date MODIFIED = new Date(1_700_000_000_000L);
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void tagsFollowTheValuesInOrder() {
+        assertEquals(tag(1, "a", MODIFIED), tag(1, "a", new Date(MODIFIED.getTime())));
+        assertNotEquals(tag(1, "a", MODIFIED), tag(1, "b", MODIFIED));
+        assertNotEquals(tag(1, "a"), tag("a", 1));
+        assertNotEquals(tag(1, null), tag(1, ""));
+        assertNotEquals(tag("ab", ""), tag("a", "b"));
+        assertTrue(new EntityTag().weak().add(1).toString().startsWith("W/\""));
+    }
+
+    @Test
+    void responseTagsDependOnTheAcceptHeader() {
+        request().addHeader(HttpHeaders.ACCEPT, "application/json");
+        String json = new EntityTag().add(1).ok(null).build().getHeaders().getETag();
+        request().addHeader(HttpHeaders.ACCEPT, "application/cbor");
+        String cbor = new EntityTag().add(1).ok(null).build().getHeaders().getETag();
+
+        assertNotEquals(json, cbor);
+        request().addHeader(HttpHeaders.ACCEPT, "application/json");
+        assertEquals(json, new EntityTag().add(1).ok(null).build().getHeaders().getETag());
+    }
+
+    @Test
+    void isNotModifiedChecksIfNoneMatchBeforeIfModifiedSince() {
+        request();
+        String current = new EntityTag().add(1).ok(MODIFIED).build().getHeaders().getETag();
+
+        request().addHeader(HttpHeaders.IF_NONE_MATCH, current);
+        assertTrue(new EntityTag().add(1).isNotModified(MODIFIED));
+        request().addHeader(HttpHeaders.IF_NONE_MATCH, "W/" + current);
+        assertTrue(new EntityTag().add(1).isNotModified(MODIFIED));
+        request().addHeader(HttpHeaders.IF_NONE_MATCH, current);
+        assertFalse(new EntityTag().add(2).isNotModified(MODIFIED));
+
+        // A stale tag wins over a current date
+        MockHttpServletRequest stale = request();
+        stale.addHeader(HttpHeaders.IF_NONE_MATCH, "\"0\"");
+        stale.addHeader(HttpHeaders.IF_MODIFIED_SINCE, MODIFIED.getTime());
+        assertFalse(new EntityTag().add(1).isNotModified(MODIFIED));
+
+        request().addHeader(HttpHeaders.IF_MODIFIED_SINCE, MODIFIED.getTime());
+        assertTrue(new EntityTag().add(1).isNotModified(MODIFIED));
+        request().addHeader(HttpHeaders.IF_MODIFIED_SINCE, MODIFIED.getTime() - 1000);
+        assertFalse(new EntityTag().add(1).isNotModified(MODIFIED));
+        assertFalse(new EntityTag().add(1).isNotModified(null));
+    }
+
+    private static String tag(Object... values) {
+        return new EntityTag().add(values).toString();
+    }
+
+    /**
+     * Binds a fresh GET request to the current thread, as Spring MVC does for a handler.
+     */
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        return request;
+    }
+}
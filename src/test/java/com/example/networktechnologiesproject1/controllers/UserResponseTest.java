@@ -0,0 +1,83 @@
+package com.example.networktechnologiesproject1.controllers;
+
+import com.example.networktechnologiesproject1.security.JwtTokenProvider;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that the user endpoints answer with UserDTOs: neither /register nor /user/getAll nor /user/{id} returns
+ * a password field, so no password hash leaves the server.
+ */
+@SpringBootTest(properties = "library.rate-limit.enabled=false")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UserResponseTest {
+
+    private static final String PASSWORD = "s3cret-passphrase";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void userResponsesCarryNoPassword() throws Exception {
+        String registered = mockMvc.perform(post("/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"cautious_reader\",\"password\":\"" + PASSWORD + "\","
+                                + "\"role\":\"ROLE_USER\",\"email\":\"reader@example.com\",\"name\":\"Reader\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.username").value("cautious_reader"))
+                .andExpect(jsonPath("$.password").doesNotExist())
+                .andReturn().getResponse().getContentAsString();
+        assertNoPassword(registered);
+        int userId = objectMapper.readTree(registered).get("userId").asInt();
+
+        String token = jwtTokenProvider.createToken(new User("librarian", "unused", List.of(new SimpleGrantedAuthority("ROLE_STAFF"))));
+        String all = mockMvc.perform(get("/user/getAll").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].password").doesNotExist())
+                .andReturn().getResponse().getContentAsString();
+        assertNoPassword(all);
+        JsonNode users = objectMapper.readTree(all);
+        assertFalse(users.isEmpty());
+
+        String one = mockMvc.perform(get("/user/" + userId).header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.password").doesNotExist())
+                .andReturn().getResponse().getContentAsString();
+        assertNoPassword(one);
+        assertEquals("reader@example.com", objectMapper.readTree(one).get("email").asText());
+    }
+
+    private static void assertNoPassword(String body) {
+        assertFalse(body.contains("password\""), body);
+        assertFalse(body.contains(PASSWORD), body);
+        // BCrypt hashes start with $2a$, $2b$ or $2y$; the {id} prefix of the delegating encoder may precede them
+        assertFalse(body.contains("$2"), body);
+        assertFalse(body.contains("{bcrypt}") || body.contains("{pbkdf2}"), body);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.networktechnologiesproject1.logging;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that every request gets a request ID, taken from a well-formed X-Request-Id header or generated otherwise,
+ * echoed in the response and present in the MDC only while the request is handled.
+ */
+class CorrelationIdFilterTest {
+
+    private final CorrelationIdFilter filter = new CorrelationIdFilter();
+
+    @Test
+    void suppliedRequestIdIsEchoedAndPutInTheMdc() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        String logged = handle("gateway-7f3a:42", response);
+
+        assertEquals("gateway-7f3a:42", response.getHeader(CorrelationIdFilter.REQUEST_ID_HEADER));
+        assertEquals("gateway-7f3a:42", logged);
+        assertNull(MDC.get(CorrelationIdFilter.REQUEST_ID_KEY));
+    }
+
+    @Test
+    void missingOrMalformedRequestIdsAreReplaced() throws Exception {
+        for (String supplied : new String[]{null, "", "two words", "x".repeat(65), "id\nInjected: header"}) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            String logged = handle(supplied, response);
+
+            String echoed = response.getHeader(CorrelationIdFilter.REQUEST_ID_HEADER);
+            assertTrue(echoed.matches("[0-9a-f]{16}"), echoed);
+            assertEquals(echoed, logged);
+        }
+        assertNotEquals(CorrelationIdFilter.newRequestId(), CorrelationIdFilter.newRequestId());
+    }
+
+    private String handle(String requestId, MockHttpServletResponse response) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/book/1");
+        if (requestId != null) {
+            request.addHeader(CorrelationIdFilter.REQUEST_ID_HEADER, requestId);
+        }
+        AtomicReference<String> logged = new AtomicReference<>();
+        FilterChain chain = (req, res) -> logged.set(MDC.get(CorrelationIdFilter.REQUEST_ID_KEY));
+        filter.doFilter(request, response, chain);
+        return logged.get();
+    }
+}
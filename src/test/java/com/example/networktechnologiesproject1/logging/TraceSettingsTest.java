@@ -0,0 +1,130 @@
+package com.example.networktechnologiesproject1.logging;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that only requests by the selected users or to the selected paths are traced, at the sample rate, until
+ * the rule expires, and that the tracing endpoint and RequestTracingFilter apply the rule.
+ */
+class TraceSettingsTest {
+
+    private final TraceSettings traceSettings = new TraceSettings();
+    private final TracingEndpoint endpoint = new TracingEndpoint(traceSettings);
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void onlyMatchingUsersAndPathsAreTraced() {
+        assertFalse(traceSettings.shouldTrace("42", "/book/search"));
+
+        traceSettings.enable(Set.of("42"), List.of("/book/search"), 1.0, Duration.ofMinutes(1));
+        assertTrue(traceSettings.shouldTrace("42", "/loan/getAll"));
+        assertTrue(traceSettings.shouldTrace(null, "/book/search"));
+        assertTrue(traceSettings.shouldTrace("7", "/book/search/more"));
+        assertFalse(traceSettings.shouldTrace("7", "/loan/getAll"));
+        assertFalse(traceSettings.shouldTrace(null, "/book/1"));
+
+        traceSettings.disable();
+        assertFalse(traceSettings.shouldTrace("42", "/book/search"));
+    }
+
+    @Test
+    void matchingRequestsAreTracedAtTheSampleRate() {
+        traceSettings.enable(Set.of(), List.of("/book"), 0.0, Duration.ofMinutes(1));
+        assertEquals(0, traced(1000));
+
+        traceSettings.enable(Set.of(), List.of("/book"), 0.25, Duration.ofMinutes(1));
+        // Binomial(10000, 0.25) has a standard deviation of about 43, so this range is over 10 deviations wide
+        int traced = traced(10_000);
+        assertTrue(traced > 2250 && traced < 2750, "traced " + traced);
+    }
+
+    @Test
+    void tracingStopsWhenTheDurationRunsOut() throws Exception {
+        traceSettings.enable(Set.of("42"), List.of(), 1.0, Duration.ofMillis(100));
+        assertTrue(traceSettings.shouldTrace("42", "/book/1"));
+
+        Thread.sleep(150);
+        assertFalse(traceSettings.shouldTrace("42", "/book/1"));
+        assertNull(traceSettings.getRule());
+    }
+
+    @Test
+    void endpointParsesAndValidatesTheRule() {
+        TraceSettings.Rule rule = endpoint.enable(" 42, 7 ,", "/book/search,/loan", 0.5, Duration.ofMinutes(15));
+        assertEquals(Set.of("42", "7"), rule.users());
+        assertEquals(List.of("/book/search", "/loan"), rule.pathPrefixes());
+        assertEquals(0.5, rule.sampleRate());
+        assertEquals(rule, endpoint.rule());
+
+        Instant before = Instant.now();
+        TraceSettings.Rule defaults = endpoint.enable("42", null, null, null);
+        assertEquals(List.of(), defaults.pathPrefixes());
+        assertEquals(1.0, defaults.sampleRate());
+        assertFalse(defaults.expiresAt().isBefore(before.plus(Duration.ofMinutes(10))));
+        assertTrue(defaults.expiresAt().isBefore(Instant.now().plus(Duration.ofMinutes(10)).plusSeconds(1)));
+
+        assertThrows(InvalidEndpointRequestException.class, () -> endpoint.enable("42", null, 1.5, null));
+        assertEquals(defaults, endpoint.rule());
+
+        endpoint.disable();
+        assertNull(endpoint.rule());
+    }
+
+    @Test
+    void filterMarksOnlyTracedRequestsInTheMdc() throws Exception {
+        endpoint.enable("42", null, null, null);
+        RequestTracingFilter filter = new RequestTracingFilter(traceSettings);
+
+        assertEquals("true", traceMark(filter, "42"));
+        assertNull(traceMark(filter, "7"));
+        assertNull(traceMark(filter, null));
+        assertNull(MDC.get(RequestTracingFilter.TRACE_KEY));
+    }
+
+    private int traced(int requests) {
+        int traced = 0;
+        for (int i = 0; i < requests; i++) {
+            if (traceSettings.shouldTrace(null, "/book/1")) {
+                traced++;
+            }
+        }
+        return traced;
+    }
+
+    private static String traceMark(RequestTracingFilter filter, String user) throws Exception {
+        SecurityContextHolder.clearContext();
+        if (user != null) {
+            SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                    user, null, List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+        }
+        AtomicReference<String> mark = new AtomicReference<>();
+        FilterChain chain = (request, response) -> mark.set(MDC.get(RequestTracingFilter.TRACE_KEY));
+        filter.doFilter(new MockHttpServletRequest("GET", "/book/1"), new MockHttpServletResponse(), chain);
+        return mark.get();
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.networktechnologiesproject1.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the turbo filter lets Hibernate's SQL logger and RequestTracingFilter through at any level while a
+ * request is traced, and leaves every other logger, and untraced requests, to the configured levels.
+ */
+class TraceTurboFilterTest {
+
+    private final LoggerContext context = new LoggerContext();
+    private Logger sql;
+    private Logger tracing;
+    private Logger other;
+
+    @BeforeEach
+    void setUp() {
+        TraceTurboFilter filter = new TraceTurboFilter();
+        filter.start();
+        context.addTurboFilter(filter);
+        context.getLogger(Logger.ROOT_LOGGER_NAME).setLevel(Level.INFO);
+        sql = context.getLogger("org.hibernate.SQL");
+        tracing = context.getLogger(RequestTracingFilter.class);
+        other = context.getLogger("org.hibernate.orm.jdbc.bind");
+    }
+
+    @AfterEach
+    void tearDown() {
+        MDC.remove(RequestTracingFilter.TRACE_KEY);
+        context.stop();
+    }
+
+    @Test
+    void sqlIsLoggedOnlyForTracedRequests() {
+        assertFalse(sql.isDebugEnabled());
+        assertFalse(tracing.isDebugEnabled());
+
+        MDC.put(RequestTracingFilter.TRACE_KEY, "true");
+        assertTrue(sql.isDebugEnabled());
+        assertTrue(sql.isTraceEnabled());
+        assertTrue(tracing.isDebugEnabled());
+        assertFalse(other.isDebugEnabled());
+
+        MDC.remove(RequestTracingFilter.TRACE_KEY);
+        assertFalse(sql.isDebugEnabled());
+        assertTrue(sql.isInfoEnabled());
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.networktechnologiesproject1.repositories;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that V11 turns available_copies from the copies owned into the copies left, counting an unset value as
+ * one copy and taking off the open loans.
+ */
+class AvailableCopiesMigrationTest {
+
+    private static final String URL = "jdbc:h2:mem:library_copies;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=YEAR,USER;DB_CLOSE_DELAY=-1";
+
+    @Test
+    void subtractsOpenLoansFromTheCopiesOwned() {
+        DataSource dataSource = new DriverManagerDataSource(URL, "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        Flyway.configure().dataSource(dataSource).cleanDisabled(false).load().clean();
+        Flyway.configure().dataSource(dataSource).target("10").load().migrate();
+
+        jdbc.update("INSERT INTO book (book_id, isbn, title, available_copies) VALUES (1, '9780000000001', 'Owned', 3), "
+                + "(2, '9780000000002', 'Unset', NULL), (3, '9780000000003', 'Unset and lent', NULL), (4, '9780000000004', 'Idle', 2)");
+        jdbc.update("INSERT INTO loan (book_id, user_id, return_date) VALUES (1, 1, NULL), (1, 2, NULL), (1, 3, CURRENT_TIMESTAMP), "
+                + "(3, 1, NULL)");
+
+        Flyway.configure().dataSource(dataSource).target("11").load().migrate();
+
+        assertEquals(List.of(1L, 1L, 0L, 2L), jdbc.queryForList("SELECT available_copies FROM book ORDER BY book_id", Long.class));
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.networktechnologiesproject1.repositories;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that V2 resolves the duplicates a ddl-auto=update schema may hold before it creates the unique indexes:
+ * books sharing an ISBN are merged, clashing usernames are renamed and only the latest review of a user per book stays.
+ */
+class DuplicateCleanupMigrationTest {
+
+    private static final String URL = "jdbc:h2:mem:library_duplicates;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=YEAR,USER;DB_CLOSE_DELAY=-1";
+
+    @Test
+    void resolvesDuplicatesBeforeCreatingUniqueIndexes() {
+        DataSource dataSource = new DriverManagerDataSource(URL, "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        Flyway.configure().dataSource(dataSource).cleanDisabled(false).load().clean();
+        Flyway.configure().dataSource(dataSource).target("1").load().migrate();
+
+        jdbc.update("INSERT INTO book (book_id, isbn, title, available_copies) VALUES (1, '9780000000001', 'Kept', 2), "
+                + "(2, '9780000000001', 'Duplicate', 3), (3, '9780000000002', 'Other', NULL)");
+        jdbc.update("INSERT INTO book_detail (book_id, genre) VALUES (1, 'Kept'), (2, 'Duplicate')");
+        jdbc.update("INSERT INTO user (user_id, username) VALUES (1, 'reader'), (2, 'reader'), (3, 'other')");
+        jdbc.update("INSERT INTO loan (loan_id, book_id, user_id) VALUES (1, 2, 1)");
+        jdbc.update("INSERT INTO review (review_id, book_id, user_id, rating) VALUES (1, 1, 1, 1), (2, 2, 1, 5), (3, 3, 1, 4), (4, 3, 2, 3)");
+
+        Flyway.configure().dataSource(dataSource).target("2").load().migrate();
+
+        assertEquals(List.of(1, 3), jdbc.queryForList("SELECT book_id FROM book ORDER BY book_id", Integer.class));
+        assertEquals(5, jdbc.queryForObject("SELECT available_copies FROM book WHERE book_id = 1", Integer.class));
+        assertEquals(List.of("Kept"), jdbc.queryForList("SELECT genre FROM book_detail", String.class));
+        assertEquals(1, jdbc.queryForObject("SELECT book_id FROM loan WHERE loan_id = 1", Integer.class));
+        assertEquals(List.of("reader", "reader#2", "other"), jdbc.queryForList("SELECT username FROM user ORDER BY user_id", String.class));
+        // Both reviews of book 1 and 2 by user 1 now review book 1; the later one stays
+        assertEquals(List.of(2, 3, 4), jdbc.queryForList("SELECT review_id FROM review ORDER BY review_id", Integer.class));
+        assertEquals(1, jdbc.queryForObject("SELECT book_id FROM review WHERE review_id = 2", Integer.class));
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.networktechnologiesproject1.repositories;
+
+import com.example.networktechnologiesproject1.dataTransferObjects.ListVersionDTO;
+import com.example.networktechnologiesproject1.entities.Book;
+import com.example.networktechnologiesproject1.entities.Review;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Checks that the list versions behind the /book/getAll and /review/getAll ETags change with every insert, update
+ * and delete of a listed row.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ListVersionQueryTest {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @BeforeEach
+    void setUp() {
+        reviewRepository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    void pageVersionFollowsTheBooksOfThePage() throws InterruptedException {
+        Book first = bookRepository.save(book("9780000000001"));
+        Book second = bookRepository.save(book("9780000000002"));
+        Book third = bookRepository.save(book("9780000000003"));
+        int after = first.getBookId() - 1;
+
+        ListVersionDTO page = bookRepository.findPageVersion(after, 2);
+        assertEquals(2L, page.getCount());
+        assertEquals((long) first.getBookId() + second.getBookId(), page.getIdSum());
+        assertEquals(second.getBookId(), page.getMaxId());
+        assertEquals(second.getLastModified().getTime(), page.getLastModified().getTime());
+        assertEquals(1L, bookRepository.findPageVersion(second.getBookId(), 2).getCount());
+
+        Thread.sleep(5);
+        first.setTitle("Changed");
+        bookRepository.save(first);
+        ListVersionDTO updated = bookRepository.findPageVersion(after, 2);
+        assertNotEquals(page.getLastModified(), updated.getLastModified());
+
+        bookRepository.delete(second);
+        ListVersionDTO deleted = bookRepository.findPageVersion(after, 2);
+        assertEquals(2L, deleted.getCount());
+        assertEquals(third.getBookId(), deleted.getMaxId());
+    }
+
+    @Test
+    void reviewVersionFollowsEveryReview() throws InterruptedException {
+        ListVersionDTO empty = reviewRepository.findVersion();
+        assertEquals(0L, empty.getCount());
+        assertNull(empty.getLastModified());
+
+        Review review = reviewRepository.save(review(1));
+        Review other = reviewRepository.save(review(2));
+        ListVersionDTO two = reviewRepository.findVersion();
+        assertEquals(2L, two.getCount());
+        assertEquals((long) review.getReviewId() + other.getReviewId(), two.getIdSum());
+
+        Thread.sleep(5);
+        review.setRating(1.0);
+        reviewRepository.save(review);
+        assertNotEquals(two.getLastModified(), reviewRepository.findVersion().getLastModified());
+
+        reviewRepository.delete(other);
+        assertEquals(1L, reviewRepository.findVersion().getCount());
+    }
+
+    private static Book book(String isbn) {
+        Book book = new Book();
+        book.setIsbn(isbn);
+        book.setTitle("Title");
+        book.setAvailableCopies(1L);
+        return book;
+    }
+
+    private static Review review(int bookId) {
+        Review review = new Review();
+        review.setBookId(bookId);
+        review.setUserId(1);
+        review.setRating(4.0);
+        review.setReviewDate(new Date());
+        return review;
+    }
+}
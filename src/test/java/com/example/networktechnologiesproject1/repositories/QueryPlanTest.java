@@ -0,0 +1,117 @@
+package com.example.networktechnologiesproject1.repositories;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the query plans of the derived-query hot paths against the migrated schema, so a dropped or
+ * mismatched index shows up as a failing test rather than as full table scans in production.
+ * Each repository method is called once and the SQL Hibernate sent for it is captured and explained.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.example.networktechnologiesproject1.repositories.QueryPlanTest$CapturingStatementInspector")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class QueryPlanTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookDetailRepository bookDetailRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Test
+    void findByIsbnUsesIsbnIndex() {
+        assertUsesIndex(() -> bookRepository.findByIsbn("9780000000001"), "uk_book_isbn");
+    }
+
+    @Test
+    void findByUsernameUsesUsernameIndex() {
+        assertUsesIndex(() -> userRepository.findByUsername("john_doe"), "uk_user_username");
+    }
+
+    @Test
+    void existsByUserIdAndBookIdUsesReviewIndex() {
+        assertUsesIndex(() -> reviewRepository.existsByUserIdAndBookId(1, 1), "uk_review_user_book");
+    }
+
+    @Test
+    void findByUserIdUsesLoanUserIndex() {
+        assertUsesIndex(() -> loanRepository.findByUserId(1), "idx_loan_user");
+    }
+
+    @Test
+    void countByUserIdUsesLoanUserIndex() {
+        assertUsesIndex(() -> loanRepository.countByUserId(1), "idx_loan_user");
+    }
+
+    @Test
+    void existsByBookIdAndReturnDateIsNullUsesOpenLoanIndex() {
+        assertUsesIndex(() -> loanRepository.existsByBookIdAndReturnDateIsNull(1), "idx_loan_book_return");
+    }
+
+    @Test
+    void existsByBookIdAndGenreUsesPrimaryKey() {
+        assertUsesIndex(() -> bookDetailRepository.existsByBookIdAndGenre(1, "Fantasy"), "primary_key");
+    }
+
+    @Test
+    void overdueSeedUsesOpenDueIndex() {
+        assertUsesIndex(loanRepository::findUnreportedOpenLoans, "idx_loan_return_due");
+    }
+
+    /**
+     * Runs a repository call and asserts on the plan of the one statement it sent. The plan is explained with
+     * every parameter NULL, which H2 treats like an unknown value when choosing the index.
+     */
+    private void assertUsesIndex(Runnable query, String index) {
+        CapturingStatementInspector.statements.clear();
+        query.run();
+        List<String> statements = List.copyOf(CapturingStatementInspector.statements);
+        assertEquals(1, statements.size(), () -> "Expected one statement, got " + statements);
+        String sql = statements.get(0);
+        Object[] parameters = new Object[(int) sql.chars().filter(c -> c == '?').count()];
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, parameters).toLowerCase(Locale.ROOT);
+        assertFalse(plan.contains("tablescan"), () -> "Full table scan for " + sql + ":\n" + plan);
+        assertTrue(plan.contains(index), () -> "Expected " + index + " for " + sql + ":\n" + plan);
+    }
+
+    /**
+     * Records the SQL of every statement Hibernate prepares.
+     */
+    public static class CapturingStatementInspector implements StatementInspector {
+
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+}
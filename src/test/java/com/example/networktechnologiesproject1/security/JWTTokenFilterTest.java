@@ -0,0 +1,116 @@
+package com.example.networktechnologiesproject1.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the verified-token cache of JWTTokenFilter: a cached token is served without verifying it again until its
+ * exp passes and is rejected afterwards, a tampered token is never answered from the cache, and the cache stays
+ * within its size bound.
+ */
+class JWTTokenFilterTest {
+
+    private static final String SECRET = "gwc6DZs9Nq75n5psJCOmLQh/ZlU4OU27ul5WglzRtVQ=";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void cachedTokenIsRejectedOnceItExpires() throws Exception {
+        JWTTokenFilter filter = new JWTTokenFilter(SECRET, 10, meterRegistry);
+        // exp has whole-second precision, so end the token on a second boundary
+        long expiresAt = (System.currentTimeMillis() / 1000 + 2) * 1000;
+        String token = token("john_doe", expiresAt);
+
+        assertEquals("john_doe", authenticate(filter, token).getPrincipal());
+        assertEquals("john_doe", authenticate(filter, token).getPrincipal());
+        assertEquals(1, count("verified"));
+        assertEquals(1, count("cached"));
+
+        Thread.sleep(Math.max(0, expiresAt - System.currentTimeMillis()) + 50);
+        assertNull(authenticate(filter, token));
+        assertEquals(1, count("rejected"));
+        assertNull(filter.getVerifiedTokens().getIfPresent(token));
+    }
+
+    @Test
+    void tamperedTokenIsNeverServedFromTheCache() throws Exception {
+        JWTTokenFilter filter = new JWTTokenFilter(SECRET, 10, meterRegistry);
+        String token = token("john_doe", System.currentTimeMillis() + 60_000);
+        assertNotNull(authenticate(filter, token));
+
+        // Same header and signature, payload naming another user
+        String[] parts = token.split("\\.");
+        String forgedPayload = token("admin", System.currentTimeMillis() + 60_000).split("\\.")[1];
+        String forged = parts[0] + "." + forgedPayload + "." + parts[2];
+        // Same payload, signature changed (the first character, since the last one carries padding bits)
+        char first = parts[2].charAt(0);
+        String resigned = parts[0] + "." + parts[1] + "." + (first == 'A' ? 'B' : 'A') + parts[2].substring(1);
+
+        assertNull(authenticate(filter, forged));
+        assertNull(authenticate(filter, resigned));
+        assertNull(authenticate(filter, token + "x"));
+        assertEquals(3, count("rejected"));
+        assertEquals(1, count("verified"));
+        assertEquals(0, count("cached"));
+        assertEquals(1, filter.getVerifiedTokens().estimatedSize());
+        assertNotNull(filter.getVerifiedTokens().getIfPresent(token));
+    }
+
+    @Test
+    void cacheStaysWithinItsSizeBound() throws Exception {
+        JWTTokenFilter filter = new JWTTokenFilter(SECRET, 5, meterRegistry);
+        long expiresAt = System.currentTimeMillis() + 60_000;
+        for (int i = 0; i < 50; i++) {
+            assertEquals("reader" + i, authenticate(filter, token("reader" + i, expiresAt)).getPrincipal());
+        }
+
+        filter.getVerifiedTokens().cleanUp();
+        assertTrue(filter.getVerifiedTokens().estimatedSize() <= 5);
+        assertEquals(50, count("verified"));
+    }
+
+    private static Authentication authenticate(JWTTokenFilter filter, String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/book/1");
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    private long count(String outcome) {
+        return meterRegistry.get(JWTTokenFilter.VERIFY_TIMER).tag("outcome", outcome).timer().count();
+    }
+
+    private static String token(String subject, long expiresAtMillis) {
+        return Jwts.builder()
+                .setSubject(subject)
+                .claim("role", "ROLE_USER")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(expiresAtMillis))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+                .compact();
+    }
+}
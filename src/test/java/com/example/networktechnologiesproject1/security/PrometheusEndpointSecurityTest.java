@@ -0,0 +1,68 @@
+package com.example.networktechnologiesproject1.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that /actuator/prometheus only answers the scrape user, and that the scrape user cannot reach the other
+ * actuator endpoints.
+ */
+@SpringBootTest(properties = {
+        "library.metrics.scrape-password={bcrypt}$2a$04$VV9aCGnHrvciT7ZO6s/BP.nQASr21eLit16B0JnTJzxsmEH7GK8ii",
+        "library.rate-limit.enabled=false"})
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+@ActiveProfiles("test")
+class PrometheusEndpointSecurityTest {
+
+    private static final String SCRAPE_PASSWORD = "s3cret";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Test
+    void prometheusRequiresTheScrapeUser() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/prometheus").header(HttpHeaders.AUTHORIZATION, basic("prometheus", "wrong")))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/prometheus").header(HttpHeaders.AUTHORIZATION, bearer("ROLE_STAFF")))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/prometheus").header(HttpHeaders.AUTHORIZATION, basic("prometheus", SCRAPE_PASSWORD)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void scrapeUserCannotReachTheOtherEndpoints() throws Exception {
+        mockMvc.perform(get("/actuator/metrics").header(HttpHeaders.AUTHORIZATION, basic("prometheus", SCRAPE_PASSWORD)))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/metrics").header(HttpHeaders.AUTHORIZATION, bearer("ROLE_STAFF")))
+                .andExpect(status().isOk());
+    }
+
+    private String bearer(String role) {
+        return "Bearer " + jwtTokenProvider.createToken(new User("librarian", "unused", List.of(new SimpleGrantedAuthority(role))));
+    }
+
+    private static String basic(String username, String password) {
+        return "Basic " + Base64.getEncoder().encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+    }
+}
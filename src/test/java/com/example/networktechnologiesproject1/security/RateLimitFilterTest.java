@@ -0,0 +1,60 @@
+package com.example.networktechnologiesproject1.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Checks that each client gets its own budget per endpoint group and that requests are shed while the pool is saturated.
+ */
+class RateLimitFilterTest {
+
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RateLimitFilter filter = new RateLimitFilter(
+            List.of(RateLimitFilter.Budget.of("login", HttpMethod.POST, 0.001, 2, "/login")),
+            RateLimitFilter.Budget.of(RateLimitFilter.DEFAULT_BUDGET, null, 0.001, 3, "/**"),
+            waiting::get, 5, meterRegistry);
+
+    @Test
+    void rejectsRequestsBeyondTheBurstPerClientAndBudget() throws Exception {
+        assertEquals(200, send("POST", "/login", "10.0.0.1").getStatus());
+        assertEquals(200, send("POST", "/login", "10.0.0.1").getStatus());
+        MockHttpServletResponse rejected = send("POST", "/login", "10.0.0.1");
+        assertEquals(429, rejected.getStatus());
+        assertNotNull(rejected.getHeader("Retry-After"));
+
+        // Another client and another budget are unaffected
+        assertEquals(200, send("POST", "/login", "10.0.0.2").getStatus());
+        assertEquals(200, send("GET", "/book/1", "10.0.0.1").getStatus());
+        assertEquals(1.0, meterRegistry.get(RateLimitFilter.REJECTED_COUNTER).tag("budget", "login").counter().count());
+    }
+
+    @Test
+    void shedsLoadWhileTooManyCallersWaitForTheDatabase() throws Exception {
+        waiting.set(6);
+        assertEquals(503, send("GET", "/book/1", "10.0.0.3").getStatus());
+        assertEquals(200, send("GET", "/actuator/health", "10.0.0.3").getStatus());
+
+        waiting.set(5);
+        assertEquals(200, send("GET", "/book/1", "10.0.0.3").getStatus());
+    }
+
+    private MockHttpServletResponse send(String method, String path, String remoteAddr) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setServletPath(path);
+        request.setRemoteAddr(remoteAddr);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.networktechnologiesproject1.services;
+
+import com.example.networktechnologiesproject1.controllers.BookController;
+import com.example.networktechnologiesproject1.dataTransferObjects.BookSearchHitDTO;
+import com.example.networktechnologiesproject1.entities.Book;
+import com.example.networktechnologiesproject1.entities.BookDetail;
+import com.example.networktechnologiesproject1.exceptions.GlobalExceptionHandler;
+import com.example.networktechnologiesproject1.repositories.BookDetailRepository;
+import com.example.networktechnologiesproject1.repositories.BookRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that the search index is built from books and their details and follows their changes, that every word
+ * of a query must match and title matches rank first, that pages split the hits without overlap, and that pages
+ * beyond the result window are rejected instead of overflowing.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(BookSearchService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BookSearchServiceTest {
+
+    @Autowired
+    private BookSearchService bookSearchService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookDetailRepository bookDetailRepository;
+
+    private Book gatsby;
+    private Book tender;
+    private Book poems;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        bookDetailRepository.deleteAll();
+        bookRepository.deleteAll();
+        gatsby = book("The Great Gatsby", "F. Scott Fitzgerald", "Scribner");
+        tender = book("Tender Is the Night", "F. Scott Fitzgerald", "Scribner");
+        poems = book("Collected Poems", "Sylvia Plath", "Faber");
+        detail(gatsby, "Novel", "Jazz age excess on Long Island");
+        detail(poems, "Poetry", "Poems written between 1956 and 1963");
+        bookSearchService.rebuildIndex();
+    }
+
+    @Test
+    void rebuiltIndexMatchesEveryFieldAndPrefixes() {
+        assertEquals(List.of(gatsby.getBookId()), ids(search("gatsby")));
+        assertEquals(Set.of(gatsby.getBookId(), tender.getBookId()), Set.copyOf(ids(search("fitzgerald"))));
+        assertEquals(List.of(poems.getBookId()), ids(search("faber")));
+        assertEquals(List.of(gatsby.getBookId()), ids(search("novel")));
+        // Summaries are searchable but not returned
+        assertEquals(List.of(gatsby.getBookId()), ids(search("island")));
+        assertEquals(List.of(gatsby.getBookId()), ids(search("gats fitz")));
+
+        BookSearchHitDTO hit = search("plath").get(0);
+        assertEquals("Collected Poems", hit.getTitle());
+        assertEquals("Sylvia Plath", hit.getAuthor());
+        assertEquals("Poetry", hit.getGenre());
+        assertEquals(poems.getIsbn(), hit.getIsbn());
+    }
+
+    @Test
+    void everyWordMustMatchAndTitleMatchesRankFirst() {
+        assertEquals(List.of(), search("gatsby plath"));
+        assertEquals(List.of(), search("   "));
+
+        // "night" is in one title and in another publisher
+        Book sonnets = book("Sonnets", "Anonymous", "Night Press");
+        bookSearchService.reindex(sonnets.getBookId());
+        assertEquals(List.of(tender.getBookId(), sonnets.getBookId()), ids(search("night")));
+    }
+
+    @Test
+    void indexFollowsAddedChangedAndDeletedBooks() {
+        Book added = book("Moby Dick", "Herman Melville", "Harper");
+        bookSearchService.indexNewBooks(List.of(added));
+        assertEquals(List.of(added.getBookId()), ids(search("melville")));
+
+        added.setTitle("Moby-Dick; or, The Whale");
+        bookRepository.save(added);
+        detail(added, "Adventure", "A whaling voyage");
+        bookSearchService.reindex(added.getBookId());
+        assertEquals(List.of(added.getBookId()), ids(search("whale adventure")));
+        assertEquals("Adventure", search("voyage").get(0).getGenre());
+
+        bookDetailRepository.deleteById(added.getBookId());
+        bookRepository.deleteById(added.getBookId());
+        bookSearchService.reindex(List.of(added.getBookId(), gatsby.getBookId()));
+        assertEquals(List.of(), search("melville"));
+        assertEquals(List.of(gatsby.getBookId()), ids(search("gatsby")));
+    }
+
+    @Test
+    void pagesSplitTheHitsWithoutOverlap() {
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            books.add(book("Atlas volume " + i, "Cartographer", "Maps"));
+        }
+        bookSearchService.indexNewBooks(books);
+
+        Set<Integer> seen = new HashSet<>();
+        for (int page = 0; page < 3; page++) {
+            BookSearchService.SearchResult result = bookSearchService.search("atlas", page, 3);
+            assertEquals(7, result.totalHits());
+            assertEquals(page < 2 ? 3 : 1, result.hits().size());
+            result.hits().forEach(hit -> assertTrue(seen.add(hit.getBookId())));
+        }
+        assertEquals(7, seen.size());
+        assertEquals(List.of(), bookSearchService.search("atlas", 3, 3).hits());
+    }
+
+    @Test
+    void pagesBeyondTheResultWindowAreRejected() throws Exception {
+        assertTrue(BookSearchService.isWithinResultWindow(0, BookSearchService.MAX_RESULT_WINDOW));
+        assertTrue(BookSearchService.isWithinResultWindow(19, 500));
+        assertThrows(IllegalArgumentException.class, () -> bookSearchService.search("gatsby", 20, 500));
+        // (page + 1) * size wraps around to a small positive int
+        assertThrows(IllegalArgumentException.class, () -> bookSearchService.search("gatsby", 858_993_459, 5));
+        assertThrows(IllegalArgumentException.class, () -> bookSearchService.search("gatsby", Integer.MAX_VALUE, 1));
+
+        BookController controller = new BookController(mock(BookRepository.class), mock(BookService.class),
+                mock(CatalogImportService.class), bookSearchService, mock(ReviewService.class),
+                mock(PopularityService.class), new ObjectMapper());
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+
+        mockMvc.perform(get("/book/search").param("q", "scribner").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "2"))
+                .andExpect(jsonPath("$.length()").value(1));
+        mockMvc.perform(get("/book/search").param("q", "scribner").param("page", "858993459").param("size", "5"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/book/search").param("q", "scribner").param("page", String.valueOf(Integer.MAX_VALUE)))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/book/search").param("q", "scribner").param("page", "-1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private List<BookSearchHitDTO> search(String text) {
+        return bookSearchService.search(text, 0, 50).hits();
+    }
+
+    private Book book(String title, String author, String publisher) {
+        Book book = new Book();
+        book.setIsbn(String.valueOf(978_000_000_0000L + bookRepository.count()));
+        book.setTitle(title);
+        book.setAuthor(author);
+        book.setPublisher(publisher);
+        book.setAvailableCopies(1L);
+        return bookRepository.save(book);
+    }
+
+    private void detail(Book book, String genre, String summary) {
+        BookDetail detail = new BookDetail();
+        detail.setBookId(book.getBookId());
+        detail.setGenre(genre);
+        detail.setSummary(summary);
+        bookDetailRepository.save(detail);
+    }
+
+    private static List<Integer> ids(List<BookSearchHitDTO> hits) {
+        return hits.stream().map(BookSearchHitDTO::getBookId).toList();
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.networktechnologiesproject1.services;
+
+import com.example.networktechnologiesproject1.dataTransferObjects.CatalogEntryDTO;
+import com.example.networktechnologiesproject1.entities.Book;
+import com.example.networktechnologiesproject1.entities.BookDetail;
+import com.example.networktechnologiesproject1.entities.Loan;
+import com.example.networktechnologiesproject1.entities.Review;
+import com.example.networktechnologiesproject1.repositories.BookDetailRepository;
+import com.example.networktechnologiesproject1.repositories.BookRatingStatsRepository;
+import com.example.networktechnologiesproject1.repositories.BookRepository;
+import com.example.networktechnologiesproject1.repositories.LoanRepository;
+import com.example.networktechnologiesproject1.repositories.ReviewRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Checks that a catalog page is assembled correctly and with the same number of statements whatever its size.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({CatalogService.class, ReviewService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CatalogServiceTest {
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookDetailRepository bookDetailRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private BookRatingStatsRepository bookRatingStatsRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        loanRepository.deleteAll();
+        reviewRepository.deleteAll();
+        bookRatingStatsRepository.deleteAll();
+        bookDetailRepository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    void pageCombinesDetailsLoansAndRatings() {
+        Book described = bookRepository.save(book("9780000000101"));
+        Book plain = bookRepository.save(book("9780000000102"));
+
+        BookDetail detail = new BookDetail();
+        detail.setBookId(described.getBookId());
+        detail.setGenre("Fantasy");
+        bookDetailRepository.save(detail);
+        loanRepository.save(loan(described.getBookId(), null));
+        loanRepository.save(loan(described.getBookId(), null));
+        loanRepository.save(loan(described.getBookId(), new Date()));
+        reviewService.saveReview(review(described.getBookId(), 4.0));
+
+        List<CatalogEntryDTO> page = catalogService.findPage(0, 10);
+
+        assertEquals(2, page.size());
+        CatalogEntryDTO first = page.get(0);
+        assertEquals(described.getBookId(), first.getBook().getBookId());
+        assertEquals("Fantasy", first.getDetail().getGenre());
+        assertEquals(2L, first.getOpenLoans());
+        assertEquals(4.0, first.getRating().getAverageRating());
+
+        CatalogEntryDTO second = page.get(1);
+        assertEquals(plain.getBookId(), second.getBook().getBookId());
+        assertNull(second.getDetail());
+        assertEquals(0L, second.getOpenLoans());
+        assertEquals(0L, second.getRating().getReviewCount());
+    }
+
+    @Test
+    void statementCountDoesNotGrowWithPageSize() {
+        for (int i = 0; i < 20; i++) {
+            Book book = bookRepository.save(book(String.format("97800000002%02d", i)));
+            loanRepository.save(loan(book.getBookId(), null));
+            reviewService.saveReview(review(book.getBookId(), 3.0));
+        }
+
+        assertEquals(statementsFor(2), statementsFor(20));
+    }
+
+    private long statementsFor(int size) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        assertEquals(size, catalogService.findPage(0, size).size());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private static Book book(String isbn) {
+        Book book = new Book();
+        book.setIsbn(isbn);
+        book.setTitle("Title " + isbn);
+        book.setAuthor("Author");
+        book.setPublisher("Publisher");
+        book.setYear(2020L);
+        book.setAvailableCopies(3L);
+        return book;
+    }
+
+    private static Loan loan(Integer bookId, Date returnDate) {
+        Loan loan = new Loan();
+        loan.setBookId(bookId);
+        loan.setUserId(1);
+        loan.setLoanDate(new Date());
+        loan.setDueDate(new Date());
+        loan.setReturnDate(returnDate);
+        return loan;
+    }
+
+    private static Review review(Integer bookId, double rating) {
+        Review review = new Review();
+        review.setBookId(bookId);
+        review.setUserId(1);
+        review.setRating(rating);
+        review.setComment("Comment");
+        review.setReviewDate(new Date());
+        return review;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.networktechnologiesproject1.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that the leaderboard keeps the most borrowed books under decay, evicting from the heap only when beaten.
+ */
+class LeaderboardTest {
+
+    private static final long DAY = Duration.ofDays(1).toMillis();
+
+    @Test
+    void recentLoansOutrankOlderOnesAndCountsDecay() {
+        Leaderboard board = new Leaderboard(Duration.ofDays(1), 2, 0);
+        board.add(1, 3, 0);
+        board.add(2, 2, 0);
+        assertEquals(List.of(1, 2), ids(board.top(10, 0)));
+
+        // A day later, two fresh loans are worth more than three loans from a day ago (3/e < 2)
+        board.add(3, 2, DAY);
+        assertEquals(List.of(3, 1), ids(board.top(10, DAY)));
+        assertEquals(3 / Math.E, board.top(10, DAY).get(1).count(), 1e-9);
+
+        // Book 2 left the heap; it has to beat the lowest ranked book to come back (2/e + 0.3 < 3/e < 2/e + 0.6)
+        board.add(2, 0.3, DAY);
+        assertEquals(List.of(3, 1), ids(board.top(10, DAY)));
+        board.add(2, 0.3, DAY);
+        assertEquals(List.of(3, 2), ids(board.top(10, DAY)));
+        assertEquals(1, board.top(1, DAY).size());
+    }
+
+    @Test
+    void rebaseKeepsTheRankingAndForgetsNegligibleBooks() {
+        Leaderboard board = new Leaderboard(Duration.ofDays(1), 1, 0);
+        board.add(1, 5, 0);
+        board.add(2, 1, 0);
+        board.rebase(10 * DAY, PopularityService.MIN_COUNT);
+
+        assertEquals(List.of(1), ids(board.top(10, 10 * DAY)));
+        assertEquals(5 * Math.exp(-10), board.top(10, 10 * DAY).get(0).count(), 1e-12);
+
+        // Book 2 (e^-10 left) was forgotten: 2e-4 new loans stay below book 1 (5e^-10), though e^-10 + 2e-4 would not
+        board.add(2, 2e-4, 10 * DAY);
+        assertEquals(List.of(1), ids(board.top(10, 10 * DAY)));
+        board.add(2, 1e-4, 10 * DAY);
+        assertEquals(List.of(2), ids(board.top(10, 10 * DAY)));
+        assertEquals(3e-4, board.top(10, 10 * DAY).get(0).count(), 1e-12);
+    }
+
+    private static List<Integer> ids(List<Leaderboard.Ranked> ranked) {
+        return ranked.stream().map(Leaderboard.Ranked::bookId).toList();
+    }
+}
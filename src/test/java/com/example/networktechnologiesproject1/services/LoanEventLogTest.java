@@ -0,0 +1,104 @@
+package com.example.networktechnologiesproject1.services;
+
+import com.example.networktechnologiesproject1.dataTransferObjects.LoanEventDTO;
+import com.example.networktechnologiesproject1.entities.LoanEvent;
+import com.example.networktechnologiesproject1.entities.LoanEventType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Checks that the loan event log rolls segments, survives a reopen and drops a torn trailing record.
+ */
+class LoanEventLogTest {
+
+    private static final int RECORDS_PER_SEGMENT = 4;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void appendsAcrossSegmentsAndReplaysAfterReopen() throws IOException {
+        LoanEventLog log = open();
+        assertEquals(3, log.append(events(1, 3)));
+        assertEquals(10, log.append(events(4, 7)));
+        log.close();
+
+        assertEquals(3, segmentCount());
+
+        LoanEventLog reopened = open();
+        assertEquals(11, reopened.getNextSequence());
+        List<LoanEventDTO> replayed = new ArrayList<>();
+        reopened.replay(1, replayed::add);
+        assertEquals(10, replayed.size());
+        for (int i = 0; i < replayed.size(); i++) {
+            assertEquals(i + 1, replayed.get(i).getSequence());
+            assertEquals(i + 1, replayed.get(i).getEventId());
+        }
+
+        List<LoanEventDTO> page = reopened.read(4, 3);
+        assertEquals(List.of(4L, 5L, 6L), page.stream().map(LoanEventDTO::getSequence).toList());
+        assertEquals(LoanEventType.RETURN, page.get(0).getEventType());
+        assertEquals(40, page.get(0).getBookId());
+        assertNull(page.get(0).getUserId());
+        reopened.close();
+    }
+
+    @Test
+    void tornRecordIsOverwrittenOnReopen() throws IOException {
+        LoanEventLog log = open();
+        log.append(events(1, 3));
+        log.close();
+
+        try (RandomAccessFile segment = new RandomAccessFile(segments().get(0).toFile(), "rw")) {
+            segment.seek(2L * LoanEventLog.RECORD_SIZE + 30);
+            segment.write(0x7f);
+        }
+
+        LoanEventLog reopened = open();
+        assertEquals(3, reopened.getNextSequence());
+        assertEquals(3, reopened.append(events(100, 1)));
+        assertEquals(100, reopened.read(3, 10).get(0).getEventId());
+        reopened.close();
+    }
+
+    private LoanEventLog open() throws IOException {
+        return new LoanEventLog(directory, (long) RECORDS_PER_SEGMENT * LoanEventLog.RECORD_SIZE);
+    }
+
+    private long segmentCount() throws IOException {
+        return segments().size();
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static List<LoanEvent> events(long firstId, int count) {
+        List<LoanEvent> events = new ArrayList<>();
+        for (long id = firstId; id < firstId + count; id++) {
+            LoanEvent event = new LoanEvent();
+            event.setEventId(id);
+            event.setEventType(id % 2 == 0 ? LoanEventType.RETURN : LoanEventType.CHECKOUT);
+            event.setLoanId((int) id);
+            event.setBookId((int) id * 10);
+            event.setUserId(id % 2 == 0 ? null : 7);
+            event.setOccurredAt(new Date());
+            events.add(event);
+        }
+        return events;
+    }
+}
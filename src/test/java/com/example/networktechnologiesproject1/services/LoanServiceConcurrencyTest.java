@@ -0,0 +1,164 @@
+package com.example.networktechnologiesproject1.services;
+
+import com.example.networktechnologiesproject1.config.CacheConfiguration;
+import com.example.networktechnologiesproject1.entities.Book;
+import com.example.networktechnologiesproject1.entities.Loan;
+import com.example.networktechnologiesproject1.exceptions.BookNotAvailableException;
+import com.example.networktechnologiesproject1.exceptions.BookNotFoundException;
+import com.example.networktechnologiesproject1.exceptions.BookValidationException;
+import com.example.networktechnologiesproject1.exceptions.LoanValidationException;
+import com.example.networktechnologiesproject1.repositories.BookRepository;
+import com.example.networktechnologiesproject1.repositories.LoanRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Stress test for the checkout engine: many threads borrow the same title at once
+ * and the number of successful loans must never exceed the copies on the shelf.
+ * Editing a book or changing its copies must not overwrite copies taken in the meantime.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({LoanService.class, OverdueLoanTracker.class, UserLoanStatsService.class, PopularityService.class, BookDetailService.class, BookService.class, BookSearchService.class, CacheConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LoanServiceConcurrencyTest {
+
+    private static final int COPIES = 5;
+    private static final int BORROWERS = 64;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Integer bookId;
+
+    @BeforeEach
+    void setUp() {
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+        Book book = new Book();
+        book.setIsbn("9780000000001");
+        book.setTitle("Popular Title");
+        book.setAuthor("Some Author");
+        book.setPublisher("Some Publisher");
+        book.setYear(2020L);
+        book.setAvailableCopies((long) COPIES);
+        bookId = bookRepository.save(book).getBookId();
+    }
+
+    @Test
+    void concurrentCheckoutsNeverOversell() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < BORROWERS; i++) {
+            int userId = i;
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    loanService.checkout(newLoan(userId));
+                    succeeded.incrementAndGet();
+                } catch (BookNotAvailableException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(COPIES, succeeded.get());
+        assertEquals(BORROWERS - COPIES, rejected.get());
+        assertEquals(0L, bookRepository.findById(bookId).orElseThrow().getAvailableCopies());
+        assertEquals(COPIES, loanRepository.count());
+    }
+
+    @Test
+    void returnPutsCopyBackAndCannotBeRepeated() {
+        Loan loan = loanService.checkout(newLoan(1));
+        assertEquals(COPIES - 1L, bookRepository.findById(bookId).orElseThrow().getAvailableCopies());
+
+        loanService.returnLoan(loan.getLoanId());
+        assertEquals((long) COPIES, bookRepository.findById(bookId).orElseThrow().getAvailableCopies());
+
+        assertThrows(LoanValidationException.class, () -> loanService.returnLoan(loan.getLoanId()));
+        assertEquals((long) COPIES, bookRepository.findById(bookId).orElseThrow().getAvailableCopies());
+    }
+
+    @Test
+    void updatingABookKeepsCopiesTakenSinceItWasRead() {
+        Book changes = bookRepository.findById(bookId).orElseThrow();
+        changes.setTitle("Retitled");
+        changes.setAvailableCopies(100L);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            // The update's transaction reads the book, then a checkout commits before it writes
+            assertEquals((long) COPIES, bookRepository.findById(bookId).orElseThrow().getAvailableCopies());
+            CompletableFuture.runAsync(() -> loanService.checkout(newLoan(1))).join();
+            bookService.updateBook(bookId, changes);
+        });
+
+        Book book = bookRepository.findById(bookId).orElseThrow();
+        assertEquals("Retitled", book.getTitle());
+        assertEquals(COPIES - 1L, book.getAvailableCopies());
+    }
+
+    @Test
+    void copiesChangeRelativelyAndNeverBelowZero() {
+        loanService.checkout(newLoan(1));
+
+        assertEquals(COPIES + 2L, bookService.adjustAvailableCopies(bookId, 3).getAvailableCopies());
+        assertThrows(BookValidationException.class, () -> bookService.adjustAvailableCopies(bookId, -(COPIES + 3)));
+        assertEquals(0L, bookService.adjustAvailableCopies(bookId, -(COPIES + 2)).getAvailableCopies());
+        assertThrows(BookNotFoundException.class, () -> bookService.adjustAvailableCopies(bookId + 1, 1));
+    }
+
+    private Loan newLoan(int userId) {
+        Loan loan = new Loan();
+        loan.setBookId(bookId);
+        loan.setUserId(userId);
+        loan.setLoanDate(new Date());
+        loan.setDueDate(new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(14)));
+        return loan;
+    }
+}
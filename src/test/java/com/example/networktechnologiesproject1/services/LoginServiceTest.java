@@ -0,0 +1,174 @@
+package com.example.networktechnologiesproject1.services;
+
+import com.example.networktechnologiesproject1.entities.User;
+import com.example.networktechnologiesproject1.exceptions.GlobalExceptionHandler;
+import com.example.networktechnologiesproject1.exceptions.IncorrectPasswordException;
+import com.example.networktechnologiesproject1.exceptions.LoginThrottledException;
+import com.example.networktechnologiesproject1.exceptions.UserNotFoundException;
+import com.example.networktechnologiesproject1.repositories.UserRepository;
+import com.example.networktechnologiesproject1.security.JwtTokenProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks the login pipeline: one user lookup per login, outdated hashes rehashed after a successful login,
+ * a saturated hashing pool answered with 503, and every login timed under its outcome.
+ */
+class LoginServiceTest {
+
+    private static final String SECRET = "gwc6DZs9Nq75n5psJCOmLQh/ZlU4OU27ul5WglzRtVQ=";
+    private static final String PASSWORD = "correct horse";
+    // Low work factors keep the test fast; the application defaults to 10
+    private static final int STRENGTH = 5;
+
+    private final BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(STRENGTH);
+    private final PasswordEncoder passwordEncoder = passwordEncoder(bcrypt);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ThreadPoolExecutor passwordHashingExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(1), new ThreadPoolExecutor.AbortPolicy());
+    private final LoginService loginService = new LoginService(userRepository, passwordEncoder,
+            new JwtTokenProvider(SECRET), passwordHashingExecutor, meterRegistry);
+
+    @AfterEach
+    void tearDown() {
+        passwordHashingExecutor.shutdownNow();
+    }
+
+    @Test
+    void loginLooksUpTheUserOnceAndKeepsCurrentHashes() {
+        user("{bcrypt}" + bcrypt.encode(PASSWORD));
+
+        assertNotNull(loginService.login(form(PASSWORD)).join());
+
+        verify(userRepository, times(1)).findByUsername("reader");
+        verify(userRepository, never()).updatePassword(any(), anyString());
+        assertEquals(1, count("success"));
+    }
+
+    @Test
+    void outdatedHashesAreUpgradedOnLogin() {
+        String pbkdf2 = "{pbkdf2}" + Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8().encode(PASSWORD);
+        String weakBcrypt = "{bcrypt}" + new BCryptPasswordEncoder(4).encode(PASSWORD);
+        // Hashes stored before the {id} prefixes were introduced are plain BCrypt
+        String unprefixed = new BCryptPasswordEncoder(STRENGTH).encode(PASSWORD);
+
+        for (String outdated : new String[]{pbkdf2, weakBcrypt, unprefixed}) {
+            reset(userRepository);
+            user(outdated);
+            assertNotNull(loginService.login(form(PASSWORD)).join());
+
+            ArgumentCaptor<String> rehashed = ArgumentCaptor.forClass(String.class);
+            verify(userRepository, times(1)).findByUsername("reader");
+            verify(userRepository).updatePassword(eq(7), rehashed.capture());
+            assertTrue(rehashed.getValue().startsWith("{bcrypt}$2a$0" + STRENGTH + "$"), rehashed.getValue());
+            assertTrue(passwordEncoder.matches(PASSWORD, rehashed.getValue()));
+        }
+        assertEquals(3, count("success"));
+    }
+
+    @Test
+    void saturatedHashingPoolIsAnsweredWith503() throws Exception {
+        user("{bcrypt}" + bcrypt.encode(PASSWORD));
+        CountDownLatch release = new CountDownLatch(1);
+        // One login hashing, one waiting: the pool and its queue are full
+        passwordHashingExecutor.execute(() -> awaitQuietly(release));
+        passwordHashingExecutor.execute(() -> awaitQuietly(release));
+
+        LoginThrottledException throttled = assertThrows(LoginThrottledException.class, () -> loginService.login(form(PASSWORD)));
+        ResponseEntity<?> response = new GlobalExceptionHandler().handleLoginThrottledException(throttled);
+        assertEquals(503, response.getStatusCode().value());
+        assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(1, count("throttled"));
+
+        release.countDown();
+        while (!passwordHashingExecutor.getQueue().isEmpty()) {
+            Thread.sleep(1);
+        }
+        assertNotNull(loginService.login(form(PASSWORD)).join());
+        assertEquals(1, count("success"));
+    }
+
+    @Test
+    void failedLoginsAreTimedUnderTheirOutcome() {
+        user("{bcrypt}" + bcrypt.encode(PASSWORD));
+
+        CompletionException badPassword = assertThrows(CompletionException.class, () -> loginService.login(form("wrong")).join());
+        assertInstanceOf(IncorrectPasswordException.class, badPassword.getCause());
+        when(userRepository.findByUsername("reader")).thenReturn(Optional.empty());
+        assertThrows(UserNotFoundException.class, () -> loginService.login(form(PASSWORD)));
+
+        assertEquals(1, count("bad_password"));
+        assertEquals(1, count("unknown_user"));
+        verify(userRepository, never()).updatePassword(any(), anyString());
+    }
+
+    private void user(String passwordHash) {
+        User user = new User();
+        user.setUserId(7);
+        user.setUsername("reader");
+        user.setPassword(passwordHash);
+        user.setRole("ROLE_USER");
+        when(userRepository.findByUsername("reader")).thenReturn(Optional.of(user));
+    }
+
+    private long count(String outcome) {
+        return meterRegistry.get(LoginService.LOGIN_TIMER).tag("outcome", outcome).timer().count();
+    }
+
+    private static LoginForm form(String password) {
+        LoginForm form = new LoginForm();
+        form.setUsername("reader");
+        form.setPassword(password);
+        return form;
+    }
+
+    /**
+     * Mirrors SecurityConfig.passwordEncoder with BCrypt as the algorithm for new hashes.
+     */
+    private static PasswordEncoder passwordEncoder(BCryptPasswordEncoder bcrypt) {
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder("bcrypt",
+                Map.of("bcrypt", bcrypt, "pbkdf2", Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8()));
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
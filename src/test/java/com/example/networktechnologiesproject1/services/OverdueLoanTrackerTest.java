@@ -0,0 +1,121 @@
+package com.example.networktechnologiesproject1.services;
+
+import com.example.networktechnologiesproject1.config.CacheConfiguration;
+import com.example.networktechnologiesproject1.dataTransferObjects.LoanDTO;
+import com.example.networktechnologiesproject1.entities.Book;
+import com.example.networktechnologiesproject1.entities.Loan;
+import com.example.networktechnologiesproject1.entities.LoanEvent;
+import com.example.networktechnologiesproject1.entities.LoanEventType;
+import com.example.networktechnologiesproject1.repositories.BookRepository;
+import com.example.networktechnologiesproject1.repositories.LoanEventRepository;
+import com.example.networktechnologiesproject1.repositories.LoanRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Checks that the overdue detector reports each overdue loan once, also across a restart, and follows committed
+ * checkouts, updates, returns and deletions.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({OverdueLoanTracker.class, LoanService.class, UserLoanStatsService.class, PopularityService.class, BookDetailService.class, BookService.class, BookSearchService.class, CacheConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OverdueLoanTrackerTest {
+
+    @Autowired
+    private OverdueLoanTracker overdueLoanTracker;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private LoanEventRepository loanEventRepository;
+
+    private Integer bookId;
+
+    @BeforeEach
+    void setUp() {
+        loanEventRepository.deleteAll();
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+        Book book = new Book();
+        book.setIsbn("9780000000301");
+        book.setTitle("Title");
+        book.setAvailableCopies(10L);
+        bookId = bookRepository.save(book).getBookId();
+    }
+
+    @Test
+    void reportsOverdueLoansOnceInDueDateOrder() {
+        Loan lateLoan = loanService.checkout(loan(-2));
+        Loan laterLoan = loanService.checkout(loan(-5));
+        Loan current = loanService.checkout(loan(3));
+        loanService.checkout(loan(-1));
+        overdueLoanTracker.seed();
+
+        assertEquals(3, overdueLoanTracker.detect());
+        assertEquals(0, overdueLoanTracker.detect());
+        assertEquals(List.of(laterLoan.getLoanId(), lateLoan.getLoanId()),
+                overdueLoanTracker.findOverdue(0, 2).stream().map(LoanDTO::getLoanId).toList());
+        assertEquals(3, overdueEvents());
+        assertNotNull(loanRepository.findById(lateLoan.getLoanId()).orElseThrow().getOverdueNotifiedAt());
+
+        overdueLoanTracker.seed();
+        assertEquals(0, overdueLoanTracker.detect());
+        assertEquals(3, overdueLoanTracker.countOverdue());
+        assertEquals(3, overdueEvents());
+
+        // LoanService keeps the tracker current once each change commits
+        loanService.returnLoan(lateLoan.getLoanId());
+        assertEquals(2, overdueLoanTracker.countOverdue());
+        assertEquals(0, overdueLoanTracker.detect());
+        Loan newLoan = loanService.checkout(loan(-3));
+        Loan moved = new Loan();
+        moved.setBookId(bookId);
+        moved.setUserId(1);
+        moved.setLoanDate(current.getLoanDate());
+        moved.setDueDate(new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1)));
+        loanService.updateLoan(current.getLoanId(), moved);
+        assertEquals(2, overdueLoanTracker.detect());
+        assertEquals(4, overdueLoanTracker.countOverdue());
+        loanService.deleteLoan(newLoan.getLoanId());
+        assertEquals(3, overdueLoanTracker.countOverdue());
+    }
+
+    private long overdueEvents() {
+        List<LoanEvent> events = new ArrayList<>();
+        loanEventRepository.findAll().forEach(events::add);
+        return events.stream().filter(event -> event.getEventType() == LoanEventType.OVERDUE).count();
+    }
+
+    private Loan loan(int dueInDays) {
+        Loan loan = new Loan();
+        loan.setBookId(bookId);
+        loan.setUserId(1);
+        loan.setLoanDate(new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(14)));
+        loan.setDueDate(new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(dueInDays)));
+        return loan;
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.networktechnologiesproject1.services;
+
+import com.example.networktechnologiesproject1.config.CacheConfiguration;
+import com.example.networktechnologiesproject1.controllers.BookController;
+import com.example.networktechnologiesproject1.dataTransferObjects.PopularBookDTO;
+import com.example.networktechnologiesproject1.entities.BookDetail;
+import com.example.networktechnologiesproject1.exceptions.GlobalExceptionHandler;
+import com.example.networktechnologiesproject1.repositories.BookDetailRepository;
+import com.example.networktechnologiesproject1.repositories.BookPopularityRepository;
+import com.example.networktechnologiesproject1.repositories.BookRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that the popular books are ranked overall and per genre, that snapshots of several instances add up and
+ * restore the same ranking, and that /book/popular rejects unknown periods and limits out of range.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PopularityService.class, BookDetailService.class, BookSearchService.class, CacheConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PopularityServiceTest {
+
+    private static final double DELTA = 1e-3;
+
+    @Autowired
+    private PopularityService popularityService;
+
+    @Autowired
+    private BookDetailService bookDetailService;
+
+    @Autowired
+    private BookDetailRepository bookDetailRepository;
+
+    @Autowired
+    private BookPopularityRepository bookPopularityRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        bookPopularityRepository.deleteAll();
+        bookDetailRepository.deleteAll();
+        detail(1, "Fantasy");
+        detail(2, "Fantasy");
+        detail(3, "Poetry");
+    }
+
+    @Test
+    void ranksBooksOverallAndWithinTheirGenre() {
+        PopularityService service = newInstance();
+        record(service, 1, 1);
+        record(service, 2, 3);
+        record(service, 3, 2);
+        record(service, 4, 4);
+
+        assertEquals(List.of(4, 2, 3, 1), ids(service.findPopular(PopularityService.Period.DAY, null, 10)));
+        assertEquals(List.of(4, 2), ids(service.findPopular(PopularityService.Period.DAY, null, 2)));
+        assertEquals(List.of(2, 1), ids(service.findPopular(PopularityService.Period.WEEK, "Fantasy", 10)));
+        assertEquals(List.of(3), ids(service.findPopular(PopularityService.Period.MONTH, "Poetry", 10)));
+        assertEquals(List.of(), service.findPopular(PopularityService.Period.DAY, "Horror", 10));
+        assertEquals(4.0, service.findPopular(PopularityService.Period.MONTH, null, 1).get(0).getLoans(), DELTA);
+    }
+
+    @Test
+    void snapshotsOfSeveralInstancesAddUpAndRestoreTheRanking() {
+        PopularityService first = newInstance();
+        PopularityService second = newInstance();
+        record(first, 1, 2);
+        record(first, 3, 1);
+        record(second, 1, 1);
+        record(second, 2, 2);
+        assertEquals(2, first.snapshot());
+        assertEquals(2, second.snapshot());
+        // Nothing was borrowed since, so the next snapshot only decays what is stored
+        assertEquals(0, first.snapshot());
+
+        PopularityService restarted = newInstance();
+        assertEquals(3, restarted.restore());
+        for (PopularityService.Period period : PopularityService.Period.values()) {
+            List<PopularBookDTO> books = restarted.findPopular(period, null, 10);
+            assertEquals(List.of(1, 2, 3), ids(books));
+            assertEquals(3.0, books.get(0).getLoans(), DELTA);
+            assertEquals(2.0, books.get(1).getLoans(), DELTA);
+            assertEquals(1.0, books.get(2).getLoans(), DELTA);
+        }
+        assertEquals(List.of(1, 2), ids(restarted.findPopular(PopularityService.Period.WEEK, "Fantasy", 10)));
+        assertEquals(List.of(3), ids(restarted.findPopular(PopularityService.Period.WEEK, "Poetry", 10)));
+    }
+
+    @Test
+    void popularEndpointValidatesPeriodAndLimit() throws Exception {
+        record(popularityService, 1, 1);
+        BookController controller = new BookController(mock(BookRepository.class), mock(BookService.class),
+                mock(CatalogImportService.class), mock(BookSearchService.class), mock(ReviewService.class),
+                popularityService, new ObjectMapper());
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+
+        mockMvc.perform(get("/book/popular").param("period", "Day").param("genre", "Fantasy"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].rank").value(1))
+                .andExpect(jsonPath("$[0].bookId").value(1));
+        mockMvc.perform(get("/book/popular").param("period", "year"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/book/popular").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/book/popular").param("limit", String.valueOf(popularityService.getTopSize() + 1)))
+                .andExpect(status().isBadRequest());
+    }
+
+    private PopularityService newInstance() {
+        return new PopularityService(bookDetailService, bookPopularityRepository, transactionTemplate, 50, Duration.ofHours(1));
+    }
+
+    private static void record(PopularityService service, Integer bookId, int checkouts) {
+        for (int i = 0; i < checkouts; i++) {
+            service.recordCheckout(bookId);
+        }
+    }
+
+    private void detail(Integer bookId, String genre) {
+        BookDetail detail = new BookDetail();
+        detail.setBookId(bookId);
+        detail.setGenre(genre);
+        bookDetailRepository.save(detail);
+    }
+
+    private static List<Integer> ids(List<PopularBookDTO> books) {
+        return books.stream().map(PopularBookDTO::getBookId).toList();
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.networktechnologiesproject1.services;
+
+import com.example.networktechnologiesproject1.dataTransferObjects.BookRatingDTO;
+import com.example.networktechnologiesproject1.entities.Book;
+import com.example.networktechnologiesproject1.entities.Review;
+import com.example.networktechnologiesproject1.entities.User;
+import com.example.networktechnologiesproject1.exceptions.BookNotFoundException;
+import com.example.networktechnologiesproject1.exceptions.DuplicateReviewException;
+import com.example.networktechnologiesproject1.exceptions.UserNotFoundException;
+import com.example.networktechnologiesproject1.repositories.BookRatingStatsRepository;
+import com.example.networktechnologiesproject1.repositories.BookRepository;
+import com.example.networktechnologiesproject1.repositories.ReviewRepository;
+import com.example.networktechnologiesproject1.repositories.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Date;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that the rating aggregates kept up by review writes match a rebuild from the reviews, and that adding a
+ * review checks its user and book with one query and rejects unknown users, unknown books and second reviews.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ReviewService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReviewServiceRatingTest {
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private BookRatingStatsRepository bookRatingStatsRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        reviewRepository.deleteAll();
+        bookRatingStatsRepository.deleteAll();
+    }
+
+    @Test
+    void aggregatesFollowAddUpdateAndDelete() {
+        reviewService.saveReview(review(1, 1, 4.5));
+        Review moved = reviewService.saveReview(review(1, 2, 3.0));
+        Review deleted = reviewService.saveReview(review(1, 3, 5.0));
+        reviewService.saveReview(review(2, 4, 1.0));
+
+        reviewService.updateReview(moved.getReviewId(), review(2, 2, 2.0));
+        reviewService.deleteReview(deleted.getReviewId());
+
+        BookRatingDTO first = reviewService.findRating(1);
+        assertEquals(1, first.getReviewCount());
+        assertEquals(4.5, first.getAverageRating());
+        assertEquals(Map.of(1, 0L, 2, 0L, 3, 0L, 4, 1L, 5, 0L), first.getHistogram());
+
+        BookRatingDTO second = reviewService.findRating(2);
+        assertEquals(2, second.getReviewCount());
+        assertEquals(1.5, second.getAverageRating());
+        assertEquals(Map.of(1, 1L, 2, 1L, 3, 0L, 4, 0L, 5, 0L), second.getHistogram());
+
+        // Drifted aggregates are overwritten and those of books without reviews removed
+        transactionTemplate.executeWithoutResult(status -> {
+            bookRatingStatsRepository.applyDelta(1, 3, 6.0, 3, 0, 0, 0, 0);
+            bookRatingStatsRepository.applyDelta(3, 1, 4.0, 0, 0, 0, 1, 0);
+        });
+        assertEquals(2, reviewService.rebuildRatings());
+        assertRatingEquals(first, reviewService.findRating(1));
+        assertRatingEquals(second, reviewService.findRating(2));
+        assertEquals(0, reviewService.findRating(3).getReviewCount());
+    }
+
+    @Test
+    void updateOntoAnotherReviewOfTheSameUserAndBookIsRejected() {
+        reviewService.saveReview(review(1, 1, 4.0));
+        Review other = reviewService.saveReview(review(2, 1, 2.0));
+
+        assertThrows(DuplicateReviewException.class, () -> reviewService.updateReview(other.getReviewId(), review(1, 1, 5.0)));
+        assertEquals(1, reviewService.findRating(1).getReviewCount());
+        assertEquals(2.0, reviewService.findRating(2).getAverageRating());
+    }
+
+    @Test
+    void addReviewInsertsOnlyFirstReviewOfKnownUserAndBook() {
+        Book book = new Book();
+        book.setIsbn("review-" + System.nanoTime());
+        book.setTitle("Reviewed");
+        book.setAvailableCopies(1L);
+        Integer bookId = bookRepository.save(book).getBookId();
+        User user = new User();
+        user.setUsername("reviewer-" + System.nanoTime());
+        Integer userId = userRepository.save(user).getUserId();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        Review added = reviewService.addReview(review(bookId, userId, 4.0));
+        // One query checks the user and the book, then the insert and the rating upsert
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertEquals(added.getBookId(), reviewRepository.findById(added.getReviewId()).orElseThrow().getBookId());
+        assertEquals(1, reviewService.findRating(bookId).getReviewCount());
+
+        assertThrows(DuplicateReviewException.class, () -> reviewService.addReview(review(bookId, userId, 2.0)));
+        assertThrows(UserNotFoundException.class, () -> reviewService.addReview(review(bookId, userId + 1000, 2.0)));
+        assertThrows(BookNotFoundException.class, () -> reviewService.addReview(review(bookId + 1000, userId, 2.0)));
+        // Other integrity violations are not reported as duplicates
+        Review tooLong = review(bookId, userId, 2.0);
+        tooLong.setComment("x".repeat(256));
+        assertThrows(DataIntegrityViolationException.class, () -> reviewService.addReview(tooLong));
+        assertEquals(1, reviewRepository.count());
+        assertEquals(4.0, reviewService.findRating(bookId).getAverageRating());
+
+        userRepository.deleteById(userId);
+    }
+
+    @Test
+    void bookWithoutReviewsHasNoAverage() {
+        BookRatingDTO rating = reviewService.findRating(42);
+        assertEquals(0, rating.getReviewCount());
+        assertNull(rating.getAverageRating());
+    }
+
+    private static void assertRatingEquals(BookRatingDTO expected, BookRatingDTO actual) {
+        assertEquals(expected.getReviewCount(), actual.getReviewCount());
+        assertEquals(expected.getRatingSum(), actual.getRatingSum());
+        assertEquals(expected.getHistogram(), actual.getHistogram());
+    }
+
+    private static Review review(Integer bookId, Integer userId, double rating) {
+        Review review = new Review();
+        review.setBookId(bookId);
+        review.setUserId(userId);
+        review.setRating(rating);
+        review.setComment("Comment");
+        review.setReviewDate(new Date());
+        return review;
+    }
+}
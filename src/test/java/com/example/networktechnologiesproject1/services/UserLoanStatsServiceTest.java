@@ -0,0 +1,130 @@
+package com.example.networktechnologiesproject1.services;
+
+import com.example.networktechnologiesproject1.config.CacheConfiguration;
+import com.example.networktechnologiesproject1.dataTransferObjects.LoanDTO;
+import com.example.networktechnologiesproject1.entities.Book;
+import com.example.networktechnologiesproject1.entities.Loan;
+import com.example.networktechnologiesproject1.entities.UserLoanStats;
+import com.example.networktechnologiesproject1.repositories.BookRepository;
+import com.example.networktechnologiesproject1.repositories.LoanEventRepository;
+import com.example.networktechnologiesproject1.repositories.LoanRepository;
+import com.example.networktechnologiesproject1.repositories.UserLoanStatsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Checks that the loan counters kept up by loan writes match a rebuild from the loan table.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({LoanService.class, OverdueLoanTracker.class, UserLoanStatsService.class, PopularityService.class, BookDetailService.class, BookService.class, BookSearchService.class, CacheConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserLoanStatsServiceTest {
+
+    private static final int READER = 7;
+    private static final int OTHER_READER = 8;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private UserLoanStatsService userLoanStatsService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private LoanEventRepository loanEventRepository;
+
+    @Autowired
+    private UserLoanStatsRepository userLoanStatsRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Integer bookId;
+
+    @BeforeEach
+    void setUp() {
+        loanEventRepository.deleteAll();
+        loanRepository.deleteAll();
+        userLoanStatsRepository.deleteAll();
+        bookRepository.deleteAll();
+        Book book = new Book();
+        book.setIsbn("9780000000401");
+        book.setTitle("Title");
+        book.setAvailableCopies(10L);
+        bookId = bookRepository.save(book).getBookId();
+    }
+
+    @Test
+    void countersFollowCheckoutReturnOverdueUpdateAndDelete() {
+        Loan returned = loanService.checkout(loan(READER, 7));
+        Loan overdue = loanService.checkout(loan(READER, -1));
+        Loan moved = loanService.checkout(loan(READER, 7));
+        Loan deleted = loanService.checkout(loan(READER, 7));
+        loanService.checkout(loan(READER, 14));
+
+        loanService.returnLoan(returned.getLoanId());
+        assertEquals(1, loanService.markOverdue(List.of(toDTO(overdue))));
+        assertEquals(0, loanService.markOverdue(List.of(toDTO(overdue))));
+        loanService.updateLoan(moved.getLoanId(), loan(OTHER_READER, 7));
+        loanService.deleteLoan(deleted.getLoanId());
+
+        assertCounters(READER, 2, 1, 3);
+        assertCounters(OTHER_READER, 1, 0, 1);
+
+        // Drifted counters are overwritten and those of users without loans removed
+        transactionTemplate.executeWithoutResult(status -> {
+            userLoanStatsRepository.applyDelta(READER, 5, 0, 5);
+            userLoanStatsRepository.applyDelta(42, 1, 1, 1);
+        });
+        assertEquals(2, userLoanStatsService.rebuild());
+        assertCounters(READER, 2, 1, 3);
+        assertCounters(OTHER_READER, 1, 0, 1);
+        assertFalse(userLoanStatsRepository.existsById(42));
+
+        loanService.returnLoan(overdue.getLoanId());
+        assertCounters(READER, 1, 0, 3);
+        assertCounters(42, 0, 0, 0);
+    }
+
+    private void assertCounters(int userId, long active, long overdue, long lifetime) {
+        UserLoanStats stats = userLoanStatsService.findStats(userId);
+        assertEquals(active, stats.getActiveLoans());
+        assertEquals(overdue, stats.getOverdueLoans());
+        assertEquals(lifetime, stats.getLifetimeLoans());
+    }
+
+    private static LoanDTO toDTO(Loan loan) {
+        return new LoanDTO(loan.getLoanId(), loan.getBookId(), loan.getUserId(), loan.getLoanDate(), loan.getDueDate(), loan.getReturnDate());
+    }
+
+    private Loan loan(int userId, int dueInDays) {
+        Loan loan = new Loan();
+        loan.setBookId(bookId);
+        loan.setUserId(userId);
+        loan.setLoanDate(new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(14)));
+        loan.setDueDate(new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(dueInDays)));
+        return loan;
+    }
+}